@@ -0,0 +1,74 @@
+#!/usr/bin/env sh
+# Smoke test del ejecutable nativo contra un PostgreSQL local en Docker: arranca la aplicación,
+# aplica las migraciones y recorre los caminos que dependen de las runtime hints (mapeo de
+# entidades, DTOs, proyecciones, PATCH, springdoc y métricas de consultas).
+# Uso: mvn -Pnative package && scripts/native-smoke-test.sh  (o make native-smoke)
+set -eu
+
+BINARY=${BINARY:-target/indexer}
+PG_PORT=${SMOKE_PG_PORT:-55432}
+APP_PORT=${SMOKE_APP_PORT:-18090}
+CONTAINER=indexer-native-smoke
+BASE="http://localhost:${APP_PORT}/api"
+LOG=target/native-smoke.log
+APP_PID=
+
+cleanup() {
+    if [ -n "$APP_PID" ]; then
+        kill "$APP_PID" 2>/dev/null || true
+    fi
+    docker rm -f "$CONTAINER" >/dev/null 2>&1 || true
+}
+trap cleanup EXIT
+
+fail() {
+    echo "FAIL: $1"
+    echo "--- $LOG ---"
+    tail -n 50 "$LOG"
+    exit 1
+}
+
+[ -x "$BINARY" ] || { echo "$BINARY not found, run mvn -Pnative package first"; exit 1; }
+
+echo "Starting PostgreSQL on port $PG_PORT..."
+docker run -d --name "$CONTAINER" -e POSTGRES_DB=chillflix -e POSTGRES_USER=postgres \
+    -e POSTGRES_PASSWORD=postgres -p "$PG_PORT:5432" postgres:16-alpine >/dev/null
+until docker exec "$CONTAINER" pg_isready -U postgres -d chillflix >/dev/null 2>&1; do
+    sleep 1
+done
+# Esquema base (V1); Flyway aplica el resto al arrancar
+docker exec -i "$CONTAINER" psql -q -U postgres -d chillflix < migration/general.sql >/dev/null
+
+echo "Starting $BINARY on port $APP_PORT..."
+START=$(date +%s%3N)
+R2DBC_URL="r2dbc:postgresql://localhost:$PG_PORT/chillflix" R2DBC_USERNAME=postgres R2DBC_PASSWORD=postgres \
+FLYWAY_URL="jdbc:postgresql://localhost:$PG_PORT/chillflix" FLYWAY_USER=postgres FLYWAY_PASSWORD=postgres \
+SPRING_PROFILES_ACTIVE=prod \
+    "$BINARY" -Dserver.port="$APP_PORT" > "$LOG" 2>&1 &
+APP_PID=$!
+
+TRIES=0
+until curl -fs "$BASE/v1/movies/count" >/dev/null 2>&1; do
+    kill -0 "$APP_PID" 2>/dev/null || fail "application exited"
+    TRIES=$((TRIES + 1))
+    [ "$TRIES" -lt 600 ] || fail "no successful request within 60s"
+    sleep 0.1
+done
+echo "First successful request after $(( $(date +%s%3N) - START )) ms"
+
+MAGNET='magnet:?xt=urn:btih:0123456789abcdef0123456789abcdef01234567&dn=smoke&tr=udp%3A%2F%2Ftracker.opentrackr.org%3A1337%2Fannounce'
+CREATED=$(curl -fsS -H 'Content-Type: application/json' \
+    -d "{\"title\":\"Native Smoke\",\"year\":2024,\"magnet\":\"$MAGNET\",\"language\":\"en\"}" \
+    "$BASE/v1/movies") || fail "POST /v1/movies"
+ID=$(echo "$CREATED" | sed -n 's/.*"id":"\([0-9a-f-]*\)".*/\1/p')
+[ -n "$ID" ] || fail "no id in $CREATED"
+
+curl -fsS "$BASE/v1/movies/$ID" | grep -q '"title":"Native Smoke"' || fail "GET /v1/movies/$ID"
+curl -fsS -X PATCH -H 'Content-Type: application/merge-patch+json' -d '{"quality":"1080p"}' \
+    "$BASE/v1/movies/$ID" >/dev/null || fail "PATCH /v1/movies/$ID"
+curl -fsS "$BASE/v1/movies/$ID" | grep -q '"quality":"1080p"' || fail "patched quality"
+curl -fsS "$BASE/v1/movies/top-languages" | grep -q '"language":"en"' || fail "GET /v1/movies/top-languages"
+curl -fsS "$BASE/v3/api-docs" | grep -q '"MovieDTO"' || fail "GET /v3/api-docs"
+curl -fsS "$BASE/actuator/metrics/db.query" | grep -q 'MovieRepository' || fail "db.query metrics"
+
+echo "Native smoke test passed"
@@ -0,0 +1,125 @@
+package com.chillflix.indexer.benchmark;
+
+import com.chillflix.indexer.codec.BinaryJacksonEncoder;
+import com.chillflix.indexer.codec.ProtobufJacksonEncoder;
+import com.chillflix.indexer.dto.MovieDTO;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.Hints;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.AbstractJackson2Encoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding time and size of a page of movies in each response format, with the encoders and
+ * Jackson configuration the application registers. The page is what {@code GET /v1/movies}
+ * returns: {@code size} movies with overview, genres and timestamps. The {@code bytes} counter is
+ * the size of one encoded page: {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args=Encoding}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EncodingBenchmark {
+
+    public enum Format { JSON, SMILE, CBOR, PROTOBUF }
+
+    @Param({"JSON", "SMILE", "CBOR", "PROTOBUF"})
+    public Format format;
+
+    @Param({"20"})
+    public int size;
+
+    private AbstractJackson2Encoder encoder;
+    private MediaType mediaType;
+    private List<MovieDTO> page;
+    private final ResolvableType pageType = ResolvableType.forClassWithGenerics(List.class, MovieDTO.class);
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Size {
+        public long bytes;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        switch (format) {
+            case JSON -> {
+                encoder = new Jackson2JsonEncoder(builder.build());
+                mediaType = MediaType.APPLICATION_JSON;
+            }
+            case SMILE -> {
+                encoder = new BinaryJacksonEncoder(builder.factory(new SmileFactory()).build(), BinaryJacksonEncoder.APPLICATION_SMILE);
+                mediaType = BinaryJacksonEncoder.APPLICATION_SMILE;
+            }
+            case CBOR -> {
+                encoder = new BinaryJacksonEncoder(builder.factory(new CBORFactory()).build(), MediaType.APPLICATION_CBOR);
+                mediaType = MediaType.APPLICATION_CBOR;
+            }
+            case PROTOBUF -> {
+                ProtobufMapper protobufMapper = new ProtobufMapper();
+                builder.configure(protobufMapper);
+                encoder = new ProtobufJacksonEncoder(protobufMapper, type -> type == MovieDTO.class);
+                mediaType = ProtobufJacksonEncoder.APPLICATION_PROTOBUF;
+            }
+        }
+        page = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            page.add(movie(i));
+        }
+    }
+
+    @Benchmark
+    public int encodePage(Size counters) {
+        DataBuffer buffer = encoder.encodeValue(page, DefaultDataBufferFactory.sharedInstance, pageType, mediaType, Hints.none());
+        int bytes = buffer.readableByteCount();
+        DataBufferUtils.release(buffer);
+        counters.bytes += bytes;
+        return bytes;
+    }
+
+    private static MovieDTO movie(int i) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LocalDateTime created = LocalDateTime.of(2024, 1, 1, 0, 0).plusMinutes(random.nextInt(500_000));
+        return new MovieDTO(UUID.randomUUID(), "The Benchmark Chronicles, Part " + i, 1990 + random.nextInt(35),
+                "magnet:?xt=urn:btih:" + UUID.randomUUID().toString().replace("-", "") + "01234567&dn=benchmark"
+                        + "&tr=udp%3A%2F%2Ftracker.opentrackr.org%3A1337%2Fannounce",
+                100_000 + random.nextInt(900_000), "tt" + (1_000_000 + random.nextInt(9_000_000)), "en", "en", "1080p", "mkv",
+                UUID.randomUUID().toString().replace("-", "") + UUID.randomUUID().toString().replace("-", ""),
+                false, created, created.plusDays(3),
+                "A retired archivist is pulled back into one last job when a forgotten reel surfaces in a flooded "
+                        + "basement, and the only person who can read its faded labels is the rival she swore never to call again.",
+                "/t6HIqrRAclMCA60NsSmeqe9RmNV.jpg", List.of("Drama", "Mystery", "Thriller"), null,
+                "https://www.youtube.com/watch?v=dQw4w9WgXcQ", 1_500_000_000L + random.nextInt(1_000_000_000),
+                random.nextInt(2000), random.nextInt(500));
+    }
+}
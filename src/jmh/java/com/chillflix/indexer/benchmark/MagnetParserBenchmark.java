@@ -0,0 +1,64 @@
+package com.chillflix.indexer.benchmark;
+
+import com.chillflix.indexer.util.MagnetParser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the previous validation path (DTO {@code @Pattern} regex, {@code indexOf}/{@code substring}
+ * hash extraction and {@code String.matches} lowercase check) with {@link MagnetParser}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MagnetParserBenchmark {
+
+    private static final Pattern DTO_PATTERN =
+            Pattern.compile("^magnet:\\?xt=urn:[a-z0-9]+:[a-z0-9]{32,40}&dn=.+&tr=.+$");
+    private static final String BTIH_PREFIX = "urn:btih:";
+
+    private final String magnet = "magnet:?xt=urn:btih:c12fe1c06bba254a9dc9f519b335aa7c1367a88a"
+            + "&dn=Big+Buck+Bunny+2008+1080p&tr=udp%3A%2F%2Ftracker.opentrackr.org%3A1337%2Fannounce"
+            + "&tr=udp%3A%2F%2Fopen.stealth.si%3A80%2Fannounce&tr=udp%3A%2F%2Fexodus.desync.com%3A6969";
+
+    @Benchmark
+    public void regexPath(Blackhole bh) {
+        boolean valid = DTO_PATTERN.matcher(magnet).matches();
+        int index = magnet.indexOf(BTIH_PREFIX);
+        String hash = magnet.substring(index + BTIH_PREFIX.length());
+        int end = hash.indexOf('&');
+        if (end != -1) {
+            hash = hash.substring(0, end);
+        }
+        bh.consume(valid);
+        bh.consume(hash.matches(".*[a-f].*"));
+    }
+
+    @Benchmark
+    public void parser(Blackhole bh) {
+        MagnetParser.Result result = MagnetParser.parse(magnet);
+        String hash = result.link().infoHash();
+        boolean lowercase = false;
+        for (int i = 0; i < hash.length() && !lowercase; i++) {
+            char c = hash.charAt(i);
+            lowercase = c >= 'a' && c <= 'f';
+        }
+        bh.consume(result.isValid());
+        bh.consume(lowercase);
+    }
+}
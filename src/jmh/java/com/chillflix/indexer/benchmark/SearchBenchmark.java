@@ -0,0 +1,80 @@
+package com.chillflix.indexer.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of a search across every media type, against a running instance ({@code make run}):
+ * the five per-type {@code /search} requests the client used to send in parallel and merge, versus
+ * one {@code /v1/search}. Sample time mode reports the percentiles, where the slowest of five
+ * requests shows; run with {@code -t} threads to load the server:
+ * {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="Search -t 4"}
+ * <p>
+ * {@code BENCHMARK_HTTP_URL} (default {@code http://localhost:8090/api}) points at another instance.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SearchBenchmark {
+
+    public enum Strategy { CLIENT_FAN_OUT, UNIFIED }
+
+    private static final List<String> TYPES = List.of("movies", "series", "music", "videos", "videogames");
+
+    @Param({"CLIENT_FAN_OUT", "UNIFIED"})
+    public Strategy strategy;
+
+    @Param({"star"})
+    public String term;
+
+    @Param({"20"})
+    public int limit;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private List<HttpRequest> requests;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String baseUrl = System.getenv().getOrDefault("BENCHMARK_HTTP_URL", "http://localhost:8090/api");
+        String query = "term=" + URLEncoder.encode(term, StandardCharsets.UTF_8);
+        requests = strategy == Strategy.UNIFIED
+                ? List.of(get(baseUrl + "/v1/search?" + query + "&limit=" + limit))
+                : TYPES.stream().map(type -> get(baseUrl + "/v1/" + type + "/search?" + query + "&size=" + limit)).toList();
+    }
+
+    @Benchmark
+    public Object search() {
+        // Como el cliente: todas a la vez, y la respuesta está cuando llega la última
+        CompletableFuture<?>[] responses = requests.stream()
+                .map(request -> httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()))
+                .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(responses).join();
+    }
+
+    private static HttpRequest get(String url) {
+        return HttpRequest.newBuilder(URI.create(url)).header("Accept", "application/json").build();
+    }
+}
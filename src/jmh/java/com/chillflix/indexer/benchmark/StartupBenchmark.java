@@ -0,0 +1,123 @@
+package com.chillflix.indexer.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time from launching the JVM to the first successful {@code GET /api/v1/movies/count}, for the
+ * plain executable JAR versus the {@code startup} profile output (AOT-processed, extracted, with
+ * the AppCDS archive of its training run). The count goes through the pools and the database, so
+ * the measure includes everything a scaled-from-zero machine pays before answering.
+ * <p>
+ * Build both variants first ({@code make package-startup}) and export the same {@code R2DBC_*}
+ * variables as {@code make run}; the application is started on port 18089:
+ * {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args=Startup}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 10)
+@Fork(1)
+public class StartupBenchmark {
+
+    private static final int PORT = 18089;
+    private static final Duration TIMEOUT = Duration.ofMinutes(2);
+
+    public enum StartupMode { JAR, AOT_CDS }
+
+    @Param({"JAR", "AOT_CDS"})
+    public StartupMode mode;
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+    private Process process;
+
+    @Benchmark
+    public int timeToFirstRequest() throws Exception {
+        process = new ProcessBuilder(command())
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + PORT + "/api/v1/movies/count"))
+                .timeout(Duration.ofSeconds(5))
+                .build();
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Application exited with code " + process.exitValue());
+            }
+            try {
+                HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() == 200) {
+                    return response.statusCode();
+                }
+            } catch (IOException e) {
+                // Todavía no escucha en el puerto
+            }
+            Thread.sleep(5);
+        }
+        throw new IllegalStateException("No successful request within " + TIMEOUT);
+    }
+
+    @TearDown(Level.Invocation)
+    public void stop() throws InterruptedException {
+        if (process != null) {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+            process = null;
+        }
+    }
+
+    private List<String> command() {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        List<String> command = new ArrayList<>(List.of(java, "-Dserver.port=" + PORT));
+        if (mode == StartupMode.AOT_CDS) {
+            Path archive = Path.of("target", "startup", "app.jsa");
+            if (!Files.exists(archive)) {
+                throw new IllegalStateException(archive + " not found, run make package-startup first");
+            }
+            command.addAll(List.of("-XX:SharedArchiveFile=" + archive, "-Dspring.aot.enabled=true",
+                    "-Dspring.main.lazy-initialization=false", "-jar", jar(Path.of("target", "startup")).toString()));
+        } else {
+            command.addAll(List.of("-jar", jar(Path.of("target")).toString()));
+        }
+        return command;
+    }
+
+    private static Path jar(Path directory) {
+        String override = System.getenv("BENCHMARK_JAR");
+        if (override != null && directory.getFileName().toString().equals("target")) {
+            return Path.of(override);
+        }
+        File[] jars = directory.toFile().listFiles((dir, name) -> name.startsWith("indexer-") && name.endsWith(".jar"));
+        if (jars == null || jars.length == 0) {
+            throw new IllegalStateException("No application jar in " + directory);
+        }
+        return jars[0].toPath();
+    }
+}
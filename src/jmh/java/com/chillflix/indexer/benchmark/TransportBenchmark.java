@@ -0,0 +1,103 @@
+package com.chillflix.indexer.benchmark;
+
+import com.chillflix.indexer.dto.MovieDTO;
+import com.chillflix.indexer.rsocket.CatalogRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.messaging.rsocket.RSocketRequester;
+import org.springframework.messaging.rsocket.RSocketStrategies;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookup latency of a movie by id over the REST API versus the RSocket interface, against a
+ * running instance ({@code make run}). The ids are the first {@code sample} of the catalog, read
+ * through the {@code movies.catalog} stream. Both transports answer from the same cache, so the
+ * difference is the per-request cost of HTTP and JSON; run with {@code -t} threads to load the
+ * server: {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="Transport -t 8"}
+ * <p>
+ * {@code BENCHMARK_HTTP_URL} (default {@code http://localhost:8090/api}) and
+ * {@code BENCHMARK_RSOCKET_PORT} (default 7000) point at another instance.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TransportBenchmark {
+
+    public enum Transport { HTTP, RSOCKET }
+
+    @Param({"HTTP", "RSOCKET"})
+    public Transport transport;
+
+    @Param({"1000"})
+    public int sample;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private String baseUrl;
+    private RSocketRequester requester;
+    private List<UUID> ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        baseUrl = System.getenv().getOrDefault("BENCHMARK_HTTP_URL", "http://localhost:8090/api");
+        int port = Integer.parseInt(System.getenv().getOrDefault("BENCHMARK_RSOCKET_PORT", "7000"));
+        requester = RSocketRequester.builder()
+                .rsocketStrategies(RSocketStrategies.builder()
+                        .encoders(encoders -> encoders.add(new Jackson2CborEncoder()))
+                        .decoders(decoders -> decoders.add(new Jackson2CborDecoder()))
+                        .build())
+                .dataMimeType(MediaType.APPLICATION_CBOR)
+                .tcp(URI.create(baseUrl).getHost(), port);
+        ids = requester.route("movies.catalog")
+                .data(new CatalogRequest(null, 500))
+                .retrieveFlux(MovieDTO.class)
+                .take(sample)
+                .map(MovieDTO::id)
+                .collectList()
+                .block();
+        if (ids == null || ids.isEmpty()) {
+            throw new IllegalStateException("No movies to look up");
+        }
+    }
+
+    @Benchmark
+    public Object lookupById() throws Exception {
+        UUID id = ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+        if (transport == Transport.HTTP) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/v1/movies/" + id))
+                    .header("Accept", MediaType.APPLICATION_JSON_VALUE)
+                    .build();
+            return httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray()).body();
+        }
+        return requester.route("movies.by-id").data(id).retrieveMono(MovieDTO.class).block();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        requester.dispose();
+    }
+}
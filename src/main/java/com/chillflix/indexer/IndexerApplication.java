@@ -5,11 +5,16 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.jmx.JmxAutoConfiguration;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.core.Ordered;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.reactive.config.EnableWebFlux;
 
 @SpringBootApplication(exclude = {JmxAutoConfiguration.class})
 @EnableWebFlux
-@EnableCaching
+// Por fuera de @Transactional: las evicciones llegan después del commit y una lectura concurrente no
+// vuelve a cachear la fila anterior
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
+@EnableScheduling
 public class IndexerApplication {
 
     public static void main(String[] args) {
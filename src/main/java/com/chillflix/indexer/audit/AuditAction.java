@@ -0,0 +1,10 @@
+package com.chillflix.indexer.audit;
+
+/**
+ * Values of {@code audit_log.action}, as written by the {@code log_audit()} trigger.
+ */
+public enum AuditAction {
+    INSERT,
+    UPDATE,
+    DELETE
+}
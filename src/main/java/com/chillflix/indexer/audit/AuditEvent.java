@@ -0,0 +1,17 @@
+package com.chillflix.indexer.audit;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * One pending {@code audit_log} row. {@code changes} is already serialised to JSON so the event
+ * is a snapshot of the row at the time of the change.
+ */
+public record AuditEvent(
+    String entityType,
+    UUID entityId,
+    AuditAction action,
+    String changes,
+    OffsetDateTime timestamp
+) {
+}
@@ -0,0 +1,63 @@
+package com.chillflix.indexer.audit;
+
+import com.chillflix.indexer.dto.AuditLogDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Paged reads of {@code audit_log} for one entity, newest first, served by the
+ * {@code (entity_type, entity_id, timestamp)} index on every partition. Only the media tables
+ * ({@link AuditOutbox#AUDITABLE_TABLES}) are readable: users, roles and jobs are audited too, and
+ * their history is not for the public API.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AuditHistoryService {
+
+    private final DatabaseClient databaseClient;
+    private final ObjectMapper objectMapper;
+
+    public boolean isReadable(String entityType) {
+        return AuditOutbox.AUDITABLE_TABLES.contains(entityType);
+    }
+
+    public Flux<AuditLogDTO> getHistory(String entityType, UUID entityId, PageRequest pageRequest) {
+        log.debug("Fetching audit history of {} {}", entityType, entityId);
+        return databaseClient.sql("SELECT id, entity_type, entity_id, action, user_id, CAST(changes AS text) AS changes, \"timestamp\""
+                        + " FROM audit_log WHERE entity_type = :entityType AND entity_id = :entityId"
+                        + " ORDER BY \"timestamp\" DESC, id DESC LIMIT :limit OFFSET :offset")
+                .bind("entityType", entityType)
+                .bind("entityId", entityId)
+                .bind("limit", pageRequest.getPageSize())
+                .bind("offset", pageRequest.getOffset())
+                .map(this::toDto)
+                .all();
+    }
+
+    private AuditLogDTO toDto(Readable row) {
+        String changes = row.get("changes", String.class);
+        try {
+            return new AuditLogDTO(
+                    row.get("id", Long.class),
+                    row.get("entity_type", String.class),
+                    row.get("entity_id", UUID.class),
+                    row.get("action", String.class),
+                    row.get("user_id", String.class),
+                    changes == null ? null : objectMapper.readTree(changes),
+                    row.get("timestamp", OffsetDateTime.class));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Invalid audit_log.changes JSON", e);
+        }
+    }
+}
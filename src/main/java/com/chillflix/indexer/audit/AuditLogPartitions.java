@@ -0,0 +1,140 @@
+package com.chillflix.indexer.audit;
+
+import com.chillflix.indexer.routing.DatabaseRouting;
+import com.chillflix.indexer.routing.WorkloadClass;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+
+/**
+ * Maintenance of the monthly {@code audit_log_pYYYYMM} partitions created by the V3 migration:
+ * keeps {@code audit.partitions-ahead} future months created and detaches and drops the months
+ * older than {@code audit.retention-months} (0, the default, keeps everything). Runs at startup and on
+ * {@code audit.partition-maintenance-cron}; every statement is idempotent, so several instances
+ * may run it at once. Each month is created or dropped on its own: one that fails is logged and
+ * the others still run.
+ * <p>
+ * Rows written to {@code audit_log_default} for a month that had no partition yet are moved into
+ * it when it is created, since Postgres refuses a new partition whose range the default partition
+ * already holds rows for.
+ */
+@Slf4j
+@Component
+@Lazy(false)
+public class AuditLogPartitions {
+
+    static final String PREFIX = "audit_log_p";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final DatabaseClient databaseClient;
+    private final int partitionsAhead;
+    private final int retentionMonths;
+
+    public AuditLogPartitions(DatabaseClient databaseClient,
+                              @Value("${audit.partitions-ahead:3}") int partitionsAhead,
+                              @Value("${audit.retention-months:0}") int retentionMonths) {
+        this.databaseClient = databaseClient;
+        this.partitionsAhead = partitionsAhead;
+        this.retentionMonths = retentionMonths;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        maintain().subscribe(__ -> { }, error -> log.error("audit_log partition maintenance failed", error));
+    }
+
+    @Scheduled(cron = "${audit.partition-maintenance-cron:0 15 3 * * *}", zone = "UTC")
+    public void scheduledMaintenance() {
+        maintain().subscribe(__ -> { }, error -> log.error("audit_log partition maintenance failed", error));
+    }
+
+    public Mono<Void> maintain() {
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        return createAhead(current)
+                .then(dropExpired(current))
+                .onErrorResume(error -> {
+                    log.error("audit_log partition maintenance failed", error);
+                    return Mono.empty();
+                })
+                .contextWrite(DatabaseRouting.with(WorkloadClass.BACKGROUND));
+    }
+
+    Mono<Void> createAhead(YearMonth current) {
+        return Flux.range(0, partitionsAhead + 1)
+                .map(current::plusMonths)
+                .concatMap(month -> databaseClient.sql(createStatement(month)).then()
+                        .onErrorResume(error -> {
+                            // Otra instancia pudo haberla creado a la vez; el resto de meses sigue
+                            log.warn("Could not create audit_log partition {}: {}", partitionName(month), error.getMessage());
+                            return Mono.empty();
+                        }))
+                .then();
+    }
+
+    Mono<Void> dropExpired(YearMonth current) {
+        if (retentionMonths <= 0) {
+            return Mono.empty();
+        }
+        YearMonth oldestKept = current.minusMonths(retentionMonths);
+        return databaseClient.sql("SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid"
+                        + " WHERE i.inhparent = CAST('public.audit_log' AS regclass)")
+                .map(row -> row.get("relname", String.class))
+                .all()
+                .filter(partition -> partitionMonth(partition).filter(month -> month.isBefore(oldestKept)).isPresent())
+                .concatMap(partition -> databaseClient.sql("ALTER TABLE audit_log DETACH PARTITION " + partition).then()
+                        .then(databaseClient.sql("DROP TABLE IF EXISTS " + partition).then())
+                        .doOnSuccess(__ -> log.info("Dropped expired audit_log partition {}", partition))
+                        .onErrorResume(error -> {
+                            // Otra instancia pudo haberla desenganchado ya
+                            log.warn("Could not drop audit_log partition {}: {}", partition, error.getMessage());
+                            return Mono.empty();
+                        }))
+                .then();
+    }
+
+    static String partitionName(YearMonth month) {
+        return PREFIX + SUFFIX.format(month);
+    }
+
+    static Optional<YearMonth> partitionMonth(String partition) {
+        if (!partition.startsWith(PREFIX)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(YearMonth.parse(partition.substring(PREFIX.length()), SUFFIX));
+        } catch (DateTimeParseException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Creates the partition of {@code month} unless it exists, moving into it the rows the default
+     * partition holds for that month. A single {@code DO} block, so it runs in one transaction.
+     */
+    static String createStatement(YearMonth month) {
+        String partition = partitionName(month);
+        String from = "'" + month.atDay(1) + " 00:00:00+00'";
+        String to = "'" + month.plusMonths(1).atDay(1) + " 00:00:00+00'";
+        String range = "\"timestamp\" >= " + from + " AND \"timestamp\" < " + to;
+        return "DO $$ BEGIN IF to_regclass('public." + partition + "') IS NULL THEN"
+                + " CREATE TABLE public." + partition + " (LIKE public.audit_log INCLUDING DEFAULTS INCLUDING CONSTRAINTS);"
+                + " INSERT INTO public." + partition + " SELECT * FROM public.audit_log_default WHERE " + range + ";"
+                + " DELETE FROM public.audit_log_default WHERE " + range + ";"
+                + " ALTER TABLE public.audit_log ATTACH PARTITION public." + partition
+                + " FOR VALUES FROM (" + from + ") TO (" + to + ");"
+                + " END IF; END $$";
+    }
+}
@@ -0,0 +1,381 @@
+package com.chillflix.indexer.audit;
+
+import com.chillflix.indexer.models.MediaType;
+import com.chillflix.indexer.routing.DatabaseRouting;
+import com.chillflix.indexer.routing.WorkloadClass;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mapping.PersistentPropertyAccessor;
+import org.springframework.data.r2dbc.mapping.R2dbcMappingContext;
+import org.springframework.data.relational.core.mapping.RelationalPersistentEntity;
+import org.springframework.data.relational.core.mapping.RelationalPersistentProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Application-side replacement for the {@code log_audit()} row trigger. Tables listed in
+ * {@code audit.application-tables} have their {@code <table>_audit} trigger disabled at startup
+ * and their changes queued here instead, to be written off the request path as multi-row
+ * {@code INSERT INTO audit_log} statements of up to {@code audit.batch-size} rows. Tables not
+ * listed keep (or get back) the trigger. The queue is flushed every {@code audit.flush-interval},
+ * as soon as {@code audit.max-buffered} events are pending, and once more on shutdown; past
+ * {@code audit.max-pending} events are written inline, which slows writers down instead of
+ * growing the queue without bound.
+ * <p>
+ * {@code ALTER TABLE ... DISABLE TRIGGER} is database-wide, so every instance must run with the
+ * same {@code audit.application-tables}. Events are queued once the statement that produced them
+ * has returned, not when the surrounding transaction commits, and updates record the new values
+ * only ({@code {"new": ...}}): the old row is not read back as the trigger does.
+ * <p>
+ * The queue lives in memory only. Events still queued when the process dies without a graceful
+ * shutdown (a crash, an OOM kill, a {@code SIGKILL}) are lost, while the changes they describe
+ * stay committed. Tables whose audit history must be complete should keep the trigger.
+ */
+@Slf4j
+@Component
+@Lazy(false)
+public class AuditOutbox implements SmartLifecycle {
+
+    // Justo después del SwarmStatsAggregator, cuyo último flush todavía puede generar eventos
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 8192;
+
+    // Tablas que escribe este servicio; solo movies, music_tracks y series_episodes tienen trigger
+    static final Set<String> AUDITABLE_TABLES;
+
+    static {
+        Set<String> tables = new LinkedHashSet<>();
+        for (MediaType mediaType : MediaType.values()) {
+            tables.add(mediaType.getTable());
+        }
+        tables.add("music_tracks");
+        tables.add("series_episodes");
+        AUDITABLE_TABLES = Set.copyOf(tables);
+    }
+
+    private static final Set<String> NOT_AUDITED = Set.of("searchVector", "inserted");
+
+    private final DatabaseClient databaseClient;
+    private final R2dbcMappingContext mappingContext;
+    private final ObjectMapper objectMapper;
+    private final Set<String> applicationTables;
+    private final int maxBuffered;
+    private final int maxPending;
+    private final int batchSize;
+    private final Duration shutdownTimeout;
+    private final ConcurrentLinkedQueue<AuditEvent> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicBoolean flushing = new AtomicBoolean();
+    private final Counter writtenEvents;
+    private final Counter inlineEvents;
+    private final Timer flushTimer;
+    private volatile boolean running;
+
+    public AuditOutbox(DatabaseClient databaseClient,
+                       R2dbcMappingContext mappingContext,
+                       ObjectMapper objectMapper,
+                       MeterRegistry meterRegistry,
+                       @Value("${audit.application-tables:}") Set<String> applicationTables,
+                       @Value("${audit.max-buffered:5000}") int maxBuffered,
+                       @Value("${audit.max-pending:100000}") int maxPending,
+                       @Value("${audit.batch-size:1000}") int batchSize,
+                       @Value("${audit.shutdown-timeout:10s}") Duration shutdownTimeout) {
+        for (String table : applicationTables) {
+            if (!AUDITABLE_TABLES.contains(table)) {
+                throw new IllegalArgumentException("audit.application-tables: unknown table " + table
+                        + ", expected one of " + AUDITABLE_TABLES);
+            }
+        }
+        this.databaseClient = databaseClient;
+        this.mappingContext = mappingContext;
+        this.objectMapper = objectMapper;
+        this.applicationTables = Set.copyOf(applicationTables);
+        this.maxBuffered = maxBuffered;
+        this.maxPending = maxPending;
+        this.batchSize = batchSize;
+        this.shutdownTimeout = shutdownTimeout;
+        Gauge.builder("audit.outbox.pending", pending, AtomicInteger::get)
+                .description("Audit events waiting to be written")
+                .register(meterRegistry);
+        this.writtenEvents = Counter.builder("audit.outbox.written").register(meterRegistry);
+        this.inlineEvents = Counter.builder("audit.outbox.inline")
+                .description("Audit events written on the request path because the outbox was full")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("audit.outbox.flush").register(meterRegistry);
+    }
+
+    public boolean isApplicationAudited(String table) {
+        return applicationTables.contains(table);
+    }
+
+    /**
+     * Records the row returned by an upsert: INSERT or UPDATE depending on its {@code inserted}
+     * flag.
+     */
+    public Mono<Void> recordUpsert(Object entity) {
+        RelationalPersistentEntity<?> persistent = persistentEntity(entity.getClass());
+        RelationalPersistentProperty insertedProperty = persistent.getPersistentProperty("inserted");
+        Object inserted = insertedProperty == null ? null : persistent.getPropertyAccessor(entity).getProperty(insertedProperty);
+        return record(entity, Boolean.TRUE.equals(inserted) ? AuditAction.INSERT : AuditAction.UPDATE);
+    }
+
+    public Mono<Void> record(Object entity, AuditAction action) {
+        RelationalPersistentEntity<?> persistent = persistentEntity(entity.getClass());
+        String table = persistent.getTableName().getReference();
+        if (!isApplicationAudited(table)) {
+            return Mono.empty();
+        }
+        PersistentPropertyAccessor<?> accessor = persistent.getPropertyAccessor(entity);
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (RelationalPersistentProperty property : persistent) {
+            if (property.isWritable() && !NOT_AUDITED.contains(property.getName())) {
+                row.put(property.getColumnName().getReference(), accessor.getProperty(property));
+            }
+        }
+        UUID id = (UUID) accessor.getProperty(persistent.getRequiredIdProperty());
+        return enqueue(table, id, action, action == AuditAction.UPDATE ? Map.of("new", row) : row);
+    }
+
+    /**
+     * Records a partial update given as entity property names, e.g. the fields of a merge patch.
+     */
+    public Mono<Void> recordUpdate(Class<?> entityType, UUID id, Map<String, Object> properties) {
+        RelationalPersistentEntity<?> persistent = persistentEntity(entityType);
+        String table = persistent.getTableName().getReference();
+        if (!isApplicationAudited(table)) {
+            return Mono.empty();
+        }
+        Map<String, Object> columns = new LinkedHashMap<>();
+        properties.forEach((name, value) ->
+                columns.put(persistent.getRequiredPersistentProperty(name).getColumnName().getReference(), value));
+        return enqueue(table, id, AuditAction.UPDATE, Map.of("new", columns));
+    }
+
+    /**
+     * Records a partial update given as column names, for set-based writes that bypass the
+     * entities.
+     */
+    public Mono<Void> recordUpdate(String table, UUID id, Map<String, Object> columns) {
+        if (!isApplicationAudited(table)) {
+            return Mono.empty();
+        }
+        return enqueue(table, id, AuditAction.UPDATE, Map.of("new", columns));
+    }
+
+    public Mono<Void> recordSoftDelete(Class<?> entityType, Collection<UUID> ids) {
+        return Flux.fromIterable(ids)
+                .concatMap(id -> recordUpdate(entityType, id, Map.of("isDeleted", true)))
+                .then();
+    }
+
+    public Mono<Void> recordDelete(Class<?> entityType, UUID id) {
+        String table = persistentEntity(entityType).getTableName().getReference();
+        if (!isApplicationAudited(table)) {
+            return Mono.empty();
+        }
+        return enqueue(table, id, AuditAction.DELETE, Map.of("id", id));
+    }
+
+    private Mono<Void> enqueue(String table, UUID id, AuditAction action, Object changes) {
+        return Mono.defer(() -> {
+            AuditEvent event;
+            try {
+                event = new AuditEvent(table, id, action, objectMapper.writeValueAsString(changes), OffsetDateTime.now());
+            } catch (JsonProcessingException e) {
+                return Mono.error(e);
+            }
+            if (pending.get() >= maxPending) {
+                // Cola llena (base de datos lenta o caída): se escribe en línea como haría el trigger
+                inlineEvents.increment();
+                return insert(List.of(event)).then();
+            }
+            queue.offer(event);
+            if (pending.incrementAndGet() >= maxBuffered) {
+                flush().subscribeOn(Schedulers.boundedElastic()).subscribe();
+            }
+            return Mono.empty();
+        });
+    }
+
+    public int pending() {
+        return pending.get();
+    }
+
+    @Scheduled(fixedDelayString = "${audit.flush-interval:PT1S}")
+    public void scheduledFlush() {
+        if (running) {
+            flush().subscribe();
+        }
+    }
+
+    /**
+     * Writes the events queued so far. Concurrent calls are coalesced like in
+     * {@link com.chillflix.indexer.swarm.SwarmStatsAggregator#flush()}; a batch that fails is put
+     * back at the end of the queue for the next flush.
+     */
+    public Mono<Long> flush() {
+        return Mono.defer(() -> {
+            if (!flushing.compareAndSet(false, true)) {
+                return Mono.just(0L);
+            }
+            long start = System.nanoTime();
+            // Solo lo pendiente al empezar, para no reintentar en bucle un lote devuelto a la cola
+            AtomicInteger remaining = new AtomicInteger(pending.get());
+            return Flux.<List<AuditEvent>>generate(sink -> {
+                        List<AuditEvent> batch = drain(Math.min(batchSize, remaining.get()));
+                        if (batch.isEmpty()) {
+                            sink.complete();
+                        } else {
+                            remaining.addAndGet(-batch.size());
+                            sink.next(batch);
+                        }
+                    })
+                    .concatMap(batch -> insert(batch)
+                            .onErrorResume(error -> {
+                                log.error("Error writing {} audit events, re-queueing", batch.size(), error);
+                                queue.addAll(batch);
+                                pending.addAndGet(batch.size());
+                                return Mono.just(0L);
+                            }))
+                    .reduce(0L, Long::sum)
+                    .doOnNext(rows -> {
+                        writtenEvents.increment(rows);
+                        flushTimer.record(Duration.ofNanos(System.nanoTime() - start));
+                    })
+                    .doFinally(__ -> flushing.set(false));
+        }).contextWrite(DatabaseRouting.with(WorkloadClass.BACKGROUND));
+    }
+
+    private List<AuditEvent> drain(int max) {
+        List<AuditEvent> batch = new ArrayList<>(Math.max(0, max));
+        AuditEvent event;
+        while (batch.size() < max && (event = queue.poll()) != null) {
+            batch.add(event);
+        }
+        pending.addAndGet(-batch.size());
+        return batch;
+    }
+
+    private Mono<Long> insert(List<AuditEvent> batch) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(insertStatement(batch.size()));
+        for (int i = 0; i < batch.size(); i++) {
+            AuditEvent event = batch.get(i);
+            spec = spec.bind("type" + i, event.entityType())
+                    .bind("id" + i, event.entityId())
+                    .bind("action" + i, event.action().name())
+                    .bind("changes" + i, event.changes())
+                    .bind("ts" + i, event.timestamp());
+        }
+        return spec.fetch().rowsUpdated();
+    }
+
+    static String insertStatement(int rows) {
+        StringBuilder sql = new StringBuilder(96 + rows * 80)
+                .append("INSERT INTO audit_log (entity_type, entity_id, action, changes, \"timestamp\") VALUES ");
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append("(:type").append(i).append(", :id").append(i).append(", :action").append(i)
+                    .append(", CAST(:changes").append(i).append(" AS jsonb), :ts").append(i).append(')');
+        }
+        return sql.toString();
+    }
+
+    /**
+     * Enables or disables the {@code <table>_audit} trigger of every auditable table that has
+     * one, according to {@code audit.application-tables}. Triggers already in the wanted mode
+     * are left alone, so a restart does not lock the tables.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void applyTriggerModes() {
+        Flux.fromIterable(AUDITABLE_TABLES)
+                .concatMap(table -> {
+                    String trigger = table + "_audit";
+                    boolean disable = isApplicationAudited(table);
+                    // ALTER TABLE toma un lock exclusivo de la tabla: solo se lanza si el modo cambia
+                    return databaseClient.sql("SELECT tgenabled <> 'D' AS enabled FROM pg_trigger WHERE tgrelid = CAST(:table AS regclass) AND tgname = :trigger")
+                            .bind("table", table)
+                            .bind("trigger", trigger)
+                            .map(row -> Boolean.TRUE.equals(row.get("enabled", Boolean.class)))
+                            .first()
+                            .filter(enabled -> enabled == disable)
+                            .flatMap(__ -> databaseClient.sql("ALTER TABLE " + table + (disable ? " DISABLE" : " ENABLE") + " TRIGGER " + trigger)
+                                    .then()
+                                    .doOnSuccess(done -> log.info("Audit of {}: {}", table, disable ? "application" : "trigger")))
+                            .onErrorResume(error -> {
+                                log.error("Could not switch trigger {} on {}", trigger, table, error);
+                                return Mono.empty();
+                            });
+                })
+                .contextWrite(DatabaseRouting.with(WorkloadClass.BACKGROUND))
+                .subscribe();
+    }
+
+    private RelationalPersistentEntity<?> persistentEntity(Class<?> entityType) {
+        return mappingContext.getRequiredPersistentEntity(entityType);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (pending() == 0) {
+            return;
+        }
+        log.info("Writing {} pending audit events before shutdown", pending());
+        long deadline = System.nanoTime() + shutdownTimeout.toNanos();
+        while (pending() > 0 && System.nanoTime() < deadline) {
+            if (flushing.get()) {
+                LockSupport.parkNanos(Duration.ofMillis(50).toNanos());
+                continue;
+            }
+            flush().block(Duration.ofNanos(Math.max(1, deadline - System.nanoTime())));
+        }
+        if (pending() > 0) {
+            log.warn("Shutdown timeout reached, {} audit events were not written", pending());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+}
@@ -0,0 +1,43 @@
+package com.chillflix.indexer.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.AbstractJackson2Encoder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Jackson encoder for a binary format (Smile, CBOR, protobuf). A {@code Flux} is collected and
+ * written as a single list value rather than as a sequence of documents, so a page of results
+ * decodes as one array, as it does in JSON. The endpoints return pages whose rows are already in
+ * memory, so collecting them costs nothing the JSON path doesn't pay.
+ */
+public class BinaryJacksonEncoder extends AbstractJackson2Encoder {
+
+    public static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+
+    public BinaryJacksonEncoder(ObjectMapper mapper, MimeType... mimeTypes) {
+        super(mapper, mimeTypes);
+    }
+
+    @Override
+    public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory, ResolvableType elementType,
+                                   MimeType mimeType, Map<String, Object> hints) {
+        if (inputStream instanceof Mono<?> mono) {
+            return mono.map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints)).flux();
+        }
+        ResolvableType listType = ResolvableType.forClassWithGenerics(List.class, elementType);
+        return Flux.from(inputStream)
+                .collectList()
+                .map(values -> encodeValue(values, bufferFactory, listType, mimeType, hints))
+                .flux();
+    }
+}
@@ -0,0 +1,36 @@
+package com.chillflix.indexer.codec;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.accept.HeaderContentTypeResolver;
+import org.springframework.web.reactive.accept.RequestedContentTypeResolver;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The media types of the {@code Accept} header followed by JSON, so a response that cannot be
+ * written in any of the accepted formats is sent as JSON instead of failing with 406. That is the
+ * case of protobuf for the sparse fieldsets ({@code fields=}), which are maps and not DTOs, and
+ * for the DTOs without a schema.
+ */
+public class JsonFallbackContentTypeResolver implements RequestedContentTypeResolver {
+
+    // Sin parámetro q: WebFlux ordena por especificidad y un parámetro de más haría a JSON ganar
+    // a los formatos aceptados; al ir el último, solo se elige si ninguno de ellos aplica
+    private static final MediaType FALLBACK = MediaType.APPLICATION_JSON;
+
+    private final HeaderContentTypeResolver header = new HeaderContentTypeResolver();
+
+    @Override
+    public List<MediaType> resolveMediaTypes(ServerWebExchange exchange) {
+        List<MediaType> accepted = header.resolveMediaTypes(exchange);
+        if (accepted.stream().anyMatch(type -> type.includes(MediaType.APPLICATION_JSON))) {
+            return accepted;
+        }
+        List<MediaType> withFallback = new ArrayList<>(accepted.size() + 1);
+        withFallback.addAll(accepted);
+        withFallback.add(FALLBACK);
+        return withFallback;
+    }
+}
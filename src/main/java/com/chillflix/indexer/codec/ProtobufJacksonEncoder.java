@@ -0,0 +1,103 @@
+package com.chillflix.indexer.codec;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufMapper;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeType;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Protobuf encoder for the DTOs. The schema of each DTO is generated from the class itself, the
+ * same one the MapStruct mappers fill, so it cannot drift from what the JSON endpoints return;
+ * lists are sent as a {@link RepeatedMessage}. UUIDs are sent as strings. Field numbers follow the order of the record
+ * components, so new components go at the end. Types without a protobuf equivalent (free-form
+ * maps) are not encodable and the request falls back to the client's next acceptable format.
+ */
+@Slf4j
+public class ProtobufJacksonEncoder extends BinaryJacksonEncoder {
+
+    public static final MediaType APPLICATION_PROTOBUF = new MediaType("application", "x-protobuf");
+
+    private final ProtobufMapper mapper;
+    private final Predicate<Class<?>> messageTypes;
+    private final Map<JavaType, Optional<ProtobufSchema>> schemas = new ConcurrentHashMap<>();
+
+    public ProtobufJacksonEncoder(ProtobufMapper mapper, Predicate<Class<?>> messageTypes) {
+        super(mapper, APPLICATION_PROTOBUF);
+        // El generador de protobuf escribe los UUID como 16 bytes, pero el esquema los declara string
+        mapper.registerModule(new SimpleModule().addSerializer(UUID.class, ToStringSerializer.instance));
+        this.mapper = mapper;
+        this.messageTypes = messageTypes;
+    }
+
+    @Override
+    public boolean canEncode(ResolvableType elementType, MimeType mimeType) {
+        return super.canEncode(elementType, mimeType) && schema(elementType).isPresent();
+    }
+
+    @Override
+    public DataBuffer encodeValue(Object value, DataBufferFactory bufferFactory, ResolvableType valueType,
+                                  MimeType mimeType, Map<String, Object> hints) {
+        if (value instanceof List<?> items) {
+            return super.encodeValue(new RepeatedMessage<>(items), bufferFactory, message(valueType), mimeType, hints);
+        }
+        return super.encodeValue(value, bufferFactory, valueType, mimeType, hints);
+    }
+
+    @Override
+    protected ObjectWriter customizeWriter(ObjectWriter writer, MimeType mimeType, ResolvableType elementType,
+                                           Map<String, Object> hints) {
+        return writer.with(schema(elementType)
+                .orElseThrow(() -> new IllegalArgumentException("No protobuf schema for " + elementType)));
+    }
+
+    /**
+     * The {@code .proto} definition of {@code type} and of a list of them, if it has one.
+     */
+    public Optional<String> protoFor(Class<?> type) {
+        return schema(ResolvableType.forClassWithGenerics(List.class, type))
+                .map(schema -> schema.getSource().toString());
+    }
+
+    private Optional<ProtobufSchema> schema(ResolvableType type) {
+        ResolvableType message = message(type);
+        Class<?> root = message.toClass() == RepeatedMessage.class ? message.getGeneric(0).toClass() : message.toClass();
+        if (!messageTypes.test(root)) {
+            return Optional.empty();
+        }
+        return schemas.computeIfAbsent(mapper.getTypeFactory().constructType(message.getType()), javaType -> {
+            try {
+                return Optional.of(mapper.generateSchemaFor(javaType));
+            } catch (JsonMappingException e) {
+                log.debug("No protobuf schema for {}: {}", javaType, e.getOriginalMessage());
+                return Optional.empty();
+            } catch (UnsupportedOperationException e) {
+                // Los Map de forma libre no tienen equivalente en protobuf
+                log.debug("No protobuf schema for {}: {}", javaType, e.getMessage());
+                return Optional.empty();
+            }
+        });
+    }
+
+    private static ResolvableType message(ResolvableType type) {
+        if (List.class.isAssignableFrom(type.toClass())) {
+            return ResolvableType.forClassWithGenerics(RepeatedMessage.class, type.getGeneric(0));
+        }
+        return type;
+    }
+}
@@ -0,0 +1,10 @@
+package com.chillflix.indexer.codec;
+
+import java.util.List;
+
+/**
+ * The protobuf message of a list of results: a protobuf document must be a message, not a bare
+ * repeated field.
+ */
+public record RepeatedMessage<T>(List<T> items) {
+}
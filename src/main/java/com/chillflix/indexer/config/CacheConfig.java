@@ -0,0 +1,96 @@
+package com.chillflix.indexer.config;
+
+import com.chillflix.indexer.dto.MovieDTO;
+import com.chillflix.indexer.dto.MusicDTO;
+import com.chillflix.indexer.dto.SeriesDTO;
+import com.chillflix.indexer.dto.VideoDTO;
+import com.chillflix.indexer.dto.VideoGameDTO;
+import com.chillflix.indexer.offheap.CacheKey;
+import com.chillflix.indexer.offheap.SlabStore;
+import com.chillflix.indexer.offheap.TieredCacheManager;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Caffeine caches ({@code spring.cache.caffeine.spec}) in async mode, which Spring needs to
+ * cache the results of the {@code @Cacheable} methods returning {@code Mono} or {@code Flux}.
+ *
+ * <p>With {@code cache.off-heap.enabled}, the entity and list-page caches of the media services
+ * get a second tier outside the heap ({@code cache.off-heap.*}), with the values encoded as
+ * Smile (binary JSON) by the application's Jackson configuration. Caffeine stays in front and its
+ * {@code maximumSize} keeps bounding what the heap holds, while the off-heap tier holds many more
+ * titles. Direct buffers count against {@code -XX:MaxDirectMemorySize}, which defaults to the
+ * maximum heap size.
+ */
+@Configuration
+public class CacheConfig {
+
+    @Bean
+    public CacheManager cacheManager(Environment environment, Jackson2ObjectMapperBuilder objectMapperBuilder,
+                                     MeterRegistry meterRegistry) {
+        CaffeineCacheManager caffeine = new CaffeineCacheManager();
+        String spec = environment.getProperty("spring.cache.caffeine.spec");
+        if (StringUtils.hasText(spec)) {
+            caffeine.setCacheSpecification(spec);
+        }
+        caffeine.setAsyncCacheMode(true);
+        // Se decide al arrancar y no con una condición, que el procesado AOT fijaría al compilar
+        if (!environment.getProperty("cache.off-heap.enabled", Boolean.class, false)) {
+            return caffeine;
+        }
+        // La caducidad de la caché local pasa a ser variable: lo promovido desde fuera del heap solo vive lo que le quedaba
+        caffeine.setCaffeine(TieredCacheManager.localCaffeine(StringUtils.hasText(spec) ? spec : ""));
+        SlabStore<CacheKey> store = new SlabStore<>(
+                environment.getProperty("cache.off-heap.capacity", DataSize.class, DataSize.ofMegabytes(256)).toBytes(),
+                (int) environment.getProperty("cache.off-heap.slab-size", DataSize.class, DataSize.ofMegabytes(16)).toBytes(),
+                environment.getProperty("cache.off-heap.time-to-live", Duration.class, Duration.ofMinutes(5)));
+        Gauge.builder("cache.off-heap.entries", store, SlabStore::size)
+                .description("Entries in the off-heap cache tier")
+                .register(meterRegistry);
+        Gauge.builder("cache.off-heap.live", store, SlabStore::liveBytes)
+                .description("Bytes of live entries in the off-heap cache tier")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("cache.off-heap.capacity", store, SlabStore::capacity)
+                .description("Size of the off-heap cache tier")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.off-heap.evictions", store, SlabStore::evictions)
+                .description("Entries evicted from the off-heap cache tier to make room")
+                .register(meterRegistry);
+        return new TieredCacheManager(caffeine, store, objectMapperBuilder.factory(new SmileFactory()).build(),
+                offHeapValueTypes(TypeFactory.defaultInstance()), meterRegistry);
+    }
+
+    private static Map<String, JavaType> offHeapValueTypes(TypeFactory types) {
+        Map<String, JavaType> valueTypes = new HashMap<>();
+        // Las cachés de Flux guardan la lista de elementos
+        for (Map.Entry<Class<?>, List<String>> media : Map.<Class<?>, List<String>>of(
+                MovieDTO.class, List.of("movieCache", "allMoviesCache"),
+                SeriesDTO.class, List.of("seriesCache", "allSeriesCache"),
+                MusicDTO.class, List.of("musicCache", "allMusicCache"),
+                VideoDTO.class, List.of("videoCache", "allVideosCache"),
+                VideoGameDTO.class, List.of("videoGameCache", "allVideoGamesCache")).entrySet()) {
+            valueTypes.put(media.getValue().get(0), types.constructType(media.getKey()));
+            valueTypes.put(media.getValue().get(1), types.constructCollectionType(List.class, media.getKey()));
+        }
+        return valueTypes;
+    }
+}
@@ -0,0 +1,57 @@
+package com.chillflix.indexer.config;
+
+import com.chillflix.indexer.codec.BinaryJacksonEncoder;
+import com.chillflix.indexer.codec.JsonFallbackContentTypeResolver;
+import com.chillflix.indexer.codec.ProtobufJacksonEncoder;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.reactive.accept.RequestedContentTypeResolverBuilder;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+/**
+ * Compact response formats, chosen by the {@code Accept} header: Smile
+ * ({@code application/x-jackson-smile}), CBOR ({@code application/cbor}) and, for the DTOs,
+ * protobuf ({@code application/x-protobuf}, schemas at {@code /v1/schemas}). They repeat no field
+ * names across the rows of a page, which is most of a JSON page. All three use the application's
+ * Jackson configuration; JSON stays the default, and the fallback when none of the accepted
+ * formats can write a response ({@link JsonFallbackContentTypeResolver}).
+ */
+@Configuration
+public class CodecConfig implements WebFluxConfigurer {
+
+    private static final String DTO_PACKAGE = "com.chillflix.indexer.dto";
+
+    @Bean
+    public ProtobufJacksonEncoder protobufEncoder(Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        ProtobufMapper protobufMapper = new ProtobufMapper();
+        objectMapperBuilder.configure(protobufMapper);
+        return new ProtobufJacksonEncoder(protobufMapper, type -> type.getPackageName().equals(DTO_PACKAGE));
+    }
+
+    @Bean
+    public CodecCustomizer binaryCodecs(ObjectProvider<Jackson2ObjectMapperBuilder> objectMapperBuilders,
+                                        ProtobufJacksonEncoder protobuf) {
+        BinaryJacksonEncoder smile = new BinaryJacksonEncoder(
+                objectMapperBuilders.getObject().factory(new SmileFactory()).build(), BinaryJacksonEncoder.APPLICATION_SMILE);
+        BinaryJacksonEncoder cbor = new BinaryJacksonEncoder(
+                objectMapperBuilders.getObject().factory(new CBORFactory()).build(), MediaType.APPLICATION_CBOR);
+        return configurer -> {
+            // Sustituye al de Smile que WebFlux registra por defecto, con su propio ObjectMapper
+            configurer.defaultCodecs().jackson2SmileEncoder(smile);
+            configurer.customCodecs().register(cbor);
+            configurer.customCodecs().register(protobuf);
+        };
+    }
+
+    @Override
+    public void configureContentTypeResolver(RequestedContentTypeResolverBuilder builder) {
+        builder.resolver(new JsonFallbackContentTypeResolver());
+    }
+}
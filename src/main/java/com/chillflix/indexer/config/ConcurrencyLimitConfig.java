@@ -0,0 +1,41 @@
+package com.chillflix.indexer.config;
+
+import com.chillflix.indexer.limit.AdaptiveLimiter;
+import com.chillflix.indexer.limit.ConcurrencyLimitFilter;
+import com.chillflix.indexer.routing.WorkloadClass;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * One {@link AdaptiveLimiter} per request-facing {@link WorkloadClass} that has
+ * {@code concurrency.<class>.*} settings; a class without them is not limited.
+ */
+@Configuration
+public class ConcurrencyLimitConfig {
+
+    @Bean
+    public ConcurrencyLimitFilter concurrencyLimitFilter(Environment environment, MeterRegistry meterRegistry) {
+        double backoffRatio = environment.getProperty("concurrency.backoff-ratio", Double.class, 0.9);
+        Map<WorkloadClass, AdaptiveLimiter> limiters = new EnumMap<>(WorkloadClass.class);
+        for (WorkloadClass group : WorkloadClass.values()) {
+            String prefix = "concurrency." + group.getKey();
+            Integer initialLimit = environment.getProperty(prefix + ".initial-limit", Integer.class);
+            if (initialLimit == null) {
+                continue;
+            }
+            limiters.put(group, new AdaptiveLimiter(initialLimit,
+                    environment.getProperty(prefix + ".min-limit", Integer.class, 1),
+                    environment.getProperty(prefix + ".max-limit", Integer.class, initialLimit),
+                    environment.getProperty(prefix + ".latency-target", Duration.class, Duration.ofSeconds(1)),
+                    backoffRatio));
+        }
+        return new ConcurrencyLimitFilter(limiters,
+                environment.getProperty("concurrency.shed-threshold", Double.class, 0.8), meterRegistry);
+    }
+}
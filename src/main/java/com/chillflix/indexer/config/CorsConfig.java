@@ -12,9 +12,9 @@ public class CorsConfig implements WebFluxConfigurer {
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**")
             .allowedOrigins("https://chillflix.win", "http://localhost:5173")
-            .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
-            .allowedHeaders("Authorization", "Content-Type", "X-Requested-With", "Accept")
-            .exposedHeaders("Content-Disposition")
+            .allowedMethods("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS")
+            .allowedHeaders("Authorization", "Content-Type", "X-Requested-With", "Accept", "X-Write-Token", "X-Request-Deadline", "X-API-Key")
+            .exposedHeaders("Content-Disposition", "X-Write-Token")
             .allowCredentials(true)
             .maxAge(3600);
     }
@@ -0,0 +1,186 @@
+package com.chillflix.indexer.config;
+
+import com.chillflix.indexer.deadline.CancellingConnectionFactory;
+import com.chillflix.indexer.deadline.RequestDeadlineFilter;
+import com.chillflix.indexer.querymetrics.QueryMetricsListener;
+import com.chillflix.indexer.querymetrics.QueryNames;
+import com.chillflix.indexer.routing.DatabaseRole;
+import com.chillflix.indexer.routing.PoolKey;
+import com.chillflix.indexer.routing.PoolRoutingConnectionFactory;
+import com.chillflix.indexer.routing.ReplicaLagMonitor;
+import com.chillflix.indexer.routing.ReplicaRoutingFilter;
+import com.chillflix.indexer.routing.RoutingTransactionManager;
+import com.chillflix.indexer.routing.WorkloadClass;
+import com.chillflix.indexer.routing.WorkloadClassFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.proxy.ProxyConnectionFactory;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Option;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.r2dbc.ConnectionFactoryBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.transaction.ReactiveTransactionManager;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Replaces Boot's single pooled {@code ConnectionFactory} with one pool per {@link WorkloadClass},
+ * sized by {@code db.pools.<class>.initial-size} (opened by the startup warmup),
+ * {@code .max-size}, {@code .acquire-timeout}, {@code .max-pending}
+ * (requests queued beyond it fail at once) and {@code .statement-timeout} (enforced by PostgreSQL
+ * on every statement of the pool). Every pool shares the {@code spring.r2dbc.*} connection
+ * settings. With {@code replica.url} (env {@code REPLICA_URL}) the read classes also
+ * get a replica pool, configurable under {@code replica.pools.<class>.*}.
+ * <p>
+ * The factory handed to the repositories and the transaction manager cancels abandoned statements
+ * on the server ({@link CancellingConnectionFactory}) and, unless
+ * {@code db.query-metrics.enabled=false}, is wrapped in an r2dbc-proxy that times every
+ * statement ({@link QueryMetricsListener}).
+ * <p>
+ * Services only demarcate transactions where they need them: single-statement reads run in
+ * auto-commit, multi-statement reads use {@code @Transactional(readOnly = true)} and may follow
+ * the request to the replica, and write transactions always begin on the primary
+ * ({@link RoutingTransactionManager}).
+ */
+@Configuration
+public class DatabasePoolConfig {
+
+    // statement_timeout de cada conexión del pool, aplicado por PostgreSQL
+    private static final Option<Duration> STATEMENT_TIMEOUT = Option.valueOf("statementTimeout");
+
+    @Bean
+    public PoolRoutingConnectionFactory poolRoutingConnectionFactory(R2dbcProperties properties,
+                                                                     Environment environment,
+                                                                     MeterRegistry meterRegistry) {
+        String replicaUrl = environment.getProperty("replica.url", "");
+        String replicaUsername = environment.getProperty("replica.username", properties.getUsername());
+        String replicaPassword = environment.getProperty("replica.password", properties.getPassword());
+        Map<WorkloadClass, ConnectionPool> primary = new EnumMap<>(WorkloadClass.class);
+        Map<WorkloadClass, ConnectionPool> replica = new EnumMap<>(WorkloadClass.class);
+        for (WorkloadClass workload : WorkloadClass.values()) {
+            PoolSettings settings = PoolSettings.of(environment, "db.pools." + workload.getKey(), PoolSettings.defaults(properties.getPool()));
+            primary.put(workload, pool(new PoolKey(DatabaseRole.PRIMARY, workload), properties.getUrl(),
+                    properties.getUsername(), properties.getPassword(), properties, settings));
+            if (!replicaUrl.isBlank() && workload.isReadOnly()) {
+                PoolSettings replicaSettings = PoolSettings.of(environment, "replica.pools." + workload.getKey(), settings);
+                replica.put(workload, pool(new PoolKey(DatabaseRole.REPLICA, workload), replicaUrl,
+                        replicaUsername, replicaPassword, properties, replicaSettings));
+            }
+        }
+        return new PoolRoutingConnectionFactory(primary, replica, meterRegistry);
+    }
+
+    @Bean
+    public QueryNames queryNames() {
+        return new QueryNames();
+    }
+
+    @Bean
+    @Primary
+    public ConnectionFactory connectionFactory(PoolRoutingConnectionFactory poolRoutingConnectionFactory,
+                                               QueryNames queryNames,
+                                               MeterRegistry meterRegistry,
+                                               @Value("${db.query-metrics.enabled:true}") boolean queryMetrics,
+                                               @Value("${db.cancel-min-runtime:50ms}") Duration cancelMinRuntime) {
+        ConnectionFactory cancelling = new CancellingConnectionFactory(poolRoutingConnectionFactory, cancelMinRuntime, meterRegistry);
+        if (!queryMetrics) {
+            return cancelling;
+        }
+        return ProxyConnectionFactory.builder(cancelling)
+                .listener(new QueryMetricsListener(meterRegistry, queryNames))
+                .build();
+    }
+
+    // Debe usar la misma factoría que DatabaseClient para reconocer la conexión de la transacción
+    @Bean
+    public ReactiveTransactionManager transactionManager(ConnectionFactory connectionFactory) {
+        return new RoutingTransactionManager(connectionFactory);
+    }
+
+    // Sin @Conditional: el procesado AOT fija las condiciones al compilar y la misma imagen debe
+    // servir con y sin REPLICA_URL; sin réplica el monitor y el filtro quedan inactivos
+    @Bean
+    @Lazy(false)
+    public ReplicaLagMonitor replicaLagMonitor(PoolRoutingConnectionFactory poolRoutingConnectionFactory,
+                                               MeterRegistry meterRegistry,
+                                               @Value("${replica.max-lag:5s}") Duration maxLag,
+                                               @Value("${replica.lag-check-timeout:1s}") Duration checkTimeout) {
+        return new ReplicaLagMonitor(poolRoutingConnectionFactory.getReplicaPools().get(WorkloadClass.INTERACTIVE),
+                meterRegistry, maxLag, checkTimeout);
+    }
+
+    @Bean
+    public ReplicaRoutingFilter replicaRoutingFilter(ReplicaLagMonitor replicaLagMonitor,
+                                                     MeterRegistry meterRegistry,
+                                                     @Value("${replica.read-your-writes-margin:2s}") Duration readYourWritesMargin) {
+        return new ReplicaRoutingFilter(replicaLagMonitor, meterRegistry, readYourWritesMargin);
+    }
+
+    @Bean
+    public WorkloadClassFilter workloadClassFilter() {
+        return new WorkloadClassFilter();
+    }
+
+    @Bean
+    public RequestDeadlineFilter requestDeadlineFilter(Environment environment) {
+        Map<WorkloadClass, Duration> deadlines = new EnumMap<>(WorkloadClass.class);
+        for (WorkloadClass workload : WorkloadClass.values()) {
+            Duration deadline = environment.getProperty("db.deadline." + workload.getKey(), Duration.class);
+            if (deadline != null) {
+                deadlines.put(workload, deadline);
+            }
+        }
+        return new RequestDeadlineFilter(deadlines);
+    }
+
+    private static ConnectionPool pool(PoolKey key, String url, String username, String password,
+                                       R2dbcProperties properties, PoolSettings settings) {
+        R2dbcProperties.Pool pool = properties.getPool();
+        ConnectionPoolConfiguration.Builder builder = ConnectionPoolConfiguration.builder(
+                        ConnectionFactoryBuilder.withUrl(url)
+                                .username(username)
+                                .password(password)
+                                .configure(options -> {
+                                    properties.getProperties().forEach((name, value) -> options.option(Option.valueOf(name), value));
+                                    if (settings.statementTimeout() != null) {
+                                        options.option(STATEMENT_TIMEOUT, settings.statementTimeout());
+                                    }
+                                })
+                                .build())
+                .name(key.name())
+                .initialSize(Math.min(settings.initialSize(), settings.maxSize()))
+                .maxSize(settings.maxSize())
+                .maxIdleTime(pool.getMaxIdleTime())
+                .maxAcquireTime(settings.acquireTimeout())
+                .customizer(poolBuilder -> poolBuilder.maxPendingAcquire(settings.maxPending()));
+        if (pool.getValidationQuery() != null) {
+            builder.validationQuery(pool.getValidationQuery());
+        }
+        return new ConnectionPool(builder.build());
+    }
+
+    record PoolSettings(int initialSize, int maxSize, Duration acquireTimeout, int maxPending, Duration statementTimeout) {
+
+        static PoolSettings defaults(R2dbcProperties.Pool pool) {
+            return new PoolSettings(pool.getInitialSize(), pool.getMaxSize(), Duration.ofSeconds(5), Integer.MAX_VALUE, null);
+        }
+
+        static PoolSettings of(Environment environment, String prefix, PoolSettings defaults) {
+            return new PoolSettings(
+                    environment.getProperty(prefix + ".initial-size", Integer.class, defaults.initialSize()),
+                    environment.getProperty(prefix + ".max-size", Integer.class, defaults.maxSize()),
+                    environment.getProperty(prefix + ".acquire-timeout", Duration.class, defaults.acquireTimeout()),
+                    environment.getProperty(prefix + ".max-pending", Integer.class, defaults.maxPending()),
+                    environment.getProperty(prefix + ".statement-timeout", Duration.class, defaults.statementTimeout()));
+        }
+    }
+}
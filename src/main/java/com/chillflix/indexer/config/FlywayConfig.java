@@ -0,0 +1,30 @@
+package com.chillflix.indexer.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Skips the migrations in a training run ({@code spring.context.exit=onRefresh}), which only
+ * starts the context to record the loaded classes and has no database to migrate. The check is
+ * made here and not with {@code spring.flyway.enabled} because an AOT-processed build fixes that
+ * condition at build time.
+ */
+@Slf4j
+@Configuration
+public class FlywayConfig {
+
+    @Bean
+    public FlywayMigrationStrategy flywayMigrationStrategy(Environment environment) {
+        boolean training = "onRefresh".equals(environment.getProperty("spring.context.exit"));
+        return flyway -> {
+            if (training) {
+                log.info("Training run, skipping Flyway migrations");
+                return;
+            }
+            flyway.migrate();
+        };
+    }
+}
@@ -0,0 +1,170 @@
+package com.chillflix.indexer.config;
+
+import io.r2dbc.proxy.ProxyConnectionFactory;
+import io.r2dbc.spi.Batch;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import io.r2dbc.spi.Statement;
+import jakarta.validation.ConstraintValidator;
+import org.reactivestreams.Publisher;
+import org.springframework.aop.SpringProxy;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.core.DecoratingProxy;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.data.projection.TargetAware;
+import org.springframework.data.repository.Repository;
+import org.springframework.util.ClassUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Runtime hints for the native image ({@code -Pnative}) that Spring's AOT processing cannot infer
+ * from the bean definitions. Beans themselves, including the MapStruct mapper implementations
+ * ({@code componentModel = "spring"}), are instantiated by generated code and need none.
+ */
+@Configuration
+@ImportRuntimeHints(NativeHintsConfig.IndexerRuntimeHints.class)
+public class NativeHintsConfig {
+
+    static class IndexerRuntimeHints implements RuntimeHintsRegistrar {
+
+        private static final String BASE_PACKAGE = "com.chillflix.indexer";
+
+        private final BindingReflectionHintsRegistrar bindingHints = new BindingReflectionHintsRegistrar();
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            // Se escanea al procesar AOT, en la JVM: la imagen nativa no tiene classpath que escanear
+            ClassLoader loader = classLoader != null ? classLoader : ClassUtils.getDefaultClassLoader();
+            // Entidades: el mapeo R2DBC, ContentComparison, AuditOutbox y su JSON
+            for (Class<?> entity : classesIn(BASE_PACKAGE + ".entities", loader)) {
+                bindingHints.registerReflectionHints(hints.reflection(), entity);
+                hints.reflection().registerType(entity, MemberCategory.DECLARED_FIELDS,
+                        MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+            }
+            // DTOs: Jackson, Hibernate Validator, springdoc y los componentes de record de MediaPatchService
+            for (Class<?> dto : classesIn(BASE_PACKAGE + ".dto", loader)) {
+                bindingHints.registerReflectionHints(hints.reflection(), dto);
+            }
+            for (Class<?> model : classesIn(BASE_PACKAGE + ".models", loader)) {
+                bindingHints.registerReflectionHints(hints.reflection(), model);
+            }
+            for (Class<?> type : classesIn(BASE_PACKAGE + ".repository", loader)) {
+                if (Repository.class.isAssignableFrom(type)) {
+                    // QueryNames lee las anotaciones @Query de los métodos
+                    hints.reflection().registerType(type, MemberCategory.INTROSPECT_DECLARED_METHODS);
+                } else if (type.isInterface()) {
+                    // Proyecciones (LanguageCount, YearCount, ...): proxy de Spring Data serializado por Jackson
+                    hints.proxies().registerJdkProxy(type, TargetAware.class, SpringProxy.class, DecoratingProxy.class);
+                    hints.reflection().registerType(type, MemberCategory.INVOKE_PUBLIC_METHODS);
+                }
+            }
+            // Resilience4j busca los métodos de fallback por reflexión en la clase del servicio
+            for (Class<?> service : classesIn(BASE_PACKAGE + ".service", loader)) {
+                hints.reflection().registerType(service, MemberCategory.INVOKE_DECLARED_METHODS);
+            }
+            for (Class<?> type : classesIn(BASE_PACKAGE + ".validation", loader)) {
+                if (ConstraintValidator.class.isAssignableFrom(type)) {
+                    hints.reflection().registerType(type, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+                }
+            }
+            // Recursos de swagger-ui, que springdoc sirve desde el webjar
+            hints.resources().registerPattern("META-INF/resources/webjars/swagger-ui/**");
+            hints.resources().registerPattern("META-INF/maven/org.webjars/swagger-ui/pom.properties");
+            registerQueryMetricsProxies(hints);
+        }
+
+        /**
+         * r2dbc-proxy wraps the factory, connections, statements, batches and results in JDK
+         * proxies. Their interface lists are an implementation detail of the library, so they are
+         * read from real proxies around stubs instead of being spelled out here.
+         */
+        private static void registerQueryMetricsProxies(RuntimeHints hints) {
+            ConnectionFactory factory = ProxyConnectionFactory.builder(stub(ConnectionFactory.class)).build();
+            Connection connection = Mono.from(factory.create()).block();
+            Batch batch = connection.createBatch();
+            Statement statement = connection.createStatement("SELECT 1");
+            Result result = Flux.from(statement.execute()).blockFirst();
+            Row row = Flux.from(result.map((r, metadata) -> r)).blockFirst();
+            for (Object proxy : List.of(factory, connection, batch, statement, result, row)) {
+                if (Proxy.isProxyClass(proxy.getClass())) {
+                    hints.proxies().registerJdkProxy(proxy.getClass().getInterfaces());
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T stub(Class<T> type) {
+            return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+                Class<?> returnType = method.getReturnType();
+                switch (method.getName()) {
+                    case "create":
+                        return Mono.just(stub(Connection.class));
+                    case "createBatch":
+                        return stub(Batch.class);
+                    case "createStatement":
+                        return stub(Statement.class);
+                    case "execute":
+                        return Flux.just(stub(Result.class));
+                    case "map":
+                        Row row = stub(Row.class);
+                        return Flux.just(args[0] instanceof BiFunction<?, ?, ?> mapping
+                                ? ((BiFunction<Object, Object, Object>) mapping).apply(row, stub(RowMetadata.class))
+                                : ((Function<Object, Object>) args[0]).apply(row));
+                    default:
+                        break;
+                }
+                if (returnType.isInstance(proxy)) {
+                    // Métodos fluidos: bind, add, returnGeneratedValues...
+                    return proxy;
+                }
+                if (Publisher.class.isAssignableFrom(returnType)) {
+                    return Mono.empty();
+                }
+                if (returnType == boolean.class) {
+                    return false;
+                }
+                if (returnType == int.class) {
+                    return 0;
+                }
+                if (returnType == long.class) {
+                    return 0L;
+                }
+                if (returnType.isInterface() && returnType.getPackageName().equals("io.r2dbc.spi")) {
+                    // Metadatos de la factoría, de la conexión...
+                    return stub(returnType);
+                }
+                return null;
+            }));
+        }
+
+        private static List<Class<?>> classesIn(String packageName, ClassLoader classLoader) {
+            ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false) {
+                @Override
+                protected boolean isCandidateComponent(AnnotatedBeanDefinition beanDefinition) {
+                    return beanDefinition.getMetadata().isIndependent();
+                }
+            };
+            scanner.addIncludeFilter((reader, factory) -> true);
+            scanner.setResourceLoader(new DefaultResourceLoader(classLoader));
+            return scanner.findCandidateComponents(packageName).stream()
+                    .<Class<?>>map(candidate -> ClassUtils.resolveClassName(candidate.getBeanClassName(), classLoader))
+                    .toList();
+        }
+    }
+}
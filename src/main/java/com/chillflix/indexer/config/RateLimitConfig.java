@@ -0,0 +1,49 @@
+package com.chillflix.indexer.config;
+
+import com.chillflix.indexer.ratelimit.ClientRateLimiter;
+import com.chillflix.indexer.ratelimit.RateLimitFilter;
+import com.chillflix.indexer.ratelimit.RateLimitPolicy;
+import com.chillflix.indexer.ratelimit.RateLimitStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Per-client rate limiting: {@code rate-limit.ip.*} and {@code rate-limit.api-key.*} policies
+ * ({@code capacity}, {@code refill-per-minute}, {@code reservation}) over the shared buckets of
+ * {@link RateLimitStore}. Disabled with {@code rate-limit.enabled=false}, checked at runtime
+ * rather than with a condition so that an AOT-processed build honours it.
+ */
+@Configuration
+public class RateLimitConfig {
+
+    @Bean
+    public RateLimitFilter rateLimitFilter(RateLimitStore store, Environment environment, MeterRegistry meterRegistry) {
+        ClientRateLimiter limiter = new ClientRateLimiter(store,
+                environment.getProperty("rate-limit.idle-timeout", Duration.class, Duration.ofMinutes(10)),
+                environment.getProperty("rate-limit.max-clients", Long.class, 100_000L),
+                meterRegistry);
+        Set<String> apiKeys = Arrays.stream(environment.getProperty("rate-limit.api-keys", "").split(","))
+                .map(String::trim)
+                .filter(StringUtils::hasText)
+                .collect(Collectors.toSet());
+        return new RateLimitFilter(environment.getProperty("rate-limit.enabled", Boolean.class, true),
+                limiter, policy(environment, "rate-limit.ip", 100, 10),
+                policy(environment, "rate-limit.api-key", 1000, 50), apiKeys,
+                environment.getProperty("rate-limit.client-ip-header", ""));
+    }
+
+    private static RateLimitPolicy policy(Environment environment, String prefix, int defaultCapacity, long defaultReservation) {
+        double capacity = environment.getProperty(prefix + ".capacity", Double.class, (double) defaultCapacity);
+        return new RateLimitPolicy(capacity,
+                environment.getProperty(prefix + ".refill-per-minute", Double.class, capacity) / 60,
+                environment.getProperty(prefix + ".reservation", Long.class, defaultReservation));
+    }
+}
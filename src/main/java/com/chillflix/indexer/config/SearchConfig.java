@@ -0,0 +1,65 @@
+package com.chillflix.indexer.config;
+
+import com.chillflix.indexer.dto.MovieDTO;
+import com.chillflix.indexer.dto.MusicDTO;
+import com.chillflix.indexer.dto.SeriesDTO;
+import com.chillflix.indexer.dto.VideoDTO;
+import com.chillflix.indexer.dto.VideoGameDTO;
+import com.chillflix.indexer.mapper.MovieMapper;
+import com.chillflix.indexer.mapper.MusicMapper;
+import com.chillflix.indexer.mapper.SeriesMapper;
+import com.chillflix.indexer.mapper.VideoGameMapper;
+import com.chillflix.indexer.mapper.VideoMapper;
+import com.chillflix.indexer.repository.MovieRepository;
+import com.chillflix.indexer.repository.MusicRepository;
+import com.chillflix.indexer.repository.SeriesRepository;
+import com.chillflix.indexer.repository.VideoGameRepository;
+import com.chillflix.indexer.repository.VideoRepository;
+import com.chillflix.indexer.search.SearchSource;
+import com.chillflix.indexer.search.UnifiedSearch;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * {@link UnifiedSearch} over the full-text search of each media type ({@code search.unified.*}).
+ * The sources call the repositories and not the services: the services' circuit breakers would
+ * turn one open breaker into a failure of the type instead of a slow query, and their names are
+ * per type, so a failing type is reported in {@code partial} the same way either way.
+ */
+@Configuration
+public class SearchConfig {
+
+    @Bean
+    public UnifiedSearch unifiedSearch(Environment environment, MeterRegistry meterRegistry,
+                                       MovieRepository movieRepository, MovieMapper movieMapper,
+                                       SeriesRepository seriesRepository, SeriesMapper seriesMapper,
+                                       MusicRepository musicRepository, MusicMapper musicMapper,
+                                       VideoRepository videoRepository, VideoMapper videoMapper,
+                                       VideoGameRepository videoGameRepository, VideoGameMapper videoGameMapper) {
+        List<SearchSource<?>> sources = List.of(
+                new SearchSource<MovieDTO>("movies",
+                        (term, limit) -> movieRepository.searchMovies(term, limit, 0).map(movieMapper::toDto),
+                        MovieDTO::id, MovieDTO::title, MovieDTO::year),
+                new SearchSource<SeriesDTO>("series",
+                        (term, limit) -> seriesRepository.searchSeries(term, limit, 0).map(seriesMapper::toDto),
+                        SeriesDTO::id, SeriesDTO::title, SeriesDTO::year),
+                new SearchSource<MusicDTO>("music",
+                        (term, limit) -> musicRepository.searchMusic(term, limit, 0).map(musicMapper::toDto),
+                        MusicDTO::id, MusicDTO::title, MusicDTO::year),
+                new SearchSource<VideoDTO>("videos",
+                        (term, limit) -> videoRepository.searchVideos(term, limit, 0).map(videoMapper::toDto),
+                        VideoDTO::id, VideoDTO::title, VideoDTO::year),
+                new SearchSource<VideoGameDTO>("videogames",
+                        (term, limit) -> videoGameRepository.searchVideoGames(term, limit, 0).map(videoGameMapper::toDto),
+                        VideoGameDTO::id, VideoGameDTO::title, VideoGameDTO::year));
+        return new UnifiedSearch(sources, meterRegistry,
+                environment.getProperty("search.unified.source-timeout", Duration.class, Duration.ofMillis(1500)),
+                environment.getProperty("search.unified.min-sources", Integer.class, 1),
+                environment.getProperty("search.unified.max-limit", Integer.class, 100));
+    }
+}
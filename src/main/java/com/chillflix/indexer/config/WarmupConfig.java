@@ -0,0 +1,54 @@
+package com.chillflix.indexer.config;
+
+import com.chillflix.indexer.dto.MovieDTO;
+import com.chillflix.indexer.dto.MusicDTO;
+import com.chillflix.indexer.dto.SeriesDTO;
+import com.chillflix.indexer.dto.VideoDTO;
+import com.chillflix.indexer.dto.VideoGameDTO;
+import com.chillflix.indexer.routing.PoolRoutingConnectionFactory;
+import com.chillflix.indexer.service.MovieService;
+import com.chillflix.indexer.service.MusicService;
+import com.chillflix.indexer.service.SeriesService;
+import com.chillflix.indexer.service.VideoGameService;
+import com.chillflix.indexer.service.VideoService;
+import com.chillflix.indexer.warmup.HotKeyStore;
+import com.chillflix.indexer.warmup.HotKeyTarget;
+import com.chillflix.indexer.warmup.Warmup;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Startup {@link Warmup} over the entity caches of the media services ({@code warmup.*}).
+ */
+@Configuration
+public class WarmupConfig {
+
+    @Bean
+    public Warmup warmup(ApplicationContext context, Environment environment,
+                         PoolRoutingConnectionFactory poolRoutingConnectionFactory, CacheManager cacheManager,
+                         MeterRegistry meterRegistry, MovieService movieService, SeriesService seriesService,
+                         MusicService musicService, VideoService videoService, VideoGameService videoGameService) {
+        List<HotKeyTarget<?>> targets = List.of(
+                new HotKeyTarget<>("movieCache", "/v1/movies", movieService::getMoviesByIds, MovieDTO::id),
+                new HotKeyTarget<>("seriesCache", "/v1/series", seriesService::getSeriesByIds, SeriesDTO::id),
+                new HotKeyTarget<>("musicCache", "/v1/music", musicService::getMusicByIds, MusicDTO::id),
+                new HotKeyTarget<>("videoCache", "/v1/videos", videoService::getVideosByIds, VideoDTO::id),
+                new HotKeyTarget<>("videoGameCache", "/v1/videogames", videoGameService::getVideoGamesByIds, VideoGameDTO::id));
+        return new Warmup(context, poolRoutingConnectionFactory, cacheManager, meterRegistry, targets,
+                new HotKeyStore(Path.of(environment.getProperty("warmup.hot-keys.file", "/tmp/indexer-hot-keys.bin"))),
+                environment.getProperty("warmup.enabled", Boolean.class, true),
+                environment.getProperty("warmup.timeout", Duration.class, Duration.ofSeconds(30)),
+                environment.getProperty("warmup.hot-keys.per-cache", Integer.class, 200),
+                List.of(environment.getProperty("warmup.requests.paths", String[].class, new String[0])),
+                environment.getProperty("warmup.requests.iterations", Integer.class, 50),
+                environment.getProperty("warmup.requests.concurrency", Integer.class, 4));
+    }
+}
@@ -0,0 +1,53 @@
+package com.chillflix.indexer.controller;
+
+import com.chillflix.indexer.audit.AuditHistoryService;
+import com.chillflix.indexer.dto.AuditLogDTO;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/v1/audit")
+@RequiredArgsConstructor
+@Tag(name = "Audit", description = "Audit history APIs")
+@Slf4j
+public class AuditController {
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final AuditHistoryService auditHistoryService;
+
+    @GetMapping("/{entityType}/{entityId}")
+    @Operation(summary = "Get the audit history of an entity", description = "Retrieve the audit_log entries of one row, newest first, with pagination")
+    @ApiResponse(responseCode = "200", description = "Successful operation")
+    @ApiResponse(responseCode = "400", description = "Invalid page")
+    @ApiResponse(responseCode = "404", description = "Entity type without a public audit history")
+    public Flux<AuditLogDTO> getAuditHistory(
+            @Parameter(description = "Audited table, e.g. movies or music_tracks") @PathVariable String entityType,
+            @Parameter(description = "Entity UUID") @PathVariable UUID entityId,
+            @Parameter(description = "Page number") @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Page size (max 100)") @RequestParam(defaultValue = "20") int size) {
+        if (!auditHistoryService.isReadable(entityType)) {
+            return Flux.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown entity type " + entityType));
+        }
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            return Flux.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid page"));
+        }
+        return auditHistoryService.getHistory(entityType, entityId, PageRequest.of(page, size))
+                .onErrorResume(e -> {
+                    log.error("Error fetching audit history of {} {}", entityType, entityId, e);
+                    return Flux.error(
+                            new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error fetching audit history"));
+                });
+    }
+}
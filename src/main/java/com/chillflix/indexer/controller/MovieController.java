@@ -1,13 +1,19 @@
 package com.chillflix.indexer.controller;
 
+import com.chillflix.indexer.dedupe.UpsertCounts;
 import com.chillflix.indexer.dto.MovieDTO;
 import com.chillflix.indexer.service.MovieService;
+import com.chillflix.indexer.service.MediaPatchService;
 import com.chillflix.indexer.exception.MovieNotFoundException;
+import com.chillflix.indexer.exception.SearchUnavailableException;
 import com.chillflix.indexer.exception.ValidationException;
 import com.chillflix.indexer.models.TmdbSearchRequest;
 import com.chillflix.indexer.repository.MovieRepository;
+import com.chillflix.indexer.responsecache.EncodedResponseCache;
+import com.chillflix.indexer.projection.FieldSet;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -15,17 +21,20 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @RestController
@@ -36,19 +45,25 @@ import java.util.UUID;
 public class MovieController {
 
     private final MovieService movieService;
+    private final EncodedResponseCache responseCache;
 
     @GetMapping("/search")
     @Operation(summary = "Search movies", description = "Search movies based on a search term")
-    public Flux<MovieDTO> searchMovies(
+    @ApiResponse(responseCode = "200", description = "Successful operation", content = @Content(array = @ArraySchema(schema = @Schema(implementation = MovieDTO.class))))
+    @ApiResponse(responseCode = "503", description = "Search temporarily unavailable; retry after the Retry-After delay")
+    public Flux<Object> searchMovies(
             @Parameter(description = "Search term") @RequestParam String term,
             @Parameter(description = "Page number") @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
-            @Parameter(description = "Sort field and direction (e.g. title,asc)") @RequestParam(defaultValue = "title,asc") String sort) {
+            @Parameter(description = "Sort field and direction (e.g. title,asc)") @RequestParam(defaultValue = "title,asc") String sort,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        FieldSet fieldSet = FieldSet.parse(fields, MovieDTO.class);
 
         PageRequest pageRequest = createPageRequest(page, size, sort);
 
-        return movieService.searchMovies(term, pageRequest)
-                .onErrorResume(e -> {
+        return movieService.searchMovies(term, pageRequest, fieldSet)
+                .map(fieldSet::project)
+                .onErrorResume(e -> !(e instanceof SearchUnavailableException), e -> {
                     log.error("Error searching movies", e);
                     return Flux.error(
                             new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error searching movies"));
@@ -57,7 +72,8 @@ public class MovieController {
 
     @GetMapping("/advanced-search")
     @Operation(summary = "Advanced search for movies", description = "Search movies with multiple optional parameters")
-    public Flux<MovieDTO> advancedSearch(
+    @ApiResponse(responseCode = "200", description = "Successful operation", content = @Content(array = @ArraySchema(schema = @Schema(implementation = MovieDTO.class))))
+    public Flux<Object> advancedSearch(
             @Parameter(description = "Movie title") @RequestParam(required = false) String title,
             @Parameter(description = "Release year") @RequestParam(required = false) Integer year,
             @Parameter(description = "Language") @RequestParam(required = false) String language,
@@ -65,11 +81,14 @@ public class MovieController {
             @Parameter(description = "File type") @RequestParam(required = false) String fileType,
             @Parameter(description = "Page number") @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
-            @Parameter(description = "Sort field and direction (e.g. title,asc)") @RequestParam(defaultValue = "title,asc") String sort) {
+            @Parameter(description = "Sort field and direction (e.g. title,asc)") @RequestParam(defaultValue = "title,asc") String sort,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        FieldSet fieldSet = FieldSet.parse(fields, MovieDTO.class);
 
         PageRequest pageRequest = createPageRequest(page, size, sort);
 
-        return movieService.advancedSearch(title, year, language, quality, fileType, pageRequest)
+        return movieService.advancedSearch(title, year, language, quality, fileType, pageRequest, fieldSet)
+                .map(fieldSet::project)
                 .onErrorResume(e -> {
                     log.error("Error performing advanced search", e);
                     return Flux.error(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
@@ -81,9 +100,10 @@ public class MovieController {
     @Operation(summary = "Get a movie by ID", description = "Retrieve a movie by its UUID")
     @ApiResponse(responseCode = "200", description = "Successful operation", content = @Content(schema = @Schema(implementation = MovieDTO.class)))
     @ApiResponse(responseCode = "404", description = "Movie not found")
-    public Mono<ResponseEntity<MovieDTO>> getMovieById(@Parameter(description = "Movie UUID") @PathVariable UUID id) {
+    public Mono<ResponseEntity<DataBuffer>> getMovieById(@Parameter(description = "Movie UUID") @PathVariable UUID id,
+                                                         ServerWebExchange exchange) {
         return movieService.getMovieById(id)
-                .map(ResponseEntity::ok)
+                .map(movie -> responseCache.entity("movieCache", id, movie, exchange))
                 .onErrorResume(MovieNotFoundException.class, e -> Mono.just(ResponseEntity.notFound().build()))
                 .onErrorResume(e -> {
                     log.error("Error fetching movie by ID", e);
@@ -93,8 +113,13 @@ public class MovieController {
 
     @GetMapping("/tmdb/{tmdbId}")
     @Operation(summary = "Get movies by TMDB ID", description = "Retrieve movies by their TMDB ID")
-    public Flux<MovieDTO> getMoviesByTmdbId(@Parameter(description = "TMDB ID") @PathVariable Integer tmdbId) {
-        return movieService.getMoviesByTmdbId(tmdbId)
+    @ApiResponse(responseCode = "200", description = "Successful operation", content = @Content(array = @ArraySchema(schema = @Schema(implementation = MovieDTO.class))))
+    public Flux<Object> getMoviesByTmdbId(
+            @Parameter(description = "TMDB ID") @PathVariable Integer tmdbId,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        FieldSet fieldSet = FieldSet.parse(fields, MovieDTO.class);
+        return movieService.getMoviesByTmdbId(tmdbId, fieldSet)
+                .map(fieldSet::project)
                 .onErrorResume(e -> {
                     log.error("Error fetching movies by TMDB ID", e);
                     return Flux.error(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
@@ -104,8 +129,13 @@ public class MovieController {
 
     @GetMapping("/imdb/{imdbId}")
     @Operation(summary = "Get movies by IMDB ID", description = "Retrieve movies by their IMDB ID")
-    public Flux<MovieDTO> getMoviesByImdbId(@Parameter(description = "IMDB ID") @PathVariable String imdbId) {
-        return movieService.getMoviesByImdbId(imdbId)
+    @ApiResponse(responseCode = "200", description = "Successful operation", content = @Content(array = @ArraySchema(schema = @Schema(implementation = MovieDTO.class))))
+    public Flux<Object> getMoviesByImdbId(
+            @Parameter(description = "IMDB ID") @PathVariable String imdbId,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        FieldSet fieldSet = FieldSet.parse(fields, MovieDTO.class);
+        return movieService.getMoviesByImdbId(imdbId, fieldSet)
+                .map(fieldSet::project)
                 .onErrorResume(e -> {
                     log.error("Error fetching movies by IMDB ID", e);
                     return Flux.error(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
@@ -152,6 +182,27 @@ public class MovieController {
                 });
     }
 
+    @PatchMapping(value = "/{id}", consumes = {MediaPatchService.MERGE_PATCH_JSON, "application/json"})
+    @Operation(summary = "Patch a movie", description = "Apply a JSON Merge Patch (RFC 7396). Only the supplied fields are written, "
+            + "e.g. {\"seeds\": 120, \"peers\": 14}")
+    @ApiResponse(responseCode = "204", description = "Patch applied")
+    @ApiResponse(responseCode = "404", description = "Movie not found")
+    @ApiResponse(responseCode = "400", description = "Unknown field or invalid value")
+    public Mono<ResponseEntity<Object>> patchMovie(
+            @Parameter(description = "Movie UUID") @PathVariable UUID id,
+            @RequestBody Map<String, Object> patch) {
+        return movieService.patchMovie(id, patch)
+                .then(Mono.just(ResponseEntity.noContent().build()))
+                .onErrorResume(MovieNotFoundException.class, e -> Mono.just(ResponseEntity.notFound().build()))
+                .onErrorResume(ValidationException.class,
+                        e -> Mono.just(ResponseEntity.badRequest().body(Map.of("errors", e.getErrorMessages().isEmpty()
+                                ? List.of(e.getMessage()) : e.getErrorMessages()))))
+                .onErrorResume(e -> {
+                    log.error("Error patching movie", e);
+                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+                });
+    }
+
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     @Operation(summary = "Delete a movie", description = "Delete a movie entry by its UUID")
@@ -186,17 +237,23 @@ public class MovieController {
 
     @GetMapping
     @Operation(summary = "Get all movies", description = "Retrieve all movies with pagination")
-    public Flux<MovieDTO> getAllMovies(
+    @ApiResponse(responseCode = "200", description = "Successful operation", content = @Content(array = @ArraySchema(schema = @Schema(implementation = MovieDTO.class))))
+    public Mono<ResponseEntity<DataBuffer>> getAllMovies(
             @Parameter(description = "Page number") @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
-            @Parameter(description = "Sort field and direction (e.g. title,asc)") @RequestParam(defaultValue = "title,asc") String sort) {
+            @Parameter(description = "Sort field and direction (e.g. title,asc)") @RequestParam(defaultValue = "title,asc") String sort,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields,
+            ServerWebExchange exchange) {
+        FieldSet fieldSet = FieldSet.parse(fields, MovieDTO.class);
 
         PageRequest pageRequest = createPageRequest(page, size, sort);
 
         return movieService.getAllMovies(pageRequest)
+                .collectList()
+                .map(movies -> responseCache.page("allMoviesCache", pageRequest, movies, MovieDTO.class, fieldSet, exchange))
                 .onErrorResume(e -> {
                     log.error("Error fetching all movies", e);
-                    return Flux.error(
+                    return Mono.error(
                             new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error fetching all movies"));
                 });
     }
@@ -214,13 +271,17 @@ public class MovieController {
 
     @GetMapping("/year/{year}")
     @Operation(summary = "Get movies by year", description = "Retrieve movies released in a specific year")
-    public Flux<MovieDTO> getMoviesByYear(
+    @ApiResponse(responseCode = "200", description = "Successful operation", content = @Content(array = @ArraySchema(schema = @Schema(implementation = MovieDTO.class))))
+    public Flux<Object> getMoviesByYear(
             @Parameter(description = "Year") @PathVariable int year,
             @Parameter(description = "Page number") @RequestParam(defaultValue = "0") int page,
-            @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size) {
+            @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        FieldSet fieldSet = FieldSet.parse(fields, MovieDTO.class);
 
         PageRequest pageRequest = PageRequest.of(page, size);
-        return movieService.getMoviesByYear(year, pageRequest)
+        return movieService.getMoviesByYear(year, pageRequest, fieldSet)
+                .map(fieldSet::project)
                 .onErrorResume(e -> {
                     log.error("Error fetching movies by year", e);
                     return Flux.error(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
@@ -230,13 +291,17 @@ public class MovieController {
 
     @GetMapping("/language/{language}")
     @Operation(summary = "Get movies by language", description = "Retrieve movies in a specific language")
-    public Flux<MovieDTO> getMoviesByLanguage(
+    @ApiResponse(responseCode = "200", description = "Successful operation", content = @Content(array = @ArraySchema(schema = @Schema(implementation = MovieDTO.class))))
+    public Flux<Object> getMoviesByLanguage(
             @Parameter(description = "Language") @PathVariable String language,
             @Parameter(description = "Page number") @RequestParam(defaultValue = "0") int page,
-            @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size) {
+            @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        FieldSet fieldSet = FieldSet.parse(fields, MovieDTO.class);
 
         PageRequest pageRequest = PageRequest.of(page, size);
-        return movieService.getMoviesByLanguage(language, pageRequest)
+        return movieService.getMoviesByLanguage(language, pageRequest, fieldSet)
+                .map(fieldSet::project)
                 .onErrorResume(e -> {
                     log.error("Error fetching movies by language", e);
                     return Flux.error(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
@@ -257,12 +322,17 @@ public class MovieController {
     }
 
     @PutMapping("/bulk")
-    @Operation(summary = "Bulk update movies", description = "Update multiple movies")
-    public Flux<MovieDTO> bulkUpdateMovies(@RequestBody List<MovieDTO> movieDTOs) {
+    @Operation(summary = "Bulk update movies", description = "Update multiple movies. Counts of inserted, updated and unchanged rows are returned in the "
+            + "X-Upsert-Inserted, X-Upsert-Updated and X-Upsert-Unchanged headers")
+    public Mono<ResponseEntity<List<MovieDTO>>> bulkUpdateMovies(@RequestBody List<MovieDTO> movieDTOs) {
+        UpsertCounts counts = new UpsertCounts();
         return movieService.bulkUpdateMovies(movieDTOs)
+                .collectList()
+                .map(saved -> ResponseEntity.ok().headers(counts.toHeaders()).body(saved))
+                .contextWrite(counts.context())
                 .onErrorResume(e -> {
                     log.error("Error performing bulk update", e);
-                    return Flux.error(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                    return Mono.error(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
                             "Error performing bulk update"));
                 });
     }
@@ -1,13 +1,18 @@
 package com.chillflix.indexer.controller;
 
+import com.chillflix.indexer.dedupe.UpsertCounts;
 import com.chillflix.indexer.dto.MusicDTO;
 import com.chillflix.indexer.service.MusicService;
+import com.chillflix.indexer.service.MediaPatchService;
 import com.chillflix.indexer.exception.MusicNotFoundException;
+import com.chillflix.indexer.exception.SearchUnavailableException;
 import com.chillflix.indexer.exception.ValidationException;
 import com.chillflix.indexer.models.TmdbSearchRequest;
 import com.chillflix.indexer.repository.MusicRepository;
+import com.chillflix.indexer.projection.FieldSet;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -26,6 +31,7 @@ import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @RestController
@@ -39,16 +45,21 @@ public class MusicController {
 
     @GetMapping("/search")
     @Operation(summary = "Search music", description = "Search music based on a search term")
-    public Flux<MusicDTO> searchMusic(
+    @ApiResponse(responseCode = "200", description = "Successful operation", content = @Content(array = @ArraySchema(schema = @Schema(implementation = MusicDTO.class))))
+    @ApiResponse(responseCode = "503", description = "Search temporarily unavailable; retry after the Retry-After delay")
+    public Flux<Object> searchMusic(
             @Parameter(description = "Search term") @RequestParam String term,
             @Parameter(description = "Page number") @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
-            @Parameter(description = "Sort field and direction (e.g. title,asc)") @RequestParam(defaultValue = "title,asc") String sort) {
+            @Parameter(description = "Sort field and direction (e.g. title,asc)") @RequestParam(defaultValue = "title,asc") String sort,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        FieldSet fieldSet = FieldSet.parse(fields, MusicDTO.class);
 
         PageRequest pageRequest = createPageRequest(page, size, sort);
 
         return musicService.searchMusic(term, pageRequest)
-                .onErrorResume(e -> {
+                .map(fieldSet::project)
+                .onErrorResume(e -> !(e instanceof SearchUnavailableException), e -> {
                     log.error("Error searching music", e);
                     return Flux.error(
                             new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error searching music"));
@@ -57,7 +68,8 @@ public class MusicController {
 
     @GetMapping("/advanced-search")
     @Operation(summary = "Advanced search for music", description = "Search music with multiple optional parameters")
-    public Flux<MusicDTO> advancedSearch(
+    @ApiResponse(responseCode = "200", description = "Successful operation", content = @Content(array = @ArraySchema(schema = @Schema(implementation = MusicDTO.class))))
+    public Flux<Object> advancedSearch(
             @Parameter(description = "Music title") @RequestParam(required = false) String title,
             @Parameter(description = "Release year") @RequestParam(required = false) Integer year,
             @Parameter(description = "Language") @RequestParam(required = false) String language,
@@ -65,11 +77,14 @@ public class MusicController {
             @Parameter(description = "File type") @RequestParam(required = false) String fileType,
             @Parameter(description = "Page number") @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
-            @Parameter(description = "Sort field and direction (e.g. title,asc)") @RequestParam(defaultValue = "title,asc") String sort) {
+            @Parameter(description = "Sort field and direction (e.g. title,asc)") @RequestParam(defaultValue = "title,asc") String sort,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        FieldSet fieldSet = FieldSet.parse(fields, MusicDTO.class);
 
         PageRequest pageRequest = createPageRequest(page, size, sort);
 
         return musicService.advancedSearch(title, year, language, quality, fileType, pageRequest)
+                .map(fieldSet::project)
                 .onErrorResume(e -> {
                     log.error("Error performing advanced search", e);
                     return Flux.error(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
@@ -130,6 +145,27 @@ public class MusicController {
                 });
     }
 
+    @PatchMapping(value = "/{id}", consumes = {MediaPatchService.MERGE_PATCH_JSON, "application/json"})
+    @Operation(summary = "Patch a music", description = "Apply a JSON Merge Patch (RFC 7396). Only the supplied fields are written, "
+            + "e.g. {\"seeds\": 120, \"peers\": 14}")
+    @ApiResponse(responseCode = "204", description = "Patch applied")
+    @ApiResponse(responseCode = "404", description = "Music not found")
+    @ApiResponse(responseCode = "400", description = "Unknown field or invalid value")
+    public Mono<ResponseEntity<Object>> patchMusic(
+            @Parameter(description = "Music UUID") @PathVariable UUID id,
+            @RequestBody Map<String, Object> patch) {
+        return musicService.patchMusic(id, patch)
+                .then(Mono.just(ResponseEntity.noContent().build()))
+                .onErrorResume(MusicNotFoundException.class, e -> Mono.just(ResponseEntity.notFound().build()))
+                .onErrorResume(ValidationException.class,
+                        e -> Mono.just(ResponseEntity.badRequest().body(Map.of("errors", e.getErrorMessages().isEmpty()
+                                ? List.of(e.getMessage()) : e.getErrorMessages()))))
+                .onErrorResume(e -> {
+                    log.error("Error patching music", e);
+                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+                });
+    }
+
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     @Operation(summary = "Delete music", description = "Delete a music entry by its UUID")
@@ -147,14 +183,18 @@ public class MusicController {
 
     @GetMapping
     @Operation(summary = "Get all music", description = "Retrieve all music with pagination")
-    public Flux<MusicDTO> getAllMusic(
+    @ApiResponse(responseCode = "200", description = "Successful operation", content = @Content(array = @ArraySchema(schema = @Schema(implementation = MusicDTO.class))))
+    public Flux<Object> getAllMusic(
             @Parameter(description = "Page number") @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
-            @Parameter(description = "Sort field and direction (e.g. title,asc)") @RequestParam(defaultValue = "title,asc") String sort) {
+            @Parameter(description = "Sort field and direction (e.g. title,asc)") @RequestParam(defaultValue = "title,asc") String sort,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        FieldSet fieldSet = FieldSet.parse(fields, MusicDTO.class);
 
         PageRequest pageRequest = createPageRequest(page, size, sort);
 
         return musicService.getAllMusic(pageRequest)
+                .map(fieldSet::project)
                 .onErrorResume(e -> {
                     log.error("Error fetching all music", e);
                     return Flux.error(
@@ -175,13 +215,17 @@ public class MusicController {
 
     @GetMapping("/year/{year}")
     @Operation(summary = "Get music by year", description = "Retrieve music released in a specific year")
-    public Flux<MusicDTO> getMusicByYear(
+    @ApiResponse(responseCode = "200", description = "Successful operation", content = @Content(array = @ArraySchema(schema = @Schema(implementation = MusicDTO.class))))
+    public Flux<Object> getMusicByYear(
             @Parameter(description = "Year") @PathVariable int year,
             @Parameter(description = "Page number") @RequestParam(defaultValue = "0") int page,
-            @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size) {
+            @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        FieldSet fieldSet = FieldSet.parse(fields, MusicDTO.class);
 
         PageRequest pageRequest = PageRequest.of(page, size);
         return musicService.getMusicByYear(year, pageRequest)
+                .map(fieldSet::project)
                 .onErrorResume(e -> {
                     log.error("Error fetching music by year", e);
                     return Flux.error(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
@@ -191,13 +235,17 @@ public class MusicController {
 
     @GetMapping("/language/{language}")
     @Operation(summary = "Get music by language", description = "Retrieve music in a specific language")
-    public Flux<MusicDTO> getMusicByLanguage(
+    @ApiResponse(responseCode = "200", description = "Successful operation", content = @Content(array = @ArraySchema(schema = @Schema(implementation = MusicDTO.class))))
+    public Flux<Object> getMusicByLanguage(
             @Parameter(description = "Language") @PathVariable String language,
             @Parameter(description = "Page number") @RequestParam(defaultValue = "0") int page,
-            @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size) {
+            @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        FieldSet fieldSet = FieldSet.parse(fields, MusicDTO.class);
 
         PageRequest pageRequest = PageRequest.of(page, size);
         return musicService.getMusicByLanguage(language, pageRequest)
+                .map(fieldSet::project)
                 .onErrorResume(e -> {
                     log.error("Error fetching music by language", e);
                     return Flux.error(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
@@ -218,12 +266,17 @@ public class MusicController {
     }
 
     @PutMapping("/bulk")
-    @Operation(summary = "Bulk update music", description = "Update multiple music items")
-    public Flux<MusicDTO> bulkUpdateMusic(@RequestBody List<MusicDTO> musicDTOs) {
+    @Operation(summary = "Bulk update music", description = "Update multiple music items. Counts of inserted, updated and unchanged rows are returned in the "
+            + "X-Upsert-Inserted, X-Upsert-Updated and X-Upsert-Unchanged headers")
+    public Mono<ResponseEntity<List<MusicDTO>>> bulkUpdateMusic(@RequestBody List<MusicDTO> musicDTOs) {
+        UpsertCounts counts = new UpsertCounts();
         return musicService.bulkUpdateMusic(musicDTOs)
+                .collectList()
+                .map(saved -> ResponseEntity.ok().headers(counts.toHeaders()).body(saved))
+                .contextWrite(counts.context())
                 .onErrorResume(e -> {
                     log.error("Error performing bulk update", e);
-                    return Flux.error(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                    return Mono.error(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
                             "Error performing bulk update"));
                 });
     }
@@ -4,8 +4,11 @@ import com.chillflix.indexer.dto.MusicTrackDTO;
 import com.chillflix.indexer.exception.MusicTrackNotFoundException;
 import com.chillflix.indexer.exception.ValidationException;
 import com.chillflix.indexer.service.MusicTrackService;
+import com.chillflix.indexer.service.MediaPatchService;
+import com.chillflix.indexer.projection.FieldSet;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -23,6 +26,7 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @RestController
@@ -36,14 +40,18 @@ public class MusicTrackController {
 
     @GetMapping
     @Operation(summary = "Get all music tracks", description = "Retrieve all music tracks with pagination")
-    public Flux<MusicTrackDTO> getAllMusicTracks(
+    @ApiResponse(responseCode = "200", description = "Successful operation", content = @Content(array = @ArraySchema(schema = @Schema(implementation = MusicTrackDTO.class))))
+    public Flux<Object> getAllMusicTracks(
             @Parameter(description = "Page number") @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
-            @Parameter(description = "Sort field and direction (e.g. title,asc)") @RequestParam(defaultValue = "title,asc") String sort) {
+            @Parameter(description = "Sort field and direction (e.g. title,asc)") @RequestParam(defaultValue = "title,asc") String sort,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        FieldSet fieldSet = FieldSet.parse(fields, MusicTrackDTO.class);
 
         PageRequest pageRequest = createPageRequest(page, size, sort);
 
         return musicTrackService.getAllMusicTracks(pageRequest)
+                .map(fieldSet::project)
                 .onErrorResume(e -> {
                     log.error("Error fetching all music tracks", e);
                     return Flux.error(
@@ -67,13 +75,17 @@ public class MusicTrackController {
 
     @GetMapping("/artist/{artistId}")
     @Operation(summary = "Get music tracks by artist ID", description = "Retrieve all music tracks from a specific artist")
-    public Flux<MusicTrackDTO> getMusicTracksByArtistId(
+    @ApiResponse(responseCode = "200", description = "Successful operation", content = @Content(array = @ArraySchema(schema = @Schema(implementation = MusicTrackDTO.class))))
+    public Flux<Object> getMusicTracksByArtistId(
             @Parameter(description = "Artist UUID") @PathVariable UUID artistId,
             @Parameter(description = "Page number") @RequestParam(defaultValue = "0") int page,
-            @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size) {
+            @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        FieldSet fieldSet = FieldSet.parse(fields, MusicTrackDTO.class);
         
         PageRequest pageRequest = PageRequest.of(page, size);
         return musicTrackService.getMusicTracksByArtistId(artistId, pageRequest)
+                .map(fieldSet::project)
                 .onErrorResume(e -> {
                     log.error("Error fetching music tracks by artist ID", e);
                     return Flux.error(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
@@ -83,13 +95,17 @@ public class MusicTrackController {
 
     @GetMapping("/album/{albumId}")
     @Operation(summary = "Get music tracks by album ID", description = "Retrieve all music tracks from a specific album")
-    public Flux<MusicTrackDTO> getMusicTracksByAlbumId(
+    @ApiResponse(responseCode = "200", description = "Successful operation", content = @Content(array = @ArraySchema(schema = @Schema(implementation = MusicTrackDTO.class))))
+    public Flux<Object> getMusicTracksByAlbumId(
             @Parameter(description = "Album UUID") @PathVariable UUID albumId,
             @Parameter(description = "Page number") @RequestParam(defaultValue = "0") int page,
-            @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size) {
+            @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        FieldSet fieldSet = FieldSet.parse(fields, MusicTrackDTO.class);
         
         PageRequest pageRequest = PageRequest.of(page, size);
         return musicTrackService.getMusicTracksByAlbumId(albumId, pageRequest)
+                .map(fieldSet::project)
                 .onErrorResume(e -> {
                     log.error("Error fetching music tracks by album ID", e);
                     return Flux.error(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
@@ -99,15 +115,19 @@ public class MusicTrackController {
 
     @GetMapping("/search")
     @Operation(summary = "Search music tracks", description = "Search music tracks based on a search term")
-    public Flux<MusicTrackDTO> searchMusicTracks(
+    @ApiResponse(responseCode = "200", description = "Successful operation", content = @Content(array = @ArraySchema(schema = @Schema(implementation = MusicTrackDTO.class))))
+    public Flux<Object> searchMusicTracks(
             @Parameter(description = "Search term") @RequestParam String term,
             @Parameter(description = "Page number") @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
-            @Parameter(description = "Sort field and direction (e.g. title,asc)") @RequestParam(defaultValue = "title,asc") String sort) {
+            @Parameter(description = "Sort field and direction (e.g. title,asc)") @RequestParam(defaultValue = "title,asc") String sort,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        FieldSet fieldSet = FieldSet.parse(fields, MusicTrackDTO.class);
 
         PageRequest pageRequest = createPageRequest(page, size, sort);
 
         return musicTrackService.searchMusicTracks(term, pageRequest)
+                .map(fieldSet::project)
                 .onErrorResume(e -> {
                     log.error("Error searching music tracks", e);
                     return Flux.error(
@@ -117,7 +137,8 @@ public class MusicTrackController {
 
     @GetMapping("/advanced-search")
     @Operation(summary = "Advanced search for music tracks", description = "Search music tracks with multiple optional parameters")
-    public Flux<MusicTrackDTO> advancedSearch(
+    @ApiResponse(responseCode = "200", description = "Successful operation", content = @Content(array = @ArraySchema(schema = @Schema(implementation = MusicTrackDTO.class))))
+    public Flux<Object> advancedSearch(
             @Parameter(description = "Track title") @RequestParam(required = false) String title,
             @Parameter(description = "Artist name") @RequestParam(required = false) String artist,
             @Parameter(description = "Album name") @RequestParam(required = false) String album,
@@ -128,11 +149,14 @@ public class MusicTrackController {
             @Parameter(description = "File type") @RequestParam(required = false) String fileType,
             @Parameter(description = "Page number") @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
-            @Parameter(description = "Sort field and direction (e.g. title,asc)") @RequestParam(defaultValue = "title,asc") String sort) {
+            @Parameter(description = "Sort field and direction (e.g. title,asc)") @RequestParam(defaultValue = "title,asc") String sort,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        FieldSet fieldSet = FieldSet.parse(fields, MusicTrackDTO.class);
 
         PageRequest pageRequest = createPageRequest(page, size, sort);
 
         return musicTrackService.advancedSearch(title, artist, album, genre, year, language, quality, fileType, pageRequest)
+                .map(fieldSet::project)
                 .onErrorResume(e -> {
                     log.error("Error performing advanced search on music tracks", e);
                     return Flux.error(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
@@ -177,6 +201,27 @@ public class MusicTrackController {
                 });
     }
 
+    @PatchMapping(value = "/{id}", consumes = {MediaPatchService.MERGE_PATCH_JSON, "application/json"})
+    @Operation(summary = "Patch a music track", description = "Apply a JSON Merge Patch (RFC 7396). Only the supplied fields are written, "
+            + "e.g. {\"seeds\": 120, \"peers\": 14}")
+    @ApiResponse(responseCode = "204", description = "Patch applied")
+    @ApiResponse(responseCode = "404", description = "Music track not found")
+    @ApiResponse(responseCode = "400", description = "Unknown field or invalid value")
+    public Mono<ResponseEntity<Object>> patchMusicTrack(
+            @Parameter(description = "Track UUID") @PathVariable UUID id,
+            @RequestBody Map<String, Object> patch) {
+        return musicTrackService.patchMusicTrack(id, patch)
+                .then(Mono.just(ResponseEntity.noContent().build()))
+                .onErrorResume(MusicTrackNotFoundException.class, e -> Mono.just(ResponseEntity.notFound().build()))
+                .onErrorResume(ValidationException.class,
+                        e -> Mono.just(ResponseEntity.badRequest().body(Map.of("errors", e.getErrorMessages().isEmpty()
+                                ? List.of(e.getMessage()) : e.getErrorMessages()))))
+                .onErrorResume(e -> {
+                    log.error("Error patching music track", e);
+                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+                });
+    }
+
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     @Operation(summary = "Delete a music track", description = "Delete a music track entry by its UUID")
@@ -228,13 +273,17 @@ public class MusicTrackController {
 
     @GetMapping("/language/{language}")
     @Operation(summary = "Get music tracks by language", description = "Retrieve music tracks in a specific language")
-    public Flux<MusicTrackDTO> getMusicTracksByLanguage(
+    @ApiResponse(responseCode = "200", description = "Successful operation", content = @Content(array = @ArraySchema(schema = @Schema(implementation = MusicTrackDTO.class))))
+    public Flux<Object> getMusicTracksByLanguage(
             @Parameter(description = "Language") @PathVariable String language,
             @Parameter(description = "Page number") @RequestParam(defaultValue = "0") int page,
-            @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size) {
+            @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        FieldSet fieldSet = FieldSet.parse(fields, MusicTrackDTO.class);
 
         PageRequest pageRequest = PageRequest.of(page, size);
         return musicTrackService.getMusicTracksByLanguage(language, pageRequest)
+                .map(fieldSet::project)
                 .onErrorResume(e -> {
                     log.error("Error fetching music tracks by language", e);
                     return Flux.error(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
@@ -244,13 +293,17 @@ public class MusicTrackController {
 
     @GetMapping("/genre/{genre}")
     @Operation(summary = "Get music tracks by genre", description = "Retrieve music tracks of a specific genre")
-    public Flux<MusicTrackDTO> getMusicTracksByGenre(
+    @ApiResponse(responseCode = "200", description = "Successful operation", content = @Content(array = @ArraySchema(schema = @Schema(implementation = MusicTrackDTO.class))))
+    public Flux<Object> getMusicTracksByGenre(
             @Parameter(description = "Genre") @PathVariable String genre,
             @Parameter(description = "Page number") @RequestParam(defaultValue = "0") int page,
-            @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size) {
+            @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        FieldSet fieldSet = FieldSet.parse(fields, MusicTrackDTO.class);
 
         PageRequest pageRequest = PageRequest.of(page, size);
         return musicTrackService.getMusicTracksByGenre(genre, pageRequest)
+                .map(fieldSet::project)
                 .onErrorResume(e -> {
                     log.error("Error fetching music tracks by genre", e);
                     return Flux.error(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
@@ -260,13 +313,17 @@ public class MusicTrackController {
 
     @GetMapping("/year/{year}")
     @Operation(summary = "Get music tracks by year", description = "Retrieve music tracks released in a specific year")
-    public Flux<MusicTrackDTO> getMusicTracksByYear(
+    @ApiResponse(responseCode = "200", description = "Successful operation", content = @Content(array = @ArraySchema(schema = @Schema(implementation = MusicTrackDTO.class))))
+    public Flux<Object> getMusicTracksByYear(
             @Parameter(description = "Year") @PathVariable int year,
             @Parameter(description = "Page number") @RequestParam(defaultValue = "0") int page,
-            @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size) {
+            @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        FieldSet fieldSet = FieldSet.parse(fields, MusicTrackDTO.class);
 
         PageRequest pageRequest = PageRequest.of(page, size);
         return musicTrackService.getMusicTracksByYear(year, pageRequest)
+                .map(fieldSet::project)
                 .onErrorResume(e -> {
                     log.error("Error fetching music tracks by year", e);
                     return Flux.error(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
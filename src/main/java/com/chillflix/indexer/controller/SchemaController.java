@@ -0,0 +1,49 @@
+package com.chillflix.indexer.controller;
+
+import com.chillflix.indexer.codec.ProtobufJacksonEncoder;
+import com.chillflix.indexer.dto.MovieDTO;
+import com.chillflix.indexer.dto.MusicDTO;
+import com.chillflix.indexer.dto.MusicTrackDTO;
+import com.chillflix.indexer.dto.SeriesDTO;
+import com.chillflix.indexer.dto.SeriesEpisodeDTO;
+import com.chillflix.indexer.dto.VideoDTO;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/v1/schemas")
+@RequiredArgsConstructor
+@Tag(name = "Schemas", description = "Protobuf schemas of the application/x-protobuf responses")
+public class SchemaController {
+
+    private static final Map<String, Class<?>> MESSAGES = Map.of(
+            "movie", MovieDTO.class,
+            "series", SeriesDTO.class,
+            "episode", SeriesEpisodeDTO.class,
+            "music", MusicDTO.class,
+            "track", MusicTrackDTO.class,
+            "video", VideoDTO.class);
+
+    private final ProtobufJacksonEncoder protobufEncoder;
+
+    @GetMapping(value = "/{type}.proto", produces = MediaType.TEXT_PLAIN_VALUE)
+    @Operation(summary = "Get a protobuf schema", description = "The .proto definition of a DTO (movie, series, episode, "
+            + "music, track or video) and of the RepeatedMessage that carries lists of it")
+    @ApiResponse(responseCode = "200", description = "Successful operation")
+    @ApiResponse(responseCode = "404", description = "Unknown type")
+    public Mono<ResponseEntity<String>> getSchema(@Parameter(description = "DTO type") @PathVariable String type) {
+        return Mono.justOrEmpty(MESSAGES.get(type))
+                .flatMap(dto -> Mono.justOrEmpty(protobufEncoder.protoFor(dto)))
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+}
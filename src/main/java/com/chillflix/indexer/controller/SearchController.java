@@ -0,0 +1,81 @@
+package com.chillflix.indexer.controller;
+
+import com.chillflix.indexer.exception.SearchUnavailableException;
+import com.chillflix.indexer.search.UnifiedSearch;
+import com.chillflix.indexer.search.UnifiedSearchResult;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/v1/search")
+@RequiredArgsConstructor
+@Tag(name = "Search", description = "Search across every media type")
+@Slf4j
+public class SearchController {
+
+    private final UnifiedSearch unifiedSearch;
+
+    @GetMapping
+    @Operation(summary = "Search all media", description = "Search movies, series, music, videos and video games at once, "
+            + "merged into a single ranking with the number of matches per type")
+    @ApiResponse(responseCode = "200", description = "Successful operation", content = @Content(schema = @Schema(implementation = UnifiedSearchResult.class)))
+    @ApiResponse(responseCode = "503", description = "Too many unified searches running; retry after the Retry-After delay")
+    @ApiResponse(responseCode = "504", description = "Too few media types answered in time")
+    public Mono<UnifiedSearchResult> search(
+            @Parameter(description = "Search term") @RequestParam String term,
+            @Parameter(description = "Comma-separated media types to search (movies,series,music,videos,videogames); all if absent")
+            @RequestParam(required = false) String types,
+            @Parameter(description = "Number of hits to return") @RequestParam(defaultValue = "20") int limit) {
+        if (term.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The search term cannot be blank");
+        }
+        return unifiedSearch.search(term, parseTypes(types), limit)
+                .onErrorResume(e -> {
+                    if (e instanceof ResponseStatusException) {
+                        return Mono.error(e);
+                    }
+                    if (e instanceof BulkheadFullException) {
+                        return Mono.error(new SearchUnavailableException(e));
+                    }
+                    log.error("Error performing unified search", e);
+                    return Mono.error(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                            "Error performing unified search"));
+                });
+    }
+
+    private Set<String> parseTypes(String types) {
+        Set<String> selected = new LinkedHashSet<>();
+        if (types == null) {
+            return selected;
+        }
+        for (String type : types.split(",")) {
+            String key = type.trim();
+            if (key.isEmpty()) {
+                continue;
+            }
+            if (!unifiedSearch.types().contains(key)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Unknown media type '" + key + "'; available types: " + String.join(",", unifiedSearch.types()));
+            }
+            selected.add(key);
+        }
+        return selected;
+    }
+}
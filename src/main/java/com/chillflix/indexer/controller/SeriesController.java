@@ -1,13 +1,19 @@
 package com.chillflix.indexer.controller;
 
+import com.chillflix.indexer.dedupe.UpsertCounts;
 import com.chillflix.indexer.dto.SeriesDTO;
 import com.chillflix.indexer.service.SeriesService;
+import com.chillflix.indexer.service.MediaPatchService;
+import com.chillflix.indexer.exception.SearchUnavailableException;
 import com.chillflix.indexer.exception.SeriesNotFoundException;
 import com.chillflix.indexer.exception.ValidationException;
 import com.chillflix.indexer.models.TmdbSearchRequest;
 import com.chillflix.indexer.repository.SeriesRepository;
+import com.chillflix.indexer.responsecache.EncodedResponseCache;
+import com.chillflix.indexer.projection.FieldSet;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -15,17 +21,20 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @RestController
@@ -36,19 +45,25 @@ import java.util.UUID;
 public class SeriesController {
 
     private final SeriesService seriesService;
+    private final EncodedResponseCache responseCache;
 
     @GetMapping("/search")
     @Operation(summary = "Search series", description = "Search series based on a search term")
-    public Flux<SeriesDTO> searchSeries(
+    @ApiResponse(responseCode = "200", description = "Successful operation", content = @Content(array = @ArraySchema(schema = @Schema(implementation = SeriesDTO.class))))
+    @ApiResponse(responseCode = "503", description = "Search temporarily unavailable; retry after the Retry-After delay")
+    public Flux<Object> searchSeries(
             @Parameter(description = "Search term") @RequestParam String term,
             @Parameter(description = "Page number") @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
-            @Parameter(description = "Sort field and direction (e.g. title,asc)") @RequestParam(defaultValue = "title,asc") String sort) {
+            @Parameter(description = "Sort field and direction (e.g. title,asc)") @RequestParam(defaultValue = "title,asc") String sort,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        FieldSet fieldSet = FieldSet.parse(fields, SeriesDTO.class);
 
         PageRequest pageRequest = createPageRequest(page, size, sort);
 
-        return seriesService.searchSeries(term, pageRequest)
-                .onErrorResume(e -> {
+        return seriesService.searchSeries(term, pageRequest, fieldSet)
+                .map(fieldSet::project)
+                .onErrorResume(e -> !(e instanceof SearchUnavailableException), e -> {
                     log.error("Error searching series", e);
                     return Flux.error(
                             new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error searching series"));
@@ -57,7 +72,8 @@ public class SeriesController {
 
     @GetMapping("/advanced-search")
     @Operation(summary = "Advanced search for series", description = "Search series with multiple optional parameters")
-    public Flux<SeriesDTO> advancedSearch(
+    @ApiResponse(responseCode = "200", description = "Successful operation", content = @Content(array = @ArraySchema(schema = @Schema(implementation = SeriesDTO.class))))
+    public Flux<Object> advancedSearch(
             @Parameter(description = "Series title") @RequestParam(required = false) String title,
             @Parameter(description = "Release year") @RequestParam(required = false) Integer year,
             @Parameter(description = "Language") @RequestParam(required = false) String language,
@@ -65,11 +81,14 @@ public class SeriesController {
             @Parameter(description = "File type") @RequestParam(required = false) String fileType,
             @Parameter(description = "Page number") @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
-            @Parameter(description = "Sort field and direction (e.g. title,asc)") @RequestParam(defaultValue = "title,asc") String sort) {
+            @Parameter(description = "Sort field and direction (e.g. title,asc)") @RequestParam(defaultValue = "title,asc") String sort,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        FieldSet fieldSet = FieldSet.parse(fields, SeriesDTO.class);
 
         PageRequest pageRequest = createPageRequest(page, size, sort);
 
-        return seriesService.advancedSearch(title, year, language, quality, null, fileType, pageRequest)
+        return seriesService.advancedSearch(title, year, language, quality, null, fileType, pageRequest, fieldSet)
+                .map(fieldSet::project)
                 .onErrorResume(e -> {
                     log.error("Error performing advanced search", e);
                     return Flux.error(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
@@ -81,9 +100,10 @@ public class SeriesController {
     @Operation(summary = "Get a series by ID", description = "Retrieve a series by its UUID")
     @ApiResponse(responseCode = "200", description = "Successful operation", content = @Content(schema = @Schema(implementation = SeriesDTO.class)))
     @ApiResponse(responseCode = "404", description = "Series not found")
-    public Mono<ResponseEntity<SeriesDTO>> getSeriesById(@Parameter(description = "Series UUID") @PathVariable UUID id) {
+    public Mono<ResponseEntity<DataBuffer>> getSeriesById(@Parameter(description = "Series UUID") @PathVariable UUID id,
+                                                          ServerWebExchange exchange) {
         return seriesService.getSeriesById(id)
-                .map(ResponseEntity::ok)
+                .map(series -> responseCache.entity("seriesCache", id, series, exchange))
                 .onErrorResume(SeriesNotFoundException.class, e -> Mono.just(ResponseEntity.notFound().build()))
                 .onErrorResume(e -> {
                     log.error("Error fetching series by ID", e);
@@ -93,8 +113,13 @@ public class SeriesController {
 
     @GetMapping("/tmdb/{tmdbId}")
     @Operation(summary = "Get series by TMDB ID", description = "Retrieve series by their TMDB ID")
-    public Flux<SeriesDTO> getSeriesByTmdbId(@Parameter(description = "TMDB ID") @PathVariable Integer tmdbId) {
-        return seriesService.getSeriesByTmdbId(tmdbId)
+    @ApiResponse(responseCode = "200", description = "Successful operation", content = @Content(array = @ArraySchema(schema = @Schema(implementation = SeriesDTO.class))))
+    public Flux<Object> getSeriesByTmdbId(
+            @Parameter(description = "TMDB ID") @PathVariable Integer tmdbId,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        FieldSet fieldSet = FieldSet.parse(fields, SeriesDTO.class);
+        return seriesService.getSeriesByTmdbId(tmdbId, fieldSet)
+                .map(fieldSet::project)
                 .onErrorResume(e -> {
                     log.error("Error fetching series by TMDB ID", e);
                     return Flux.error(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
@@ -104,8 +129,13 @@ public class SeriesController {
 
     @GetMapping("/imdb/{imdbId}")
     @Operation(summary = "Get series by IMDB ID", description = "Retrieve series by their IMDB ID")
-    public Flux<SeriesDTO> getSeriesByImdbId(@Parameter(description = "IMDB ID") @PathVariable String imdbId) {
-        return seriesService.getSeriesByImdbId(imdbId)
+    @ApiResponse(responseCode = "200", description = "Successful operation", content = @Content(array = @ArraySchema(schema = @Schema(implementation = SeriesDTO.class))))
+    public Flux<Object> getSeriesByImdbId(
+            @Parameter(description = "IMDB ID") @PathVariable String imdbId,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        FieldSet fieldSet = FieldSet.parse(fields, SeriesDTO.class);
+        return seriesService.getSeriesByImdbId(imdbId, fieldSet)
+                .map(fieldSet::project)
                 .onErrorResume(e -> {
                     log.error("Error fetching series by IMDB ID", e);
                     return Flux.error(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
@@ -150,6 +180,27 @@ public class SeriesController {
                 });
     }
 
+    @PatchMapping(value = "/{id}", consumes = {MediaPatchService.MERGE_PATCH_JSON, "application/json"})
+    @Operation(summary = "Patch a series", description = "Apply a JSON Merge Patch (RFC 7396). Only the supplied fields are written, "
+            + "e.g. {\"seeds\": 120, \"peers\": 14}")
+    @ApiResponse(responseCode = "204", description = "Patch applied")
+    @ApiResponse(responseCode = "404", description = "Series not found")
+    @ApiResponse(responseCode = "400", description = "Unknown field or invalid value")
+    public Mono<ResponseEntity<Object>> patchSeries(
+            @Parameter(description = "Series UUID") @PathVariable UUID id,
+            @RequestBody Map<String, Object> patch) {
+        return seriesService.patchSeries(id, patch)
+                .then(Mono.just(ResponseEntity.noContent().build()))
+                .onErrorResume(SeriesNotFoundException.class, e -> Mono.just(ResponseEntity.notFound().build()))
+                .onErrorResume(ValidationException.class,
+                        e -> Mono.just(ResponseEntity.badRequest().body(Map.of("errors", e.getErrorMessages().isEmpty()
+                                ? List.of(e.getMessage()) : e.getErrorMessages()))))
+                .onErrorResume(e -> {
+                    log.error("Error patching series", e);
+                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+                });
+    }
+
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     @Operation(summary = "Delete a series", description = "Delete a series entry by its UUID")
@@ -185,17 +236,23 @@ public class SeriesController {
 
     @GetMapping
     @Operation(summary = "Get all series", description = "Retrieve all series with pagination")
-    public Flux<SeriesDTO> getAllSeries(
+    @ApiResponse(responseCode = "200", description = "Successful operation", content = @Content(array = @ArraySchema(schema = @Schema(implementation = SeriesDTO.class))))
+    public Mono<ResponseEntity<DataBuffer>> getAllSeries(
             @Parameter(description = "Page number") @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
-            @Parameter(description = "Sort field and direction (e.g. title,asc)") @RequestParam(defaultValue = "title,asc") String sort) {
+            @Parameter(description = "Sort field and direction (e.g. title,asc)") @RequestParam(defaultValue = "title,asc") String sort,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields,
+            ServerWebExchange exchange) {
+        FieldSet fieldSet = FieldSet.parse(fields, SeriesDTO.class);
 
         PageRequest pageRequest = createPageRequest(page, size, sort);
 
         return seriesService.getAllSeries(pageRequest)
+                .collectList()
+                .map(series -> responseCache.page("allSeriesCache", pageRequest, series, SeriesDTO.class, fieldSet, exchange))
                 .onErrorResume(e -> {
                     log.error("Error fetching all series", e);
-                    return Flux.error(
+                    return Mono.error(
                             new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error fetching all series"));
                 });
     }
@@ -213,13 +270,17 @@ public class SeriesController {
 
     @GetMapping("/year/{year}")
     @Operation(summary = "Get series by year", description = "Retrieve series released in a specific year")
-    public Flux<SeriesDTO> getSeriesByYear(
+    @ApiResponse(responseCode = "200", description = "Successful operation", content = @Content(array = @ArraySchema(schema = @Schema(implementation = SeriesDTO.class))))
+    public Flux<Object> getSeriesByYear(
             @Parameter(description = "Year") @PathVariable int year,
             @Parameter(description = "Page number") @RequestParam(defaultValue = "0") int page,
-            @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size) {
+            @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        FieldSet fieldSet = FieldSet.parse(fields, SeriesDTO.class);
 
         PageRequest pageRequest = PageRequest.of(page, size);
-        return seriesService.getSeriesByYear(year, pageRequest)
+        return seriesService.getSeriesByYear(year, pageRequest, fieldSet)
+                .map(fieldSet::project)
                 .onErrorResume(e -> {
                     log.error("Error fetching series by year", e);
                     return Flux.error(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
@@ -229,13 +290,17 @@ public class SeriesController {
 
     @GetMapping("/language/{language}")
     @Operation(summary = "Get series by language", description = "Retrieve series in a specific language")
-    public Flux<SeriesDTO> getSeriesByLanguage(
+    @ApiResponse(responseCode = "200", description = "Successful operation", content = @Content(array = @ArraySchema(schema = @Schema(implementation = SeriesDTO.class))))
+    public Flux<Object> getSeriesByLanguage(
             @Parameter(description = "Language") @PathVariable String language,
             @Parameter(description = "Page number") @RequestParam(defaultValue = "0") int page,
-            @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size) {
+            @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        FieldSet fieldSet = FieldSet.parse(fields, SeriesDTO.class);
 
         PageRequest pageRequest = PageRequest.of(page, size);
-        return seriesService.getSeriesByLanguage(language, pageRequest)
+        return seriesService.getSeriesByLanguage(language, pageRequest, fieldSet)
+                .map(fieldSet::project)
                 .onErrorResume(e -> {
                     log.error("Error fetching series by language", e);
                     return Flux.error(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
@@ -256,12 +321,17 @@ public class SeriesController {
     }
 
     @PutMapping("/bulk")
-    @Operation(summary = "Bulk update series", description = "Update multiple series")
-    public Flux<SeriesDTO> bulkUpdateSeries(@RequestBody List<SeriesDTO> seriesDTOs) {
+    @Operation(summary = "Bulk update series", description = "Update multiple series. Counts of inserted, updated and unchanged rows are returned in the "
+            + "X-Upsert-Inserted, X-Upsert-Updated and X-Upsert-Unchanged headers")
+    public Mono<ResponseEntity<List<SeriesDTO>>> bulkUpdateSeries(@RequestBody List<SeriesDTO> seriesDTOs) {
+        UpsertCounts counts = new UpsertCounts();
         return seriesService.bulkUpdateSeries(seriesDTOs)
+                .collectList()
+                .map(saved -> ResponseEntity.ok().headers(counts.toHeaders()).body(saved))
+                .contextWrite(counts.context())
                 .onErrorResume(e -> {
                     log.error("Error performing bulk update", e);
-                    return Flux.error(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                    return Mono.error(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
                             "Error performing bulk update"));
                 });
     }
@@ -1,11 +1,15 @@
 package com.chillflix.indexer.controller;
 
+import com.chillflix.indexer.dedupe.UpsertCounts;
 import com.chillflix.indexer.dto.SeriesEpisodeDTO;
 import com.chillflix.indexer.exception.EpisodeNotFoundException;
 import com.chillflix.indexer.exception.ValidationException;
 import com.chillflix.indexer.service.SeriesEpisodeService;
+import com.chillflix.indexer.service.MediaPatchService;
+import com.chillflix.indexer.projection.FieldSet;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -23,6 +27,7 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @RestController
@@ -36,14 +41,18 @@ public class SeriesEpisodeController {
 
     @GetMapping
     @Operation(summary = "Get all episodes", description = "Retrieve all series episodes with pagination")
-    public Flux<SeriesEpisodeDTO> getAllEpisodes(
+    @ApiResponse(responseCode = "200", description = "Successful operation", content = @Content(array = @ArraySchema(schema = @Schema(implementation = SeriesEpisodeDTO.class))))
+    public Flux<Object> getAllEpisodes(
             @Parameter(description = "Page number") @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
-            @Parameter(description = "Sort field and direction (e.g. title,asc)") @RequestParam(defaultValue = "title,asc") String sort) {
+            @Parameter(description = "Sort field and direction (e.g. title,asc)") @RequestParam(defaultValue = "title,asc") String sort,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        FieldSet fieldSet = FieldSet.parse(fields, SeriesEpisodeDTO.class);
 
         PageRequest pageRequest = createPageRequest(page, size, sort);
 
         return seriesEpisodeService.getAllEpisodes(pageRequest)
+                .map(fieldSet::project)
                 .onErrorResume(e -> {
                     log.error("Error fetching all episodes", e);
                     return Flux.error(
@@ -67,13 +76,17 @@ public class SeriesEpisodeController {
 
     @GetMapping("/series/{seriesId}")
     @Operation(summary = "Get episodes by series ID", description = "Retrieve all episodes belonging to a specific series")
-    public Flux<SeriesEpisodeDTO> getEpisodesBySeriesId(
+    @ApiResponse(responseCode = "200", description = "Successful operation", content = @Content(array = @ArraySchema(schema = @Schema(implementation = SeriesEpisodeDTO.class))))
+    public Flux<Object> getEpisodesBySeriesId(
             @Parameter(description = "Series UUID") @PathVariable UUID seriesId,
             @Parameter(description = "Page number") @RequestParam(defaultValue = "0") int page,
-            @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size) {
+            @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        FieldSet fieldSet = FieldSet.parse(fields, SeriesEpisodeDTO.class);
         
         PageRequest pageRequest = PageRequest.of(page, size);
         return seriesEpisodeService.getEpisodesBySeriesId(seriesId, pageRequest)
+                .map(fieldSet::project)
                 .onErrorResume(e -> {
                     log.error("Error fetching episodes by series ID", e);
                     return Flux.error(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
@@ -83,14 +96,18 @@ public class SeriesEpisodeController {
 
     @GetMapping("/series/{seriesId}/season/{seasonNumber}")
     @Operation(summary = "Get episodes by series ID and season", description = "Retrieve all episodes for a specific series and season")
-    public Flux<SeriesEpisodeDTO> getEpisodesBySeriesIdAndSeason(
+    @ApiResponse(responseCode = "200", description = "Successful operation", content = @Content(array = @ArraySchema(schema = @Schema(implementation = SeriesEpisodeDTO.class))))
+    public Flux<Object> getEpisodesBySeriesIdAndSeason(
             @Parameter(description = "Series UUID") @PathVariable UUID seriesId,
             @Parameter(description = "Season number") @PathVariable int seasonNumber,
             @Parameter(description = "Page number") @RequestParam(defaultValue = "0") int page,
-            @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size) {
+            @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        FieldSet fieldSet = FieldSet.parse(fields, SeriesEpisodeDTO.class);
         
         PageRequest pageRequest = PageRequest.of(page, size);
         return seriesEpisodeService.getEpisodesBySeriesIdAndSeason(seriesId, seasonNumber, pageRequest)
+                .map(fieldSet::project)
                 .onErrorResume(e -> {
                     log.error("Error fetching episodes by series ID and season", e);
                     return Flux.error(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
@@ -100,15 +117,19 @@ public class SeriesEpisodeController {
 
     @GetMapping("/search")
     @Operation(summary = "Search episodes", description = "Search episodes based on a search term")
-    public Flux<SeriesEpisodeDTO> searchEpisodes(
+    @ApiResponse(responseCode = "200", description = "Successful operation", content = @Content(array = @ArraySchema(schema = @Schema(implementation = SeriesEpisodeDTO.class))))
+    public Flux<Object> searchEpisodes(
             @Parameter(description = "Search term") @RequestParam String term,
             @Parameter(description = "Page number") @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
-            @Parameter(description = "Sort field and direction (e.g. title,asc)") @RequestParam(defaultValue = "title,asc") String sort) {
+            @Parameter(description = "Sort field and direction (e.g. title,asc)") @RequestParam(defaultValue = "title,asc") String sort,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        FieldSet fieldSet = FieldSet.parse(fields, SeriesEpisodeDTO.class);
 
         PageRequest pageRequest = createPageRequest(page, size, sort);
 
         return seriesEpisodeService.searchEpisodes(term, pageRequest)
+                .map(fieldSet::project)
                 .onErrorResume(e -> {
                     log.error("Error searching episodes", e);
                     return Flux.error(
@@ -118,7 +139,8 @@ public class SeriesEpisodeController {
 
     @GetMapping("/advanced-search")
     @Operation(summary = "Advanced search for episodes", description = "Search episodes with multiple optional parameters")
-    public Flux<SeriesEpisodeDTO> advancedSearch(
+    @ApiResponse(responseCode = "200", description = "Successful operation", content = @Content(array = @ArraySchema(schema = @Schema(implementation = SeriesEpisodeDTO.class))))
+    public Flux<Object> advancedSearch(
             @Parameter(description = "Episode title") @RequestParam(required = false) String title,
             @Parameter(description = "Series ID") @RequestParam(required = false) UUID seriesId,
             @Parameter(description = "Season number") @RequestParam(required = false) Integer seasonNumber,
@@ -128,11 +150,14 @@ public class SeriesEpisodeController {
             @Parameter(description = "File type") @RequestParam(required = false) String fileType,
             @Parameter(description = "Page number") @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
-            @Parameter(description = "Sort field and direction (e.g. title,asc)") @RequestParam(defaultValue = "title,asc") String sort) {
+            @Parameter(description = "Sort field and direction (e.g. title,asc)") @RequestParam(defaultValue = "title,asc") String sort,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        FieldSet fieldSet = FieldSet.parse(fields, SeriesEpisodeDTO.class);
 
         PageRequest pageRequest = createPageRequest(page, size, sort);
 
         return seriesEpisodeService.advancedSearch(title, seriesId, seasonNumber, episodeNumber, language, quality, fileType, pageRequest)
+                .map(fieldSet::project)
                 .onErrorResume(e -> {
                     log.error("Error performing advanced search on episodes", e);
                     return Flux.error(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
@@ -177,6 +202,27 @@ public class SeriesEpisodeController {
                 });
     }
 
+    @PatchMapping(value = "/{id}", consumes = {MediaPatchService.MERGE_PATCH_JSON, "application/json"})
+    @Operation(summary = "Patch an episode", description = "Apply a JSON Merge Patch (RFC 7396). Only the supplied fields are written, "
+            + "e.g. {\"seeds\": 120, \"peers\": 14}")
+    @ApiResponse(responseCode = "204", description = "Patch applied")
+    @ApiResponse(responseCode = "404", description = "Episode not found")
+    @ApiResponse(responseCode = "400", description = "Unknown field or invalid value")
+    public Mono<ResponseEntity<Object>> patchEpisode(
+            @Parameter(description = "Episode UUID") @PathVariable UUID id,
+            @RequestBody Map<String, Object> patch) {
+        return seriesEpisodeService.patchEpisode(id, patch)
+                .then(Mono.just(ResponseEntity.noContent().build()))
+                .onErrorResume(EpisodeNotFoundException.class, e -> Mono.just(ResponseEntity.notFound().build()))
+                .onErrorResume(ValidationException.class,
+                        e -> Mono.just(ResponseEntity.badRequest().body(Map.of("errors", e.getErrorMessages().isEmpty()
+                                ? List.of(e.getMessage()) : e.getErrorMessages()))))
+                .onErrorResume(e -> {
+                    log.error("Error patching episode", e);
+                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+                });
+    }
+
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     @Operation(summary = "Delete an episode", description = "Delete an episode entry by its UUID")
@@ -205,12 +251,17 @@ public class SeriesEpisodeController {
     }
 
     @PutMapping("/bulk")
-    @Operation(summary = "Bulk update episodes", description = "Update multiple episodes")
-    public Flux<SeriesEpisodeDTO> bulkUpdateEpisodes(@RequestBody List<SeriesEpisodeDTO> episodeDTOs) {
+    @Operation(summary = "Bulk update episodes", description = "Update multiple episodes. Counts of inserted, updated and unchanged rows are returned in the "
+            + "X-Upsert-Inserted, X-Upsert-Updated and X-Upsert-Unchanged headers")
+    public Mono<ResponseEntity<List<SeriesEpisodeDTO>>> bulkUpdateEpisodes(@RequestBody List<SeriesEpisodeDTO> episodeDTOs) {
+        UpsertCounts counts = new UpsertCounts();
         return seriesEpisodeService.bulkUpdateEpisodes(episodeDTOs)
+                .collectList()
+                .map(saved -> ResponseEntity.ok().headers(counts.toHeaders()).body(saved))
+                .contextWrite(counts.context())
                 .onErrorResume(e -> {
                     log.error("Error performing bulk update of episodes", e);
-                    return Flux.error(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                    return Mono.error(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
                             "Error performing bulk update of episodes"));
                 });
     }
@@ -228,13 +279,17 @@ public class SeriesEpisodeController {
 
     @GetMapping("/language/{language}")
     @Operation(summary = "Get episodes by language", description = "Retrieve episodes in a specific language")
-    public Flux<SeriesEpisodeDTO> getEpisodesByLanguage(
+    @ApiResponse(responseCode = "200", description = "Successful operation", content = @Content(array = @ArraySchema(schema = @Schema(implementation = SeriesEpisodeDTO.class))))
+    public Flux<Object> getEpisodesByLanguage(
             @Parameter(description = "Language") @PathVariable String language,
             @Parameter(description = "Page number") @RequestParam(defaultValue = "0") int page,
-            @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size) {
+            @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        FieldSet fieldSet = FieldSet.parse(fields, SeriesEpisodeDTO.class);
 
         PageRequest pageRequest = PageRequest.of(page, size);
         return seriesEpisodeService.getEpisodesByLanguage(language, pageRequest)
+                .map(fieldSet::project)
                 .onErrorResume(e -> {
                     log.error("Error fetching episodes by language", e);
                     return Flux.error(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
@@ -258,8 +313,13 @@ public class SeriesEpisodeController {
 
     @GetMapping("/tmdb/{tmdbId}")
     @Operation(summary = "Get episodes by TMDB ID", description = "Retrieve episodes by their TMDB ID")
-    public Flux<SeriesEpisodeDTO> getEpisodesByTmdbId(@Parameter(description = "TMDB ID") @PathVariable Integer tmdbId) {
+    @ApiResponse(responseCode = "200", description = "Successful operation", content = @Content(array = @ArraySchema(schema = @Schema(implementation = SeriesEpisodeDTO.class))))
+    public Flux<Object> getEpisodesByTmdbId(
+            @Parameter(description = "TMDB ID") @PathVariable Integer tmdbId,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        FieldSet fieldSet = FieldSet.parse(fields, SeriesEpisodeDTO.class);
         return seriesEpisodeService.getEpisodesByTmdbId(tmdbId)
+                .map(fieldSet::project)
                 .onErrorResume(e -> {
                     log.error("Error fetching episodes by TMDB ID", e);
                     return Flux.error(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
@@ -0,0 +1,43 @@
+package com.chillflix.indexer.controller;
+
+import com.chillflix.indexer.dto.SwarmStatsDTO;
+import com.chillflix.indexer.exception.ValidationException;
+import com.chillflix.indexer.swarm.SwarmStatsAggregator;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/v1/swarm-stats")
+@RequiredArgsConstructor
+@Tag(name = "Swarm stats", description = "Tracker scrape ingestion (seeds/peers)")
+@Slf4j
+public class SwarmStatsController {
+
+    private final SwarmStatsAggregator swarmStatsAggregator;
+
+    @PostMapping
+    @Operation(summary = "Submit swarm stats", description = "Buffer seeds/peers updates for any media type. Updates are written "
+            + "asynchronously in batches; the latest value per id wins")
+    @ApiResponse(responseCode = "202", description = "Updates accepted")
+    @ApiResponse(responseCode = "400", description = "Invalid input")
+    public Mono<ResponseEntity<Map<String, Object>>> submitSwarmStats(@RequestBody List<SwarmStatsDTO> updates) {
+        return Mono.fromSupplier(() -> swarmStatsAggregator.submit(updates))
+                .map(accepted -> ResponseEntity.status(HttpStatus.ACCEPTED).<Map<String, Object>>body(Map.of("accepted", accepted)))
+                .onErrorResume(ValidationException.class,
+                        e -> Mono.just(ResponseEntity.badRequest().body(Map.of("errors", e.getErrorMessages()))))
+                .onErrorResume(e -> {
+                    log.error("Error accepting swarm stats", e);
+                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+                });
+    }
+}
@@ -1,13 +1,20 @@
 package com.chillflix.indexer.controller;
 
+import com.chillflix.indexer.dedupe.UpsertCounts;
 import com.chillflix.indexer.dto.MovieDTO;
 import com.chillflix.indexer.service.MovieService;
+import com.chillflix.indexer.service.VideoGameService;
+import com.chillflix.indexer.service.MediaPatchService;
 import com.chillflix.indexer.exception.MovieNotFoundException;
+import com.chillflix.indexer.exception.VideoGameNotFoundException;
+import com.chillflix.indexer.exception.SearchUnavailableException;
 import com.chillflix.indexer.exception.ValidationException;
 import com.chillflix.indexer.models.TmdbSearchRequest;
 import com.chillflix.indexer.repository.MovieRepository;
+import com.chillflix.indexer.projection.FieldSet;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -26,6 +33,7 @@ import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @RestController
@@ -36,19 +44,25 @@ import java.util.UUID;
 public class VideoGameController {
 
     private final MovieService movieService;
+    private final VideoGameService videoGameService;
 
     @GetMapping("/search")
     @Operation(summary = "Search video games", description = "Search video games based on a search term")
-    public Flux<MovieDTO> searchVideoGames(
+    @ApiResponse(responseCode = "200", description = "Successful operation", content = @Content(array = @ArraySchema(schema = @Schema(implementation = MovieDTO.class))))
+    @ApiResponse(responseCode = "503", description = "Search temporarily unavailable; retry after the Retry-After delay")
+    public Flux<Object> searchVideoGames(
             @Parameter(description = "Search term") @RequestParam String term,
             @Parameter(description = "Page number") @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
-            @Parameter(description = "Sort field and direction (e.g. title,asc)") @RequestParam(defaultValue = "title,asc") String sort) {
+            @Parameter(description = "Sort field and direction (e.g. title,asc)") @RequestParam(defaultValue = "title,asc") String sort,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        FieldSet fieldSet = FieldSet.parse(fields, MovieDTO.class);
 
         PageRequest pageRequest = createPageRequest(page, size, sort);
 
-        return movieService.searchMovies(term, pageRequest)
-                .onErrorResume(e -> {
+        return movieService.searchMovies(term, pageRequest, fieldSet)
+                .map(fieldSet::project)
+                .onErrorResume(e -> !(e instanceof SearchUnavailableException), e -> {
                     log.error("Error searching video games", e);
                     return Flux.error(
                             new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error searching video games"));
@@ -57,7 +71,8 @@ public class VideoGameController {
 
     @GetMapping("/advanced-search")
     @Operation(summary = "Advanced search for video games", description = "Search video games with multiple optional parameters")
-    public Flux<MovieDTO> advancedSearch(
+    @ApiResponse(responseCode = "200", description = "Successful operation", content = @Content(array = @ArraySchema(schema = @Schema(implementation = MovieDTO.class))))
+    public Flux<Object> advancedSearch(
             @Parameter(description = "Video game title") @RequestParam(required = false) String title,
             @Parameter(description = "Release year") @RequestParam(required = false) Integer year,
             @Parameter(description = "Language") @RequestParam(required = false) String language,
@@ -65,11 +80,14 @@ public class VideoGameController {
             @Parameter(description = "File type") @RequestParam(required = false) String fileType,
             @Parameter(description = "Page number") @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
-            @Parameter(description = "Sort field and direction (e.g. title,asc)") @RequestParam(defaultValue = "title,asc") String sort) {
+            @Parameter(description = "Sort field and direction (e.g. title,asc)") @RequestParam(defaultValue = "title,asc") String sort,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        FieldSet fieldSet = FieldSet.parse(fields, MovieDTO.class);
 
         PageRequest pageRequest = createPageRequest(page, size, sort);
 
-        return movieService.advancedSearch(title, year, language, quality, fileType, pageRequest)
+        return movieService.advancedSearch(title, year, language, quality, fileType, pageRequest, fieldSet)
+                .map(fieldSet::project)
                 .onErrorResume(e -> {
                     log.error("Error performing advanced search", e);
                     return Flux.error(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
@@ -93,8 +111,13 @@ public class VideoGameController {
 
     @GetMapping("/tmdb/{tmdbId}")
     @Operation(summary = "Get video games by TMDB ID", description = "Retrieve video games by their TMDB ID")
-    public Flux<MovieDTO> getVideoGamesByTmdbId(@Parameter(description = "TMDB ID") @PathVariable Integer tmdbId) {
-        return movieService.getMoviesByTmdbId(tmdbId)
+    @ApiResponse(responseCode = "200", description = "Successful operation", content = @Content(array = @ArraySchema(schema = @Schema(implementation = MovieDTO.class))))
+    public Flux<Object> getVideoGamesByTmdbId(
+            @Parameter(description = "TMDB ID") @PathVariable Integer tmdbId,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        FieldSet fieldSet = FieldSet.parse(fields, MovieDTO.class);
+        return movieService.getMoviesByTmdbId(tmdbId, fieldSet)
+                .map(fieldSet::project)
                 .onErrorResume(e -> {
                     log.error("Error fetching video games by TMDB ID", e);
                     return Flux.error(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
@@ -104,8 +127,13 @@ public class VideoGameController {
 
     @GetMapping("/imdb/{imdbId}")
     @Operation(summary = "Get video games by IMDB ID", description = "Retrieve video games by their IMDB ID")
-    public Flux<MovieDTO> getVideoGamesByImdbId(@Parameter(description = "IMDB ID") @PathVariable String imdbId) {
-        return movieService.getMoviesByImdbId(imdbId)
+    @ApiResponse(responseCode = "200", description = "Successful operation", content = @Content(array = @ArraySchema(schema = @Schema(implementation = MovieDTO.class))))
+    public Flux<Object> getVideoGamesByImdbId(
+            @Parameter(description = "IMDB ID") @PathVariable String imdbId,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        FieldSet fieldSet = FieldSet.parse(fields, MovieDTO.class);
+        return movieService.getMoviesByImdbId(imdbId, fieldSet)
+                .map(fieldSet::project)
                 .onErrorResume(e -> {
                     log.error("Error fetching video games by IMDB ID", e);
                     return Flux.error(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
@@ -152,6 +180,27 @@ public class VideoGameController {
                 });
     }
 
+    @PatchMapping(value = "/{id}", consumes = {MediaPatchService.MERGE_PATCH_JSON, "application/json"})
+    @Operation(summary = "Patch a video game", description = "Apply a JSON Merge Patch (RFC 7396). Only the supplied fields are written, "
+            + "e.g. {\"seeds\": 120, \"peers\": 14}")
+    @ApiResponse(responseCode = "204", description = "Patch applied")
+    @ApiResponse(responseCode = "404", description = "Video game not found")
+    @ApiResponse(responseCode = "400", description = "Unknown field or invalid value")
+    public Mono<ResponseEntity<Object>> patchVideoGame(
+            @Parameter(description = "Video game UUID") @PathVariable UUID id,
+            @RequestBody Map<String, Object> patch) {
+        return videoGameService.patchVideoGame(id, patch)
+                .then(Mono.just(ResponseEntity.noContent().build()))
+                .onErrorResume(VideoGameNotFoundException.class, e -> Mono.just(ResponseEntity.notFound().build()))
+                .onErrorResume(ValidationException.class,
+                        e -> Mono.just(ResponseEntity.badRequest().body(Map.of("errors", e.getErrorMessages().isEmpty()
+                                ? List.of(e.getMessage()) : e.getErrorMessages()))))
+                .onErrorResume(e -> {
+                    log.error("Error patching video game", e);
+                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+                });
+    }
+
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     @Operation(summary = "Delete a video game", description = "Delete a video game entry by its UUID")
@@ -187,14 +236,18 @@ public class VideoGameController {
 
     @GetMapping
     @Operation(summary = "Get all video games", description = "Retrieve all video games with pagination")
-    public Flux<MovieDTO> getAllVideoGames(
+    @ApiResponse(responseCode = "200", description = "Successful operation", content = @Content(array = @ArraySchema(schema = @Schema(implementation = MovieDTO.class))))
+    public Flux<Object> getAllVideoGames(
             @Parameter(description = "Page number") @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
-            @Parameter(description = "Sort field and direction (e.g. title,asc)") @RequestParam(defaultValue = "title,asc") String sort) {
+            @Parameter(description = "Sort field and direction (e.g. title,asc)") @RequestParam(defaultValue = "title,asc") String sort,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        FieldSet fieldSet = FieldSet.parse(fields, MovieDTO.class);
 
         PageRequest pageRequest = createPageRequest(page, size, sort);
 
         return movieService.getAllMovies(pageRequest)
+                .map(fieldSet::project)
                 .onErrorResume(e -> {
                     log.error("Error fetching all video games", e);
                     return Flux.error(
@@ -215,13 +268,17 @@ public class VideoGameController {
 
     @GetMapping("/year/{year}")
     @Operation(summary = "Get video games by year", description = "Retrieve video games released in a specific year")
-    public Flux<MovieDTO> getVideoGamesByYear(
+    @ApiResponse(responseCode = "200", description = "Successful operation", content = @Content(array = @ArraySchema(schema = @Schema(implementation = MovieDTO.class))))
+    public Flux<Object> getVideoGamesByYear(
             @Parameter(description = "Year") @PathVariable int year,
             @Parameter(description = "Page number") @RequestParam(defaultValue = "0") int page,
-            @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size) {
+            @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        FieldSet fieldSet = FieldSet.parse(fields, MovieDTO.class);
 
         PageRequest pageRequest = PageRequest.of(page, size);
-        return movieService.getMoviesByYear(year, pageRequest)
+        return movieService.getMoviesByYear(year, pageRequest, fieldSet)
+                .map(fieldSet::project)
                 .onErrorResume(e -> {
                     log.error("Error fetching video games by year", e);
                     return Flux.error(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
@@ -231,13 +288,17 @@ public class VideoGameController {
 
     @GetMapping("/language/{language}")
     @Operation(summary = "Get video games by language", description = "Retrieve video games in a specific language")
-    public Flux<MovieDTO> getVideoGamesByLanguage(
+    @ApiResponse(responseCode = "200", description = "Successful operation", content = @Content(array = @ArraySchema(schema = @Schema(implementation = MovieDTO.class))))
+    public Flux<Object> getVideoGamesByLanguage(
             @Parameter(description = "Language") @PathVariable String language,
             @Parameter(description = "Page number") @RequestParam(defaultValue = "0") int page,
-            @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size) {
+            @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        FieldSet fieldSet = FieldSet.parse(fields, MovieDTO.class);
 
         PageRequest pageRequest = PageRequest.of(page, size);
-        return movieService.getMoviesByLanguage(language, pageRequest)
+        return movieService.getMoviesByLanguage(language, pageRequest, fieldSet)
+                .map(fieldSet::project)
                 .onErrorResume(e -> {
                     log.error("Error fetching video games by language", e);
                     return Flux.error(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
@@ -258,12 +319,17 @@ public class VideoGameController {
     }
 
     @PutMapping("/bulk")
-    @Operation(summary = "Bulk update video games", description = "Update multiple video games")
-    public Flux<MovieDTO> bulkUpdateVideoGames(@RequestBody List<MovieDTO> movieDTOs) {
+    @Operation(summary = "Bulk update video games", description = "Update multiple video games. Counts of inserted, updated and unchanged rows are returned in the "
+            + "X-Upsert-Inserted, X-Upsert-Updated and X-Upsert-Unchanged headers")
+    public Mono<ResponseEntity<List<MovieDTO>>> bulkUpdateVideoGames(@RequestBody List<MovieDTO> movieDTOs) {
+        UpsertCounts counts = new UpsertCounts();
         return movieService.bulkUpdateMovies(movieDTOs)
+                .collectList()
+                .map(saved -> ResponseEntity.ok().headers(counts.toHeaders()).body(saved))
+                .contextWrite(counts.context())
                 .onErrorResume(e -> {
                     log.error("Error performing bulk update", e);
-                    return Flux.error(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                    return Mono.error(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
                             "Error performing bulk update"));
                 });
     }
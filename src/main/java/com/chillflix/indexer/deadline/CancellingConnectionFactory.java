@@ -0,0 +1,314 @@
+package com.chillflix.indexer.deadline;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.postgresql.api.PostgresqlConnection;
+import io.r2dbc.spi.Batch;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.ConnectionMetadata;
+import io.r2dbc.spi.IsolationLevel;
+import io.r2dbc.spi.Readable;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import io.r2dbc.spi.Statement;
+import io.r2dbc.spi.TransactionDefinition;
+import io.r2dbc.spi.ValidationDepth;
+import io.r2dbc.spi.Wrapped;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Turns an abandoned statement into a server-side cancel. When the subscriber of a running
+ * statement goes away (the client disconnected, the request deadline or a Resilience4j timeout
+ * fired, a {@code take} got enough rows), the driver only stops reading while PostgreSQL keeps
+ * executing; this decorator sends a CancelRequest for the backend so it stops at once.
+ * <p>
+ * Only statements running for at least {@code db.cancel-min-runtime} are cancelled: every
+ * CancelRequest opens a new connection to the server, and a short statement is done anyway. The
+ * connection goes back to the pool only after its CancelRequest was delivered, so it cannot hit
+ * the next statement run on that backend. Cancels are counted in {@code db.query.cancelled}.
+ */
+@Slf4j
+public class CancellingConnectionFactory implements ConnectionFactory, Wrapped<ConnectionFactory> {
+
+    private final ConnectionFactory delegate;
+    private final long minRuntimeNanos;
+    private final Counter cancelled;
+
+    public CancellingConnectionFactory(ConnectionFactory delegate, Duration minRuntime, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.minRuntimeNanos = minRuntime.toNanos();
+        this.cancelled = Counter.builder("db.query.cancelled")
+                .description("Abandoned statements cancelled on the server")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Connection> create() {
+        return Mono.from(delegate.create()).map(connection -> {
+            PostgresqlConnection postgres = postgresConnection(connection);
+            return postgres == null ? connection : new CancellingConnection(connection, postgres);
+        });
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return delegate.getMetadata();
+    }
+
+    @Override
+    public ConnectionFactory unwrap() {
+        return delegate;
+    }
+
+    private static PostgresqlConnection postgresConnection(Connection connection) {
+        Object current = connection;
+        while (true) {
+            if (current instanceof PostgresqlConnection postgres) {
+                return postgres;
+            }
+            if (!(current instanceof Wrapped<?> wrapped) || wrapped.unwrap() == current) {
+                return null;
+            }
+            current = wrapped.unwrap();
+        }
+    }
+
+    private final class CancellingConnection implements Connection, Wrapped<Connection> {
+
+        private final Connection delegate;
+        private final PostgresqlConnection postgres;
+        private volatile Mono<Void> pendingCancel = Mono.empty();
+
+        CancellingConnection(Connection delegate, PostgresqlConnection postgres) {
+            this.delegate = delegate;
+            this.postgres = postgres;
+        }
+
+        Runnable canceller() {
+            long start = System.nanoTime();
+            AtomicBoolean done = new AtomicBoolean();
+            return () -> {
+                if (System.nanoTime() - start < minRuntimeNanos || !done.compareAndSet(false, true)) {
+                    return;
+                }
+                Mono<Void> request = postgres.cancelRequest()
+                        .doOnSuccess(__ -> cancelled.increment())
+                        .onErrorResume(error -> {
+                            log.warn("Could not cancel abandoned statement: {}", error.getMessage());
+                            return Mono.empty();
+                        })
+                        .cache();
+                request.subscribe();
+                pendingCancel = request;
+            };
+        }
+
+        @Override
+        public Publisher<Void> close() {
+            return Mono.defer(() -> pendingCancel).then(Mono.from(delegate.close()));
+        }
+
+        @Override
+        public Statement createStatement(String sql) {
+            return new CancellingStatement(delegate.createStatement(sql), this);
+        }
+
+        @Override
+        public Publisher<Void> beginTransaction() {
+            return delegate.beginTransaction();
+        }
+
+        @Override
+        public Publisher<Void> beginTransaction(TransactionDefinition definition) {
+            return delegate.beginTransaction(definition);
+        }
+
+        @Override
+        public Publisher<Void> commitTransaction() {
+            return delegate.commitTransaction();
+        }
+
+        @Override
+        public Batch createBatch() {
+            return delegate.createBatch();
+        }
+
+        @Override
+        public Publisher<Void> createSavepoint(String name) {
+            return delegate.createSavepoint(name);
+        }
+
+        @Override
+        public boolean isAutoCommit() {
+            return delegate.isAutoCommit();
+        }
+
+        @Override
+        public ConnectionMetadata getMetadata() {
+            return delegate.getMetadata();
+        }
+
+        @Override
+        public IsolationLevel getTransactionIsolationLevel() {
+            return delegate.getTransactionIsolationLevel();
+        }
+
+        @Override
+        public Publisher<Void> releaseSavepoint(String name) {
+            return delegate.releaseSavepoint(name);
+        }
+
+        @Override
+        public Publisher<Void> rollbackTransaction() {
+            return delegate.rollbackTransaction();
+        }
+
+        @Override
+        public Publisher<Void> rollbackTransactionToSavepoint(String name) {
+            return delegate.rollbackTransactionToSavepoint(name);
+        }
+
+        @Override
+        public Publisher<Void> setAutoCommit(boolean autoCommit) {
+            return delegate.setAutoCommit(autoCommit);
+        }
+
+        @Override
+        public Publisher<Void> setLockWaitTimeout(Duration timeout) {
+            return delegate.setLockWaitTimeout(timeout);
+        }
+
+        @Override
+        public Publisher<Void> setStatementTimeout(Duration timeout) {
+            return delegate.setStatementTimeout(timeout);
+        }
+
+        @Override
+        public Publisher<Void> setTransactionIsolationLevel(IsolationLevel isolationLevel) {
+            return delegate.setTransactionIsolationLevel(isolationLevel);
+        }
+
+        @Override
+        public Publisher<Boolean> validate(ValidationDepth depth) {
+            return delegate.validate(depth);
+        }
+
+        @Override
+        public Connection unwrap() {
+            return delegate;
+        }
+    }
+
+    private static final class CancellingStatement implements Statement, Wrapped<Statement> {
+
+        private final Statement delegate;
+        private final CancellingConnection connection;
+
+        CancellingStatement(Statement delegate, CancellingConnection connection) {
+            this.delegate = delegate;
+            this.connection = connection;
+        }
+
+        @Override
+        public Flux<Result> execute() {
+            return Flux.defer(() -> {
+                Runnable cancel = connection.canceller();
+                return Flux.from(delegate.execute())
+                        .<Result>map(result -> new CancellingResult(result, cancel))
+                        .doOnCancel(cancel);
+            });
+        }
+
+        @Override
+        public Statement add() {
+            delegate.add();
+            return this;
+        }
+
+        @Override
+        public Statement bind(int index, Object value) {
+            delegate.bind(index, value);
+            return this;
+        }
+
+        @Override
+        public Statement bind(String name, Object value) {
+            delegate.bind(name, value);
+            return this;
+        }
+
+        @Override
+        public Statement bindNull(int index, Class<?> type) {
+            delegate.bindNull(index, type);
+            return this;
+        }
+
+        @Override
+        public Statement bindNull(String name, Class<?> type) {
+            delegate.bindNull(name, type);
+            return this;
+        }
+
+        @Override
+        public Statement returnGeneratedValues(String... columns) {
+            delegate.returnGeneratedValues(columns);
+            return this;
+        }
+
+        @Override
+        public Statement fetchSize(int rows) {
+            delegate.fetchSize(rows);
+            return this;
+        }
+
+        @Override
+        public Statement unwrap() {
+            return delegate;
+        }
+    }
+
+    private record CancellingResult(Result delegate, Runnable cancel) implements Result, Wrapped<Result> {
+
+        @Override
+        public Publisher<Long> getRowsUpdated() {
+            return Mono.from(delegate.getRowsUpdated()).doOnCancel(cancel);
+        }
+
+        @Override
+        public <T> Publisher<T> map(BiFunction<Row, RowMetadata, ? extends T> mappingFunction) {
+            return Flux.<T>from(delegate.map(mappingFunction)).doOnCancel(cancel);
+        }
+
+        @Override
+        public <T> Publisher<T> map(Function<? super Readable, ? extends T> mappingFunction) {
+            return Flux.<T>from(delegate.map(mappingFunction)).doOnCancel(cancel);
+        }
+
+        @Override
+        public Result filter(Predicate<Segment> filter) {
+            return new CancellingResult(delegate.filter(filter), cancel);
+        }
+
+        @Override
+        public <T> Publisher<T> flatMap(Function<Segment, ? extends Publisher<? extends T>> mappingFunction) {
+            return Flux.<T>from(delegate.flatMap(mappingFunction)).doOnCancel(cancel);
+        }
+
+        @Override
+        public Result unwrap() {
+            return delegate;
+        }
+    }
+}
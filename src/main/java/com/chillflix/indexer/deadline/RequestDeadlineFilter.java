@@ -0,0 +1,65 @@
+package com.chillflix.indexer.deadline;
+
+import com.chillflix.indexer.routing.WorkloadClass;
+import com.chillflix.indexer.routing.WorkloadClassFilter;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Bounds each request by the deadline of its {@link WorkloadClass} ({@code db.deadline.<class>}).
+ * Callers may shorten it with an {@value #DEADLINE_HEADER} header holding the remaining budget in
+ * milliseconds; a longer value is ignored. When the deadline passes the request is cancelled,
+ * which stops its statements on the server ({@link CancellingConnectionFactory}), and answers
+ * 504.
+ */
+public class RequestDeadlineFilter implements WebFilter {
+
+    public static final String DEADLINE_HEADER = "X-Request-Deadline";
+
+    private final Map<WorkloadClass, Duration> deadlines;
+
+    public RequestDeadlineFilter(Map<WorkloadClass, Duration> deadlines) {
+        this.deadlines = deadlines.isEmpty() ? Map.of() : new EnumMap<>(deadlines);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        Duration budget = budget(deadlines.get(WorkloadClassFilter.classify(exchange.getRequest())),
+                exchange.getRequest().getHeaders().getFirst(DEADLINE_HEADER));
+        if (budget == null) {
+            return chain.filter(exchange);
+        }
+        return chain.filter(exchange)
+                .timeout(budget, Mono.error(() -> new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT,
+                        "Request deadline of " + budget.toMillis() + " ms exceeded")));
+    }
+
+    static Duration budget(Duration classDeadline, String header) {
+        Duration requested = parse(header);
+        if (requested == null) {
+            return classDeadline;
+        }
+        return classDeadline == null || requested.compareTo(classDeadline) < 0 ? requested : classDeadline;
+    }
+
+    private static Duration parse(String header) {
+        if (header == null) {
+            return null;
+        }
+        try {
+            long millis = Long.parseLong(header.trim());
+            // Un plazo no positivo ya ha vencido; se deja al menos 1 ms para responder 504
+            return Duration.ofMillis(Math.max(1, millis));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.chillflix.indexer.dedupe;
+
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+
+import java.beans.PropertyDescriptor;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Decides whether an incoming media entity would change the stored row. Bookkeeping columns
+ * maintained by the database (timestamps, the trigger-built search vector) are ignored, and a
+ * null {@code isDeleted} counts as not deleted.
+ */
+public final class ContentComparison {
+
+    private static final Set<String> IGNORED = Set.of("class", "id", "createdAt", "updatedAt", "searchVector", "isDeleted", "inserted");
+
+    private ContentComparison() {
+    }
+
+    public static boolean sameContent(Object stored, Object incoming) {
+        if (stored.getClass() != incoming.getClass()) {
+            return false;
+        }
+        BeanWrapper storedBean = new BeanWrapperImpl(stored);
+        BeanWrapper incomingBean = new BeanWrapperImpl(incoming);
+        for (PropertyDescriptor property : storedBean.getPropertyDescriptors()) {
+            String name = property.getName();
+            if (IGNORED.contains(name) || property.getReadMethod() == null) {
+                continue;
+            }
+            if (!Objects.equals(storedBean.getPropertyValue(name), incomingBean.getPropertyValue(name))) {
+                return false;
+            }
+        }
+        return isDeleted(storedBean) == isDeleted(incomingBean);
+    }
+
+    private static boolean isDeleted(BeanWrapper bean) {
+        return bean.isReadableProperty("isDeleted") && Boolean.TRUE.equals(bean.getPropertyValue("isDeleted"));
+    }
+}
@@ -0,0 +1,168 @@
+package com.chillflix.indexer.dedupe;
+
+import com.chillflix.indexer.models.MediaType;
+import com.chillflix.indexer.routing.DatabaseRouting;
+import com.chillflix.indexer.routing.WorkloadClass;
+import com.chillflix.indexer.util.MagnetParser;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory pre-screen of the {@code sha256_hash} and hex btih info hashes already stored per media
+ * type. A negative answer is definitive, so the ingest path can upsert new content without a
+ * lookup; a positive answer only means "maybe", and the caller confirms it with an exact query
+ * before deciding to skip an unchanged row.
+ *
+ * <p>Filters are filled from the database once the application is ready and kept up to date by
+ * {@link #register}. Until a media type has finished loading every key is reported as possibly
+ * present, which is always safe.
+ */
+@Slf4j
+@Component
+public class KnownContentIndex {
+
+    public static final String DEDUPE_METER = "ingest.dedupe";
+
+    public enum Outcome {
+        FILTER_MISS,
+        FALSE_POSITIVE,
+        UNCHANGED,
+        CHANGED,
+        /** Neither a sha256 hash nor a v1 info hash, e.g. a btmh-only magnet: not screened at all. */
+        UNKEYED,
+        /** No sha256 hash and a base32 btih, which the hex info hash indexes can't find: not screened. */
+        BASE32
+    }
+
+    private final DatabaseClient databaseClient;
+    private final Map<MediaType, BloomFilter> filters = new EnumMap<>(MediaType.class);
+    private final Set<MediaType> loaded = ConcurrentHashMap.newKeySet();
+    private final Map<MediaType, Map<Outcome, Counter>> counters = new EnumMap<>(MediaType.class);
+
+    public KnownContentIndex(DatabaseClient databaseClient,
+                             MeterRegistry meterRegistry,
+                             @Value("${ingest.dedupe.expected-keys:1000000}") long expectedKeys,
+                             @Value("${ingest.dedupe.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.databaseClient = databaseClient;
+        for (MediaType mediaType : MediaType.values()) {
+            filters.put(mediaType, new BloomFilter(expectedKeys, falsePositiveRate));
+            Map<Outcome, Counter> byOutcome = new EnumMap<>(Outcome.class);
+            for (Outcome outcome : Outcome.values()) {
+                byOutcome.put(outcome, Counter.builder(DEDUPE_METER)
+                        .description("Ingest upserts by duplicate pre-screen outcome")
+                        .tag("media_type", mediaType.name().toLowerCase())
+                        .tag("outcome", outcome.name().toLowerCase())
+                        .register(meterRegistry));
+            }
+            counters.put(mediaType, byOutcome);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        Flux.fromArray(MediaType.values())
+                .concatMap(this::load)
+                .contextWrite(DatabaseRouting.with(WorkloadClass.BACKGROUND))
+                .subscribe(
+                        __ -> { },
+                        error -> log.error("Could not load known content index, duplicate pre-screen stays disabled", error));
+    }
+
+    Mono<Long> load(MediaType mediaType) {
+        AtomicLong rows = new AtomicLong();
+        return databaseClient.sql("SELECT sha256_hash, magnet FROM " + mediaType.getTable())
+                .map(row -> new String[] { row.get("sha256_hash", String.class), row.get("magnet", String.class) })
+                .all()
+                .doOnNext(keys -> {
+                    register(mediaType, keys[0], keys[1]);
+                    rows.incrementAndGet();
+                })
+                .then(Mono.fromSupplier(() -> {
+                    loaded.add(mediaType);
+                    log.info("Known content index loaded {} {} rows", rows.get(), mediaType.getTable());
+                    return rows.get();
+                }));
+    }
+
+    /**
+     * Why a row is written without a duplicate check, or empty if it has a key this index screens
+     * on: a sha256 hash or a hex btih info hash. A v2-only ({@code urn:btmh}) magnet has no key
+     * ({@link Outcome#UNKEYED}). A base32 btih is not a key either ({@link Outcome#BASE32}): the
+     * exact lookup goes through the {@code btih:<40 hex>} expression indexes, which can't find a
+     * row stored with a base32 magnet, so re-sending base32 content inserts it again.
+     */
+    public static Optional<Outcome> unscreened(String sha256Hash, String magnet) {
+        if (sha256Hash != null) {
+            return Optional.empty();
+        }
+        MagnetParser.Result result = MagnetParser.parse(magnet);
+        if (!result.isValid() || result.link().infoHash() == null) {
+            return Optional.of(Outcome.UNKEYED);
+        }
+        return result.link().infoHashBase32() ? Optional.of(Outcome.BASE32) : Optional.empty();
+    }
+
+    /**
+     * False only if no stored row of this media type can have the same sha256 hash or info hash.
+     */
+    public boolean mightContain(MediaType mediaType, String sha256Hash, String magnet) {
+        BloomFilter filter = filters.get(mediaType);
+        if (filter == null || !loaded.contains(mediaType)) {
+            return true;
+        }
+        if (sha256Hash != null && filter.mightContain(shaKey(sha256Hash))) {
+            return true;
+        }
+        String infoHash = hexInfoHash(magnet);
+        return infoHash != null && filter.mightContain(infoHashKey(infoHash));
+    }
+
+    public void register(MediaType mediaType, String sha256Hash, String magnet) {
+        BloomFilter filter = filters.get(mediaType);
+        if (filter == null) {
+            return;
+        }
+        if (sha256Hash != null) {
+            filter.put(shaKey(sha256Hash));
+        }
+        String infoHash = hexInfoHash(magnet);
+        if (infoHash != null) {
+            filter.put(infoHashKey(infoHash));
+        }
+    }
+
+    public void record(MediaType mediaType, Outcome outcome) {
+        counters.get(mediaType).get(outcome).increment();
+    }
+
+    private static String shaKey(String sha256Hash) {
+        // bpchar(64): normalizamos mayúsculas/minúsculas y espacios de relleno
+        return "sha:" + sha256Hash.trim().toLowerCase();
+    }
+
+    // Solo los btih en hex: un base32 guardado no lo encuentra la consulta exacta, así que registrarlo
+    // daría positivos que acaban siempre en FALSE_POSITIVE
+    private static String hexInfoHash(String magnet) {
+        MagnetParser.Result result = MagnetParser.parse(magnet);
+        return result.isValid() && !result.link().infoHashBase32() ? result.link().infoHash() : null;
+    }
+
+    private static String infoHashKey(String infoHash) {
+        return "btih:" + infoHash;
+    }
+}
@@ -0,0 +1,57 @@
+package com.chillflix.indexer.dedupe;
+
+import org.springframework.http.HttpHeaders;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-request tally of upsert outcomes. A bulk endpoint puts an instance in the Reactor context
+ * with {@link #context()}; the service write paths report into it through {@link #tally} and
+ * the endpoint turns the totals into response headers. Outside such a request tallying is a
+ * no-op.
+ */
+public final class UpsertCounts {
+
+    public static final String INSERTED_HEADER = "X-Upsert-Inserted";
+    public static final String UPDATED_HEADER = "X-Upsert-Updated";
+    public static final String UNCHANGED_HEADER = "X-Upsert-Unchanged";
+
+    private final Map<UpsertOutcome, AtomicLong> counts = new EnumMap<>(UpsertOutcome.class);
+
+    public UpsertCounts() {
+        for (UpsertOutcome outcome : UpsertOutcome.values()) {
+            counts.put(outcome, new AtomicLong());
+        }
+    }
+
+    public static <T> Mono<T> tally(T value, UpsertOutcome outcome) {
+        return Mono.deferContextual(context -> {
+            context.<UpsertCounts>getOrEmpty(UpsertCounts.class).ifPresent(counts -> counts.increment(outcome));
+            return Mono.just(value);
+        });
+    }
+
+    public void increment(UpsertOutcome outcome) {
+        counts.get(outcome).incrementAndGet();
+    }
+
+    public long get(UpsertOutcome outcome) {
+        return counts.get(outcome).get();
+    }
+
+    public Context context() {
+        return Context.of(UpsertCounts.class, this);
+    }
+
+    public HttpHeaders toHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(INSERTED_HEADER, String.valueOf(get(UpsertOutcome.INSERTED)));
+        headers.add(UPDATED_HEADER, String.valueOf(get(UpsertOutcome.UPDATED)));
+        headers.add(UNCHANGED_HEADER, String.valueOf(get(UpsertOutcome.UNCHANGED)));
+        return headers;
+    }
+}
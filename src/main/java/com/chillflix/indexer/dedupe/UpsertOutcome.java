@@ -0,0 +1,7 @@
+package com.chillflix.indexer.dedupe;
+
+public enum UpsertOutcome {
+    INSERTED,
+    UPDATED,
+    UNCHANGED
+}
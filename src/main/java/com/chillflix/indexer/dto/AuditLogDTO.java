@@ -0,0 +1,15 @@
+package com.chillflix.indexer.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+public record AuditLogDTO(
+    Long id,
+    String entityType,
+    UUID entityId,
+    String action,
+    String userId,
+    JsonNode changes,
+    OffsetDateTime timestamp
+) {}
@@ -1,5 +1,6 @@
 package com.chillflix.indexer.dto;
 
+import com.chillflix.indexer.validation.ValidMagnet;
 import jakarta.validation.constraints.*;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -18,8 +19,7 @@ public record MovieDTO(
     Integer year,
 
     @NotBlank(message = "Magnet link is required")
-    @Pattern(regexp = "^magnet:\\?xt=urn:[a-z0-9]+:[a-z0-9]{32,40}&dn=.+&tr=.+$", 
-             message = "Invalid magnet link format")
+    @ValidMagnet
     String magnet,
 
     Integer tmdbId,
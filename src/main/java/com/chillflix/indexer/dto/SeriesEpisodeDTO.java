@@ -1,5 +1,6 @@
 package com.chillflix.indexer.dto;
 
+import com.chillflix.indexer.validation.ValidMagnet;
 import jakarta.validation.constraints.*;
 import java.time.LocalDateTime;
 import java.util.UUID;
@@ -28,8 +29,7 @@ public record SeriesEpisodeDTO(
     @PositiveOrZero(message = "Runtime must be a positive number or zero")
     Integer runtime,
 
-    @Pattern(regexp = "^magnet:\\?xt=urn:[a-z0-9]+:[a-z0-9]{32,40}&dn=.+&tr=.+$", 
-             message = "Invalid magnet link format")
+    @ValidMagnet
     String magnet,
 
     @Size(max = 20, message = "Quality must be 20 characters or less")
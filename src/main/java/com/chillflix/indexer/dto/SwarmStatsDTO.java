@@ -0,0 +1,19 @@
+package com.chillflix.indexer.dto;
+
+import com.chillflix.indexer.models.MediaType;
+import jakarta.validation.constraints.*;
+import java.util.UUID;
+
+public record SwarmStatsDTO(
+    @NotNull(message = "Media type is required")
+    MediaType mediaType,
+
+    @NotNull(message = "ID is required")
+    UUID id,
+
+    @PositiveOrZero(message = "Seeds must be a positive number or zero")
+    Integer seeds,
+
+    @PositiveOrZero(message = "Peers must be a positive number or zero")
+    Integer peers
+) {}
@@ -1,6 +1,7 @@
 package com.chillflix.indexer.entities;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.ReadOnlyProperty;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.relational.core.mapping.Column;
@@ -87,4 +88,9 @@ public class Music {
 
     @Column("search_vector")
     private Object searchVector;
-}
\ No newline at end of file
+
+    // Solo lectura: (xmax = 0) del RETURNING de saveOrUpdate, true si la fila se insertó
+    @ReadOnlyProperty
+    @Column("inserted")
+    private Boolean inserted;
+}
@@ -1,6 +1,7 @@
 package com.chillflix.indexer.entities;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.ReadOnlyProperty;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.relational.core.mapping.Column;
@@ -66,4 +67,9 @@ public class SeriesEpisode {
     @LastModifiedDate
     @Column("updated_at")
     private LocalDateTime updatedAt;
-}
\ No newline at end of file
+
+    // Solo lectura: (xmax = 0) del RETURNING de saveOrUpdate, true si la fila se insertó
+    @ReadOnlyProperty
+    @Column("inserted")
+    private Boolean inserted;
+}
@@ -1,5 +1,6 @@
 package com.chillflix.indexer.exception;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -24,6 +25,20 @@ public class GlobalExceptionHandler {
         return Mono.just(ResponseEntity.badRequest().body(errors));
     }
 
+    @ExceptionHandler(InvalidFieldsException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public Mono<ResponseEntity<Map<String, Object>>> handleInvalidFields(InvalidFieldsException ex) {
+        return Mono.just(ResponseEntity.badRequest().body(Map.of("fields", ex.getMessage())));
+    }
+
+    @ExceptionHandler(SearchUnavailableException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public Mono<ResponseEntity<String>> handleSearchUnavailable(SearchUnavailableException ex) {
+        return Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(ex.getMessage()));
+    }
+
     @ExceptionHandler(Exception.class)
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public Mono<ResponseEntity<String>> handleAllExceptions(Exception ex) {
@@ -0,0 +1,11 @@
+package com.chillflix.indexer.exception;
+
+/**
+ * A {@code fields} parameter naming a field the resource does not have.
+ */
+public class InvalidFieldsException extends RuntimeException {
+
+    public InvalidFieldsException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,13 @@
+package com.chillflix.indexer.exception;
+
+/**
+ * A search that could not run: its circuit breaker is open, its query failed or too many are
+ * already running. Answered with 503 and {@code Retry-After}, so clients retry instead of taking
+ * it for an empty result.
+ */
+public class SearchUnavailableException extends RuntimeException {
+
+    public SearchUnavailableException(Throwable cause) {
+        super("Search is temporarily unavailable", cause);
+    }
+}
@@ -0,0 +1,78 @@
+package com.chillflix.indexer.limit;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit that adapts to observed latency (AIMD): every request slower than the latency
+ * target, or failing with a server error, shrinks the limit by {@code backoffRatio}; every fast
+ * request that ran while at least half of the limit was in use grows it by {@code 1/limit},
+ * i.e. about one unit per full window of requests. An idle service thus keeps its limit, a
+ * saturated fast one opens up to {@code maxLimit} and a slow one closes down to {@code minLimit}.
+ */
+public class AdaptiveLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyTargetNanos;
+    private final double backoffRatio;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+
+    public AdaptiveLimiter(int initialLimit, int minLimit, int maxLimit, Duration latencyTarget, double backoffRatio) {
+        if (minLimit < 1 || minLimit > maxLimit) {
+            throw new IllegalArgumentException("Invalid limit bounds: " + minLimit + ".." + maxLimit);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyTargetNanos = latencyTarget.toNanos();
+        this.backoffRatio = backoffRatio;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * Takes a slot, or returns -1 when the limit is reached. Otherwise returns the number of
+     * requests in flight including this one, to be passed back to {@link #release}.
+     */
+    public int tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= getLimit()) {
+                return -1;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    /**
+     * Frees a slot and adjusts the limit with the request's latency.
+     */
+    public void release(int inFlightAtStart, long latencyNanos, boolean failed) {
+        inFlight.decrementAndGet();
+        synchronized (this) {
+            if (failed || latencyNanos > latencyTargetNanos) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+            } else if (inFlightAtStart * 2 >= getLimit()) {
+                // Contra el límite entero que aplica tryAcquire; con el fraccionario se atascaba en 4,25
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+        }
+    }
+
+    /**
+     * Frees a slot without a sample, for requests abandoned by the client.
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
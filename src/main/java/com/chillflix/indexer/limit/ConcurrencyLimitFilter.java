@@ -0,0 +1,128 @@
+package com.chillflix.indexer.limit;
+
+import com.chillflix.indexer.routing.WorkloadClass;
+import com.chillflix.indexer.routing.WorkloadClassFilter;
+import com.chillflix.indexer.warmup.WarmupTraffic;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Admits each request against the {@link AdaptiveLimiter} of its endpoint group (the
+ * {@link WorkloadClass}) and answers 503 with {@code Retry-After} when it is full. Groups are
+ * shed by priority, in the order of {@link WorkloadClass}: a group is also rejected while any
+ * higher-priority group is using more than {@code concurrency.shed-threshold} of its limit, so
+ * interactive lookups keep their capacity when search or bulk traffic piles up.
+ * <p>
+ * Runs before the request deadline, whose timeouts count as failures for the limiter. The startup
+ * warmup's own requests ({@link WarmupTraffic}) and {@code /actuator} are not limited, so health
+ * probes keep answering while the service sheds load. Exports
+ * {@code http.concurrency.limit} and {@code .in-flight} gauges and an
+ * {@code http.concurrency.rejected} counter tagged with the {@code reason} (limit or shed), all
+ * tagged with {@code group}.
+ */
+public class ConcurrencyLimitFilter implements WebFilter, Ordered {
+
+    private static final String ACTUATOR_PATH = "/actuator";
+
+    private final Map<WorkloadClass, AdaptiveLimiter> limiters;
+    private final double shedThreshold;
+    private final Map<WorkloadClass, Counter> limitRejections = new EnumMap<>(WorkloadClass.class);
+    private final Map<WorkloadClass, Counter> shedRejections = new EnumMap<>(WorkloadClass.class);
+
+    public ConcurrencyLimitFilter(Map<WorkloadClass, AdaptiveLimiter> limiters, double shedThreshold, MeterRegistry meterRegistry) {
+        this.limiters = limiters.isEmpty() ? Map.of() : new EnumMap<>(limiters);
+        this.shedThreshold = shedThreshold;
+        this.limiters.forEach((group, limiter) -> {
+            Gauge.builder("http.concurrency.limit", limiter, AdaptiveLimiter::getLimit)
+                    .description("Current adaptive concurrency limit")
+                    .tag("group", group.getKey())
+                    .register(meterRegistry);
+            Gauge.builder("http.concurrency.in-flight", limiter, AdaptiveLimiter::getInFlight)
+                    .description("Requests being served")
+                    .tag("group", group.getKey())
+                    .register(meterRegistry);
+            limitRejections.put(group, rejections(meterRegistry, group, "limit"));
+            shedRejections.put(group, rejections(meterRegistry, group, "shed"));
+        });
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 100;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        WorkloadClass group = WorkloadClassFilter.classify(exchange.getRequest());
+        AdaptiveLimiter limiter = limiters.get(group);
+        // Las latencias del código aún interpretado encogerían los límites antes de recibir tráfico
+        if (limiter == null || WarmupTraffic.isWarmup(exchange) || isActuator(exchange)) {
+            return chain.filter(exchange);
+        }
+        if (shouldShed(group)) {
+            shedRejections.get(group).increment();
+            return reject(exchange);
+        }
+        int inFlight = limiter.tryAcquire();
+        if (inFlight < 0) {
+            limitRejections.get(group).increment();
+            return reject(exchange);
+        }
+        long start = System.nanoTime();
+        return chain.filter(exchange)
+                .doFinally(signal -> {
+                    if (signal == SignalType.CANCEL) {
+                        // El cliente se fue: su latencia no dice nada del servicio
+                        limiter.release();
+                        return;
+                    }
+                    HttpStatusCode status = exchange.getResponse().getStatusCode();
+                    boolean failed = signal == SignalType.ON_ERROR || (status != null && status.is5xxServerError());
+                    limiter.release(inFlight, System.nanoTime() - start, failed);
+                });
+    }
+
+    private static boolean isActuator(ServerWebExchange exchange) {
+        return exchange.getRequest().getPath().pathWithinApplication().value().startsWith(ACTUATOR_PATH);
+    }
+
+    boolean shouldShed(WorkloadClass group) {
+        for (Map.Entry<WorkloadClass, AdaptiveLimiter> higher : limiters.entrySet()) {
+            if (higher.getKey().compareTo(group) >= 0) {
+                break;
+            }
+            AdaptiveLimiter limiter = higher.getValue();
+            if (limiter.getInFlight() >= limiter.getLimit() * shedThreshold) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Mono<Void> reject(ServerWebExchange exchange) {
+        exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+        return exchange.getResponse().setComplete();
+    }
+
+    private static Counter rejections(MeterRegistry meterRegistry, WorkloadClass group, String reason) {
+        return Counter.builder("http.concurrency.rejected")
+                .description("Requests rejected by the concurrency limiter")
+                .tag("group", group.getKey())
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
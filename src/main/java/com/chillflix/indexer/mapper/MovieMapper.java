@@ -12,6 +12,7 @@ public interface MovieMapper {
 
     @Mapping(target = "isDeleted", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "inserted", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
     Movie toEntity(MovieDTO dto);
 
@@ -20,6 +21,7 @@ public interface MovieMapper {
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "isDeleted", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "inserted", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
     void updateEntityFromDto(MovieDTO dto, @MappingTarget Movie entity);
 }
\ No newline at end of file
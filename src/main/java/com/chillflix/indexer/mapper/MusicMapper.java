@@ -12,6 +12,7 @@ public interface MusicMapper {
 
     @Mapping(target = "isDeleted", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "inserted", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
     Music toEntity(MusicDTO dto);
 
@@ -20,6 +21,7 @@ public interface MusicMapper {
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "isDeleted", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "inserted", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
     void updateEntityFromDto(MusicDTO dto, @MappingTarget Music entity);
 }
\ No newline at end of file
@@ -11,6 +11,7 @@ import org.mapstruct.MappingTarget;
 public interface MusicTrackMapper {
 
     @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "inserted", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
     MusicTrack toEntity(MusicTrackDTO dto);
 
@@ -18,6 +19,7 @@ public interface MusicTrackMapper {
 
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "inserted", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
     void updateEntityFromDto(MusicTrackDTO dto, @MappingTarget MusicTrack entity);
 }
\ No newline at end of file
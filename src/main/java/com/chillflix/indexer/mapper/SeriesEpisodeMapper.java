@@ -11,6 +11,7 @@ import org.mapstruct.MappingTarget;
 public interface SeriesEpisodeMapper {
 
     @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "inserted", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
     SeriesEpisode toEntity(SeriesEpisodeDTO dto);
 
@@ -18,6 +19,7 @@ public interface SeriesEpisodeMapper {
 
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "inserted", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
     void updateEntityFromDto(SeriesEpisodeDTO dto, @MappingTarget SeriesEpisode entity);
 }
\ No newline at end of file
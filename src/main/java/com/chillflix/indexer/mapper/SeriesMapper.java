@@ -12,6 +12,7 @@ public interface SeriesMapper {
 
     @Mapping(target = "isDeleted", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "inserted", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
     Series toEntity(SeriesDTO dto);
 
@@ -20,6 +21,7 @@ public interface SeriesMapper {
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "isDeleted", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "inserted", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
     void updateEntityFromDto(SeriesDTO dto, @MappingTarget Series entity);
 }
\ No newline at end of file
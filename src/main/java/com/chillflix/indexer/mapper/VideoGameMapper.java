@@ -12,6 +12,7 @@ public interface VideoGameMapper {
 
     @Mapping(target = "isDeleted", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "inserted", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
     VideoGame toEntity(VideoGameDTO dto);
 
@@ -20,6 +21,7 @@ public interface VideoGameMapper {
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "isDeleted", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "inserted", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
     void updateEntityFromDto(VideoGameDTO dto, @MappingTarget VideoGame entity);
 }
\ No newline at end of file
@@ -12,6 +12,7 @@ public interface VideoMapper {
 
     @Mapping(target = "isDeleted", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "inserted", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
     Video toEntity(VideoDTO dto);
 
@@ -20,6 +21,7 @@ public interface VideoMapper {
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "isDeleted", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "inserted", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
     void updateEntityFromDto(VideoDTO dto, @MappingTarget Video entity);
 }
\ No newline at end of file
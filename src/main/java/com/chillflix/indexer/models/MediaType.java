@@ -4,9 +4,19 @@ package com.chillflix.indexer.models;
  * Enum representing the different types of media available in the application
  */
 public enum MediaType {
-    MOVIE,
-    SERIES,
-    MUSIC,
-    VIDEO,
-    VIDEOGAME
-}
\ No newline at end of file
+    MOVIE("movies"),
+    SERIES("series"),
+    MUSIC("music"),
+    VIDEO("videos"),
+    VIDEOGAME("video_games");
+
+    private final String table;
+
+    MediaType(String table) {
+        this.table = table;
+    }
+
+    public String getTable() {
+        return table;
+    }
+}
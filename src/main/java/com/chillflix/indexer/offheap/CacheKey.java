@@ -0,0 +1,7 @@
+package com.chillflix.indexer.offheap;
+
+/**
+ * The key of a {@link TieredCache} entry in the {@link SlabStore} its caches share.
+ */
+public record CacheKey(String cache, Object key) {
+}
@@ -0,0 +1,223 @@
+package com.chillflix.indexer.offheap;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Byte values kept outside the Java heap, in fixed-size direct buffers ("slabs") that are only
+ * allocated when first written. Values are appended to the current slab; when it is full, writing
+ * moves to the next one in a ring, and whatever that slab held is evicted first, except values
+ * read since they were written, which get a second chance at the start of the recycled slab.
+ * Replaced and removed values are garbage until their slab comes round again.
+ *
+ * <p>Only the index (key to slab, offset and length) lives on the heap. Values live at most
+ * {@code timeToLive}; values larger than a slab are not stored. Reads run in parallel with each
+ * other and exclude writes.
+ */
+public class SlabStore<K> {
+
+    private final int slabSize;
+    private final long timeToLiveNanos;
+    private final LongSupplier nanoClock;
+    private final ByteBuffer[] slabs;
+    private final List<List<Map.Entry<K, Slot>>> residents;
+    private final Map<K, Slot> index = new ConcurrentHashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int head;
+    private int position;
+    private volatile long liveBytes;
+    private volatile long evictions;
+
+    public SlabStore(long capacity, int slabSize, Duration timeToLive) {
+        this(capacity, slabSize, timeToLive, System::nanoTime);
+    }
+
+    SlabStore(long capacity, int slabSize, Duration timeToLive, LongSupplier nanoClock) {
+        if (slabSize <= 0 || capacity < slabSize) {
+            throw new IllegalArgumentException("Capacity " + capacity + " must hold at least one slab of " + slabSize + " bytes");
+        }
+        this.slabSize = slabSize;
+        this.timeToLiveNanos = timeToLive.toNanos();
+        this.nanoClock = nanoClock;
+        int count = (int) Math.min(Integer.MAX_VALUE, capacity / slabSize);
+        this.slabs = new ByteBuffer[count];
+        this.residents = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            residents.add(new ArrayList<>());
+        }
+    }
+
+    public byte[] get(K key) {
+        lock.readLock().lock();
+        try {
+            Slot slot = index.get(key);
+            if (slot == null || expired(slot)) {
+                return null;
+            }
+            slot.referenced = true;
+            byte[] value = new byte[slot.length];
+            slabs[slot.slab].get(slot.offset, value);
+            return value;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * How much longer the value of {@code key} lives, counted from when it was first written, or
+     * zero if there is none.
+     */
+    public Duration timeToLive(K key) {
+        Slot slot = index.get(key);
+        if (slot == null) {
+            return Duration.ZERO;
+        }
+        return Duration.ofNanos(Math.max(0, timeToLiveNanos - (nanoClock.getAsLong() - slot.writtenAt)));
+    }
+
+    /**
+     * Stores {@code value} under {@code key}, replacing any previous value.
+     *
+     * @return {@code false} if the value is larger than a slab, in which case any previous value
+     * is removed
+     */
+    public boolean put(K key, byte[] value) {
+        lock.writeLock().lock();
+        try {
+            discard(index.remove(key));
+            if (value.length > slabSize) {
+                return false;
+            }
+            append(key, value);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean remove(K key) {
+        lock.writeLock().lock();
+        try {
+            Slot slot = index.remove(key);
+            discard(slot);
+            return slot != null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeIf(Predicate<? super K> filter) {
+        lock.writeLock().lock();
+        try {
+            index.entrySet().removeIf(entry -> {
+                if (filter.test(entry.getKey())) {
+                    discard(entry.getValue());
+                    return true;
+                }
+                return false;
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    public long liveBytes() {
+        return liveBytes;
+    }
+
+    public long capacity() {
+        return (long) slabs.length * slabSize;
+    }
+
+    public long evictions() {
+        return evictions;
+    }
+
+    private void append(K key, byte[] value) {
+        if (position + value.length > slabSize || slabs[head] == null) {
+            recycle(slabs[head] == null ? head : (head + 1) % slabs.length);
+        }
+        // La segunda oportunidad puede haber llenado el slab reciclado
+        while (position + value.length > slabSize) {
+            recycle((head + 1) % slabs.length);
+        }
+        write(key, value, nanoClock.getAsLong());
+    }
+
+    private void recycle(int slab) {
+        List<Map.Entry<K, Slot>> evicted = residents.get(slab);
+        List<Map.Entry<K, byte[]>> survivors = new ArrayList<>();
+        List<Long> writtenAt = new ArrayList<>();
+        for (Map.Entry<K, Slot> resident : evicted) {
+            Slot slot = resident.getValue();
+            if (!index.remove(resident.getKey(), slot)) {
+                continue; // Sustituido o borrado desde entonces
+            }
+            discard(slot);
+            if (slot.referenced && !expired(slot)) {
+                byte[] value = new byte[slot.length];
+                slabs[slab].get(slot.offset, value);
+                survivors.add(Map.entry(resident.getKey(), value));
+                writtenAt.add(slot.writtenAt);
+            } else {
+                evictions++;
+            }
+        }
+        evicted.clear();
+        if (slabs[slab] == null) {
+            slabs[slab] = ByteBuffer.allocateDirect(slabSize);
+        }
+        head = slab;
+        position = 0;
+        for (int i = 0; i < survivors.size(); i++) {
+            write(survivors.get(i).getKey(), survivors.get(i).getValue(), writtenAt.get(i));
+        }
+    }
+
+    private void write(K key, byte[] value, long writtenAt) {
+        slabs[head].put(position, value);
+        Slot slot = new Slot(head, position, value.length, writtenAt);
+        index.put(key, slot);
+        residents.get(head).add(Map.entry(key, slot));
+        position += value.length;
+        liveBytes += value.length;
+    }
+
+    private void discard(Slot slot) {
+        if (slot != null) {
+            liveBytes -= slot.length;
+        }
+    }
+
+    private boolean expired(Slot slot) {
+        return nanoClock.getAsLong() - slot.writtenAt > timeToLiveNanos;
+    }
+
+    private static final class Slot {
+
+        final int slab;
+        final int offset;
+        final int length;
+        final long writtenAt;
+        volatile boolean referenced;
+
+        Slot(int slab, int offset, int length, long writtenAt) {
+            this.slab = slab;
+            this.offset = offset;
+            this.length = length;
+            this.writtenAt = writtenAt;
+        }
+    }
+}
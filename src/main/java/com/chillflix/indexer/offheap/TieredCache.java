@@ -0,0 +1,239 @@
+package com.chillflix.indexer.offheap;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Policy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * A cache whose values are also kept, encoded, in a shared {@link SlabStore}. The local cache
+ * (Caffeine) answers first; a local miss is looked up off-heap and, when found, decoded and put
+ * back in the local cache. Writes and evictions go to both tiers, so an entry the local cache
+ * drops for size is still one decode away instead of one query away.
+ * <p>
+ * A value put back in the local cache only lives what it had left off-heap, so it does not
+ * outlive its original write. This needs a local cache with variable expiration
+ * ({@code Caffeine.expireAfter}); with a fixed one, it restarts its time to live.
+ */
+@Slf4j
+public class TieredCache implements Cache {
+
+    public static final String OFF_HEAP_METER = "cache.off-heap.gets";
+
+    private final Cache local;
+    private final SlabStore<CacheKey> store;
+    private final ObjectReader reader;
+    private final ObjectWriter writer;
+    private final Counter hits;
+    private final Counter misses;
+
+    public TieredCache(Cache local, SlabStore<CacheKey> store, ObjectReader reader, ObjectWriter writer,
+                       MeterRegistry meterRegistry) {
+        this.local = local;
+        this.store = store;
+        this.reader = reader;
+        this.writer = writer;
+        this.hits = counter(meterRegistry, "hit");
+        this.misses = counter(meterRegistry, "miss");
+    }
+
+    @Override
+    public String getName() {
+        return local.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return local.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper cached = local.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        Object value = load(key);
+        return value != null ? new SimpleValueWrapper(value) : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper cached = get(key);
+        Object value = cached != null ? cached.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Duration[] promoted = new Duration[1];
+        T value = local.get(key, () -> {
+            Object stored = fromStore(key);
+            if (stored != null) {
+                promoted[0] = store.timeToLive(new CacheKey(getName(), key));
+                return (T) stored;
+            }
+            T loaded = valueLoader.call();
+            store(key, loaded);
+            return loaded;
+        });
+        expireLocally(key, promoted[0]);
+        return value;
+    }
+
+    @Override
+    public CompletableFuture<?> retrieve(Object key) {
+        CompletableFuture<?> cached = local.retrieve(key);
+        if (cached != null) {
+            return cached;
+        }
+        Object value = load(key);
+        return value != null ? CompletableFuture.completedFuture(value) : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> retrieve(Object key, Supplier<CompletableFuture<T>> valueLoader) {
+        // Caffeine llama al cargador dentro de retrieve, así que la duración ya está al volver
+        Duration[] promoted = new Duration[1];
+        CompletableFuture<T> value = local.retrieve(key, () -> {
+            Object stored = fromStore(key);
+            if (stored != null) {
+                promoted[0] = store.timeToLive(new CacheKey(getName(), key));
+                return CompletableFuture.completedFuture((T) stored);
+            }
+            return valueLoader.get().thenApply(loaded -> {
+                store(key, loaded);
+                return loaded;
+            });
+        });
+        expireLocally(key, promoted[0]);
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        local.put(key, value);
+        store(key, value);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = local.putIfAbsent(key, value);
+        if (existing == null) {
+            store(key, value);
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        local.evict(key);
+        store.remove(new CacheKey(getName(), key));
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean evicted = local.evictIfPresent(key);
+        return store.remove(new CacheKey(getName(), key)) || evicted;
+    }
+
+    @Override
+    public void clear() {
+        local.clear();
+        store.removeIf(key -> key.cache().equals(getName()));
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean invalidated = local.invalidate();
+        store.removeIf(key -> key.cache().equals(getName()));
+        return invalidated;
+    }
+
+    // Fallo local: se busca fuera del heap y, si está, se devuelve a la caché local
+    private Object load(Object key) {
+        Object value = fromStore(key);
+        if (value != null) {
+            Duration timeToLive = store.timeToLive(new CacheKey(getName(), key));
+            local.put(key, value);
+            expireLocally(key, timeToLive);
+        }
+        return value;
+    }
+
+    // La entrada promovida hereda lo que le quedaba fuera del heap en lugar de un tiempo de vida entero
+    @SuppressWarnings("unchecked")
+    private void expireLocally(Object key, Duration timeToLive) {
+        if (timeToLive == null) {
+            return;
+        }
+        // En modo asíncrono Spring también expone la vista síncrona de Caffeine
+        if (!(local.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache)) {
+            return;
+        }
+        Policy<Object, Object> policy = ((com.github.benmanes.caffeine.cache.Cache<Object, Object>) nativeCache).policy();
+        policy.expireVariably().ifPresent(expiration -> {
+            if (timeToLive.isZero()) {
+                local.evict(key);
+            } else {
+                expiration.setExpiresAfter(key, timeToLive);
+            }
+        });
+    }
+
+    private Object fromStore(Object key) {
+        CacheKey storeKey = new CacheKey(getName(), key);
+        byte[] bytes = store.get(storeKey);
+        if (bytes == null) {
+            misses.increment();
+            return null;
+        }
+        try {
+            Object value = reader.readValue(bytes);
+            hits.increment();
+            return value;
+        } catch (IOException e) {
+            // Codificado con otra versión del DTO, por ejemplo
+            log.debug("Dropping undecodable off-heap entry {} of {}: {}", key, getName(), e.getMessage());
+            store.remove(storeKey);
+            misses.increment();
+            return null;
+        }
+    }
+
+    private void store(Object key, Object value) {
+        if (value == null) {
+            return;
+        }
+        try {
+            store.put(new CacheKey(getName(), key), writer.writeValueAsBytes(value));
+        } catch (IOException e) {
+            log.debug("Not storing {} of {} off-heap: {}", key, getName(), e.getMessage());
+            store.remove(new CacheKey(getName(), key));
+        }
+    }
+
+    private Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder(OFF_HEAP_METER)
+                .description("Local cache misses looked up in the off-heap tier")
+                .tag("cache", local.getName())
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,94 @@
+package com.chillflix.indexer.offheap;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Puts an off-heap tier behind the caches of {@code local} whose value type is known, encoding
+ * values with {@code codec}. The other caches are returned as they are.
+ */
+public class TieredCacheManager implements CacheManager {
+
+    private final CacheManager local;
+    private final SlabStore<CacheKey> store;
+    private final ObjectMapper codec;
+    private final Map<String, JavaType> valueTypes;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public TieredCacheManager(CacheManager local, SlabStore<CacheKey> store, ObjectMapper codec,
+                              Map<String, JavaType> valueTypes, MeterRegistry meterRegistry) {
+        this.local = local;
+        this.store = store;
+        this.codec = codec;
+        this.valueTypes = Map.copyOf(valueTypes);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        JavaType valueType = valueTypes.get(name);
+        if (valueType == null) {
+            return local.getCache(name);
+        }
+        return caches.computeIfAbsent(name, cache -> new TieredCache(local.getCache(cache), store,
+                codec.readerFor(valueType), codec.writerFor(valueType), meterRegistry));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return local.getCacheNames();
+    }
+
+    /**
+     * A Caffeine builder for the local caches from the Caffeine {@code spec}, with its
+     * {@code expireAfterWrite} as a variable expiration of the same duration, so that
+     * {@link TieredCache} can give a value brought back from off-heap only the time it had left.
+     */
+    public static Caffeine<Object, Object> localCaffeine(String spec) {
+        List<String> options = new ArrayList<>();
+        Duration timeToLive = null;
+        for (String option : spec.split(",")) {
+            String[] keyValue = option.trim().split("=", 2);
+            if (keyValue[0].equals("expireAfterWrite") && keyValue.length == 2) {
+                timeToLive = DurationStyle.detectAndParse(keyValue[1].trim());
+            } else if (!option.isBlank()) {
+                options.add(option.trim());
+            }
+        }
+        Caffeine<Object, Object> builder = Caffeine.from(String.join(",", options));
+        return timeToLive == null ? builder : builder.expireAfter(new WriteExpiry(timeToLive.toNanos()));
+    }
+
+    // expireAfterWrite con duración ajustable por entrada
+    private record WriteExpiry(long timeToLiveNanos) implements Expiry<Object, Object> {
+
+        @Override
+        public long expireAfterCreate(Object key, Object value, long currentTime) {
+            return timeToLiveNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+            return timeToLiveNanos;
+        }
+
+        @Override
+        public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
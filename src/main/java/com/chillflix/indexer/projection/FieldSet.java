@@ -0,0 +1,122 @@
+package com.chillflix.indexer.projection;
+
+import com.chillflix.indexer.exception.InvalidFieldsException;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.RecordComponent;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The fields of a DTO requested with the {@code fields} parameter of the list and search
+ * endpoints, e.g. {@code fields=title,year,posterPath}. The id is always included, and the fields
+ * keep the order in which the DTO declares them, whatever the order of the parameter, so equal
+ * selections are equal (and share cache entries). Without the parameter every field is returned
+ * ({@link #ALL}).
+ */
+public final class FieldSet {
+
+    public static final FieldSet ALL = new FieldSet(List.of());
+    public static final String PARAMETER_DESCRIPTION = "Comma-separated fields to return (e.g. title,year,posterPath); "
+            + "the id is always included. All fields if absent";
+
+    private static final String ID = "id";
+    private static final Map<Class<?>, Map<String, RecordComponent>> COMPONENTS = new ConcurrentHashMap<>();
+
+    private final List<RecordComponent> components;
+    private final List<String> names;
+
+    private FieldSet(List<RecordComponent> components) {
+        this.components = components;
+        this.names = components.stream().map(RecordComponent::getName).toList();
+    }
+
+    /**
+     * The fields of {@code dto} listed in {@code fields}; {@link #ALL} if {@code fields} is blank.
+     *
+     * @throws InvalidFieldsException if a field is not a component of {@code dto}
+     */
+    public static FieldSet parse(String fields, Class<? extends Record> dto) {
+        if (fields == null || fields.isBlank()) {
+            return ALL;
+        }
+        Map<String, RecordComponent> available = COMPONENTS.computeIfAbsent(dto, type -> {
+            Map<String, RecordComponent> byName = new LinkedHashMap<>();
+            for (RecordComponent component : type.getRecordComponents()) {
+                byName.put(component.getName(), component);
+            }
+            return byName;
+        });
+        Set<String> requested = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!available.containsKey(name)) {
+                throw new InvalidFieldsException("Unknown field '" + name + "'; available fields: "
+                        + String.join(",", available.keySet()));
+            }
+            requested.add(name);
+        }
+        requested.add(ID);
+        List<RecordComponent> selected = new ArrayList<>(requested.size());
+        available.forEach((name, component) -> {
+            if (requested.contains(name)) {
+                selected.add(component);
+            }
+        });
+        return selected.size() == available.size() ? ALL : new FieldSet(List.copyOf(selected));
+    }
+
+    public boolean isAll() {
+        return components.isEmpty();
+    }
+
+    /**
+     * Names of the selected fields; empty for {@link #ALL}.
+     */
+    public List<String> names() {
+        return names;
+    }
+
+    /**
+     * {@code dto} itself for {@link #ALL}, otherwise a map of the selected fields, in order, that
+     * serializes as the DTO would without the other fields. Selected fields are written even when
+     * they are {@code null}.
+     */
+    public Object project(Object dto) {
+        if (isAll()) {
+            return dto;
+        }
+        Map<String, Object> projected = new LinkedHashMap<>(components.size() * 2);
+        for (RecordComponent component : components) {
+            try {
+                projected.put(component.getName(), component.getAccessor().invoke(dto));
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                throw new IllegalStateException("Cannot read " + component.getName() + " of " + dto.getClass().getSimpleName(), e);
+            }
+        }
+        return projected;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof FieldSet fieldSet && names.equals(fieldSet.names);
+    }
+
+    @Override
+    public int hashCode() {
+        return names.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return isAll() ? "*" : String.join(",", names);
+    }
+}
@@ -0,0 +1,106 @@
+package com.chillflix.indexer.projection;
+
+import com.chillflix.indexer.querymetrics.QueryNames;
+import org.springframework.data.r2dbc.convert.R2dbcConverter;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.relational.core.mapping.RelationalPersistentEntity;
+import org.springframework.data.relational.core.mapping.RelationalPersistentProperty;
+import org.springframework.data.repository.query.Param;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import reactor.core.publisher.Flux;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs the {@code @Query} of a repository method reading only the columns of a {@link FieldSet},
+ * so the database, the driver and the entity mapping skip the wide columns (magnet, overview,
+ * arrays...) a grid view does not show. The statement is the one on the annotation with its
+ * {@code SELECT *} replaced by the column list, bound with the same parameters; the entities come
+ * back with the unselected properties {@code null}. A field the entity does not store (computed by
+ * the mapper) cannot be pushed down and reads every column. The statement is named after the
+ * repository method ({@link QueryNames#named}), so its query metrics stay with those of the method.
+ */
+@Component
+public class ProjectedQueries {
+
+    private static final Pattern SELECT_ALL = Pattern.compile("^\\s*SELECT\\s+\\*\\s+FROM\\b", Pattern.CASE_INSENSITIVE);
+
+    private final DatabaseClient databaseClient;
+    private final R2dbcConverter converter;
+    private final Map<MethodKey, Method> methods = new ConcurrentHashMap<>();
+
+    public ProjectedQueries(DatabaseClient databaseClient, R2dbcConverter converter) {
+        this.databaseClient = databaseClient;
+        this.converter = converter;
+    }
+
+    /**
+     * The rows of {@code repository.method(args)} as {@code entity} instances holding only
+     * {@code fields}.
+     */
+    public <E> Flux<E> find(Class<E> entity, FieldSet fields, Class<?> repository, String method, Object... args) {
+        Method query = methods.computeIfAbsent(new MethodKey(repository, method, args.length), MethodKey::resolve);
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(QueryNames.named(
+                repository.getSimpleName() + "." + method, sql(query.getAnnotation(Query.class).value(), entity, fields)));
+        Parameter[] parameters = query.getParameters();
+        for (int i = 0; i < parameters.length; i++) {
+            String name = parameters[i].getAnnotation(Param.class).value();
+            spec = args[i] == null
+                    ? spec.bindNull(name, ClassUtils.resolvePrimitiveIfNecessary(parameters[i].getType()))
+                    : spec.bind(name, args[i]);
+        }
+        return spec.map((row, metadata) -> converter.read(entity, row, metadata)).all();
+    }
+
+    String sql(String query, Class<?> entity, FieldSet fields) {
+        Matcher select = SELECT_ALL.matcher(query);
+        if (!select.find()) {
+            throw new IllegalArgumentException("Only SELECT * queries can be projected: " + query);
+        }
+        String columns = columns(entity, fields);
+        return columns == null ? query : "SELECT " + columns + " FROM" + query.substring(select.end());
+    }
+
+    private String columns(Class<?> entity, FieldSet fields) {
+        if (fields.isAll()) {
+            return null;
+        }
+        RelationalPersistentEntity<?> persistentEntity = converter.getMappingContext().getRequiredPersistentEntity(entity);
+        Set<String> columns = new LinkedHashSet<>();
+        columns.add(persistentEntity.getRequiredIdProperty().getColumnName().getReference());
+        for (String field : fields.names()) {
+            RelationalPersistentProperty property = persistentEntity.getPersistentProperty(field);
+            if (property == null) {
+                return null;
+            }
+            columns.add(property.getColumnName().getReference());
+        }
+        return String.join(", ", columns);
+    }
+
+    private record MethodKey(Class<?> repository, String name, int parameterCount) {
+
+        Method resolve() {
+            List<Method> candidates = Arrays.stream(repository.getDeclaredMethods())
+                    .filter(method -> method.getName().equals(name) && method.getParameterCount() == parameterCount)
+                    .filter(method -> method.isAnnotationPresent(Query.class))
+                    .toList();
+            if (candidates.size() != 1) {
+                throw new IllegalArgumentException("No single @Query method " + repository.getSimpleName() + "." + name
+                        + " with " + parameterCount + " parameters");
+            }
+            return candidates.get(0);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.chillflix.indexer.querymetrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.proxy.core.QueryExecutionInfo;
+import io.r2dbc.proxy.core.QueryInfo;
+import io.r2dbc.proxy.listener.ProxyExecutionListener;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * r2dbc-proxy listener that records every statement executed through the application's
+ * {@code ConnectionFactory}: {@code db.query} (execution time including reading the results, as a
+ * histogram) and {@code db.query.rows} (rows read from the result), both tagged with the
+ * {@link QueryNames query name}. Together with {@code db.pool.acquire} this tells how much of a
+ * request's database time is spent per repository query and how much waiting for a connection.
+ */
+public class QueryMetricsListener implements ProxyExecutionListener {
+
+    private final MeterRegistry meterRegistry;
+    private final QueryNames queryNames;
+    private final Map<String, QueryMeters> meters = new ConcurrentHashMap<>();
+
+    public QueryMetricsListener(MeterRegistry meterRegistry, QueryNames queryNames) {
+        this.meterRegistry = meterRegistry;
+        this.queryNames = queryNames;
+    }
+
+    @Override
+    public void afterQuery(QueryExecutionInfo execInfo) {
+        List<QueryInfo> queries = execInfo.getQueries();
+        String name = queries.isEmpty() ? QueryNames.UNKNOWN : queryNames.nameOf(queries.get(0).getQuery());
+        QueryMeters queryMeters = meters.computeIfAbsent(name, this::register);
+        (execInfo.isSuccess() ? queryMeters.success() : queryMeters.error()).record(execInfo.getExecuteDuration());
+        if (execInfo.isSuccess()) {
+            queryMeters.rows().record(execInfo.getCurrentResultCount());
+        }
+    }
+
+    private QueryMeters register(String name) {
+        return new QueryMeters(timer(name, "success"), timer(name, "error"),
+                DistributionSummary.builder("db.query.rows")
+                        .description("Rows read from the result of each statement")
+                        .tag("query", name)
+                        .register(meterRegistry));
+    }
+
+    private Timer timer(String name, String outcome) {
+        return Timer.builder("db.query")
+                .description("Statement execution time, including reading the results")
+                .tag("query", name)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private record QueryMeters(Timer success, Timer error, DistributionSummary rows) {
+    }
+}
@@ -0,0 +1,131 @@
+package com.chillflix.indexer.querymetrics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.core.support.RepositoryFactoryInformation;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maps the SQL sent to the driver back to a stable, low-cardinality name. Every {@code @Query} of
+ * the repository interfaces is registered as {@code <Repository>.<method>}, matched on a
+ * fingerprint of the statement that ignores whitespace and how parameters were bound, so the
+ * {@code :name} and SpEL placeholders of the annotation match the {@code $n} markers the driver
+ * sees, and an expanded {@code IN} list matches whatever its length. Derived queries and
+ * {@link org.springframework.r2dbc.core.DatabaseClient} statements are named by operation and
+ * first table, e.g. {@code select movies}. A statement built at runtime from a repository query,
+ * which no longer matches its fingerprint, carries the name in a leading comment ({@link #named}).
+ */
+@Slf4j
+public class QueryNames implements ApplicationListener<ContextRefreshedEvent> {
+
+    static final String UNKNOWN = "other";
+    private static final int MAX_CACHED_STATEMENTS = 4096;
+
+    private static final Pattern NAME_COMMENT = Pattern.compile("^\\s*/\\*\\s*([\\w.]+)\\s*\\*/");
+    private static final Pattern SPEL_PARAMETER = Pattern.compile(":#\\{[^}]*}");
+    private static final Pattern NAMED_PARAMETER = Pattern.compile("(?<!:):[a-zA-Z_]\\w*");
+    private static final Pattern INDEXED_PARAMETER = Pattern.compile("\\$\\d+");
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\?(\\s*,\\s*\\?)+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern OPERATION = Pattern.compile("^\\s*(\\w+)");
+    private static final Pattern TABLE = Pattern.compile("\\b(?:from|into|update)\\s+\"?([\\w.]+)", Pattern.CASE_INSENSITIVE);
+
+    private volatile Map<String, String> byFingerprint = Map.of();
+    private final Map<String, String> bySql = new ConcurrentHashMap<>();
+
+    /**
+     * Registers the {@code @Query} methods of the given repository interfaces, replacing the
+     * previous registration.
+     */
+    public void register(Collection<Class<?>> repositories) {
+        Map<String, String> names = new HashMap<>();
+        for (Class<?> repository : repositories) {
+            for (Method method : repository.getDeclaredMethods()) {
+                Query query = method.getAnnotation(Query.class);
+                if (query != null) {
+                    names.putIfAbsent(fingerprint(query.value()), repository.getSimpleName() + "." + method.getName());
+                }
+            }
+        }
+        byFingerprint = Map.copyOf(names);
+        // Los nombres resueltos antes del registro pueden haber caído en el genérico
+        bySql.clear();
+        log.info("Registered {} repository queries for query metrics", names.size());
+    }
+
+    /**
+     * Takes the repository interfaces from the repository factory beans once the context is
+     * refreshed, rather than scanning the classpath, which a native image does not have. Until
+     * then statements are named by operation and table.
+     */
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        List<Class<?>> repositories = event.getApplicationContext()
+                .getBeansOfType(RepositoryFactoryInformation.class, false, true).values().stream()
+                .<Class<?>>map(information -> information.getRepositoryInformation().getRepositoryInterface())
+                .toList();
+        if (!repositories.isEmpty()) {
+            register(repositories);
+        }
+    }
+
+    public String nameOf(String sql) {
+        if (sql == null || sql.isBlank()) {
+            return UNKNOWN;
+        }
+        String name = bySql.get(sql);
+        if (name == null) {
+            name = resolve(sql);
+            // Las listas IN de longitud variable generan SQL distintos; se acota la caché
+            if (bySql.size() < MAX_CACHED_STATEMENTS) {
+                bySql.put(sql, name);
+            }
+        }
+        return name;
+    }
+
+    /**
+     * {@code sql} with a leading comment that names it {@code name}, e.g. the repository method
+     * whose query it was rewritten from.
+     */
+    public static String named(String name, String sql) {
+        return "/* " + name + " */ " + sql;
+    }
+
+    private String resolve(String sql) {
+        Matcher comment = NAME_COMMENT.matcher(sql);
+        if (comment.find()) {
+            return comment.group(1);
+        }
+        String registered = byFingerprint.get(fingerprint(sql));
+        if (registered != null) {
+            return registered;
+        }
+        Matcher operation = OPERATION.matcher(sql);
+        if (!operation.find()) {
+            return UNKNOWN;
+        }
+        Matcher table = TABLE.matcher(sql);
+        String op = operation.group(1).toLowerCase(Locale.ROOT);
+        return table.find() ? op + " " + table.group(1).toLowerCase(Locale.ROOT) : op;
+    }
+
+    static String fingerprint(String sql) {
+        String normalized = SPEL_PARAMETER.matcher(sql).replaceAll("?");
+        normalized = NAMED_PARAMETER.matcher(normalized).replaceAll("?");
+        normalized = INDEXED_PARAMETER.matcher(normalized).replaceAll("?");
+        normalized = PARAMETER_LIST.matcher(normalized).replaceAll("?");
+        return WHITESPACE.matcher(normalized).replaceAll(" ").trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,128 @@
+package com.chillflix.indexer.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Per-client rate limiter over the shared {@link RateLimitStore}. Each instance keeps a local
+ * reservation of tokens per client and only goes to the database when it runs out, taking
+ * {@link RateLimitPolicy#reservation()} tokens at once; concurrent requests of the same client
+ * share that round trip. When the shared bucket is empty the client is refused locally until
+ * one token has refilled. A client can exceed its limit by at most one reservation per instance.
+ * <p>
+ * If the store fails the request is let through: the limiter protects capacity, it must not take
+ * the API down with the database. Round trips and outcomes are counted in
+ * {@code http.ratelimit.reservations} and {@code http.ratelimit.requests}.
+ */
+@Slf4j
+public class ClientRateLimiter {
+
+    private final RateLimitStore store;
+    private final Cache<String, Reservation> reservations;
+    private final Counter reservationCalls;
+    private final Counter allowed;
+    private final Counter limited;
+    private final Counter failedOpen;
+
+    public ClientRateLimiter(RateLimitStore store, Duration idleTimeout, long maxClients, MeterRegistry meterRegistry) {
+        this.store = store;
+        this.reservations = Caffeine.newBuilder()
+                .expireAfterAccess(idleTimeout)
+                .maximumSize(maxClients)
+                .build();
+        this.reservationCalls = Counter.builder("http.ratelimit.reservations")
+                .description("Token reservations taken from the shared buckets")
+                .register(meterRegistry);
+        this.allowed = outcome(meterRegistry, "allowed");
+        this.limited = outcome(meterRegistry, "limited");
+        this.failedOpen = outcome(meterRegistry, "store_error");
+    }
+
+    public Mono<Boolean> tryAcquire(String key, RateLimitPolicy policy) {
+        return Mono.defer(() -> acquire(key, policy));
+    }
+
+    private Mono<Boolean> acquire(String key, RateLimitPolicy policy) {
+        Reservation reservation = reservations.get(key, k -> new Reservation());
+        if (reservation.take()) {
+            allowed.increment();
+            return Mono.just(true);
+        }
+        if (System.nanoTime() < reservation.emptyUntil) {
+            limited.increment();
+            return Mono.just(false);
+        }
+        return reservation.refill(() -> store.reserve(key, policy)
+                        .doOnSubscribe(__ -> reservationCalls.increment())
+                        .doOnNext(granted -> {
+                            if (granted == 0) {
+                                reservation.emptyUntil = System.nanoTime() + policy.refillNanos();
+                            }
+                        }))
+                .flatMap(granted -> {
+                    if (reservation.take()) {
+                        allowed.increment();
+                        return Mono.just(true);
+                    }
+                    // Otras peticiones se llevaron el lote: se reserva otro mientras el cubo tenga tokens
+                    return granted > 0 ? acquire(key, policy) : Mono.fromSupplier(() -> {
+                        limited.increment();
+                        return false;
+                    });
+                })
+                .onErrorResume(error -> {
+                    log.warn("Rate limit store unavailable, letting request through: {}", error.getMessage());
+                    failedOpen.increment();
+                    return Mono.just(true);
+                });
+    }
+
+    private static Counter outcome(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("http.ratelimit.requests")
+                .description("Requests checked against the per-client rate limit")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private static final class Reservation {
+
+        private final AtomicLong tokens = new AtomicLong();
+        private volatile long emptyUntil;
+        private Mono<Long> pending;
+
+        boolean take() {
+            while (true) {
+                long current = tokens.get();
+                if (current <= 0) {
+                    return false;
+                }
+                if (tokens.compareAndSet(current, current - 1)) {
+                    return true;
+                }
+            }
+        }
+
+        synchronized Mono<Long> refill(Supplier<Mono<Long>> reserve) {
+            if (pending == null) {
+                Mono<Long> request = reserve.get()
+                        .doOnNext(tokens::addAndGet)
+                        .doFinally(__ -> clearPending())
+                        .cache();
+                pending = request;
+            }
+            return pending;
+        }
+
+        private synchronized void clearPending() {
+            pending = null;
+        }
+    }
+}
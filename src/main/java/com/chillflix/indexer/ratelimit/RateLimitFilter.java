@@ -0,0 +1,104 @@
+package com.chillflix.indexer.ratelimit;
+
+import com.chillflix.indexer.warmup.WarmupTraffic;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Set;
+
+/**
+ * Rate limits every API request per client: requests with a known {@value #API_KEY_HEADER} use
+ * the API key policy and a bucket per key, anything else the IP policy and a bucket per client
+ * address (taken from {@code rate-limit.client-ip-header} when the service runs behind a proxy
+ * that sets it; for a list such as {@code X-Forwarded-For}, its last entry, the one the proxy
+ * appended, since earlier ones come from the client). Unknown keys are treated as anonymous, so rotating made-up keys does not escape
+ * the limit. Refused requests get 429 with {@code Retry-After}. Actuator endpoints and the
+ * startup warmup's requests are not limited.
+ */
+public class RateLimitFilter implements WebFilter, Ordered {
+
+    public static final String API_KEY_HEADER = "X-API-Key";
+
+    private final boolean enabled;
+    private final ClientRateLimiter limiter;
+    private final RateLimitPolicy ipPolicy;
+    private final RateLimitPolicy apiKeyPolicy;
+    private final Set<String> apiKeys;
+    private final String clientIpHeader;
+
+    public RateLimitFilter(boolean enabled, ClientRateLimiter limiter, RateLimitPolicy ipPolicy,
+                           RateLimitPolicy apiKeyPolicy, Set<String> apiKeys, String clientIpHeader) {
+        this.enabled = enabled;
+        this.limiter = limiter;
+        this.ipPolicy = ipPolicy;
+        this.apiKeyPolicy = apiKeyPolicy;
+        this.apiKeys = Set.copyOf(apiKeys);
+        this.clientIpHeader = clientIpHeader;
+    }
+
+    @Override
+    public int getOrder() {
+        // Antes del limitador de concurrencia: un cliente abusivo no debe ocupar sus plazas
+        return Ordered.HIGHEST_PRECEDENCE + 50;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (!enabled || WarmupTraffic.isWarmup(exchange)
+                || request.getPath().pathWithinApplication().value().startsWith("/actuator")) {
+            return chain.filter(exchange);
+        }
+        String apiKey = request.getHeaders().getFirst(API_KEY_HEADER);
+        boolean knownKey = apiKey != null && apiKeys.contains(apiKey);
+        RateLimitPolicy policy = knownKey ? apiKeyPolicy : ipPolicy;
+        String bucketKey = knownKey ? "key:" + fingerprint(apiKey) : "ip:" + clientIp(request);
+        return limiter.tryAcquire(bucketKey, policy).flatMap(permitted -> {
+            if (permitted) {
+                return chain.filter(exchange);
+            }
+            exchange.getResponse().setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+            exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER,
+                    Long.toString(Math.max(1, (long) Math.ceil(1 / policy.refillPerSecond()))));
+            return exchange.getResponse().setComplete();
+        });
+    }
+
+    String clientIp(ServerHttpRequest request) {
+        if (StringUtils.hasText(clientIpHeader)) {
+            String forwarded = request.getHeaders().getFirst(clientIpHeader);
+            if (StringUtils.hasText(forwarded)) {
+                // En X-Forwarded-For el cliente puede escribir las primeras entradas; solo la última
+                // la añade nuestro proxy. Una cabecera de un solo valor (Fly-Client-IP) es preferible
+                return forwarded.substring(forwarded.lastIndexOf(',') + 1).trim();
+            }
+        }
+        InetSocketAddress remote = request.getRemoteAddress();
+        if (remote == null) {
+            return "unknown";
+        }
+        return remote.getAddress() != null ? remote.getAddress().getHostAddress() : remote.getHostString();
+    }
+
+    // Las API keys no se guardan en claro en la tabla de cubos
+    static String fingerprint(String apiKey) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(apiKey.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.chillflix.indexer.ratelimit;
+
+/**
+ * Shared token bucket of one client: {@code capacity} tokens refilled at {@code refillPerSecond},
+ * taken from the database {@code reservation} tokens at a time.
+ */
+public record RateLimitPolicy(double capacity, double refillPerSecond, long reservation) {
+
+    public RateLimitPolicy {
+        if (capacity < 1 || refillPerSecond <= 0 || reservation < 1) {
+            throw new IllegalArgumentException("Invalid rate limit policy");
+        }
+    }
+
+    /**
+     * Time until the shared bucket has at least one whole token again after running dry.
+     */
+    public long refillNanos() {
+        return (long) Math.ceil(1_000_000_000L / refillPerSecond);
+    }
+}
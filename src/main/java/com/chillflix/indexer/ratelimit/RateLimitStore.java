@@ -0,0 +1,82 @@
+package com.chillflix.indexer.ratelimit;
+
+import com.chillflix.indexer.routing.DatabaseRole;
+import com.chillflix.indexer.routing.DatabaseRouting;
+import com.chillflix.indexer.routing.WorkloadClass;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Token buckets shared by every instance, in {@code rate_limit_buckets}. A reservation refills
+ * the bucket for the time elapsed since its last update and takes up to the requested tokens in
+ * a single upsert, so concurrent instances serialize on the row lock and never overdraw it.
+ * Buckets idle for {@code rate-limit.purge-after} are full again and are deleted, unless rate
+ * limiting is disabled, in which case the purge does nothing.
+ */
+@Slf4j
+@Component
+@Lazy(false)
+public class RateLimitStore {
+
+    private static final String REFILLED = "LEAST(:capacity, b.tokens"
+            + " + CAST(EXTRACT(EPOCH FROM now() - b.updated_at) AS float8) * :rate)";
+    private static final String GRANTED = "CAST(LEAST(:batch, floor(" + REFILLED + ")) AS bigint)";
+
+    static final String RESERVE = "INSERT INTO rate_limit_buckets AS b (bucket_key, tokens, last_grant, updated_at)"
+            + " VALUES (:key, :capacity - LEAST(:batch, :capacity), LEAST(:batch, :capacity), now())"
+            + " ON CONFLICT (bucket_key) DO UPDATE SET"
+            + " last_grant = " + GRANTED + ","
+            + " tokens = " + REFILLED + " - " + GRANTED + ","
+            + " updated_at = now()"
+            + " RETURNING last_grant";
+
+    private final DatabaseClient databaseClient;
+    private final Duration purgeAfter;
+    private final boolean enabled;
+
+    public RateLimitStore(DatabaseClient databaseClient,
+                          @Value("${rate-limit.purge-after:PT1H}") Duration purgeAfter,
+                          @Value("${rate-limit.enabled:true}") boolean enabled) {
+        this.databaseClient = databaseClient;
+        this.purgeAfter = purgeAfter;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Takes up to {@code policy.reservation()} tokens from the bucket and returns how many were
+     * granted; 0 means the client is over its limit.
+     */
+    public Mono<Long> reserve(String key, RateLimitPolicy policy) {
+        return databaseClient.sql(RESERVE)
+                .bind("key", key)
+                .bind("capacity", policy.capacity())
+                .bind("rate", policy.refillPerSecond())
+                .bind("batch", policy.reservation())
+                .map(row -> row.get("last_grant", Long.class))
+                .one()
+                // Los GET se enrutan a la réplica; el cubo se escribe siempre en el primario
+                .contextWrite(DatabaseRouting.with(DatabaseRole.PRIMARY));
+    }
+
+    @Scheduled(fixedDelayString = "${rate-limit.purge-interval:PT10M}")
+    public void purge() {
+        // Sin rate limiting nadie escribe cubos: no hay nada que purgar
+        if (!enabled) {
+            return;
+        }
+        databaseClient.sql("DELETE FROM rate_limit_buckets WHERE updated_at < now() - CAST(:idle AS interval)")
+                .bind("idle", purgeAfter.toSeconds() + " seconds")
+                .fetch()
+                .rowsUpdated()
+                .doOnNext(rows -> log.debug("Purged {} idle rate limit buckets", rows))
+                .contextWrite(DatabaseRouting.with(WorkloadClass.BACKGROUND))
+                .subscribe(null, error -> log.warn("Rate limit bucket purge failed: {}", error.getMessage()));
+    }
+}
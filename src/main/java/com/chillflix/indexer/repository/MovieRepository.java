@@ -68,6 +68,13 @@ public interface MovieRepository extends R2dbcRepository<Movie, UUID> {
     @Query("SELECT * FROM movies WHERE (is_deleted = false OR is_deleted IS NULL) ORDER BY updated_at DESC LIMIT :limit OFFSET :offset")
     Flux<Movie> findAllMoviesPaginated(@Param("limit") int limit, @Param("offset") long offset);
 
+    @Query("SELECT * FROM movies WHERE sha256_hash = :sha256Hash")
+    Mono<Movie> findBySha256Hash(@Param("sha256Hash") String sha256Hash);
+
+    // Usa el índice de expresión idx_movies_magnet_btih (V2__magnet_info_hash_indexes.sql)
+    @Query("SELECT * FROM movies WHERE lower(substring(magnet from 'btih:([0-9A-Fa-f]{40})')) = :infoHash LIMIT 1")
+    Mono<Movie> findByInfoHash(@Param("infoHash") String infoHash);
+
     @Query("INSERT INTO movies (id, title, year, magnet, tmdb_id, imdb_id, language, original_language, quality, file_type, sha256_hash, is_deleted, created_at, updated_at, search_vector, size, seeds, peers, overview, poster_path, genres, torrent_url, trailer_url) " +
            "VALUES (:#{#movie.id}, :#{#movie.title}, :#{#movie.year}, :#{#movie.magnet}, :#{#movie.tmdbId}, :#{#movie.imdbId}, " +
            ":#{#movie.language}, :#{#movie.originalLanguage}, :#{#movie.quality}, :#{#movie.fileType}, :#{#movie.sha256Hash}, " +
@@ -82,7 +89,20 @@ public interface MovieRepository extends R2dbcRepository<Movie, UUID> {
            "size = EXCLUDED.size, seeds = EXCLUDED.seeds, peers = EXCLUDED.peers, overview = EXCLUDED.overview, " +
            "poster_path = EXCLUDED.poster_path, genres = EXCLUDED.genres, torrent_url = EXCLUDED.torrent_url, " +
            "trailer_url = EXCLUDED.trailer_url " +
-           "RETURNING *")
+           "WHERE (" +
+           "movies.title, movies.year, movies.magnet, movies.tmdb_id, " +
+           "movies.imdb_id, movies.language, movies.original_language, movies.quality, " +
+           "movies.file_type, movies.sha256_hash, COALESCE(movies.is_deleted, false), movies.size, " +
+           "movies.seeds, movies.peers, movies.overview, movies.poster_path, " +
+           "movies.genres, movies.torrent_url, movies.trailer_url" +
+           ") IS DISTINCT FROM (" +
+           "EXCLUDED.title, EXCLUDED.year, EXCLUDED.magnet, EXCLUDED.tmdb_id, " +
+           "EXCLUDED.imdb_id, EXCLUDED.language, EXCLUDED.original_language, EXCLUDED.quality, " +
+           "EXCLUDED.file_type, EXCLUDED.sha256_hash, COALESCE(EXCLUDED.is_deleted, false), EXCLUDED.size, " +
+           "EXCLUDED.seeds, EXCLUDED.peers, EXCLUDED.overview, EXCLUDED.poster_path, " +
+           "EXCLUDED.genres, EXCLUDED.torrent_url, EXCLUDED.trailer_url" +
+           ") " +
+           "RETURNING *, (xmax = 0) AS inserted")
     Mono<Movie> saveOrUpdate(Movie movie);
 
     @Query("SELECT COUNT(*) FROM movies WHERE (is_deleted = false OR is_deleted IS NULL) AND year = :year")
@@ -97,6 +117,12 @@ public interface MovieRepository extends R2dbcRepository<Movie, UUID> {
     @Query("UPDATE movies SET is_deleted = true WHERE id IN (:ids)")
     Mono<Void> deleteAllByIdIn(@Param("ids") List<UUID> ids);
 
+    @Query("SELECT * FROM movies WHERE id = ANY(:ids)")
+    Flux<Movie> findAllByIdIn(@Param("ids") UUID[] ids);
+
+    @Query("SELECT * FROM movies WHERE (is_deleted = false OR is_deleted IS NULL) AND id > :after ORDER BY id LIMIT :limit")
+    Flux<Movie> findPageAfter(@Param("after") UUID after, @Param("limit") int limit);
+
     @Query("SELECT * FROM movies WHERE (is_deleted = false OR is_deleted IS NULL) AND updated_at > :lastUpdateTime ORDER BY updated_at ASC LIMIT :limit OFFSET :offset")
     Flux<Movie> findByUpdatedAtAfterOrderByUpdatedAtAsc(@Param("lastUpdateTime") LocalDateTime lastUpdateTime, 
                                                         @Param("limit") int limit, 
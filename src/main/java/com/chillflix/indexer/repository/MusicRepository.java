@@ -67,6 +67,13 @@ public interface MusicRepository extends R2dbcRepository<Music, UUID> {
     @Query("SELECT * FROM music WHERE (is_deleted = false OR is_deleted IS NULL) ORDER BY updated_at DESC LIMIT :limit OFFSET :offset")
     Flux<Music> findAllMusicPaginated(@Param("limit") int limit, @Param("offset") long offset);
 
+    @Query("SELECT * FROM music WHERE sha256_hash = :sha256Hash")
+    Mono<Music> findBySha256Hash(@Param("sha256Hash") String sha256Hash);
+
+    // Usa el índice de expresión idx_music_magnet_btih (V2__magnet_info_hash_indexes.sql)
+    @Query("SELECT * FROM music WHERE lower(substring(magnet from 'btih:([0-9A-Fa-f]{40})')) = :infoHash LIMIT 1")
+    Mono<Music> findByInfoHash(@Param("infoHash") String infoHash);
+
     @Query("INSERT INTO music (id, title, artist, album, year, genre, track_count, magnet, quality, file_type, size, sha256_hash, seeds, peers, cover_path, description, label, release_date, torrent_url, is_deleted, created_at, updated_at, search_vector) " +
            "VALUES (:#{#music.id}, :#{#music.title}, :#{#music.artist}, :#{#music.album}, :#{#music.year}, :#{#music.genre}, " +
            ":#{#music.trackCount}, :#{#music.magnet}, :#{#music.quality}, :#{#music.fileType}, :#{#music.size}, :#{#music.sha256Hash}, " +
@@ -80,7 +87,20 @@ public interface MusicRepository extends R2dbcRepository<Music, UUID> {
            "seeds = EXCLUDED.seeds, peers = EXCLUDED.peers, cover_path = EXCLUDED.cover_path, description = EXCLUDED.description, " +
            "label = EXCLUDED.label, release_date = EXCLUDED.release_date, torrent_url = EXCLUDED.torrent_url, " +
            "is_deleted = EXCLUDED.is_deleted, updated_at = EXCLUDED.updated_at, search_vector = EXCLUDED.search_vector " +
-           "RETURNING *")
+           "WHERE (" +
+           "music.title, music.artist, music.album, music.year, " +
+           "music.genre, music.track_count, music.magnet, music.quality, " +
+           "music.file_type, music.size, music.sha256_hash, music.seeds, " +
+           "music.peers, music.cover_path, music.description, music.label, " +
+           "music.release_date, music.torrent_url, COALESCE(music.is_deleted, false)" +
+           ") IS DISTINCT FROM (" +
+           "EXCLUDED.title, EXCLUDED.artist, EXCLUDED.album, EXCLUDED.year, " +
+           "EXCLUDED.genre, EXCLUDED.track_count, EXCLUDED.magnet, EXCLUDED.quality, " +
+           "EXCLUDED.file_type, EXCLUDED.size, EXCLUDED.sha256_hash, EXCLUDED.seeds, " +
+           "EXCLUDED.peers, EXCLUDED.cover_path, EXCLUDED.description, EXCLUDED.label, " +
+           "EXCLUDED.release_date, EXCLUDED.torrent_url, COALESCE(EXCLUDED.is_deleted, false)" +
+           ") " +
+           "RETURNING *, (xmax = 0) AS inserted")
     Mono<Music> saveOrUpdate(Music music);
 
     @Query("SELECT COUNT(*) FROM music WHERE (is_deleted = false OR is_deleted IS NULL) AND year = :year")
@@ -101,6 +121,12 @@ public interface MusicRepository extends R2dbcRepository<Music, UUID> {
     @Query("UPDATE music SET is_deleted = true WHERE id IN (:ids)")
     Mono<Void> deleteAllByIdIn(@Param("ids") List<UUID> ids);
 
+    @Query("SELECT * FROM music WHERE id = ANY(:ids)")
+    Flux<Music> findAllByIdIn(@Param("ids") UUID[] ids);
+
+    @Query("SELECT * FROM music WHERE (is_deleted = false OR is_deleted IS NULL) AND id > :after ORDER BY id LIMIT :limit")
+    Flux<Music> findPageAfter(@Param("after") UUID after, @Param("limit") int limit);
+
     @Query("SELECT * FROM music WHERE (is_deleted = false OR is_deleted IS NULL) AND updated_at > :lastUpdateTime ORDER BY updated_at ASC LIMIT :limit OFFSET :offset")
     Flux<Music> findByUpdatedAtAfterOrderByUpdatedAtAsc(@Param("lastUpdateTime") LocalDateTime lastUpdateTime, 
                                                      @Param("limit") int limit, 
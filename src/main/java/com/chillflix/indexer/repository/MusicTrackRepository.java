@@ -29,7 +29,14 @@ public interface MusicTrackRepository extends R2dbcRepository<MusicTrack, UUID>
            "title = EXCLUDED.title, artist = EXCLUDED.artist, duration = EXCLUDED.duration, " +
            "file_path = EXCLUDED.file_path, file_type = EXCLUDED.file_type, sha256_hash = EXCLUDED.sha256_hash, " +
            "updated_at = EXCLUDED.updated_at " +
-           "RETURNING *")
+           "WHERE (" +
+           "music_tracks.title, music_tracks.artist, music_tracks.duration, music_tracks.file_path, " +
+           "music_tracks.file_type, music_tracks.sha256_hash" +
+           ") IS DISTINCT FROM (" +
+           "EXCLUDED.title, EXCLUDED.artist, EXCLUDED.duration, EXCLUDED.file_path, " +
+           "EXCLUDED.file_type, EXCLUDED.sha256_hash" +
+           ") " +
+           "RETURNING *, (xmax = 0) AS inserted")
     Mono<MusicTrack> saveOrUpdate(MusicTrack track);
 
     @Query("DELETE FROM music_tracks WHERE album_id = :albumId")
@@ -37,7 +37,16 @@ public interface SeriesEpisodeRepository extends R2dbcRepository<SeriesEpisode,
            "title = EXCLUDED.title, overview = EXCLUDED.overview, air_date = EXCLUDED.air_date, runtime = EXCLUDED.runtime, " +
            "magnet = EXCLUDED.magnet, quality = EXCLUDED.quality, size = EXCLUDED.size, file_type = EXCLUDED.file_type, " +
            "sha256_hash = EXCLUDED.sha256_hash, updated_at = EXCLUDED.updated_at " +
-           "RETURNING *")
+           "WHERE (" +
+           "series_episodes.title, series_episodes.overview, series_episodes.air_date, series_episodes.runtime, " +
+           "series_episodes.magnet, series_episodes.quality, series_episodes.size, series_episodes.file_type, " +
+           "series_episodes.sha256_hash" +
+           ") IS DISTINCT FROM (" +
+           "EXCLUDED.title, EXCLUDED.overview, EXCLUDED.air_date, EXCLUDED.runtime, " +
+           "EXCLUDED.magnet, EXCLUDED.quality, EXCLUDED.size, EXCLUDED.file_type, " +
+           "EXCLUDED.sha256_hash" +
+           ") " +
+           "RETURNING *, (xmax = 0) AS inserted")
     Mono<SeriesEpisode> saveOrUpdate(SeriesEpisode episode);
 
     @Query("DELETE FROM series_episodes WHERE series_id = :seriesId")
@@ -74,6 +74,13 @@ public interface SeriesRepository extends R2dbcRepository<Series, UUID> {
     @Query("SELECT * FROM series WHERE (is_deleted = false OR is_deleted IS NULL) ORDER BY updated_at DESC LIMIT :limit OFFSET :offset")
     Flux<Series> findAllSeriesPaginated(@Param("limit") int limit, @Param("offset") long offset);
 
+    @Query("SELECT * FROM series WHERE sha256_hash = :sha256Hash")
+    Mono<Series> findBySha256Hash(@Param("sha256Hash") String sha256Hash);
+
+    // Usa el índice de expresión idx_series_magnet_btih (V2__magnet_info_hash_indexes.sql)
+    @Query("SELECT * FROM series WHERE lower(substring(magnet from 'btih:([0-9A-Fa-f]{40})')) = :infoHash LIMIT 1")
+    Mono<Series> findByInfoHash(@Param("infoHash") String infoHash);
+
     @Query("INSERT INTO series (id, title, year, magnet, tmdb_id, imdb_id, language, original_language, quality, file_type, sha256_hash, is_deleted, created_at, updated_at, search_vector, size, seeds, peers, overview, poster_path, genres, torrent_url, trailer_url, seasons, episodes, network, status, episode_runtime) " +
            "VALUES (:#{#series.id}, :#{#series.title}, :#{#series.year}, :#{#series.magnet}, :#{#series.tmdbId}, :#{#series.imdbId}, " +
            ":#{#series.language}, :#{#series.originalLanguage}, :#{#series.quality}, :#{#series.fileType}, :#{#series.sha256Hash}, " +
@@ -90,7 +97,22 @@ public interface SeriesRepository extends R2dbcRepository<Series, UUID> {
            "poster_path = EXCLUDED.poster_path, genres = EXCLUDED.genres, torrent_url = EXCLUDED.torrent_url, " +
            "trailer_url = EXCLUDED.trailer_url, seasons = EXCLUDED.seasons, episodes = EXCLUDED.episodes, " +
            "network = EXCLUDED.network, status = EXCLUDED.status, episode_runtime = EXCLUDED.episode_runtime " +
-           "RETURNING *")
+           "WHERE (" +
+           "series.title, series.year, series.magnet, series.tmdb_id, " +
+           "series.imdb_id, series.language, series.original_language, series.quality, " +
+           "series.file_type, series.sha256_hash, COALESCE(series.is_deleted, false), series.size, " +
+           "series.seeds, series.peers, series.overview, series.poster_path, " +
+           "series.genres, series.torrent_url, series.trailer_url, series.seasons, " +
+           "series.episodes, series.network, series.status, series.episode_runtime" +
+           ") IS DISTINCT FROM (" +
+           "EXCLUDED.title, EXCLUDED.year, EXCLUDED.magnet, EXCLUDED.tmdb_id, " +
+           "EXCLUDED.imdb_id, EXCLUDED.language, EXCLUDED.original_language, EXCLUDED.quality, " +
+           "EXCLUDED.file_type, EXCLUDED.sha256_hash, COALESCE(EXCLUDED.is_deleted, false), EXCLUDED.size, " +
+           "EXCLUDED.seeds, EXCLUDED.peers, EXCLUDED.overview, EXCLUDED.poster_path, " +
+           "EXCLUDED.genres, EXCLUDED.torrent_url, EXCLUDED.trailer_url, EXCLUDED.seasons, " +
+           "EXCLUDED.episodes, EXCLUDED.network, EXCLUDED.status, EXCLUDED.episode_runtime" +
+           ") " +
+           "RETURNING *, (xmax = 0) AS inserted")
     Mono<Series> saveOrUpdate(Series series);
 
     @Query("SELECT COUNT(*) FROM series WHERE (is_deleted = false OR is_deleted IS NULL) AND year = :year")
@@ -105,6 +127,12 @@ public interface SeriesRepository extends R2dbcRepository<Series, UUID> {
     @Query("UPDATE series SET is_deleted = true WHERE id IN (:ids)")
     Mono<Void> deleteAllByIdIn(@Param("ids") List<UUID> ids);
 
+    @Query("SELECT * FROM series WHERE id = ANY(:ids)")
+    Flux<Series> findAllByIdIn(@Param("ids") UUID[] ids);
+
+    @Query("SELECT * FROM series WHERE (is_deleted = false OR is_deleted IS NULL) AND id > :after ORDER BY id LIMIT :limit")
+    Flux<Series> findPageAfter(@Param("after") UUID after, @Param("limit") int limit);
+
     @Query("SELECT * FROM series WHERE (is_deleted = false OR is_deleted IS NULL) AND updated_at > :lastUpdateTime ORDER BY updated_at ASC LIMIT :limit OFFSET :offset")
     Flux<Series> findByUpdatedAtAfterOrderByUpdatedAtAsc(@Param("lastUpdateTime") LocalDateTime lastUpdateTime, 
                                                      @Param("limit") int limit, 
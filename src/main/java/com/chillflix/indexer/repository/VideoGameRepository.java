@@ -74,6 +74,13 @@ public interface VideoGameRepository extends R2dbcRepository<VideoGame, UUID> {
     @Query("SELECT * FROM video_games WHERE (is_deleted = false OR is_deleted IS NULL) ORDER BY updated_at DESC LIMIT :limit OFFSET :offset")
     Flux<VideoGame> findAllVideoGamesPaginated(@Param("limit") int limit, @Param("offset") long offset);
 
+    @Query("SELECT * FROM video_games WHERE sha256_hash = :sha256Hash")
+    Mono<VideoGame> findBySha256Hash(@Param("sha256Hash") String sha256Hash);
+
+    // Usa el índice de expresión idx_video_games_magnet_btih (V2__magnet_info_hash_indexes.sql)
+    @Query("SELECT * FROM video_games WHERE lower(substring(magnet from 'btih:([0-9A-Fa-f]{40})')) = :infoHash LIMIT 1")
+    Mono<VideoGame> findByInfoHash(@Param("infoHash") String infoHash);
+
     @Query("INSERT INTO video_games (id, title, year, developer, publisher, platform, magnet, quality, file_type, size, sha256_hash, seeds, peers, cover_path, description, system_requirements, genre, screenshot_paths, rating, release_date, torrent_url, esrb_rating, multiplayer, is_deleted, created_at, updated_at, search_vector) " +
            "VALUES (:#{#game.id}, :#{#game.title}, :#{#game.year}, :#{#game.developer}, :#{#game.publisher}, :#{#game.platform}, " +
            ":#{#game.magnet}, :#{#game.quality}, :#{#game.fileType}, :#{#game.size}, :#{#game.sha256Hash}, :#{#game.seeds}, " +
@@ -89,7 +96,22 @@ public interface VideoGameRepository extends R2dbcRepository<VideoGame, UUID> {
            "release_date = EXCLUDED.release_date, torrent_url = EXCLUDED.torrent_url, esrb_rating = EXCLUDED.esrb_rating, " +
            "multiplayer = EXCLUDED.multiplayer, is_deleted = EXCLUDED.is_deleted, updated_at = EXCLUDED.updated_at, " +
            "search_vector = EXCLUDED.search_vector " +
-           "RETURNING *")
+           "WHERE (" +
+           "video_games.title, video_games.year, video_games.developer, video_games.publisher, " +
+           "video_games.platform, video_games.magnet, video_games.quality, video_games.file_type, " +
+           "video_games.size, video_games.sha256_hash, video_games.seeds, video_games.peers, " +
+           "video_games.cover_path, video_games.description, video_games.system_requirements, video_games.genre, " +
+           "video_games.screenshot_paths, video_games.rating, video_games.release_date, video_games.torrent_url, " +
+           "video_games.esrb_rating, video_games.multiplayer, COALESCE(video_games.is_deleted, false)" +
+           ") IS DISTINCT FROM (" +
+           "EXCLUDED.title, EXCLUDED.year, EXCLUDED.developer, EXCLUDED.publisher, " +
+           "EXCLUDED.platform, EXCLUDED.magnet, EXCLUDED.quality, EXCLUDED.file_type, " +
+           "EXCLUDED.size, EXCLUDED.sha256_hash, EXCLUDED.seeds, EXCLUDED.peers, " +
+           "EXCLUDED.cover_path, EXCLUDED.description, EXCLUDED.system_requirements, EXCLUDED.genre, " +
+           "EXCLUDED.screenshot_paths, EXCLUDED.rating, EXCLUDED.release_date, EXCLUDED.torrent_url, " +
+           "EXCLUDED.esrb_rating, EXCLUDED.multiplayer, COALESCE(EXCLUDED.is_deleted, false)" +
+           ") " +
+           "RETURNING *, (xmax = 0) AS inserted")
     Mono<VideoGame> saveOrUpdate(VideoGame game);
 
     @Query("SELECT COUNT(*) FROM video_games WHERE (is_deleted = false OR is_deleted IS NULL) AND year = :year")
@@ -107,6 +129,12 @@ public interface VideoGameRepository extends R2dbcRepository<VideoGame, UUID> {
     @Query("UPDATE video_games SET is_deleted = true WHERE id IN (:ids)")
     Mono<Void> deleteAllByIdIn(@Param("ids") List<UUID> ids);
 
+    @Query("SELECT * FROM video_games WHERE id = ANY(:ids)")
+    Flux<VideoGame> findAllByIdIn(@Param("ids") UUID[] ids);
+
+    @Query("SELECT * FROM video_games WHERE (is_deleted = false OR is_deleted IS NULL) AND id > :after ORDER BY id LIMIT :limit")
+    Flux<VideoGame> findPageAfter(@Param("after") UUID after, @Param("limit") int limit);
+
     @Query("SELECT * FROM video_games WHERE (is_deleted = false OR is_deleted IS NULL) AND updated_at > :lastUpdateTime ORDER BY updated_at ASC LIMIT :limit OFFSET :offset")
     Flux<VideoGame> findByUpdatedAtAfterOrderByUpdatedAtAsc(@Param("lastUpdateTime") LocalDateTime lastUpdateTime, 
                                                         @Param("limit") int limit, 
@@ -69,6 +69,13 @@ public interface VideoRepository extends R2dbcRepository<Video, UUID> {
     @Query("SELECT * FROM videos WHERE (is_deleted = false OR is_deleted IS NULL) ORDER BY updated_at DESC LIMIT :limit OFFSET :offset")
     Flux<Video> findAllVideosPaginated(@Param("limit") int limit, @Param("offset") long offset);
 
+    @Query("SELECT * FROM videos WHERE sha256_hash = :sha256Hash")
+    Mono<Video> findBySha256Hash(@Param("sha256Hash") String sha256Hash);
+
+    // Usa el índice de expresión idx_videos_magnet_btih (V2__magnet_info_hash_indexes.sql)
+    @Query("SELECT * FROM videos WHERE lower(substring(magnet from 'btih:([0-9A-Fa-f]{40})')) = :infoHash LIMIT 1")
+    Mono<Video> findByInfoHash(@Param("infoHash") String infoHash);
+
     @Query("INSERT INTO videos (id, title, creator, year, duration, category, magnet, quality, file_type, size, sha256_hash, seeds, peers, thumbnail_path, description, tags, torrent_url, source, is_deleted, created_at, updated_at, search_vector) " +
            "VALUES (:#{#video.id}, :#{#video.title}, :#{#video.creator}, :#{#video.year}, :#{#video.duration}, :#{#video.category}, " +
            ":#{#video.magnet}, :#{#video.quality}, :#{#video.fileType}, :#{#video.size}, :#{#video.sha256Hash}, :#{#video.seeds}, " +
@@ -81,7 +88,20 @@ public interface VideoRepository extends R2dbcRepository<Video, UUID> {
            "thumbnail_path = EXCLUDED.thumbnail_path, description = EXCLUDED.description, tags = EXCLUDED.tags, " +
            "torrent_url = EXCLUDED.torrent_url, source = EXCLUDED.source, is_deleted = EXCLUDED.is_deleted, " +
            "updated_at = EXCLUDED.updated_at, search_vector = EXCLUDED.search_vector " +
-           "RETURNING *")
+           "WHERE (" +
+           "videos.title, videos.creator, videos.year, videos.duration, " +
+           "videos.category, videos.magnet, videos.quality, videos.file_type, " +
+           "videos.size, videos.sha256_hash, videos.seeds, videos.peers, " +
+           "videos.thumbnail_path, videos.description, videos.tags, videos.torrent_url, " +
+           "videos.source, COALESCE(videos.is_deleted, false)" +
+           ") IS DISTINCT FROM (" +
+           "EXCLUDED.title, EXCLUDED.creator, EXCLUDED.year, EXCLUDED.duration, " +
+           "EXCLUDED.category, EXCLUDED.magnet, EXCLUDED.quality, EXCLUDED.file_type, " +
+           "EXCLUDED.size, EXCLUDED.sha256_hash, EXCLUDED.seeds, EXCLUDED.peers, " +
+           "EXCLUDED.thumbnail_path, EXCLUDED.description, EXCLUDED.tags, EXCLUDED.torrent_url, " +
+           "EXCLUDED.source, COALESCE(EXCLUDED.is_deleted, false)" +
+           ") " +
+           "RETURNING *, (xmax = 0) AS inserted")
     Mono<Video> saveOrUpdate(Video video);
 
     @Query("SELECT COUNT(*) FROM videos WHERE (is_deleted = false OR is_deleted IS NULL) AND year = :year")
@@ -96,6 +116,12 @@ public interface VideoRepository extends R2dbcRepository<Video, UUID> {
     @Query("UPDATE videos SET is_deleted = true WHERE id IN (:ids)")
     Mono<Void> deleteAllByIdIn(@Param("ids") List<UUID> ids);
 
+    @Query("SELECT * FROM videos WHERE id = ANY(:ids)")
+    Flux<Video> findAllByIdIn(@Param("ids") UUID[] ids);
+
+    @Query("SELECT * FROM videos WHERE (is_deleted = false OR is_deleted IS NULL) AND id > :after ORDER BY id LIMIT :limit")
+    Flux<Video> findPageAfter(@Param("after") UUID after, @Param("limit") int limit);
+
     @Query("SELECT * FROM videos WHERE (is_deleted = false OR is_deleted IS NULL) AND updated_at > :lastUpdateTime ORDER BY updated_at ASC LIMIT :limit OFFSET :offset")
     Flux<Video> findByUpdatedAtAfterOrderByUpdatedAtAsc(@Param("lastUpdateTime") LocalDateTime lastUpdateTime, 
                                                      @Param("limit") int limit, 
@@ -0,0 +1,238 @@
+package com.chillflix.indexer.responsecache;
+
+import com.chillflix.indexer.projection.FieldSet;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.Encoder;
+import org.springframework.core.codec.Hints;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.EncoderHttpMessageWriter;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The encoded bytes of the entities and list pages served from the entity caches, so a cache hit
+ * is answered without serializing the DTOs again. The format is negotiated from the
+ * {@code Accept} header among the encoders registered in WebFlux (JSON by default, or one of the
+ * binary formats of {@code CodecConfig}), and each format is cached separately. An entry
+ * remembers the exact DTO instances it was encoded from and is only reused while the entity cache
+ * hands out those same instances: once the entity cache evicts, expires or reloads a value, the
+ * next response re-encodes it, so both tiers are invalidated together without this one having to
+ * hear about it.
+ *
+ * <p>Responses wrap the cached bytes without copying them. The buffer is not pooled, so a response
+ * cancelled or never written (a HEAD, a 304) leaves nothing to release. An entry is weighed by its
+ * bytes and by the DTOs it keeps reachable. JSON bodies of at least
+ * {@code server.compression.min-response-size} are also kept gzipped, encoded on first use, and
+ * sent as such to clients accepting gzip; the server does not compress a body that already has a
+ * {@code Content-Encoding}.
+ */
+@Component
+public class EncodedResponseCache {
+
+    public static final String RESPONSE_CACHE_METER = "response.cache";
+
+    private final List<Encoder<?>> encoders = new ArrayList<>();
+    private final Cache<Key, Entry> entries;
+    private final int gzipMinSize;
+    private final Counter hits;
+    private final Counter misses;
+
+    public EncodedResponseCache(ServerCodecConfigurer codecConfigurer,
+                                MeterRegistry meterRegistry,
+                                @Value("${response-cache.max-size:32MB}") DataSize maxSize,
+                                @Value("${server.compression.min-response-size:2KB}") DataSize gzipMinSize) {
+        codecConfigurer.getWriters().forEach(writer -> {
+            if (writer instanceof EncoderHttpMessageWriter<?> encoderWriter) {
+                encoders.add(encoderWriter.getEncoder());
+            }
+        });
+        this.entries = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((Key key, Entry entry) -> entry.weight())
+                .build();
+        this.gzipMinSize = (int) gzipMinSize.toBytes();
+        this.hits = Counter.builder(RESPONSE_CACHE_METER)
+                .description("Responses served from already encoded bytes")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder(RESPONSE_CACHE_METER)
+                .description("Responses served from already encoded bytes")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    /**
+     * A {@code 200} response with {@code value}, the entry {@code key} of the entity cache
+     * {@code cache}.
+     */
+    public ResponseEntity<DataBuffer> entity(String cache, Object key, Object value, ServerWebExchange exchange) {
+        ResolvableType type = ResolvableType.forInstance(value);
+        return respond(encoded(cache, key, value, type, new Object[]{value}, exchange), exchange);
+    }
+
+    /**
+     * A {@code 200} response with the list {@code page} of {@code elementType}, the entry
+     * {@code key} of the list cache {@code cache}.
+     */
+    public ResponseEntity<DataBuffer> page(String cache, Object key, List<?> page, Class<?> elementType,
+                                           ServerWebExchange exchange) {
+        return page(cache, key, page, elementType, FieldSet.ALL, exchange);
+    }
+
+    /**
+     * As {@link #page(String, Object, List, Class, ServerWebExchange)}, with only {@code fields}
+     * of each element. Each selection is encoded and cached separately, from the same entries of
+     * the list cache.
+     */
+    public ResponseEntity<DataBuffer> page(String cache, Object key, List<?> page, Class<?> elementType, FieldSet fields,
+                                           ServerWebExchange exchange) {
+        if (fields.isAll()) {
+            ResolvableType type = ResolvableType.forClassWithGenerics(List.class, elementType);
+            return respond(encoded(cache, key, page, type, page.toArray(), exchange), exchange);
+        }
+        List<Object> projected = page.stream().map(fields::project).toList();
+        ResolvableType type = ResolvableType.forClassWithGenerics(List.class, Map.class);
+        return respond(encoded(cache, List.of(key, fields), projected, type, page.toArray(), exchange), exchange);
+    }
+
+    private Entry encoded(String cache, Object key, Object body, ResolvableType type, Object[] sources,
+                          ServerWebExchange exchange) {
+        List<MediaType> accepted = new ArrayList<>(exchange.getRequest().getHeaders().getAccept());
+        MimeTypeUtils.sortBySpecificity(accepted);
+        // Si no hay ninguno aceptable se responde en el formato por defecto (JSON) en vez de con un 406
+        accepted.add(MediaType.ALL);
+        for (MediaType mediaType : accepted) {
+            for (Encoder<?> encoder : encoders) {
+                for (MimeType produced : encoder.getEncodableMimeTypes(type)) {
+                    if (produced.isConcrete() && mediaType.isCompatibleWith(produced) && encoder.canEncode(type, produced)) {
+                        return encoded(new Key(cache, key, new MediaType(produced)), body, type, sources, encoder);
+                    }
+                }
+            }
+        }
+        throw new IllegalStateException("No encoder for " + type);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Entry encoded(Key key, Object body, ResolvableType type, Object[] sources, Encoder<?> encoder) {
+        Entry entry = entries.getIfPresent(key);
+        if (entry != null && entry.encodes(sources)) {
+            hits.increment();
+            return entry;
+        }
+        misses.increment();
+        DataBuffer buffer = ((Encoder<Object>) encoder).encodeValue(body, DefaultDataBufferFactory.sharedInstance, type, key.mediaType(), Hints.none());
+        byte[] bytes = new byte[buffer.readableByteCount()];
+        buffer.read(bytes);
+        DataBufferUtils.release(buffer);
+        entry = new Entry(key.mediaType(), sources, bytes);
+        entries.put(key, entry);
+        return entry;
+    }
+
+    private ResponseEntity<DataBuffer> respond(Entry entry, ServerWebExchange exchange) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(entry.mediaType);
+        headers.setVary(List.of(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING));
+        byte[] body = entry.bytes;
+        // Solo JSON, como la compresión del servidor (server.compression.mime-types)
+        if (body.length >= gzipMinSize && MediaType.APPLICATION_JSON.isCompatibleWith(entry.mediaType)
+                && acceptsGzip(exchange.getRequest().getHeaders())) {
+            body = entry.gzip();
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        // Sin copia ni pool: si la respuesta se cancela antes de escribirse no queda nada que liberar
+        DataBuffer buffer = exchange.getResponse().bufferFactory().wrap(body);
+        return ResponseEntity.ok().headers(headers).body(buffer);
+    }
+
+    static boolean acceptsGzip(HttpHeaders headers) {
+        for (String value : headers.getOrEmpty(HttpHeaders.ACCEPT_ENCODING)) {
+            for (String coding : value.split(",")) {
+                String[] parts = coding.split(";");
+                if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                    // gzip;q=0 lo rechaza expresamente
+                    return parts.length == 1 || !parts[1].trim().matches("q=0(\\.0*)?");
+                }
+            }
+        }
+        return false;
+    }
+
+    record Key(String cache, Object key, MediaType mediaType) {
+    }
+
+    static final class Entry {
+
+        final MediaType mediaType;
+        private final Object[] sources;
+        final byte[] bytes;
+        private volatile byte[] gzip;
+
+        Entry(MediaType mediaType, Object[] sources, byte[] bytes) {
+            this.mediaType = mediaType;
+            this.sources = sources;
+            this.bytes = bytes;
+        }
+
+        boolean encodes(Object[] values) {
+            if (values.length != sources.length) {
+                return false;
+            }
+            for (int i = 0; i < values.length; i++) {
+                // Identidad, no equals: una instancia nueva es una recarga de la caché de entidades
+                if (values[i] != sources[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Encoded size plus the source DTOs, which stay reachable through this entry after the
+         * entity cache drops them. A DTO is assumed to take at least its encoded size.
+         */
+        int weight() {
+            long weight = 2L * bytes.length + (long) sources.length * Long.BYTES;
+            return (int) Math.min(Integer.MAX_VALUE, weight);
+        }
+
+        byte[] gzip() {
+            byte[] compressed = gzip;
+            if (compressed == null) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4);
+                try (GZIPOutputStream stream = new GZIPOutputStream(out)) {
+                    stream.write(bytes);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                // Dos hilos pueden comprimir a la vez; el resultado es el mismo
+                compressed = out.toByteArray();
+                gzip = compressed;
+            }
+            return compressed;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.chillflix.indexer.routing;
+
+/**
+ * Target of a database call, read from the Reactor context by {@link PoolRoutingConnectionFactory}.
+ */
+public enum DatabaseRole {
+    PRIMARY,
+    REPLICA
+}
@@ -0,0 +1,45 @@
+package com.chillflix.indexer.routing;
+
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.util.function.Function;
+
+/**
+ * Reactor context helpers to pick the database and the pool of a reactive chain. Without a role
+ * in the context every call goes to the primary, and without a workload class to the
+ * interactive pool, so anything not routed explicitly keeps its current behaviour.
+ * <p>
+ * The context must be set outside the {@code @Transactional} proxy (a web filter or the caller
+ * of the service), since the transaction takes its connection before the method runs.
+ */
+public final class DatabaseRouting {
+
+    private DatabaseRouting() {
+    }
+
+    public static Function<Context, Context> with(DatabaseRole role) {
+        return context -> context.put(DatabaseRole.class, role);
+    }
+
+    public static Function<Context, Context> with(WorkloadClass workload) {
+        return context -> context.put(WorkloadClass.class, workload);
+    }
+
+    public static DatabaseRole currentRole(ContextView context) {
+        return context.getOrDefault(DatabaseRole.class, DatabaseRole.PRIMARY);
+    }
+
+    public static WorkloadClass currentWorkload(ContextView context) {
+        return context.getOrDefault(WorkloadClass.class, WorkloadClass.INTERACTIVE);
+    }
+
+    public static Mono<DatabaseRole> currentRole() {
+        return Mono.deferContextual(context -> Mono.just(currentRole(context)));
+    }
+
+    public static PoolKey currentPool(ContextView context) {
+        return new PoolKey(currentRole(context), currentWorkload(context));
+    }
+}
@@ -0,0 +1,11 @@
+package com.chillflix.indexer.routing;
+
+/**
+ * Lookup key of a pool in {@link PoolRoutingConnectionFactory}.
+ */
+public record PoolKey(DatabaseRole role, WorkloadClass workload) {
+
+    public String name() {
+        return role.name().toLowerCase() + "-" + workload.getKey();
+    }
+}
@@ -0,0 +1,124 @@
+package com.chillflix.indexer.routing;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.PoolMetrics;
+import io.r2dbc.spi.Connection;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.r2dbc.connection.lookup.AbstractRoutingConnectionFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Stream;
+
+/**
+ * Routes each connection request to one of the pools, by the {@link DatabaseRole} and
+ * {@link WorkloadClass} in the subscriber context. The transaction manager and the repositories
+ * use this factory, so a {@code @Transactional} method takes its connection from the pool
+ * selected by the caller's context. A replica read for a class without a replica pool goes to the
+ * primary pool of that class.
+ * <p>
+ * Time spent waiting for a connection is recorded as {@code db.pool.acquire} and the pool state as
+ * {@code db.pool.*} gauges, both tagged with {@code pool}.
+ */
+public class PoolRoutingConnectionFactory extends AbstractRoutingConnectionFactory implements DisposableBean {
+
+    private final Map<WorkloadClass, ConnectionPool> primary;
+    private final Map<WorkloadClass, ConnectionPool> replica;
+    private final Map<PoolKey, Timer> acquireTimers = new HashMap<>();
+
+    public PoolRoutingConnectionFactory(Map<WorkloadClass, ConnectionPool> primary,
+                                        Map<WorkloadClass, ConnectionPool> replica,
+                                        MeterRegistry meterRegistry) {
+        this.primary = new EnumMap<>(primary);
+        this.replica = replica.isEmpty() ? Map.of() : new EnumMap<>(replica);
+        Map<PoolKey, ConnectionPool> targets = new HashMap<>();
+        for (WorkloadClass workload : WorkloadClass.values()) {
+            PoolKey primaryKey = new PoolKey(DatabaseRole.PRIMARY, workload);
+            PoolKey replicaKey = new PoolKey(DatabaseRole.REPLICA, workload);
+            Timer primaryTimer = acquireTimer(meterRegistry, primaryKey);
+            targets.put(primaryKey, this.primary.get(workload));
+            acquireTimers.put(primaryKey, primaryTimer);
+            if (this.replica.containsKey(workload)) {
+                targets.put(replicaKey, this.replica.get(workload));
+                acquireTimers.put(replicaKey, acquireTimer(meterRegistry, replicaKey));
+            } else {
+                targets.put(replicaKey, this.primary.get(workload));
+                acquireTimers.put(replicaKey, primaryTimer);
+            }
+        }
+        this.primary.forEach((workload, pool) -> registerGauges(meterRegistry, new PoolKey(DatabaseRole.PRIMARY, workload), pool));
+        this.replica.forEach((workload, pool) -> registerGauges(meterRegistry, new PoolKey(DatabaseRole.REPLICA, workload), pool));
+        setTargetConnectionFactories(new HashMap<>(targets));
+        setDefaultTargetConnectionFactory(this.primary.get(WorkloadClass.INTERACTIVE));
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Mono<Object> determineCurrentLookupKey() {
+        return Mono.deferContextual(context -> Mono.just(DatabaseRouting.currentPool(context)));
+    }
+
+    @Override
+    public Mono<Connection> create() {
+        return Mono.deferContextual(context -> {
+            Timer timer = acquireTimers.get(DatabaseRouting.currentPool(context));
+            long start = System.nanoTime();
+            return super.create().doOnSuccess(__ -> timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    public ConnectionPool getPrimary(WorkloadClass workload) {
+        return primary.get(workload);
+    }
+
+    public Map<WorkloadClass, ConnectionPool> getReplicaPools() {
+        return replica;
+    }
+
+    /**
+     * Opens the initial connections of every pool, which the pools otherwise open on their first
+     * acquire. Emits the number of connections opened.
+     */
+    public Mono<Integer> warmup() {
+        return Flux.fromStream(Stream.concat(primary.values().stream(), replica.values().stream()))
+                .flatMap(ConnectionPool::warmup)
+                .reduce(0, Integer::sum);
+    }
+
+    private static Timer acquireTimer(MeterRegistry meterRegistry, PoolKey key) {
+        return Timer.builder("db.pool.acquire")
+                .description("Time waiting for a pooled connection")
+                .tag("pool", key.name())
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private static void registerGauges(MeterRegistry meterRegistry, PoolKey key, ConnectionPool pool) {
+        gauge(meterRegistry, "db.pool.pending", "Requests waiting for a connection", key, pool, PoolMetrics::pendingAcquireSize);
+        gauge(meterRegistry, "db.pool.acquired", "Connections in use", key, pool, PoolMetrics::acquiredSize);
+        gauge(meterRegistry, "db.pool.idle", "Idle connections", key, pool, PoolMetrics::idleSize);
+        gauge(meterRegistry, "db.pool.max", "Maximum connections", key, pool, PoolMetrics::getMaxAllocatedSize);
+    }
+
+    private static void gauge(MeterRegistry meterRegistry, String name, String description, PoolKey key,
+                              ConnectionPool pool, ToDoubleFunction<PoolMetrics> value) {
+        Gauge.builder(name, pool, p -> p.getMetrics().map(value::applyAsDouble).orElse(Double.NaN))
+                .description(description)
+                .tag("pool", key.name())
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void destroy() {
+        replica.values().forEach(ConnectionPool::dispose);
+        primary.values().forEach(ConnectionPool::dispose);
+    }
+}
@@ -0,0 +1,99 @@
+package com.chillflix.indexer.routing;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.spi.ConnectionFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Samples the replication lag of the replica every {@code replica.lag-check-interval}. The
+ * replica is usable for reads while the last sample succeeded and stayed under
+ * {@code replica.max-lag}; a failed or slow check counts as unusable, so reads fall back to the
+ * primary until the next good sample. Without a replica pool the monitor is disabled and never
+ * usable, so every read stays on the primary.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    // Sin WAL pendiente de aplicar no hay retraso aunque la última transacción sea antigua
+    static final String LAG_QUERY = "SELECT CASE"
+            + " WHEN NOT pg_is_in_recovery() THEN 0"
+            + " WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0"
+            + " ELSE COALESCE(CAST(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) AS float8), 0)"
+            + " END AS lag";
+
+    private final DatabaseClient replicaClient;
+    private final Duration maxLag;
+    private final Duration checkTimeout;
+    private volatile long lagMillis = Long.MAX_VALUE;
+    private volatile boolean usable;
+
+    public ReplicaLagMonitor(ConnectionFactory replica, MeterRegistry meterRegistry, Duration maxLag, Duration checkTimeout) {
+        this.replicaClient = replica == null ? null : DatabaseClient.create(replica);
+        this.maxLag = maxLag;
+        this.checkTimeout = checkTimeout;
+        if (replica == null) {
+            return;
+        }
+        Gauge.builder("db.replica.lag", this, monitor -> monitor.usable ? monitor.lagMillis / 1000.0 : Double.NaN)
+                .description("Replication lag of the read replica at the last check")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("db.replica.usable", this, monitor -> monitor.usable ? 1 : 0)
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${replica.lag-check-interval:PT2S}")
+    public void check() {
+        if (replicaClient == null) {
+            return;
+        }
+        checkNow().subscribe();
+    }
+
+    Mono<Duration> checkNow() {
+        return replicaClient.sql(LAG_QUERY)
+                .map(row -> row.get("lag", Double.class))
+                .one()
+                .timeout(checkTimeout)
+                .map(seconds -> Duration.ofMillis(Math.round(seconds * 1000)))
+                .doOnNext(this::update)
+                .onErrorResume(error -> {
+                    if (usable) {
+                        log.warn("Replica lag check failed, routing reads to primary: {}", error.getMessage());
+                    }
+                    usable = false;
+                    lagMillis = Long.MAX_VALUE;
+                    return Mono.empty();
+                });
+    }
+
+    void update(Duration lag) {
+        boolean nowUsable = lag.compareTo(maxLag) <= 0;
+        if (nowUsable != usable) {
+            log.info("Replica lag {} ms, reads routed to {}", lag.toMillis(), nowUsable ? "replica" : "primary");
+        }
+        lagMillis = lag.toMillis();
+        usable = nowUsable;
+    }
+
+    public boolean isEnabled() {
+        return replicaClient != null;
+    }
+
+    public boolean isUsable() {
+        return usable;
+    }
+
+    /**
+     * Lag at the last successful check, or {@link Long#MAX_VALUE} while the replica is unusable.
+     */
+    public long lagMillis() {
+        return usable ? lagMillis : Long.MAX_VALUE;
+    }
+}
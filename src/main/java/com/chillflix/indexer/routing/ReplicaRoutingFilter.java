@@ -0,0 +1,73 @@
+package com.chillflix.indexer.routing;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Sends GET and HEAD requests to the replica while it is usable. Every other request answers
+ * with an {@value #WRITE_TOKEN_HEADER} header holding the time its response was committed;
+ * a read that sends that token back goes to the primary until the replica's lag plus
+ * {@code replica.read-your-writes-margin} has elapsed, so clients read their own writes.
+ */
+public class ReplicaRoutingFilter implements WebFilter {
+
+    public static final String WRITE_TOKEN_HEADER = "X-Write-Token";
+
+    private final ReplicaLagMonitor lagMonitor;
+    private final long marginMillis;
+    private final Map<DatabaseRole, Counter> routedReads;
+
+    public ReplicaRoutingFilter(ReplicaLagMonitor lagMonitor, MeterRegistry meterRegistry, Duration readYourWritesMargin) {
+        this.lagMonitor = lagMonitor;
+        this.marginMillis = readYourWritesMargin.toMillis();
+        this.routedReads = Map.of(
+                DatabaseRole.PRIMARY, Counter.builder("db.routing.reads").tag("role", "primary").register(meterRegistry),
+                DatabaseRole.REPLICA, Counter.builder("db.routing.reads").tag("role", "replica").register(meterRegistry));
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (!lagMonitor.isEnabled()) {
+            return chain.filter(exchange);
+        }
+        HttpMethod method = exchange.getRequest().getMethod();
+        if (HttpMethod.GET.equals(method) || HttpMethod.HEAD.equals(method)) {
+            DatabaseRole role = routeRead(exchange.getRequest().getHeaders().getFirst(WRITE_TOKEN_HEADER), System.currentTimeMillis());
+            routedReads.get(role).increment();
+            return chain.filter(exchange).contextWrite(DatabaseRouting.with(role));
+        }
+        if (!HttpMethod.OPTIONS.equals(method)) {
+            exchange.getResponse().beforeCommit(() -> {
+                exchange.getResponse().getHeaders().set(WRITE_TOKEN_HEADER, Long.toString(System.currentTimeMillis()));
+                return Mono.empty();
+            });
+        }
+        return chain.filter(exchange);
+    }
+
+    DatabaseRole routeRead(String writeToken, long now) {
+        if (!lagMonitor.isUsable()) {
+            return DatabaseRole.PRIMARY;
+        }
+        if (writeToken != null) {
+            try {
+                long writtenAt = Long.parseLong(writeToken.trim());
+                if (now - writtenAt < lagMonitor.lagMillis() + marginMillis) {
+                    return DatabaseRole.PRIMARY;
+                }
+            } catch (NumberFormatException e) {
+                // Token ilegible: se trata como escritura reciente
+                return DatabaseRole.PRIMARY;
+            }
+        }
+        return DatabaseRole.REPLICA;
+    }
+}
@@ -0,0 +1,30 @@
+package com.chillflix.indexer.routing;
+
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link R2dbcTransactionManager} that takes the transaction's connection from the primary
+ * unless the transaction is declared {@code readOnly}. Read-only transactions keep the role the
+ * caller put in the context, so a multi-statement read started by a replica-routed request runs
+ * on the replica, while a write transaction never does even if it is reached from a GET.
+ */
+public class RoutingTransactionManager extends R2dbcTransactionManager {
+
+    public RoutingTransactionManager(ConnectionFactory connectionFactory) {
+        super(connectionFactory);
+    }
+
+    @Override
+    protected Mono<Void> doBegin(TransactionSynchronizationManager synchronizationManager, Object transaction,
+                                 TransactionDefinition definition) {
+        Mono<Void> begin = super.doBegin(synchronizationManager, transaction, definition);
+        if (definition.isReadOnly()) {
+            return begin;
+        }
+        return begin.contextWrite(DatabaseRouting.with(DatabaseRole.PRIMARY));
+    }
+}
@@ -0,0 +1,30 @@
+package com.chillflix.indexer.routing;
+
+/**
+ * Workload classes with their own connection pool, so that one class cannot take every
+ * connection from the others. Read from the Reactor context like {@link DatabaseRole}. Declared in
+ * priority order for load shedding.
+ */
+public enum WorkloadClass {
+    INTERACTIVE("interactive"),
+    SEARCH("search"),
+    BULK("bulk"),
+    BACKGROUND("background");
+
+    private final String key;
+
+    WorkloadClass(String key) {
+        this.key = key;
+    }
+
+    /**
+     * Name used in {@code db.pools.<key>.*} properties and metric tags.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    public boolean isReadOnly() {
+        return this == INTERACTIVE || this == SEARCH;
+    }
+}
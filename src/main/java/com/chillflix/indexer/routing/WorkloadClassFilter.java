@@ -0,0 +1,32 @@
+package com.chillflix.indexer.routing;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Puts the {@link WorkloadClass} of each request in the Reactor context: {@code /search} and
+ * {@code /advanced-search} reads are SEARCH, {@code /bulk} operations are BULK and the rest is
+ * INTERACTIVE. Scheduled jobs set BACKGROUND themselves.
+ */
+public class WorkloadClassFilter implements WebFilter {
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        return chain.filter(exchange).contextWrite(DatabaseRouting.with(classify(exchange.getRequest())));
+    }
+
+    public static WorkloadClass classify(ServerHttpRequest request) {
+        String path = request.getPath().pathWithinApplication().value();
+        if (path.endsWith("/bulk")) {
+            return WorkloadClass.BULK;
+        }
+        if (HttpMethod.GET.equals(request.getMethod()) && (path.endsWith("/search") || path.endsWith("/advanced-search"))) {
+            return WorkloadClass.SEARCH;
+        }
+        return WorkloadClass.INTERACTIVE;
+    }
+}
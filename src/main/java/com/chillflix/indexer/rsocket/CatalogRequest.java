@@ -0,0 +1,12 @@
+package com.chillflix.indexer.rsocket;
+
+import java.util.UUID;
+
+/**
+ * A walk over the whole catalog in id order, resumable from the last id received.
+ *
+ * @param after     last id already received, or {@code null} to start from the beginning
+ * @param batchSize rows per database query, {@value CatalogStreams#DEFAULT_BATCH} if {@code null}
+ */
+public record CatalogRequest(UUID after, Integer batchSize) {
+}
@@ -0,0 +1,79 @@
+package com.chillflix.indexer.rsocket;
+
+import com.chillflix.indexer.routing.DatabaseRole;
+import com.chillflix.indexer.routing.DatabaseRouting;
+import com.chillflix.indexer.routing.ReplicaLagMonitor;
+import com.chillflix.indexer.routing.WorkloadClass;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Helpers shared by the RSocket controllers, which have no web filters to route their queries or
+ * to bound their streams.
+ */
+final class CatalogStreams {
+
+    static final int DEFAULT_BATCH = 100;
+    static final int MAX_BATCH = 500;
+    static final int MAX_IDS = 1000;
+    /** Menor UUID en el orden de PostgreSQL: el primer lote de un recorrido por clave. */
+    static final UUID FIRST = new UUID(0, 0);
+
+    private CatalogStreams() {
+    }
+
+    /**
+     * Runs the reads of an RSocket request on the pool of {@code workload}, on the replica while
+     * it is usable: these streams carry no writes of their own to read back.
+     */
+    static Function<Context, Context> reads(ReplicaLagMonitor lagMonitor, WorkloadClass workload) {
+        DatabaseRole role = lagMonitor.isEnabled() && lagMonitor.isUsable() ? DatabaseRole.REPLICA : DatabaseRole.PRIMARY;
+        return DatabaseRouting.with(workload).andThen(DatabaseRouting.with(role));
+    }
+
+    static int batchSize(Integer requested) {
+        if (requested == null) {
+            return DEFAULT_BATCH;
+        }
+        if (requested < 1 || requested > MAX_BATCH) {
+            throw new IllegalArgumentException("batchSize must be between 1 and " + MAX_BATCH);
+        }
+        return requested;
+    }
+
+    static List<UUID> ids(List<UUID> ids) {
+        if (ids.size() > MAX_IDS) {
+            throw new IllegalArgumentException("At most " + MAX_IDS + " ids per request");
+        }
+        return ids;
+    }
+
+    /**
+     * Streams the results of consecutive queries of {@code batchSize} rows, until one comes back
+     * short. The next batch is queried only as the consumer works through the current one, so a
+     * slow consumer holds at most two batches in memory and no connection while it catches up.
+     *
+     * @param first cursor of the first batch
+     * @param batch query of the batch at a cursor
+     * @param next  cursor of the batch after a full one
+     */
+    static <T, C> Flux<T> batches(C first, int batchSize, Function<C, Flux<T>> batch, BiFunction<C, List<T>, C> next) {
+        return batch.apply(first).collectList().map(rows -> new Page<>(first, rows))
+                .expand(page -> page.rows().size() < batchSize
+                        ? Mono.<Page<T, C>>empty()
+                        : Mono.defer(() -> {
+                            C cursor = next.apply(page.cursor(), page.rows());
+                            return batch.apply(cursor).collectList().map(rows -> new Page<>(cursor, rows));
+                        }))
+                .concatMapIterable(Page::rows, 1);
+    }
+
+    private record Page<T, C>(C cursor, List<T> rows) {
+    }
+}
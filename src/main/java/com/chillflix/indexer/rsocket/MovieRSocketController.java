@@ -0,0 +1,74 @@
+package com.chillflix.indexer.rsocket;
+
+import com.chillflix.indexer.dto.MovieDTO;
+import com.chillflix.indexer.routing.ReplicaLagMonitor;
+import com.chillflix.indexer.routing.WorkloadClass;
+import com.chillflix.indexer.service.MovieService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Movie lookups and streams for internal consumers over RSocket ({@code spring.rsocket.server.port}).
+ * Lookups are request-response; batches, catalog walks and searches are request-stream, so the
+ * consumer's demand decides when the next batch is queried.
+ */
+@Controller
+@MessageMapping("movies")
+@RequiredArgsConstructor
+public class MovieRSocketController {
+
+    private final MovieService movieService;
+    private final ReplicaLagMonitor lagMonitor;
+
+    @MessageMapping("by-id")
+    public Mono<MovieDTO> getMovieById(UUID id) {
+        return movieService.getMovieById(id)
+                .contextWrite(CatalogStreams.reads(lagMonitor, WorkloadClass.INTERACTIVE));
+    }
+
+    @MessageMapping("by-ids")
+    public Flux<MovieDTO> getMoviesByIds(List<UUID> ids) {
+        return Flux.defer(() -> movieService.getMoviesByIds(CatalogStreams.ids(ids)))
+                .contextWrite(CatalogStreams.reads(lagMonitor, WorkloadClass.INTERACTIVE));
+    }
+
+    @MessageMapping("by-tmdb")
+    public Flux<MovieDTO> getMoviesByTmdbId(Integer tmdbId) {
+        return movieService.getMoviesByTmdbId(tmdbId)
+                .contextWrite(CatalogStreams.reads(lagMonitor, WorkloadClass.INTERACTIVE));
+    }
+
+    @MessageMapping("by-imdb")
+    public Flux<MovieDTO> getMoviesByImdbId(String imdbId) {
+        return movieService.getMoviesByImdbId(imdbId)
+                .contextWrite(CatalogStreams.reads(lagMonitor, WorkloadClass.INTERACTIVE));
+    }
+
+    @MessageMapping("catalog")
+    public Flux<MovieDTO> streamCatalog(CatalogRequest request) {
+        return Flux.defer(() -> {
+            int batchSize = CatalogStreams.batchSize(request.batchSize());
+            UUID after = request.after() != null ? request.after() : CatalogStreams.FIRST;
+            return CatalogStreams.batches(after, batchSize, cursor -> movieService.getMoviesAfter(cursor, batchSize),
+                    (cursor, rows) -> rows.get(rows.size() - 1).id());
+        }).contextWrite(CatalogStreams.reads(lagMonitor, WorkloadClass.BACKGROUND));
+    }
+
+    @MessageMapping("search")
+    public Flux<MovieDTO> search(SearchRequest request) {
+        return Flux.defer(() -> {
+            int batchSize = CatalogStreams.batchSize(request.batchSize());
+            Flux<MovieDTO> results = CatalogStreams.batches(0, batchSize,
+                    page -> movieService.searchMovies(request.term(), PageRequest.of(page, batchSize)),
+                    (page, rows) -> page + 1);
+            return request.limit() != null ? results.take(request.limit(), true) : results;
+        }).contextWrite(CatalogStreams.reads(lagMonitor, WorkloadClass.SEARCH));
+    }
+}
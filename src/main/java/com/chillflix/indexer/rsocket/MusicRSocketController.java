@@ -0,0 +1,62 @@
+package com.chillflix.indexer.rsocket;
+
+import com.chillflix.indexer.dto.MusicDTO;
+import com.chillflix.indexer.routing.ReplicaLagMonitor;
+import com.chillflix.indexer.routing.WorkloadClass;
+import com.chillflix.indexer.service.MusicService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Music lookups and streams for internal consumers over RSocket ({@code spring.rsocket.server.port}).
+ * Lookups are request-response; batches, catalog walks and searches are request-stream, so the
+ * consumer's demand decides when the next batch is queried.
+ */
+@Controller
+@MessageMapping("music")
+@RequiredArgsConstructor
+public class MusicRSocketController {
+
+    private final MusicService musicService;
+    private final ReplicaLagMonitor lagMonitor;
+
+    @MessageMapping("by-id")
+    public Mono<MusicDTO> getMusicById(UUID id) {
+        return musicService.getMusicById(id)
+                .contextWrite(CatalogStreams.reads(lagMonitor, WorkloadClass.INTERACTIVE));
+    }
+
+    @MessageMapping("by-ids")
+    public Flux<MusicDTO> getMusicByIds(List<UUID> ids) {
+        return Flux.defer(() -> musicService.getMusicByIds(CatalogStreams.ids(ids)))
+                .contextWrite(CatalogStreams.reads(lagMonitor, WorkloadClass.INTERACTIVE));
+    }
+
+    @MessageMapping("catalog")
+    public Flux<MusicDTO> streamCatalog(CatalogRequest request) {
+        return Flux.defer(() -> {
+            int batchSize = CatalogStreams.batchSize(request.batchSize());
+            UUID after = request.after() != null ? request.after() : CatalogStreams.FIRST;
+            return CatalogStreams.batches(after, batchSize, cursor -> musicService.getMusicAfter(cursor, batchSize),
+                    (cursor, rows) -> rows.get(rows.size() - 1).id());
+        }).contextWrite(CatalogStreams.reads(lagMonitor, WorkloadClass.BACKGROUND));
+    }
+
+    @MessageMapping("search")
+    public Flux<MusicDTO> search(SearchRequest request) {
+        return Flux.defer(() -> {
+            int batchSize = CatalogStreams.batchSize(request.batchSize());
+            Flux<MusicDTO> results = CatalogStreams.batches(0, batchSize,
+                    page -> musicService.searchMusic(request.term(), PageRequest.of(page, batchSize)),
+                    (page, rows) -> page + 1);
+            return request.limit() != null ? results.take(request.limit(), true) : results;
+        }).contextWrite(CatalogStreams.reads(lagMonitor, WorkloadClass.SEARCH));
+    }
+}
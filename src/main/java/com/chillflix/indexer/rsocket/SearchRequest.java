@@ -0,0 +1,11 @@
+package com.chillflix.indexer.rsocket;
+
+/**
+ * A search whose results are streamed page by page.
+ *
+ * @param term      search term, as in the REST {@code /search} endpoints
+ * @param batchSize rows per database query, {@value CatalogStreams#DEFAULT_BATCH} if {@code null}
+ * @param limit     maximum number of results, unlimited if {@code null}
+ */
+public record SearchRequest(String term, Integer batchSize, Integer limit) {
+}
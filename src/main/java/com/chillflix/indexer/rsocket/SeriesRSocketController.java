@@ -0,0 +1,74 @@
+package com.chillflix.indexer.rsocket;
+
+import com.chillflix.indexer.dto.SeriesDTO;
+import com.chillflix.indexer.routing.ReplicaLagMonitor;
+import com.chillflix.indexer.routing.WorkloadClass;
+import com.chillflix.indexer.service.SeriesService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Series lookups and streams for internal consumers over RSocket ({@code spring.rsocket.server.port}).
+ * Lookups are request-response; batches, catalog walks and searches are request-stream, so the
+ * consumer's demand decides when the next batch is queried.
+ */
+@Controller
+@MessageMapping("series")
+@RequiredArgsConstructor
+public class SeriesRSocketController {
+
+    private final SeriesService seriesService;
+    private final ReplicaLagMonitor lagMonitor;
+
+    @MessageMapping("by-id")
+    public Mono<SeriesDTO> getSeriesById(UUID id) {
+        return seriesService.getSeriesById(id)
+                .contextWrite(CatalogStreams.reads(lagMonitor, WorkloadClass.INTERACTIVE));
+    }
+
+    @MessageMapping("by-ids")
+    public Flux<SeriesDTO> getSeriesByIds(List<UUID> ids) {
+        return Flux.defer(() -> seriesService.getSeriesByIds(CatalogStreams.ids(ids)))
+                .contextWrite(CatalogStreams.reads(lagMonitor, WorkloadClass.INTERACTIVE));
+    }
+
+    @MessageMapping("by-tmdb")
+    public Flux<SeriesDTO> getSeriesByTmdbId(Integer tmdbId) {
+        return seriesService.getSeriesByTmdbId(tmdbId)
+                .contextWrite(CatalogStreams.reads(lagMonitor, WorkloadClass.INTERACTIVE));
+    }
+
+    @MessageMapping("by-imdb")
+    public Flux<SeriesDTO> getSeriesByImdbId(String imdbId) {
+        return seriesService.getSeriesByImdbId(imdbId)
+                .contextWrite(CatalogStreams.reads(lagMonitor, WorkloadClass.INTERACTIVE));
+    }
+
+    @MessageMapping("catalog")
+    public Flux<SeriesDTO> streamCatalog(CatalogRequest request) {
+        return Flux.defer(() -> {
+            int batchSize = CatalogStreams.batchSize(request.batchSize());
+            UUID after = request.after() != null ? request.after() : CatalogStreams.FIRST;
+            return CatalogStreams.batches(after, batchSize, cursor -> seriesService.getSeriesAfter(cursor, batchSize),
+                    (cursor, rows) -> rows.get(rows.size() - 1).id());
+        }).contextWrite(CatalogStreams.reads(lagMonitor, WorkloadClass.BACKGROUND));
+    }
+
+    @MessageMapping("search")
+    public Flux<SeriesDTO> search(SearchRequest request) {
+        return Flux.defer(() -> {
+            int batchSize = CatalogStreams.batchSize(request.batchSize());
+            Flux<SeriesDTO> results = CatalogStreams.batches(0, batchSize,
+                    page -> seriesService.searchSeries(request.term(), PageRequest.of(page, batchSize)),
+                    (page, rows) -> page + 1);
+            return request.limit() != null ? results.take(request.limit(), true) : results;
+        }).contextWrite(CatalogStreams.reads(lagMonitor, WorkloadClass.SEARCH));
+    }
+}
@@ -0,0 +1,62 @@
+package com.chillflix.indexer.rsocket;
+
+import com.chillflix.indexer.dto.VideoGameDTO;
+import com.chillflix.indexer.routing.ReplicaLagMonitor;
+import com.chillflix.indexer.routing.WorkloadClass;
+import com.chillflix.indexer.service.VideoGameService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Video game lookups and streams for internal consumers over RSocket ({@code spring.rsocket.server.port}).
+ * Lookups are request-response; batches, catalog walks and searches are request-stream, so the
+ * consumer's demand decides when the next batch is queried.
+ */
+@Controller
+@MessageMapping("videogames")
+@RequiredArgsConstructor
+public class VideoGameRSocketController {
+
+    private final VideoGameService videoGameService;
+    private final ReplicaLagMonitor lagMonitor;
+
+    @MessageMapping("by-id")
+    public Mono<VideoGameDTO> getVideoGameById(UUID id) {
+        return videoGameService.getVideoGameById(id)
+                .contextWrite(CatalogStreams.reads(lagMonitor, WorkloadClass.INTERACTIVE));
+    }
+
+    @MessageMapping("by-ids")
+    public Flux<VideoGameDTO> getVideoGamesByIds(List<UUID> ids) {
+        return Flux.defer(() -> videoGameService.getVideoGamesByIds(CatalogStreams.ids(ids)))
+                .contextWrite(CatalogStreams.reads(lagMonitor, WorkloadClass.INTERACTIVE));
+    }
+
+    @MessageMapping("catalog")
+    public Flux<VideoGameDTO> streamCatalog(CatalogRequest request) {
+        return Flux.defer(() -> {
+            int batchSize = CatalogStreams.batchSize(request.batchSize());
+            UUID after = request.after() != null ? request.after() : CatalogStreams.FIRST;
+            return CatalogStreams.batches(after, batchSize, cursor -> videoGameService.getVideoGamesAfter(cursor, batchSize),
+                    (cursor, rows) -> rows.get(rows.size() - 1).id());
+        }).contextWrite(CatalogStreams.reads(lagMonitor, WorkloadClass.BACKGROUND));
+    }
+
+    @MessageMapping("search")
+    public Flux<VideoGameDTO> search(SearchRequest request) {
+        return Flux.defer(() -> {
+            int batchSize = CatalogStreams.batchSize(request.batchSize());
+            Flux<VideoGameDTO> results = CatalogStreams.batches(0, batchSize,
+                    page -> videoGameService.searchVideoGames(request.term(), PageRequest.of(page, batchSize)),
+                    (page, rows) -> page + 1);
+            return request.limit() != null ? results.take(request.limit(), true) : results;
+        }).contextWrite(CatalogStreams.reads(lagMonitor, WorkloadClass.SEARCH));
+    }
+}
@@ -0,0 +1,11 @@
+package com.chillflix.indexer.search;
+
+import java.util.UUID;
+
+/**
+ * One result of the unified search. {@code rank} is its 1-based position in the results of its
+ * own type and {@code score} the normalized rank the types are merged by; {@code item} is the full
+ * DTO of its type.
+ */
+public record SearchHit(String type, UUID id, String title, Integer year, int rank, double score, Object item) {
+}
@@ -0,0 +1,16 @@
+package com.chillflix.indexer.search;
+
+import reactor.core.publisher.Flux;
+
+import java.util.UUID;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * A media type searched by {@link UnifiedSearch}: its key in the response ({@code movies},
+ * {@code series}...), the full-text query that returns its first {@code limit} matches for a term,
+ * best first, and the accessors of the fields every hit carries.
+ */
+public record SearchSource<T>(String type, BiFunction<String, Integer, Flux<T>> search, Function<T, UUID> id,
+                              Function<T, String> title, Function<T, Integer> year) {
+}
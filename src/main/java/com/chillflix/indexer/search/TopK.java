@@ -0,0 +1,45 @@
+package com.chillflix.indexer.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * The best {@code capacity} elements offered, by {@code order} (best first). It keeps a heap with
+ * the worst retained element on top, so each offer costs O(log capacity) and memory stays at
+ * {@code capacity} elements however many are offered.
+ */
+final class TopK<T> {
+
+    private final int capacity;
+    private final Comparator<? super T> order;
+    private final PriorityQueue<T> heap;
+
+    TopK(int capacity, Comparator<? super T> order) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.order = order;
+        this.heap = new PriorityQueue<>(capacity, order.reversed());
+    }
+
+    void offer(T element) {
+        if (heap.size() < capacity) {
+            heap.add(element);
+        } else if (order.compare(element, heap.peek()) < 0) {
+            heap.poll();
+            heap.add(element);
+        }
+    }
+
+    /**
+     * The retained elements, best first.
+     */
+    List<T> sorted() {
+        List<T> sorted = new ArrayList<>(heap);
+        sorted.sort(order);
+        return sorted;
+    }
+}
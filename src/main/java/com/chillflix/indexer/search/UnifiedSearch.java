@@ -0,0 +1,168 @@
+package com.chillflix.indexer.search;
+
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Searches every media type at once ({@code GET /v1/search}). The full-text query of each
+ * {@link SearchSource} runs concurrently and gets {@code search.unified.source-timeout} to return
+ * its first {@code limit} matches; a type that takes longer or fails is left out of the response
+ * and listed as partial, unless fewer than {@code search.unified.min-sources} types answered, which
+ * is a 504.
+ * <p>
+ * Each type orders its matches with its own query, so their database ranks are not comparable.
+ * Hits are merged by a normalized rank instead: how well the title matches the term (equal, prefix,
+ * contained), then the reciprocal of the position within its type. The best {@code limit} of them
+ * are kept in a bounded heap ({@link TopK}) as each type answers.
+ */
+@Slf4j
+public class UnifiedSearch {
+
+    static final Comparator<SearchHit> RANKING = Comparator.comparingDouble(SearchHit::score).reversed()
+            .thenComparingInt(SearchHit::rank)
+            .thenComparing(SearchHit::type);
+
+    // Constante habitual de reciprocal rank fusion: 1/(60 + rank) nunca llega a 1, así que la
+    // posición solo desempata entre títulos con la misma coincidencia
+    private static final int RECIPROCAL_RANK_K = 60;
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    private final List<SearchSource<?>> sources;
+    private final MeterRegistry meterRegistry;
+    private final Duration sourceTimeout;
+    private final int minSources;
+    private final int maxLimit;
+
+    public UnifiedSearch(List<SearchSource<?>> sources, MeterRegistry meterRegistry, Duration sourceTimeout,
+                         int minSources, int maxLimit) {
+        this.sources = List.copyOf(sources);
+        this.meterRegistry = meterRegistry;
+        this.sourceTimeout = sourceTimeout;
+        this.minSources = minSources;
+        this.maxLimit = maxLimit;
+    }
+
+    /**
+     * Keys of the searchable types, in response order.
+     */
+    public List<String> types() {
+        return sources.stream().map(SearchSource::type).toList();
+    }
+
+    /**
+     * The best {@code limit} hits for {@code term} among {@code types} (every type if empty).
+     * {@code limit} is capped at {@code search.unified.max-limit}.
+     */
+    @Bulkhead(name = "unifiedSearch")
+    public Mono<UnifiedSearchResult> search(String term, Set<String> types, int limit) {
+        int top = Math.max(1, Math.min(limit, maxLimit));
+        List<SearchSource<?>> selected = types.isEmpty() ? sources
+                : sources.stream().filter(source -> types.contains(source.type())).toList();
+        String normalizedTerm = normalize(term);
+        return Flux.fromIterable(selected)
+                .flatMap(source -> answer(source, term, normalizedTerm, top), Math.max(1, selected.size()))
+                .reduceWith(() -> new Merge(top), Merge::add)
+                .map(merge -> merge.result(term, selected, Math.min(minSources, selected.size())));
+    }
+
+    private <T> Mono<Answer> answer(SearchSource<T> source, String term, String normalizedTerm, int limit) {
+        return source.search().apply(term, limit)
+                .index((position, item) -> hit(source, item, position.intValue() + 1, normalizedTerm))
+                .collectList()
+                .timeout(sourceTimeout)
+                .map(hits -> new Answer(source.type(), hits))
+                .onErrorResume(error -> {
+                    // Se responde con los demás tipos; el cliente lo ve en "partial"
+                    log.warn("Unified search left out {}: {}", source.type(), error.toString());
+                    meterRegistry.counter("search.unified.missing", "type", source.type()).increment();
+                    return Mono.just(new Answer(source.type(), null));
+                });
+    }
+
+    private static <T> SearchHit hit(SearchSource<T> source, T item, int rank, String normalizedTerm) {
+        String title = source.title().apply(item);
+        return new SearchHit(source.type(), source.id().apply(item), title, source.year().apply(item), rank,
+                score(normalize(title), normalizedTerm, rank), item);
+    }
+
+    /**
+     * Normalized rank of a hit whose normalized title is {@code title}, at 1-based position
+     * {@code rank} of its type, for the normalized {@code term}.
+     */
+    static double score(String title, String term, int rank) {
+        int match = title.equals(term) ? 3 : title.startsWith(term) ? 2 : title.contains(term) ? 1 : 0;
+        return match + 1.0 / (RECIPROCAL_RANK_K + rank);
+    }
+
+    /**
+     * Lower case, without accents and with single spaces, so "Amélie " matches "amelie".
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String unaccented = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return SPACES.matcher(unaccented.toLowerCase(Locale.ROOT).trim()).replaceAll(" ");
+    }
+
+    /**
+     * Hits of one type, or {@code null} if it did not answer.
+     */
+    private record Answer(String type, List<SearchHit> hits) {
+    }
+
+    private static final class Merge {
+
+        private final TopK<SearchHit> top;
+        private final Map<String, Integer> counts = new HashMap<>();
+
+        Merge(int limit) {
+            this.top = new TopK<>(limit, RANKING);
+        }
+
+        Merge add(Answer answer) {
+            if (answer.hits() != null) {
+                counts.put(answer.type(), answer.hits().size());
+                answer.hits().forEach(top::offer);
+            }
+            return this;
+        }
+
+        UnifiedSearchResult result(String term, List<SearchSource<?>> selected, int minSources) {
+            if (counts.size() < minSources) {
+                throw new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT,
+                        "Only " + counts.size() + " of " + selected.size() + " media types answered");
+            }
+            // Recuentos y parciales en el orden de las fuentes, no en el de llegada
+            Map<String, Integer> hitsPerType = new LinkedHashMap<>();
+            List<String> partial = new ArrayList<>();
+            for (SearchSource<?> source : selected) {
+                Integer count = counts.get(source.type());
+                if (count != null) {
+                    hitsPerType.put(source.type(), count);
+                } else {
+                    partial.add(source.type());
+                }
+            }
+            return new UnifiedSearchResult(term, top.sorted(), hitsPerType, partial);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.chillflix.indexer.search;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The merged top hits of a unified search. {@code hitsPerType} is the number of hits each type
+ * that answered returned, at most the requested limit: it is not a total, and a type at the limit
+ * may have more. {@code partial} lists the types left out because they did not answer in time or
+ * failed.
+ */
+public record UnifiedSearchResult(String term, List<SearchHit> hits, Map<String, Integer> hitsPerType, List<String> partial) {
+}
@@ -0,0 +1,123 @@
+package com.chillflix.indexer.service;
+
+import com.chillflix.indexer.audit.AuditOutbox;
+import com.chillflix.indexer.exception.ValidationException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.mapping.RelationalPersistentEntity;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Query;
+import org.springframework.data.relational.core.query.Update;
+import org.springframework.stereotype.Service;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.ObjectError;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.RecordComponent;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Applies JSON Merge Patch (RFC 7396) documents to media rows. Each supplied field is converted
+ * to its DTO type and checked against the DTO's own constraints, then a single
+ * {@code UPDATE ... SET <supplied columns>, updated_at = ... WHERE id = ...} is issued, without
+ * reading the row first. A null member clears the column, as merge patch specifies.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MediaPatchService {
+
+    public static final String MERGE_PATCH_JSON = "application/merge-patch+json";
+
+    private static final Set<String> NOT_PATCHABLE = Set.of("id", "isDeleted", "createdAt", "updatedAt", "inserted", "searchVector");
+
+    private final R2dbcEntityTemplate template;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final AuditOutbox auditOutbox;
+    private final Map<Class<?>, Map<String, JavaType>> patchableFields = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the converted values that were written, or completes empty if no live row has
+     * the given id.
+     */
+    public Mono<Map<String, Object>> patch(Class<?> entityType, Class<? extends Record> dtoType, UUID id, Map<String, Object> patch) {
+        return Mono.fromSupplier(() -> convertAndValidate(entityType, dtoType, patch))
+                .flatMap(values -> {
+                    Update update = Update.update("updatedAt", LocalDateTime.now());
+                    for (Map.Entry<String, Object> value : values.entrySet()) {
+                        update = update.set(value.getKey(), value.getValue());
+                    }
+                    Criteria criteria = Criteria.where("id").is(id);
+                    if (persistentEntity(entityType).getPersistentProperty("isDeleted") != null) {
+                        criteria = criteria.and(Criteria.where("isDeleted").isNull().or("isDeleted").isFalse());
+                    }
+                    return template.update(entityType)
+                            .matching(Query.query(criteria))
+                            .apply(update)
+                            .filter(rows -> rows > 0)
+                            .flatMap(rows -> auditOutbox.recordUpdate(entityType, id, values).thenReturn(values));
+                });
+    }
+
+    private Map<String, Object> convertAndValidate(Class<?> entityType, Class<? extends Record> dtoType, Map<String, Object> patch) {
+        if (patch == null || patch.isEmpty()) {
+            throw new ValidationException("Patch document is empty");
+        }
+        Map<String, JavaType> fields = patchableFields.computeIfAbsent(entityType, type -> resolveFields(type, dtoType));
+        String objectName = dtoType.getSimpleName();
+        List<ObjectError> errors = new ArrayList<>();
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> member : patch.entrySet()) {
+            String field = member.getKey();
+            JavaType type = fields.get(field);
+            if (type == null) {
+                errors.add(new FieldError(objectName, field, "Field cannot be patched"));
+                continue;
+            }
+            Object value;
+            try {
+                value = objectMapper.convertValue(member.getValue(), type);
+            } catch (IllegalArgumentException e) {
+                errors.add(new FieldError(objectName, field, "Invalid value for " + type.getRawClass().getSimpleName()));
+                continue;
+            }
+            for (ConstraintViolation<? extends Record> violation : validator.validateValue(dtoType, field, value)) {
+                errors.add(new FieldError(objectName, field, violation.getMessage()));
+            }
+            values.put(field, value);
+        }
+        if (!errors.isEmpty()) {
+            throw new ValidationException(errors);
+        }
+        return values;
+    }
+
+    private Map<String, JavaType> resolveFields(Class<?> entityType, Class<? extends Record> dtoType) {
+        RelationalPersistentEntity<?> entity = persistentEntity(entityType);
+        Map<String, JavaType> fields = new LinkedHashMap<>();
+        for (RecordComponent component : dtoType.getRecordComponents()) {
+            String name = component.getName();
+            if (!NOT_PATCHABLE.contains(name) && entity.getPersistentProperty(name) != null) {
+                fields.put(name, objectMapper.constructType(component.getGenericType()));
+            }
+        }
+        return fields;
+    }
+
+    private RelationalPersistentEntity<?> persistentEntity(Class<?> entityType) {
+        return template.getConverter().getMappingContext().getRequiredPersistentEntity(entityType);
+    }
+}
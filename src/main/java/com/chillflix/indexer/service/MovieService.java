@@ -1,17 +1,33 @@
 package com.chillflix.indexer.service;
 
+import com.chillflix.indexer.audit.AuditOutbox;
+import com.chillflix.indexer.dedupe.ContentComparison;
+import com.chillflix.indexer.dedupe.KnownContentIndex;
+import com.chillflix.indexer.dedupe.UpsertCounts;
+import com.chillflix.indexer.dedupe.UpsertOutcome;
 import com.chillflix.indexer.dto.MovieDTO;
+import com.chillflix.indexer.entities.Movie;
 import com.chillflix.indexer.exception.MovieNotFoundException;
+import com.chillflix.indexer.exception.SearchUnavailableException;
 import com.chillflix.indexer.exception.ValidationException;
 import com.chillflix.indexer.mapper.MovieMapper;
+import com.chillflix.indexer.models.MediaType;
+import com.chillflix.indexer.projection.FieldSet;
+import com.chillflix.indexer.projection.ProjectedQueries;
 import com.chillflix.indexer.repository.MovieRepository;
+import com.chillflix.indexer.util.MagnetParser;
 import com.chillflix.indexer.util.MovieValidationUtil;
 
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.ratelimiter.annotation.RateLimiter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -23,30 +39,46 @@ import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
-@Transactional
 public class MovieService {
 
     private final MovieRepository movieRepository;
     private final MovieMapper movieMapper;
     private final Validator validator;
+    private final MediaPatchService mediaPatchService;
     private final MovieValidationUtil movieValidationUtil;
+    private final KnownContentIndex knownContentIndex;
+    private final AuditOutbox auditOutbox;
+    private final CacheManager cacheManager;
+    private final ProjectedQueries projectedQueries;
 
     @CircuitBreaker(name = "searchMovies", fallbackMethod = "searchMoviesFallback")
-    @RateLimiter(name = "searchMovies")
     public Flux<MovieDTO> searchMovies(String searchTerm, Pageable pageable) {
-        log.debug("Searching movies with term: {}", searchTerm);
-        return movieRepository.searchMovies(searchTerm, pageable.getPageSize(), pageable.getOffset())
-                .map(movieMapper::toDto);
+        return searchMovies(searchTerm, pageable, FieldSet.ALL);
     }
 
     public Flux<MovieDTO> searchMoviesFallback(String searchTerm, Pageable pageable, Throwable t) {
         log.error("Fallback: Error searching movies", t);
-        return Flux.empty();
+        return Flux.error(new SearchUnavailableException(t));
+    }
+
+    @CircuitBreaker(name = "searchMovies", fallbackMethod = "searchMoviesFallback")
+    public Flux<MovieDTO> searchMovies(String searchTerm, Pageable pageable, FieldSet fields) {
+        log.debug("Searching movies with term: {}", searchTerm);
+        return select(fields, () -> movieRepository.searchMovies(searchTerm, pageable.getPageSize(), pageable.getOffset()),
+                "searchMovies", searchTerm, pageable.getPageSize(), pageable.getOffset())
+                .map(movieMapper::toDto);
+    }
+
+    public Flux<MovieDTO> searchMoviesFallback(String searchTerm, Pageable pageable, FieldSet fields, Throwable t) {
+        return searchMoviesFallback(searchTerm, pageable, t);
     }
 
     @Cacheable(cacheNames = "movieCache", key = "#id")
@@ -57,19 +89,43 @@ public class MovieService {
                 .switchIfEmpty(Mono.error(new MovieNotFoundException("Movie not found with id: " + id)));
     }
 
+    // Sin caché: la recarga de claves calientes escribe cada resultado en la suya
+    public Flux<MovieDTO> getMoviesByIds(List<UUID> ids) {
+        log.debug("Fetching {} movies by id", ids.size());
+        return movieRepository.findAllByIdIn(ids.toArray(UUID[]::new))
+                .map(movieMapper::toDto);
+    }
+
+    // Paginación por clave: recorrer el catálogo entero no degrada con la profundidad como OFFSET
+    public Flux<MovieDTO> getMoviesAfter(UUID after, int limit) {
+        log.debug("Fetching {} movies after {}", limit, after);
+        return movieRepository.findPageAfter(after, limit)
+                .map(movieMapper::toDto);
+    }
+
     public Flux<MovieDTO> getMoviesByTmdbId(Integer tmdbId) {
+        return getMoviesByTmdbId(tmdbId, FieldSet.ALL);
+    }
+
+    public Flux<MovieDTO> getMoviesByTmdbId(Integer tmdbId, FieldSet fields) {
         log.debug("Fetching movies with TMDB id: {}", tmdbId);
-        return movieRepository.findByTmdbId(tmdbId)
+        return select(fields, () -> movieRepository.findByTmdbId(tmdbId), "findByTmdbId", tmdbId)
                 //.filter(movie -> movieValidationUtil.isValidSha256Hash(movieValidationUtil.extractHashFromMagnet(movie.getMagnet())))
                 .map(movieMapper::toDto);
     }
     
     public Flux<MovieDTO> getMoviesByImdbId(String imdbId) {
+        return getMoviesByImdbId(imdbId, FieldSet.ALL);
+    }
+
+    public Flux<MovieDTO> getMoviesByImdbId(String imdbId, FieldSet fields) {
         log.debug("Fetching movies with IMDB id: {}", imdbId);
-        return movieRepository.findByImdbId(imdbId)
+        return select(fields, () -> movieRepository.findByImdbId(imdbId), "findByImdbId", imdbId)
                 .map(movieMapper::toDto);
     }
 
+    @Transactional
+    @Caching(evict = {@CacheEvict(cacheNames = "movieCache", key = "#result.id()"), @CacheEvict(cacheNames = "allMoviesCache", allEntries = true)})
     public Mono<MovieDTO> saveMovie(Mono<MovieDTO> movieDTO) {
         log.debug("Saving new movie");
         return movieDTO
@@ -78,13 +134,15 @@ public class MovieService {
                 .flatMap(movie -> {
                     movie.setCreatedAt(LocalDateTime.now());
                     movie.setUpdatedAt(LocalDateTime.now());
-                    return movieRepository.saveOrUpdate(movie);
+                    return upsertIfChanged(movie);
                 })
                 .map(movieMapper::toDto)
                 .doOnSuccess(savedMovie -> log.info("Successfully saved movie with id: {}", savedMovie.id()))
                 .doOnError(error -> log.error("Error saving movie", error));
     }
 
+    @Transactional
+    @Caching(evict = {@CacheEvict(cacheNames = "movieCache", key = "#id"), @CacheEvict(cacheNames = "allMoviesCache", allEntries = true)})
     public Mono<MovieDTO> updateMovie(UUID id, Mono<MovieDTO> movieDTO) {
         log.debug("Updating movie with id: {}", id);
         return movieRepository.findById(id)
@@ -96,20 +154,24 @@ public class MovieService {
                                     return existingMovie;
                                 })
                 )
-                .flatMap(movieRepository::saveOrUpdate)
+                .flatMap(this::writeMovie)
                 .map(movieMapper::toDto)
                 .switchIfEmpty(Mono.error(new MovieNotFoundException("Movie not found with id: " + id)))
                 .doOnSuccess(updatedMovie -> log.info("Successfully updated movie with id: {}", updatedMovie.id()))
                 .doOnError(error -> log.error("Error updating movie with id: {}", id, error));
     }
 
+    @Caching(evict = {@CacheEvict(cacheNames = "movieCache", key = "#id"), @CacheEvict(cacheNames = "allMoviesCache", allEntries = true)})
     public Mono<Void> deleteMovie(UUID id) {
         log.debug("Deleting movie with id: {}", id);
         return movieRepository.deleteById(id)
+                .then(auditOutbox.recordDelete(Movie.class, id))
                 .doOnSuccess(__ -> log.info("Successfully deleted movie with id: {}", id))
                 .doOnError(error -> log.error("Error deleting movie with id: {}", id, error));
     }
 
+    @Transactional
+    @Caching(evict = {@CacheEvict(cacheNames = "movieCache", key = "#result.id()"), @CacheEvict(cacheNames = "allMoviesCache", allEntries = true)})
     public Mono<MovieDTO> createOrUpdateMovie(Mono<MovieDTO> movieDTO) {
         return movieDTO.flatMap(dto -> {
             if (dto.id() != null) {
@@ -132,20 +194,32 @@ public class MovieService {
     }
 
     public Flux<MovieDTO> getMoviesByYear(int year, Pageable pageable) {
+        return getMoviesByYear(year, pageable, FieldSet.ALL);
+    }
+
+    public Flux<MovieDTO> getMoviesByYear(int year, Pageable pageable, FieldSet fields) {
         log.debug("Fetching movies for year: {}", year);
-        return movieRepository.findByYear(year, pageable.getPageSize(), pageable.getOffset())
+        return select(fields, () -> movieRepository.findByYear(year, pageable.getPageSize(), pageable.getOffset()),
+                "findByYear", year, pageable.getPageSize(), pageable.getOffset())
                 .map(movieMapper::toDto);
     }
 
     public Flux<MovieDTO> getMoviesByLanguage(String language, Pageable pageable) {
+        return getMoviesByLanguage(language, pageable, FieldSet.ALL);
+    }
+
+    public Flux<MovieDTO> getMoviesByLanguage(String language, Pageable pageable, FieldSet fields) {
         log.debug("Fetching movies in language: {}", language);
-        return movieRepository.findByLanguage(language, pageable.getPageSize(), pageable.getOffset())
+        return select(fields, () -> movieRepository.findByLanguage(language, pageable.getPageSize(), pageable.getOffset()),
+                "findByLanguage", language, pageable.getPageSize(), pageable.getOffset())
                 .map(movieMapper::toDto);
     }
 
+    @CacheEvict(cacheNames = {"movieCache", "allMoviesCache"}, allEntries = true)
     public Mono<Void> deleteMoviesByIds(List<UUID> ids) {
         log.debug("Deleting movies with ids: {}", ids);
         return movieRepository.deleteAllByIdIn(ids)
+                .then(auditOutbox.recordSoftDelete(Movie.class, ids))
                 .doOnSuccess(__ -> log.info("Successfully deleted movies with ids: {}", ids))
                 .doOnError(error -> log.error("Error deleting movies with ids: {}", ids, error));
     }
@@ -169,6 +243,7 @@ public class MovieService {
     }
 
     @Transactional
+    @Caching(evict = {@CacheEvict(cacheNames = "movieCache", key = "#result.id()"), @CacheEvict(cacheNames = "allMoviesCache", allEntries = true)})
     public Mono<MovieDTO> saveOrUpdateMovie(MovieDTO movieDTO) {
         log.debug("Saving or updating movie: {}", movieDTO);
         return Mono.just(movieDTO)
@@ -179,13 +254,98 @@ public class MovieService {
                     if (movie.getCreatedAt() == null) {
                         movie.setCreatedAt(LocalDateTime.now());
                     }
-                    return movieRepository.saveOrUpdate(movie);
+                    return upsertIfChanged(movie);
                 })
                 .map(movieMapper::toDto)
                 .doOnSuccess(savedMovie -> log.info("Successfully saved/updated movie with id: {}", savedMovie.id()))
                 .doOnError(error -> log.error("Error saving/updating movie", error));
     }
 
+    // Los re-envíos de contenido ya indexado y sin cambios no se escriben, así se evitan el
+    // upsert y los triggers de búsqueda, fecha de modificación y auditoría
+    private Mono<Movie> upsertIfChanged(Movie movie) {
+        Optional<KnownContentIndex.Outcome> unscreened = KnownContentIndex.unscreened(movie.getSha256Hash(), movie.getMagnet());
+        if (unscreened.isPresent()) {
+            // Sin sha256 ni info hash v1 en hex (p. ej. un magnet solo btmh o en base32) no hay clave con la que buscar duplicados
+            knownContentIndex.record(MediaType.MOVIE, unscreened.get());
+            return writeMovie(movie);
+        }
+        if (!knownContentIndex.mightContain(MediaType.MOVIE, movie.getSha256Hash(), movie.getMagnet())) {
+            knownContentIndex.record(MediaType.MOVIE, KnownContentIndex.Outcome.FILTER_MISS);
+            return writeMovie(movie);
+        }
+        return findDuplicate(movie)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(duplicate -> {
+                    if (duplicate.isEmpty()) {
+                        knownContentIndex.record(MediaType.MOVIE, KnownContentIndex.Outcome.FALSE_POSITIVE);
+                        return writeMovie(movie);
+                    }
+                    Movie stored = duplicate.get();
+                    if (ContentComparison.sameContent(stored, movie)) {
+                        knownContentIndex.record(MediaType.MOVIE, KnownContentIndex.Outcome.UNCHANGED);
+                        log.debug("Skipping unchanged movie with id: {}", stored.getId());
+                        return UpsertCounts.tally(stored, UpsertOutcome.UNCHANGED);
+                    }
+                    knownContentIndex.record(MediaType.MOVIE, KnownContentIndex.Outcome.CHANGED);
+                    movie.setId(stored.getId());
+                    movie.setCreatedAt(stored.getCreatedAt());
+                    return writeMovie(movie);
+                });
+    }
+
+    private Mono<Movie> findDuplicate(Movie movie) {
+        Mono<Movie> duplicate;
+        if (movie.getSha256Hash() != null) {
+            duplicate = movieRepository.findBySha256Hash(movie.getSha256Hash());
+        } else {
+            String infoHash = MagnetParser.infoHash(movie.getMagnet());
+            if (infoHash == null) {
+                return Mono.empty();
+            }
+            duplicate = movieRepository.findByInfoHash(infoHash);
+        }
+        // Un id explícito distinto es otra fila, no un re-envío
+        return duplicate.filter(stored -> movie.getId() == null || movie.getId().equals(stored.getId()));
+    }
+
+    private Mono<Movie> writeMovie(Movie movie) {
+        return movieRepository.saveOrUpdate(movie)
+                .flatMap(saved -> {
+                    knownContentIndex.register(MediaType.MOVIE, saved.getSha256Hash(), saved.getMagnet());
+                    return auditOutbox.recordUpsert(saved).then(UpsertCounts.tally(saved, Boolean.TRUE.equals(saved.getInserted()) ? UpsertOutcome.INSERTED : UpsertOutcome.UPDATED));
+                })
+                // El guard IS DISTINCT FROM del upsert no devuelve fila si nada cambió
+                .switchIfEmpty(Mono.defer(() -> Mono.justOrEmpty(movie.getId())
+                        .flatMap(movieRepository::findById)
+                        .flatMap(stored -> UpsertCounts.tally(stored, UpsertOutcome.UNCHANGED))));
+    }
+
+    @Caching(evict = {@CacheEvict(cacheNames = "movieCache", key = "#id"), @CacheEvict(cacheNames = "allMoviesCache", allEntries = true)})
+    public Mono<Void> patchMovie(UUID id, Map<String, Object> patch) {
+        log.debug("Patching movie with id: {}, fields: {}", id, patch.keySet());
+        return mediaPatchService.patch(Movie.class, MovieDTO.class, id, patch)
+                .switchIfEmpty(Mono.error(new MovieNotFoundException("Movie not found with id: " + id)))
+                .doOnNext(values -> {
+                    if (values.containsKey("sha256Hash") || values.containsKey("magnet")) {
+                        knownContentIndex.register(MediaType.MOVIE, (String) values.get("sha256Hash"), (String) values.get("magnet"));
+                    }
+                })
+                .then()
+                .doOnSuccess(__ -> log.info("Successfully patched movie with id: {}", id))
+                .doOnError(error -> log.error("Error patching movie with id: {}", id, error));
+    }
+
+    private void clearCaches() {
+        for (String name : List.of("movieCache", "allMoviesCache")) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+    }
+
     private Mono<MovieDTO> validateMovie(MovieDTO movieDTO) {
         return Mono.fromSupplier(() -> {
             Errors errors = new BeanPropertyBindingResult(movieDTO, "movieDTO");
@@ -199,10 +359,13 @@ public class MovieService {
 
     @CircuitBreaker(name = "bulkOperation", fallbackMethod = "bulkDeleteMoviesFallback")
     @RateLimiter(name = "bulkOperation")
+    @Bulkhead(name = "bulkOperation")
+    @Transactional
+    @CacheEvict(cacheNames = {"movieCache", "allMoviesCache"}, allEntries = true)
     public Mono<Void> bulkDeleteMovies(List<UUID> ids) {
         log.debug("Performing bulk delete operation for {} movies", ids.size());
         return Flux.fromIterable(ids)
-                .flatMap(this::deleteMovie)
+                .concatMap(this::deleteMovie)
                 .then();
     }
 
@@ -213,10 +376,14 @@ public class MovieService {
 
     @CircuitBreaker(name = "bulkOperation", fallbackMethod = "bulkUpdateMoviesFallback")
     @RateLimiter(name = "bulkOperation")
+    @Bulkhead(name = "bulkOperation")
+    @Transactional
     public Flux<MovieDTO> bulkUpdateMovies(List<MovieDTO> movieDTOs) {
         log.debug("Performing bulk update operation for {} movies", movieDTOs.size());
         return Flux.fromIterable(movieDTOs)
-                .flatMap(dto -> saveOrUpdateMovie(dto));
+                .concatMap(dto -> saveOrUpdateMovie(dto))
+                // @CacheEvict sobre un Flux solo deja pasar el primer elemento, así que se vacían aquí
+                .doFinally(signal -> clearCaches());
     }
 
     public Flux<MovieDTO> bulkUpdateMoviesFallback(List<MovieDTO> movieDTOs, Throwable t) {
@@ -225,7 +392,18 @@ public class MovieService {
     }
 
     public Flux<MovieDTO> advancedSearch(String title, Integer year, String language, String quality, String fileType, Pageable pageable) {
-        return movieRepository.advancedSearch(title, year, language, quality, fileType, pageable.getPageSize(), pageable.getOffset())
+        return advancedSearch(title, year, language, quality, fileType, pageable, FieldSet.ALL);
+    }
+
+    public Flux<MovieDTO> advancedSearch(String title, Integer year, String language, String quality, String fileType, Pageable pageable,
+                                         FieldSet fields) {
+        return select(fields, () -> movieRepository.advancedSearch(title, year, language, quality, fileType, pageable.getPageSize(), pageable.getOffset()),
+                "advancedSearch", title, year, language, quality, fileType, pageable.getPageSize(), pageable.getOffset())
                 .map(movieMapper::toDto);
     }
+
+    // Con un subconjunto de campos, la misma consulta del repositorio leyendo solo sus columnas
+    private Flux<Movie> select(FieldSet fields, Supplier<Flux<Movie>> all, String query, Object... args) {
+        return fields.isAll() ? all.get() : projectedQueries.find(Movie.class, fields, MovieRepository.class, query, args);
+    }
 }
\ No newline at end of file
@@ -1,17 +1,31 @@
 package com.chillflix.indexer.service;
 
+import com.chillflix.indexer.audit.AuditOutbox;
+import com.chillflix.indexer.dedupe.ContentComparison;
+import com.chillflix.indexer.dedupe.KnownContentIndex;
+import com.chillflix.indexer.dedupe.UpsertCounts;
+import com.chillflix.indexer.dedupe.UpsertOutcome;
 import com.chillflix.indexer.dto.MusicDTO;
+import com.chillflix.indexer.entities.Music;
 import com.chillflix.indexer.exception.MusicNotFoundException;
+import com.chillflix.indexer.exception.SearchUnavailableException;
 import com.chillflix.indexer.exception.ValidationException;
 import com.chillflix.indexer.mapper.MusicMapper;
+import com.chillflix.indexer.models.MediaType;
 import com.chillflix.indexer.repository.MusicRepository;
+import com.chillflix.indexer.util.MagnetParser;
 import com.chillflix.indexer.util.MusicValidationUtil;
 
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.ratelimiter.annotation.RateLimiter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -23,21 +37,25 @@ import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
-@Transactional
 public class MusicService {
 
     private final MusicRepository musicRepository;
     private final MusicMapper musicMapper;
     private final Validator validator;
+    private final MediaPatchService mediaPatchService;
     private final MusicValidationUtil musicValidationUtil;
+    private final KnownContentIndex knownContentIndex;
+    private final AuditOutbox auditOutbox;
+    private final CacheManager cacheManager;
 
     @CircuitBreaker(name = "searchMusic", fallbackMethod = "searchMusicFallback")
-    @RateLimiter(name = "searchMusic")
     public Flux<MusicDTO> searchMusic(String searchTerm, Pageable pageable) {
         log.debug("Searching music with term: {}", searchTerm);
         return musicRepository.searchMusic(searchTerm, pageable.getPageSize(), pageable.getOffset())
@@ -46,7 +64,7 @@ public class MusicService {
 
     public Flux<MusicDTO> searchMusicFallback(String searchTerm, Pageable pageable, Throwable t) {
         log.error("Fallback: Error searching music", t);
-        return Flux.empty();
+        return Flux.error(new SearchUnavailableException(t));
     }
 
     @Cacheable(cacheNames = "musicCache", key = "#id")
@@ -57,6 +75,20 @@ public class MusicService {
                 .switchIfEmpty(Mono.error(new MusicNotFoundException("Music not found with id: " + id)));
     }
 
+    // Sin caché: la recarga de claves calientes escribe cada resultado en la suya
+    public Flux<MusicDTO> getMusicByIds(List<UUID> ids) {
+        log.debug("Fetching {} music by id", ids.size());
+        return musicRepository.findAllByIdIn(ids.toArray(UUID[]::new))
+                .map(musicMapper::toDto);
+    }
+
+    // Paginación por clave: recorrer el catálogo entero no degrada con la profundidad como OFFSET
+    public Flux<MusicDTO> getMusicAfter(UUID after, int limit) {
+        log.debug("Fetching {} music after {}", limit, after);
+        return musicRepository.findPageAfter(after, limit)
+                .map(musicMapper::toDto);
+    }
+
     public Flux<MusicDTO> getMusicByArtist(String artist, Pageable pageable) {
         log.debug("Fetching music by artist: {}", artist);
         return musicRepository.findByArtist(artist, pageable.getPageSize(), pageable.getOffset())
@@ -75,6 +107,8 @@ public class MusicService {
                 .map(musicMapper::toDto);
     }
 
+    @Transactional
+    @Caching(evict = {@CacheEvict(cacheNames = "musicCache", key = "#result.id()"), @CacheEvict(cacheNames = "allMusicCache", allEntries = true)})
     public Mono<MusicDTO> saveMusic(Mono<MusicDTO> musicDTO) {
         log.debug("Saving new music");
         return musicDTO
@@ -83,13 +117,15 @@ public class MusicService {
                 .flatMap(music -> {
                     music.setCreatedAt(LocalDateTime.now());
                     music.setUpdatedAt(LocalDateTime.now());
-                    return musicRepository.saveOrUpdate(music);
+                    return upsertIfChanged(music);
                 })
                 .map(musicMapper::toDto)
                 .doOnSuccess(savedMusic -> log.info("Successfully saved music with id: {}", savedMusic.id()))
                 .doOnError(error -> log.error("Error saving music", error));
     }
 
+    @Transactional
+    @Caching(evict = {@CacheEvict(cacheNames = "musicCache", key = "#id"), @CacheEvict(cacheNames = "allMusicCache", allEntries = true)})
     public Mono<MusicDTO> updateMusic(UUID id, Mono<MusicDTO> musicDTO) {
         log.debug("Updating music with id: {}", id);
         return musicRepository.findById(id)
@@ -101,20 +137,24 @@ public class MusicService {
                                     return existingMusic;
                                 })
                 )
-                .flatMap(musicRepository::saveOrUpdate)
+                .flatMap(this::writeMusic)
                 .map(musicMapper::toDto)
                 .switchIfEmpty(Mono.error(new MusicNotFoundException("Music not found with id: " + id)))
                 .doOnSuccess(updatedMusic -> log.info("Successfully updated music with id: {}", updatedMusic.id()))
                 .doOnError(error -> log.error("Error updating music with id: {}", id, error));
     }
 
+    @Caching(evict = {@CacheEvict(cacheNames = "musicCache", key = "#id"), @CacheEvict(cacheNames = "allMusicCache", allEntries = true)})
     public Mono<Void> deleteMusic(UUID id) {
         log.debug("Deleting music with id: {}", id);
         return musicRepository.deleteById(id)
+                .then(auditOutbox.recordDelete(Music.class, id))
                 .doOnSuccess(__ -> log.info("Successfully deleted music with id: {}", id))
                 .doOnError(error -> log.error("Error deleting music with id: {}", id, error));
     }
 
+    @Transactional
+    @Caching(evict = {@CacheEvict(cacheNames = "musicCache", key = "#result.id()"), @CacheEvict(cacheNames = "allMusicCache", allEntries = true)})
     public Mono<MusicDTO> createOrUpdateMusic(Mono<MusicDTO> musicDTO) {
         return musicDTO.flatMap(dto -> {
             if (dto.id() != null) {
@@ -142,9 +182,11 @@ public class MusicService {
                 .map(musicMapper::toDto);
     }
 
+    @CacheEvict(cacheNames = {"musicCache", "allMusicCache"}, allEntries = true)
     public Mono<Void> deleteMusicByIds(List<UUID> ids) {
         log.debug("Deleting music with ids: {}", ids);
         return musicRepository.deleteAllByIdIn(ids)
+                .then(auditOutbox.recordSoftDelete(Music.class, ids))
                 .doOnSuccess(__ -> log.info("Successfully deleted music with ids: {}", ids))
                 .doOnError(error -> log.error("Error deleting music with ids: {}", ids, error));
     }
@@ -168,6 +210,7 @@ public class MusicService {
     }
 
     @Transactional
+    @Caching(evict = {@CacheEvict(cacheNames = "musicCache", key = "#result.id()"), @CacheEvict(cacheNames = "allMusicCache", allEntries = true)})
     public Mono<MusicDTO> saveOrUpdateMusic(MusicDTO musicDTO) {
         log.debug("Saving or updating music: {}", musicDTO);
         return Mono.just(musicDTO)
@@ -178,13 +221,98 @@ public class MusicService {
                     if (music.getCreatedAt() == null) {
                         music.setCreatedAt(LocalDateTime.now());
                     }
-                    return musicRepository.saveOrUpdate(music);
+                    return upsertIfChanged(music);
                 })
                 .map(musicMapper::toDto)
                 .doOnSuccess(savedMusic -> log.info("Successfully saved/updated music with id: {}", savedMusic.id()))
                 .doOnError(error -> log.error("Error saving/updating music", error));
     }
 
+    // Los re-envíos de contenido ya indexado y sin cambios no se escriben, así se evitan el
+    // upsert y los triggers de búsqueda, fecha de modificación y auditoría
+    private Mono<Music> upsertIfChanged(Music music) {
+        Optional<KnownContentIndex.Outcome> unscreened = KnownContentIndex.unscreened(music.getSha256Hash(), music.getMagnet());
+        if (unscreened.isPresent()) {
+            // Sin sha256 ni info hash v1 en hex (p. ej. un magnet solo btmh o en base32) no hay clave con la que buscar duplicados
+            knownContentIndex.record(MediaType.MUSIC, unscreened.get());
+            return writeMusic(music);
+        }
+        if (!knownContentIndex.mightContain(MediaType.MUSIC, music.getSha256Hash(), music.getMagnet())) {
+            knownContentIndex.record(MediaType.MUSIC, KnownContentIndex.Outcome.FILTER_MISS);
+            return writeMusic(music);
+        }
+        return findDuplicate(music)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(duplicate -> {
+                    if (duplicate.isEmpty()) {
+                        knownContentIndex.record(MediaType.MUSIC, KnownContentIndex.Outcome.FALSE_POSITIVE);
+                        return writeMusic(music);
+                    }
+                    Music stored = duplicate.get();
+                    if (ContentComparison.sameContent(stored, music)) {
+                        knownContentIndex.record(MediaType.MUSIC, KnownContentIndex.Outcome.UNCHANGED);
+                        log.debug("Skipping unchanged music with id: {}", stored.getId());
+                        return UpsertCounts.tally(stored, UpsertOutcome.UNCHANGED);
+                    }
+                    knownContentIndex.record(MediaType.MUSIC, KnownContentIndex.Outcome.CHANGED);
+                    music.setId(stored.getId());
+                    music.setCreatedAt(stored.getCreatedAt());
+                    return writeMusic(music);
+                });
+    }
+
+    private Mono<Music> findDuplicate(Music music) {
+        Mono<Music> duplicate;
+        if (music.getSha256Hash() != null) {
+            duplicate = musicRepository.findBySha256Hash(music.getSha256Hash());
+        } else {
+            String infoHash = MagnetParser.infoHash(music.getMagnet());
+            if (infoHash == null) {
+                return Mono.empty();
+            }
+            duplicate = musicRepository.findByInfoHash(infoHash);
+        }
+        // Un id explícito distinto es otra fila, no un re-envío
+        return duplicate.filter(stored -> music.getId() == null || music.getId().equals(stored.getId()));
+    }
+
+    private Mono<Music> writeMusic(Music music) {
+        return musicRepository.saveOrUpdate(music)
+                .flatMap(saved -> {
+                    knownContentIndex.register(MediaType.MUSIC, saved.getSha256Hash(), saved.getMagnet());
+                    return auditOutbox.recordUpsert(saved).then(UpsertCounts.tally(saved, Boolean.TRUE.equals(saved.getInserted()) ? UpsertOutcome.INSERTED : UpsertOutcome.UPDATED));
+                })
+                // El guard IS DISTINCT FROM del upsert no devuelve fila si nada cambió
+                .switchIfEmpty(Mono.defer(() -> Mono.justOrEmpty(music.getId())
+                        .flatMap(musicRepository::findById)
+                        .flatMap(stored -> UpsertCounts.tally(stored, UpsertOutcome.UNCHANGED))));
+    }
+
+    @Caching(evict = {@CacheEvict(cacheNames = "musicCache", key = "#id"), @CacheEvict(cacheNames = "allMusicCache", allEntries = true)})
+    public Mono<Void> patchMusic(UUID id, Map<String, Object> patch) {
+        log.debug("Patching music with id: {}, fields: {}", id, patch.keySet());
+        return mediaPatchService.patch(Music.class, MusicDTO.class, id, patch)
+                .switchIfEmpty(Mono.error(new MusicNotFoundException("Music not found with id: " + id)))
+                .doOnNext(values -> {
+                    if (values.containsKey("sha256Hash") || values.containsKey("magnet")) {
+                        knownContentIndex.register(MediaType.MUSIC, (String) values.get("sha256Hash"), (String) values.get("magnet"));
+                    }
+                })
+                .then()
+                .doOnSuccess(__ -> log.info("Successfully patched music with id: {}", id))
+                .doOnError(error -> log.error("Error patching music with id: {}", id, error));
+    }
+
+    private void clearCaches() {
+        for (String name : List.of("musicCache", "allMusicCache")) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+    }
+
     private Mono<MusicDTO> validateMusic(MusicDTO musicDTO) {
         return Mono.fromSupplier(() -> {
             Errors errors = new BeanPropertyBindingResult(musicDTO, "musicDTO");
@@ -198,10 +326,13 @@ public class MusicService {
 
     @CircuitBreaker(name = "bulkOperation", fallbackMethod = "bulkDeleteMusicFallback")
     @RateLimiter(name = "bulkOperation")
+    @Bulkhead(name = "bulkOperation")
+    @Transactional
+    @CacheEvict(cacheNames = {"musicCache", "allMusicCache"}, allEntries = true)
     public Mono<Void> bulkDeleteMusic(List<UUID> ids) {
         log.debug("Performing bulk delete operation for {} music items", ids.size());
         return Flux.fromIterable(ids)
-                .flatMap(this::deleteMusic)
+                .concatMap(this::deleteMusic)
                 .then();
     }
 
@@ -212,10 +343,14 @@ public class MusicService {
 
     @CircuitBreaker(name = "bulkOperation", fallbackMethod = "bulkUpdateMusicFallback")
     @RateLimiter(name = "bulkOperation")
+    @Bulkhead(name = "bulkOperation")
+    @Transactional
     public Flux<MusicDTO> bulkUpdateMusic(List<MusicDTO> musicDTOs) {
         log.debug("Performing bulk update operation for {} music items", musicDTOs.size());
         return Flux.fromIterable(musicDTOs)
-                .flatMap(dto -> saveOrUpdateMusic(dto));
+                .concatMap(dto -> saveOrUpdateMusic(dto))
+                // @CacheEvict sobre un Flux solo deja pasar el primer elemento, así que se vacían aquí
+                .doFinally(signal -> clearCaches());
     }
 
     public Flux<MusicDTO> bulkUpdateMusicFallback(List<MusicDTO> musicDTOs, Throwable t) {
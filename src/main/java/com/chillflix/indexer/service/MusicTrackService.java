@@ -1,6 +1,9 @@
 package com.chillflix.indexer.service;
 
+import com.chillflix.indexer.audit.AuditAction;
+import com.chillflix.indexer.audit.AuditOutbox;
 import com.chillflix.indexer.dto.MusicTrackDTO;
+import com.chillflix.indexer.entities.MusicTrack;
 import com.chillflix.indexer.exception.MusicNotFoundException;
 import com.chillflix.indexer.exception.MusicTrackNotFoundException;
 import com.chillflix.indexer.exception.ValidationException;
@@ -8,6 +11,7 @@ import com.chillflix.indexer.mapper.MusicTrackMapper;
 import com.chillflix.indexer.repository.MusicRepository;
 import com.chillflix.indexer.repository.MusicTrackRepository;
 
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.ratelimiter.annotation.RateLimiter;
 import lombok.RequiredArgsConstructor;
@@ -23,18 +27,20 @@ import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
-@Transactional
 public class MusicTrackService {
 
     private final MusicTrackRepository trackRepository;
     private final MusicRepository musicRepository;
     private final MusicTrackMapper trackMapper;
     private final Validator validator;
+    private final MediaPatchService mediaPatchService;
+    private final AuditOutbox auditOutbox;
 
     public Flux<MusicTrackDTO> getAllMusicTracks(PageRequest pageRequest) {
         log.debug("Fetching all music tracks with pagination");
@@ -62,6 +68,7 @@ public class MusicTrackService {
                 .map(trackMapper::toDto);
     }
 
+    @Transactional(readOnly = true)
     public Flux<MusicTrackDTO> getMusicTracksByAlbumId(UUID albumId, PageRequest pageRequest) {
         log.debug("Fetching tracks for album with id: {}", albumId);
         return musicRepository.findById(albumId)
@@ -111,6 +118,7 @@ public class MusicTrackService {
                 .map(trackMapper::toDto);
     }
 
+    @Transactional
     public Mono<MusicTrackDTO> saveMusicTrack(Mono<MusicTrackDTO> trackDTO) {
         log.debug("Saving new track");
         return trackDTO
@@ -126,11 +134,13 @@ public class MusicTrackService {
                     track.setUpdatedAt(LocalDateTime.now());
                     return trackRepository.save(track);
                 })
+                .flatMap(saved -> auditOutbox.record(saved, AuditAction.INSERT).thenReturn(saved))
                 .map(trackMapper::toDto)
                 .doOnSuccess(savedTrack -> log.info("Successfully saved track with id: {}", savedTrack.id()))
                 .doOnError(error -> log.error("Error saving track", error));
     }
 
+    @Transactional
     public Mono<MusicTrackDTO> updateMusicTrack(UUID id, Mono<MusicTrackDTO> trackDTO) {
         log.debug("Updating track with id: {}", id);
         return trackRepository.findById(id)
@@ -148,6 +158,7 @@ public class MusicTrackService {
                                 })
                 )
                 .flatMap(trackRepository::save)
+                .flatMap(saved -> auditOutbox.record(saved, AuditAction.UPDATE).thenReturn(saved))
                 .map(trackMapper::toDto)
                 .switchIfEmpty(Mono.error(new MusicTrackNotFoundException("Track not found with id: " + id)))
                 .doOnSuccess(updatedTrack -> log.info("Successfully updated track with id: {}", updatedTrack.id()))
@@ -157,6 +168,7 @@ public class MusicTrackService {
     public Mono<Void> deleteMusicTrack(UUID id) {
         log.debug("Deleting track with id: {}", id);
         return trackRepository.deleteById(id)
+                .then(auditOutbox.recordDelete(MusicTrack.class, id))
                 .doOnSuccess(__ -> log.info("Successfully deleted track with id: {}", id))
                 .doOnError(error -> log.error("Error deleting track with id: {}", id, error));
     }
@@ -203,10 +215,12 @@ public class MusicTrackService {
 
     @CircuitBreaker(name = "bulkOperation", fallbackMethod = "bulkDeleteTracksFallback")
     @RateLimiter(name = "bulkOperation")
+    @Bulkhead(name = "bulkOperation")
+    @Transactional
     public Mono<Void> bulkDeleteMusicTracks(List<UUID> ids) {
         log.debug("Performing bulk delete operation for {} tracks", ids.size());
         return Flux.fromIterable(ids)
-                .flatMap(this::deleteMusicTrack)
+                .concatMap(this::deleteMusicTrack)
                 .then();
     }
 
@@ -217,10 +231,12 @@ public class MusicTrackService {
 
     @CircuitBreaker(name = "bulkOperation", fallbackMethod = "bulkUpdateTracksFallback")
     @RateLimiter(name = "bulkOperation")
+    @Bulkhead(name = "bulkOperation")
+    @Transactional
     public Flux<MusicTrackDTO> bulkUpdateMusicTracks(List<MusicTrackDTO> trackDTOs) {
         log.debug("Performing bulk update operation for {} tracks", trackDTOs.size());
         return Flux.fromIterable(trackDTOs)
-                .flatMap(dto -> updateMusicTrack(dto.id(), Mono.just(dto)));
+                .concatMap(dto -> updateMusicTrack(dto.id(), Mono.just(dto)));
     }
 
     public Flux<MusicTrackDTO> bulkUpdateTracksFallback(List<MusicTrackDTO> trackDTOs, Throwable t) {
@@ -240,6 +256,15 @@ public class MusicTrackService {
         });
     }
 
+    public Mono<Void> patchMusicTrack(UUID id, Map<String, Object> patch) {
+        log.debug("Patching track with id: {}, fields: {}", id, patch.keySet());
+        return mediaPatchService.patch(MusicTrack.class, MusicTrackDTO.class, id, patch)
+                .switchIfEmpty(Mono.error(new MusicTrackNotFoundException("Track not found with id: " + id)))
+                .then()
+                .doOnSuccess(__ -> log.info("Successfully patched track with id: {}", id))
+                .doOnError(error -> log.error("Error patching track with id: {}", id, error));
+    }
+
     private Mono<MusicTrackDTO> validateTrack(MusicTrackDTO trackDTO) {
         return Mono.fromSupplier(() -> {
             Errors errors = new BeanPropertyBindingResult(trackDTO, "trackDTO");
@@ -1,6 +1,10 @@
 package com.chillflix.indexer.service;
 
+import com.chillflix.indexer.audit.AuditOutbox;
+import com.chillflix.indexer.dedupe.UpsertCounts;
+import com.chillflix.indexer.dedupe.UpsertOutcome;
 import com.chillflix.indexer.dto.SeriesEpisodeDTO;
+import com.chillflix.indexer.entities.SeriesEpisode;
 import com.chillflix.indexer.exception.EpisodeNotFoundException;
 import com.chillflix.indexer.exception.SeriesNotFoundException;
 import com.chillflix.indexer.exception.ValidationException;
@@ -8,6 +12,7 @@ import com.chillflix.indexer.mapper.SeriesEpisodeMapper;
 import com.chillflix.indexer.repository.SeriesEpisodeRepository;
 import com.chillflix.indexer.repository.SeriesRepository;
 
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.ratelimiter.annotation.RateLimiter;
 import lombok.RequiredArgsConstructor;
@@ -23,18 +28,20 @@ import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
-@Transactional
 public class SeriesEpisodeService {
 
     private final SeriesEpisodeRepository episodeRepository;
     private final SeriesRepository seriesRepository;
     private final SeriesEpisodeMapper episodeMapper;
     private final Validator validator;
+    private final MediaPatchService mediaPatchService;
+    private final AuditOutbox auditOutbox;
 
     public Mono<SeriesEpisodeDTO> getEpisodeById(UUID id) {
         log.debug("Fetching episode with id: {}", id);
@@ -43,6 +50,7 @@ public class SeriesEpisodeService {
                 .switchIfEmpty(Mono.error(new EpisodeNotFoundException("Episode not found with id: " + id)));
     }
 
+    @Transactional(readOnly = true)
     public Flux<SeriesEpisodeDTO> getEpisodesBySeriesId(UUID seriesId, Pageable pageable) {
         log.debug("Fetching episodes for series with id: {}", seriesId);
         return seriesRepository.findById(seriesId)
@@ -51,6 +59,7 @@ public class SeriesEpisodeService {
                 .map(episodeMapper::toDto);
     }
 
+    @Transactional(readOnly = true)
     public Flux<SeriesEpisodeDTO> getEpisodesBySeriesIdAndSeason(UUID seriesId, Integer seasonNumber, Pageable pageable) {
         log.debug("Fetching episodes for series id: {} and season: {}", seriesId, seasonNumber);
         return seriesRepository.findById(seriesId)
@@ -59,6 +68,7 @@ public class SeriesEpisodeService {
                 .map(episodeMapper::toDto);
     }
 
+    @Transactional
     public Mono<SeriesEpisodeDTO> saveEpisode(Mono<SeriesEpisodeDTO> episodeDTO) {
         log.debug("Saving new episode");
         return episodeDTO
@@ -72,13 +82,14 @@ public class SeriesEpisodeService {
                 .flatMap(episode -> {
                     episode.setCreatedAt(LocalDateTime.now());
                     episode.setUpdatedAt(LocalDateTime.now());
-                    return episodeRepository.saveOrUpdate(episode);
+                    return writeEpisode(episode);
                 })
                 .map(episodeMapper::toDto)
                 .doOnSuccess(savedEpisode -> log.info("Successfully saved episode with id: {}", savedEpisode.id()))
                 .doOnError(error -> log.error("Error saving episode", error));
     }
 
+    @Transactional
     public Mono<SeriesEpisodeDTO> updateEpisode(UUID id, Mono<SeriesEpisodeDTO> episodeDTO) {
         log.debug("Updating episode with id: {}", id);
         return episodeRepository.findById(id)
@@ -95,7 +106,7 @@ public class SeriesEpisodeService {
                                     return existingEpisode;
                                 })
                 )
-                .flatMap(episodeRepository::saveOrUpdate)
+                .flatMap(this::writeEpisode)
                 .map(episodeMapper::toDto)
                 .switchIfEmpty(Mono.error(new EpisodeNotFoundException("Episode not found with id: " + id)))
                 .doOnSuccess(updatedEpisode -> log.info("Successfully updated episode with id: {}", updatedEpisode.id()))
@@ -105,10 +116,12 @@ public class SeriesEpisodeService {
     public Mono<Void> deleteEpisode(UUID id) {
         log.debug("Deleting episode with id: {}", id);
         return episodeRepository.deleteById(id)
+                .then(auditOutbox.recordDelete(SeriesEpisode.class, id))
                 .doOnSuccess(__ -> log.info("Successfully deleted episode with id: {}", id))
                 .doOnError(error -> log.error("Error deleting episode with id: {}", id, error));
     }
 
+    @Transactional
     public Mono<SeriesEpisodeDTO> createOrUpdateEpisode(Mono<SeriesEpisodeDTO> episodeDTO) {
         return episodeDTO.flatMap(dto -> {
             if (dto.id() != null) {
@@ -121,10 +134,12 @@ public class SeriesEpisodeService {
 
     @CircuitBreaker(name = "bulkOperation", fallbackMethod = "bulkDeleteEpisodesFallback")
     @RateLimiter(name = "bulkOperation")
+    @Bulkhead(name = "bulkOperation")
+    @Transactional
     public Mono<Void> bulkDeleteEpisodes(List<UUID> ids) {
         log.debug("Performing bulk delete operation for {} episodes", ids.size());
         return Flux.fromIterable(ids)
-                .flatMap(this::deleteEpisode)
+                .concatMap(this::deleteEpisode)
                 .then();
     }
 
@@ -135,10 +150,12 @@ public class SeriesEpisodeService {
 
     @CircuitBreaker(name = "bulkOperation", fallbackMethod = "bulkUpdateEpisodesFallback")
     @RateLimiter(name = "bulkOperation")
+    @Bulkhead(name = "bulkOperation")
+    @Transactional
     public Flux<SeriesEpisodeDTO> bulkUpdateEpisodes(List<SeriesEpisodeDTO> episodeDTOs) {
         log.debug("Performing bulk update operation for {} episodes", episodeDTOs.size());
         return Flux.fromIterable(episodeDTOs)
-                .flatMap(dto -> createOrUpdateEpisode(Mono.just(dto)));
+                .concatMap(dto -> createOrUpdateEpisode(Mono.just(dto)));
     }
 
     public Flux<SeriesEpisodeDTO> bulkUpdateEpisodesFallback(List<SeriesEpisodeDTO> episodeDTOs, Throwable t) {
@@ -150,6 +167,25 @@ public class SeriesEpisodeService {
         return episodeRepository.count();
     }
 
+    private Mono<SeriesEpisode> writeEpisode(SeriesEpisode episode) {
+        return episodeRepository.saveOrUpdate(episode)
+                .flatMap(saved -> auditOutbox.recordUpsert(saved)
+                        .then(UpsertCounts.tally(saved, Boolean.TRUE.equals(saved.getInserted()) ? UpsertOutcome.INSERTED : UpsertOutcome.UPDATED)))
+                // El guard IS DISTINCT FROM del upsert no devuelve fila si nada cambió
+                .switchIfEmpty(Mono.defer(() -> episodeRepository.findBySeriesIdAndSeasonNumberAndEpisodeNumber(
+                                episode.getSeriesId(), episode.getSeasonNumber(), episode.getEpisodeNumber())
+                        .flatMap(stored -> UpsertCounts.tally(stored, UpsertOutcome.UNCHANGED))));
+    }
+
+    public Mono<Void> patchEpisode(UUID id, Map<String, Object> patch) {
+        log.debug("Patching episode with id: {}, fields: {}", id, patch.keySet());
+        return mediaPatchService.patch(SeriesEpisode.class, SeriesEpisodeDTO.class, id, patch)
+                .switchIfEmpty(Mono.error(new EpisodeNotFoundException("Episode not found with id: " + id)))
+                .then()
+                .doOnSuccess(__ -> log.info("Successfully patched episode with id: {}", id))
+                .doOnError(error -> log.error("Error patching episode with id: {}", id, error));
+    }
+
     private Mono<SeriesEpisodeDTO> validateEpisode(SeriesEpisodeDTO episodeDTO) {
         return Mono.fromSupplier(() -> {
             Errors errors = new BeanPropertyBindingResult(episodeDTO, "episodeDTO");
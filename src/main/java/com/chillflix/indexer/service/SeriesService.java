@@ -1,17 +1,33 @@
 package com.chillflix.indexer.service;
 
+import com.chillflix.indexer.audit.AuditOutbox;
+import com.chillflix.indexer.dedupe.ContentComparison;
+import com.chillflix.indexer.dedupe.KnownContentIndex;
+import com.chillflix.indexer.dedupe.UpsertCounts;
+import com.chillflix.indexer.dedupe.UpsertOutcome;
 import com.chillflix.indexer.dto.SeriesDTO;
+import com.chillflix.indexer.entities.Series;
+import com.chillflix.indexer.exception.SearchUnavailableException;
 import com.chillflix.indexer.exception.SeriesNotFoundException;
 import com.chillflix.indexer.exception.ValidationException;
 import com.chillflix.indexer.mapper.SeriesMapper;
+import com.chillflix.indexer.models.MediaType;
+import com.chillflix.indexer.projection.FieldSet;
+import com.chillflix.indexer.projection.ProjectedQueries;
 import com.chillflix.indexer.repository.SeriesRepository;
+import com.chillflix.indexer.util.MagnetParser;
 import com.chillflix.indexer.util.SeriesValidationUtil;
 
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.ratelimiter.annotation.RateLimiter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -23,30 +39,46 @@ import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
-@Transactional
 public class SeriesService {
 
     private final SeriesRepository seriesRepository;
     private final SeriesMapper seriesMapper;
     private final Validator validator;
+    private final MediaPatchService mediaPatchService;
     private final SeriesValidationUtil seriesValidationUtil;
+    private final KnownContentIndex knownContentIndex;
+    private final AuditOutbox auditOutbox;
+    private final CacheManager cacheManager;
+    private final ProjectedQueries projectedQueries;
 
     @CircuitBreaker(name = "searchSeries", fallbackMethod = "searchSeriesFallback")
-    @RateLimiter(name = "searchSeries")
     public Flux<SeriesDTO> searchSeries(String searchTerm, Pageable pageable) {
-        log.debug("Searching series with term: {}", searchTerm);
-        return seriesRepository.searchSeries(searchTerm, pageable.getPageSize(), pageable.getOffset())
-                .map(seriesMapper::toDto);
+        return searchSeries(searchTerm, pageable, FieldSet.ALL);
     }
 
     public Flux<SeriesDTO> searchSeriesFallback(String searchTerm, Pageable pageable, Throwable t) {
         log.error("Fallback: Error searching series", t);
-        return Flux.empty();
+        return Flux.error(new SearchUnavailableException(t));
+    }
+
+    @CircuitBreaker(name = "searchSeries", fallbackMethod = "searchSeriesFallback")
+    public Flux<SeriesDTO> searchSeries(String searchTerm, Pageable pageable, FieldSet fields) {
+        log.debug("Searching series with term: {}", searchTerm);
+        return select(fields, () -> seriesRepository.searchSeries(searchTerm, pageable.getPageSize(), pageable.getOffset()),
+                "searchSeries", searchTerm, pageable.getPageSize(), pageable.getOffset())
+                .map(seriesMapper::toDto);
+    }
+
+    public Flux<SeriesDTO> searchSeriesFallback(String searchTerm, Pageable pageable, FieldSet fields, Throwable t) {
+        return searchSeriesFallback(searchTerm, pageable, t);
     }
 
     @Cacheable(cacheNames = "seriesCache", key = "#id")
@@ -57,18 +89,42 @@ public class SeriesService {
                 .switchIfEmpty(Mono.error(new SeriesNotFoundException("Series not found with id: " + id)));
     }
 
+    // Sin caché: la recarga de claves calientes escribe cada resultado en la suya
+    public Flux<SeriesDTO> getSeriesByIds(List<UUID> ids) {
+        log.debug("Fetching {} series by id", ids.size());
+        return seriesRepository.findAllByIdIn(ids.toArray(UUID[]::new))
+                .map(seriesMapper::toDto);
+    }
+
+    // Paginación por clave: recorrer el catálogo entero no degrada con la profundidad como OFFSET
+    public Flux<SeriesDTO> getSeriesAfter(UUID after, int limit) {
+        log.debug("Fetching {} series after {}", limit, after);
+        return seriesRepository.findPageAfter(after, limit)
+                .map(seriesMapper::toDto);
+    }
+
     public Flux<SeriesDTO> getSeriesByTmdbId(Integer tmdbId) {
+        return getSeriesByTmdbId(tmdbId, FieldSet.ALL);
+    }
+
+    public Flux<SeriesDTO> getSeriesByTmdbId(Integer tmdbId, FieldSet fields) {
         log.debug("Fetching series with TMDB id: {}", tmdbId);
-        return seriesRepository.findByTmdbId(tmdbId)
+        return select(fields, () -> seriesRepository.findByTmdbId(tmdbId), "findByTmdbId", tmdbId)
                 .map(seriesMapper::toDto);
     }
     
     public Flux<SeriesDTO> getSeriesByImdbId(String imdbId) {
+        return getSeriesByImdbId(imdbId, FieldSet.ALL);
+    }
+
+    public Flux<SeriesDTO> getSeriesByImdbId(String imdbId, FieldSet fields) {
         log.debug("Fetching series with IMDB id: {}", imdbId);
-        return seriesRepository.findByImdbId(imdbId)
+        return select(fields, () -> seriesRepository.findByImdbId(imdbId), "findByImdbId", imdbId)
                 .map(seriesMapper::toDto);
     }
 
+    @Transactional
+    @Caching(evict = {@CacheEvict(cacheNames = "seriesCache", key = "#result.id()"), @CacheEvict(cacheNames = "allSeriesCache", allEntries = true)})
     public Mono<SeriesDTO> saveSeries(Mono<SeriesDTO> seriesDTO) {
         log.debug("Saving new series");
         return seriesDTO
@@ -77,13 +133,15 @@ public class SeriesService {
                 .flatMap(series -> {
                     series.setCreatedAt(LocalDateTime.now());
                     series.setUpdatedAt(LocalDateTime.now());
-                    return seriesRepository.saveOrUpdate(series);
+                    return upsertIfChanged(series);
                 })
                 .map(seriesMapper::toDto)
                 .doOnSuccess(savedSeries -> log.info("Successfully saved series with id: {}", savedSeries.id()))
                 .doOnError(error -> log.error("Error saving series", error));
     }
 
+    @Transactional
+    @Caching(evict = {@CacheEvict(cacheNames = "seriesCache", key = "#id"), @CacheEvict(cacheNames = "allSeriesCache", allEntries = true)})
     public Mono<SeriesDTO> updateSeries(UUID id, Mono<SeriesDTO> seriesDTO) {
         log.debug("Updating series with id: {}", id);
         return seriesRepository.findById(id)
@@ -95,20 +153,24 @@ public class SeriesService {
                                     return existingSeries;
                                 })
                 )
-                .flatMap(seriesRepository::saveOrUpdate)
+                .flatMap(this::writeSeries)
                 .map(seriesMapper::toDto)
                 .switchIfEmpty(Mono.error(new SeriesNotFoundException("Series not found with id: " + id)))
                 .doOnSuccess(updatedSeries -> log.info("Successfully updated series with id: {}", updatedSeries.id()))
                 .doOnError(error -> log.error("Error updating series with id: {}", id, error));
     }
 
+    @Caching(evict = {@CacheEvict(cacheNames = "seriesCache", key = "#id"), @CacheEvict(cacheNames = "allSeriesCache", allEntries = true)})
     public Mono<Void> deleteSeries(UUID id) {
         log.debug("Deleting series with id: {}", id);
         return seriesRepository.deleteById(id)
+                .then(auditOutbox.recordDelete(Series.class, id))
                 .doOnSuccess(__ -> log.info("Successfully deleted series with id: {}", id))
                 .doOnError(error -> log.error("Error deleting series with id: {}", id, error));
     }
 
+    @Transactional
+    @Caching(evict = {@CacheEvict(cacheNames = "seriesCache", key = "#result.id()"), @CacheEvict(cacheNames = "allSeriesCache", allEntries = true)})
     public Mono<SeriesDTO> createOrUpdateSeries(Mono<SeriesDTO> seriesDTO) {
         return seriesDTO.flatMap(dto -> {
             if (dto.id() != null) {
@@ -131,14 +193,24 @@ public class SeriesService {
     }
 
     public Flux<SeriesDTO> getSeriesByYear(int year, Pageable pageable) {
+        return getSeriesByYear(year, pageable, FieldSet.ALL);
+    }
+
+    public Flux<SeriesDTO> getSeriesByYear(int year, Pageable pageable, FieldSet fields) {
         log.debug("Fetching series for year: {}", year);
-        return seriesRepository.findByYear(year, pageable.getPageSize(), pageable.getOffset())
+        return select(fields, () -> seriesRepository.findByYear(year, pageable.getPageSize(), pageable.getOffset()),
+                "findByYear", year, pageable.getPageSize(), pageable.getOffset())
                 .map(seriesMapper::toDto);
     }
 
     public Flux<SeriesDTO> getSeriesByLanguage(String language, Pageable pageable) {
+        return getSeriesByLanguage(language, pageable, FieldSet.ALL);
+    }
+
+    public Flux<SeriesDTO> getSeriesByLanguage(String language, Pageable pageable, FieldSet fields) {
         log.debug("Fetching series in language: {}", language);
-        return seriesRepository.findByLanguage(language, pageable.getPageSize(), pageable.getOffset())
+        return select(fields, () -> seriesRepository.findByLanguage(language, pageable.getPageSize(), pageable.getOffset()),
+                "findByLanguage", language, pageable.getPageSize(), pageable.getOffset())
                 .map(seriesMapper::toDto);
     }
 
@@ -148,9 +220,11 @@ public class SeriesService {
                 .map(seriesMapper::toDto);
     }
 
+    @CacheEvict(cacheNames = {"seriesCache", "allSeriesCache"}, allEntries = true)
     public Mono<Void> deleteSeriesByIds(List<UUID> ids) {
         log.debug("Deleting series with ids: {}", ids);
         return seriesRepository.deleteAllByIdIn(ids)
+                .then(auditOutbox.recordSoftDelete(Series.class, ids))
                 .doOnSuccess(__ -> log.info("Successfully deleted series with ids: {}", ids))
                 .doOnError(error -> log.error("Error deleting series with ids: {}", ids, error));
     }
@@ -180,6 +254,7 @@ public class SeriesService {
     }
 
     @Transactional
+    @Caching(evict = {@CacheEvict(cacheNames = "seriesCache", key = "#result.id()"), @CacheEvict(cacheNames = "allSeriesCache", allEntries = true)})
     public Mono<SeriesDTO> saveOrUpdateSeries(SeriesDTO seriesDTO) {
         log.debug("Saving or updating series: {}", seriesDTO);
         return Mono.just(seriesDTO)
@@ -190,13 +265,98 @@ public class SeriesService {
                     if (series.getCreatedAt() == null) {
                         series.setCreatedAt(LocalDateTime.now());
                     }
-                    return seriesRepository.saveOrUpdate(series);
+                    return upsertIfChanged(series);
                 })
                 .map(seriesMapper::toDto)
                 .doOnSuccess(savedSeries -> log.info("Successfully saved/updated series with id: {}", savedSeries.id()))
                 .doOnError(error -> log.error("Error saving/updating series", error));
     }
 
+    // Los re-envíos de contenido ya indexado y sin cambios no se escriben, así se evitan el
+    // upsert y los triggers de búsqueda, fecha de modificación y auditoría
+    private Mono<Series> upsertIfChanged(Series series) {
+        Optional<KnownContentIndex.Outcome> unscreened = KnownContentIndex.unscreened(series.getSha256Hash(), series.getMagnet());
+        if (unscreened.isPresent()) {
+            // Sin sha256 ni info hash v1 en hex (p. ej. un magnet solo btmh o en base32) no hay clave con la que buscar duplicados
+            knownContentIndex.record(MediaType.SERIES, unscreened.get());
+            return writeSeries(series);
+        }
+        if (!knownContentIndex.mightContain(MediaType.SERIES, series.getSha256Hash(), series.getMagnet())) {
+            knownContentIndex.record(MediaType.SERIES, KnownContentIndex.Outcome.FILTER_MISS);
+            return writeSeries(series);
+        }
+        return findDuplicate(series)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(duplicate -> {
+                    if (duplicate.isEmpty()) {
+                        knownContentIndex.record(MediaType.SERIES, KnownContentIndex.Outcome.FALSE_POSITIVE);
+                        return writeSeries(series);
+                    }
+                    Series stored = duplicate.get();
+                    if (ContentComparison.sameContent(stored, series)) {
+                        knownContentIndex.record(MediaType.SERIES, KnownContentIndex.Outcome.UNCHANGED);
+                        log.debug("Skipping unchanged series with id: {}", stored.getId());
+                        return UpsertCounts.tally(stored, UpsertOutcome.UNCHANGED);
+                    }
+                    knownContentIndex.record(MediaType.SERIES, KnownContentIndex.Outcome.CHANGED);
+                    series.setId(stored.getId());
+                    series.setCreatedAt(stored.getCreatedAt());
+                    return writeSeries(series);
+                });
+    }
+
+    private Mono<Series> findDuplicate(Series series) {
+        Mono<Series> duplicate;
+        if (series.getSha256Hash() != null) {
+            duplicate = seriesRepository.findBySha256Hash(series.getSha256Hash());
+        } else {
+            String infoHash = MagnetParser.infoHash(series.getMagnet());
+            if (infoHash == null) {
+                return Mono.empty();
+            }
+            duplicate = seriesRepository.findByInfoHash(infoHash);
+        }
+        // Un id explícito distinto es otra fila, no un re-envío
+        return duplicate.filter(stored -> series.getId() == null || series.getId().equals(stored.getId()));
+    }
+
+    private Mono<Series> writeSeries(Series series) {
+        return seriesRepository.saveOrUpdate(series)
+                .flatMap(saved -> {
+                    knownContentIndex.register(MediaType.SERIES, saved.getSha256Hash(), saved.getMagnet());
+                    return auditOutbox.recordUpsert(saved).then(UpsertCounts.tally(saved, Boolean.TRUE.equals(saved.getInserted()) ? UpsertOutcome.INSERTED : UpsertOutcome.UPDATED));
+                })
+                // El guard IS DISTINCT FROM del upsert no devuelve fila si nada cambió
+                .switchIfEmpty(Mono.defer(() -> Mono.justOrEmpty(series.getId())
+                        .flatMap(seriesRepository::findById)
+                        .flatMap(stored -> UpsertCounts.tally(stored, UpsertOutcome.UNCHANGED))));
+    }
+
+    @Caching(evict = {@CacheEvict(cacheNames = "seriesCache", key = "#id"), @CacheEvict(cacheNames = "allSeriesCache", allEntries = true)})
+    public Mono<Void> patchSeries(UUID id, Map<String, Object> patch) {
+        log.debug("Patching series with id: {}, fields: {}", id, patch.keySet());
+        return mediaPatchService.patch(Series.class, SeriesDTO.class, id, patch)
+                .switchIfEmpty(Mono.error(new SeriesNotFoundException("Series not found with id: " + id)))
+                .doOnNext(values -> {
+                    if (values.containsKey("sha256Hash") || values.containsKey("magnet")) {
+                        knownContentIndex.register(MediaType.SERIES, (String) values.get("sha256Hash"), (String) values.get("magnet"));
+                    }
+                })
+                .then()
+                .doOnSuccess(__ -> log.info("Successfully patched series with id: {}", id))
+                .doOnError(error -> log.error("Error patching series with id: {}", id, error));
+    }
+
+    private void clearCaches() {
+        for (String name : List.of("seriesCache", "allSeriesCache")) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+    }
+
     private Mono<SeriesDTO> validateSeries(SeriesDTO seriesDTO) {
         return Mono.fromSupplier(() -> {
             Errors errors = new BeanPropertyBindingResult(seriesDTO, "seriesDTO");
@@ -210,10 +370,13 @@ public class SeriesService {
 
     @CircuitBreaker(name = "bulkOperation", fallbackMethod = "bulkDeleteSeriesFallback")
     @RateLimiter(name = "bulkOperation")
+    @Bulkhead(name = "bulkOperation")
+    @Transactional
+    @CacheEvict(cacheNames = {"seriesCache", "allSeriesCache"}, allEntries = true)
     public Mono<Void> bulkDeleteSeries(List<UUID> ids) {
         log.debug("Performing bulk delete operation for {} series", ids.size());
         return Flux.fromIterable(ids)
-                .flatMap(this::deleteSeries)
+                .concatMap(this::deleteSeries)
                 .then();
     }
 
@@ -224,10 +387,14 @@ public class SeriesService {
 
     @CircuitBreaker(name = "bulkOperation", fallbackMethod = "bulkUpdateSeriesFallback")
     @RateLimiter(name = "bulkOperation")
+    @Bulkhead(name = "bulkOperation")
+    @Transactional
     public Flux<SeriesDTO> bulkUpdateSeries(List<SeriesDTO> seriesDTOs) {
         log.debug("Performing bulk update operation for {} series", seriesDTOs.size());
         return Flux.fromIterable(seriesDTOs)
-                .flatMap(dto -> saveOrUpdateSeries(dto));
+                .concatMap(dto -> saveOrUpdateSeries(dto))
+                // @CacheEvict sobre un Flux solo deja pasar el primer elemento, así que se vacían aquí
+                .doFinally(signal -> clearCaches());
     }
 
     public Flux<SeriesDTO> bulkUpdateSeriesFallback(List<SeriesDTO> seriesDTOs, Throwable t) {
@@ -236,7 +403,18 @@ public class SeriesService {
     }
 
     public Flux<SeriesDTO> advancedSearch(String title, Integer year, String language, String quality, String network, String fileType, Pageable pageable) {
-        return seriesRepository.advancedSearch(title, year, language, quality, network, fileType, pageable.getPageSize(), pageable.getOffset())
+        return advancedSearch(title, year, language, quality, network, fileType, pageable, FieldSet.ALL);
+    }
+
+    public Flux<SeriesDTO> advancedSearch(String title, Integer year, String language, String quality, String network, String fileType, Pageable pageable,
+                                          FieldSet fields) {
+        return select(fields, () -> seriesRepository.advancedSearch(title, year, language, quality, network, fileType, pageable.getPageSize(), pageable.getOffset()),
+                "advancedSearch", title, year, language, quality, network, fileType, pageable.getPageSize(), pageable.getOffset())
                 .map(seriesMapper::toDto);
     }
+
+    // Con un subconjunto de campos, la misma consulta del repositorio leyendo solo sus columnas
+    private Flux<Series> select(FieldSet fields, Supplier<Flux<Series>> all, String query, Object... args) {
+        return fields.isAll() ? all.get() : projectedQueries.find(Series.class, fields, SeriesRepository.class, query, args);
+    }
 }
\ No newline at end of file
@@ -1,17 +1,31 @@
 package com.chillflix.indexer.service;
 
+import com.chillflix.indexer.audit.AuditOutbox;
+import com.chillflix.indexer.dedupe.ContentComparison;
+import com.chillflix.indexer.dedupe.KnownContentIndex;
+import com.chillflix.indexer.dedupe.UpsertCounts;
+import com.chillflix.indexer.dedupe.UpsertOutcome;
 import com.chillflix.indexer.dto.VideoGameDTO;
+import com.chillflix.indexer.entities.VideoGame;
+import com.chillflix.indexer.exception.SearchUnavailableException;
 import com.chillflix.indexer.exception.VideoGameNotFoundException;
 import com.chillflix.indexer.exception.ValidationException;
 import com.chillflix.indexer.mapper.VideoGameMapper;
+import com.chillflix.indexer.models.MediaType;
 import com.chillflix.indexer.repository.VideoGameRepository;
+import com.chillflix.indexer.util.MagnetParser;
 import com.chillflix.indexer.util.VideoGameValidationUtil;
 
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.ratelimiter.annotation.RateLimiter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -23,21 +37,25 @@ import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
-@Transactional
 public class VideoGameService {
 
     private final VideoGameRepository videoGameRepository;
     private final VideoGameMapper videoGameMapper;
     private final Validator validator;
+    private final MediaPatchService mediaPatchService;
     private final VideoGameValidationUtil videoGameValidationUtil;
+    private final KnownContentIndex knownContentIndex;
+    private final AuditOutbox auditOutbox;
+    private final CacheManager cacheManager;
 
     @CircuitBreaker(name = "searchVideoGames", fallbackMethod = "searchVideoGamesFallback")
-    @RateLimiter(name = "searchVideoGames")
     public Flux<VideoGameDTO> searchVideoGames(String searchTerm, Pageable pageable) {
         log.debug("Searching video games with term: {}", searchTerm);
         return videoGameRepository.searchVideoGames(searchTerm, pageable.getPageSize(), pageable.getOffset())
@@ -46,7 +64,7 @@ public class VideoGameService {
 
     public Flux<VideoGameDTO> searchVideoGamesFallback(String searchTerm, Pageable pageable, Throwable t) {
         log.error("Fallback: Error searching video games", t);
-        return Flux.empty();
+        return Flux.error(new SearchUnavailableException(t));
     }
 
     @Cacheable(cacheNames = "videoGameCache", key = "#id")
@@ -57,6 +75,20 @@ public class VideoGameService {
                 .switchIfEmpty(Mono.error(new VideoGameNotFoundException("Video game not found with id: " + id)));
     }
 
+    // Sin caché: la recarga de claves calientes escribe cada resultado en la suya
+    public Flux<VideoGameDTO> getVideoGamesByIds(List<UUID> ids) {
+        log.debug("Fetching {} video games by id", ids.size());
+        return videoGameRepository.findAllByIdIn(ids.toArray(UUID[]::new))
+                .map(videoGameMapper::toDto);
+    }
+
+    // Paginación por clave: recorrer el catálogo entero no degrada con la profundidad como OFFSET
+    public Flux<VideoGameDTO> getVideoGamesAfter(UUID after, int limit) {
+        log.debug("Fetching {} video game after {}", limit, after);
+        return videoGameRepository.findPageAfter(after, limit)
+                .map(videoGameMapper::toDto);
+    }
+
     public Flux<VideoGameDTO> getVideoGamesByPlatform(String platform, Pageable pageable) {
         log.debug("Fetching video games with platform: {}", platform);
         return videoGameRepository.findByPlatform(platform, pageable.getPageSize(), pageable.getOffset())
@@ -69,6 +101,8 @@ public class VideoGameService {
                 .map(videoGameMapper::toDto);
     }
 
+    @Transactional
+    @Caching(evict = {@CacheEvict(cacheNames = "videoGameCache", key = "#result.id()"), @CacheEvict(cacheNames = "allVideoGamesCache", allEntries = true)})
     public Mono<VideoGameDTO> saveVideoGame(Mono<VideoGameDTO> videoGameDTO) {
         log.debug("Saving new video game");
         return videoGameDTO
@@ -77,13 +111,15 @@ public class VideoGameService {
                 .flatMap(videoGame -> {
                     videoGame.setCreatedAt(LocalDateTime.now());
                     videoGame.setUpdatedAt(LocalDateTime.now());
-                    return videoGameRepository.saveOrUpdate(videoGame);
+                    return upsertIfChanged(videoGame);
                 })
                 .map(videoGameMapper::toDto)
                 .doOnSuccess(savedVideoGame -> log.info("Successfully saved video game with id: {}", savedVideoGame.id()))
                 .doOnError(error -> log.error("Error saving video game", error));
     }
 
+    @Transactional
+    @Caching(evict = {@CacheEvict(cacheNames = "videoGameCache", key = "#id"), @CacheEvict(cacheNames = "allVideoGamesCache", allEntries = true)})
     public Mono<VideoGameDTO> updateVideoGame(UUID id, Mono<VideoGameDTO> videoGameDTO) {
         log.debug("Updating video game with id: {}", id);
         return videoGameRepository.findById(id)
@@ -95,20 +131,24 @@ public class VideoGameService {
                                     return existingVideoGame;
                                 })
                 )
-                .flatMap(videoGameRepository::saveOrUpdate)
+                .flatMap(this::writeVideoGame)
                 .map(videoGameMapper::toDto)
                 .switchIfEmpty(Mono.error(new VideoGameNotFoundException("Video game not found with id: " + id)))
                 .doOnSuccess(updatedVideoGame -> log.info("Successfully updated video game with id: {}", updatedVideoGame.id()))
                 .doOnError(error -> log.error("Error updating video game with id: {}", id, error));
     }
 
+    @Caching(evict = {@CacheEvict(cacheNames = "videoGameCache", key = "#id"), @CacheEvict(cacheNames = "allVideoGamesCache", allEntries = true)})
     public Mono<Void> deleteVideoGame(UUID id) {
         log.debug("Deleting video game with id: {}", id);
         return videoGameRepository.deleteById(id)
+                .then(auditOutbox.recordDelete(VideoGame.class, id))
                 .doOnSuccess(__ -> log.info("Successfully deleted video game with id: {}", id))
                 .doOnError(error -> log.error("Error deleting video game with id: {}", id, error));
     }
 
+    @Transactional
+    @Caching(evict = {@CacheEvict(cacheNames = "videoGameCache", key = "#result.id()"), @CacheEvict(cacheNames = "allVideoGamesCache", allEntries = true)})
     public Mono<VideoGameDTO> createOrUpdateVideoGame(Mono<VideoGameDTO> videoGameDTO) {
         return videoGameDTO.flatMap(dto -> {
             if (dto.id() != null) {
@@ -149,6 +189,7 @@ public class VideoGameService {
     }
 
     @Transactional
+    @Caching(evict = {@CacheEvict(cacheNames = "videoGameCache", key = "#result.id()"), @CacheEvict(cacheNames = "allVideoGamesCache", allEntries = true)})
     public Mono<VideoGameDTO> saveOrUpdateVideoGame(VideoGameDTO videoGameDTO) {
         log.debug("Saving or updating video game: {}", videoGameDTO);
         return Mono.just(videoGameDTO)
@@ -159,13 +200,98 @@ public class VideoGameService {
                     if (videoGame.getCreatedAt() == null) {
                         videoGame.setCreatedAt(LocalDateTime.now());
                     }
-                    return videoGameRepository.saveOrUpdate(videoGame);
+                    return upsertIfChanged(videoGame);
                 })
                 .map(videoGameMapper::toDto)
                 .doOnSuccess(savedVideoGame -> log.info("Successfully saved/updated video game with id: {}", savedVideoGame.id()))
                 .doOnError(error -> log.error("Error saving/updating video game", error));
     }
 
+    // Los re-envíos de contenido ya indexado y sin cambios no se escriben, así se evitan el
+    // upsert y los triggers de búsqueda, fecha de modificación y auditoría
+    private Mono<VideoGame> upsertIfChanged(VideoGame videoGame) {
+        Optional<KnownContentIndex.Outcome> unscreened = KnownContentIndex.unscreened(videoGame.getSha256Hash(), videoGame.getMagnet());
+        if (unscreened.isPresent()) {
+            // Sin sha256 ni info hash v1 en hex (p. ej. un magnet solo btmh o en base32) no hay clave con la que buscar duplicados
+            knownContentIndex.record(MediaType.VIDEOGAME, unscreened.get());
+            return writeVideoGame(videoGame);
+        }
+        if (!knownContentIndex.mightContain(MediaType.VIDEOGAME, videoGame.getSha256Hash(), videoGame.getMagnet())) {
+            knownContentIndex.record(MediaType.VIDEOGAME, KnownContentIndex.Outcome.FILTER_MISS);
+            return writeVideoGame(videoGame);
+        }
+        return findDuplicate(videoGame)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(duplicate -> {
+                    if (duplicate.isEmpty()) {
+                        knownContentIndex.record(MediaType.VIDEOGAME, KnownContentIndex.Outcome.FALSE_POSITIVE);
+                        return writeVideoGame(videoGame);
+                    }
+                    VideoGame stored = duplicate.get();
+                    if (ContentComparison.sameContent(stored, videoGame)) {
+                        knownContentIndex.record(MediaType.VIDEOGAME, KnownContentIndex.Outcome.UNCHANGED);
+                        log.debug("Skipping unchanged video game with id: {}", stored.getId());
+                        return UpsertCounts.tally(stored, UpsertOutcome.UNCHANGED);
+                    }
+                    knownContentIndex.record(MediaType.VIDEOGAME, KnownContentIndex.Outcome.CHANGED);
+                    videoGame.setId(stored.getId());
+                    videoGame.setCreatedAt(stored.getCreatedAt());
+                    return writeVideoGame(videoGame);
+                });
+    }
+
+    private Mono<VideoGame> findDuplicate(VideoGame videoGame) {
+        Mono<VideoGame> duplicate;
+        if (videoGame.getSha256Hash() != null) {
+            duplicate = videoGameRepository.findBySha256Hash(videoGame.getSha256Hash());
+        } else {
+            String infoHash = MagnetParser.infoHash(videoGame.getMagnet());
+            if (infoHash == null) {
+                return Mono.empty();
+            }
+            duplicate = videoGameRepository.findByInfoHash(infoHash);
+        }
+        // Un id explícito distinto es otra fila, no un re-envío
+        return duplicate.filter(stored -> videoGame.getId() == null || videoGame.getId().equals(stored.getId()));
+    }
+
+    private Mono<VideoGame> writeVideoGame(VideoGame videoGame) {
+        return videoGameRepository.saveOrUpdate(videoGame)
+                .flatMap(saved -> {
+                    knownContentIndex.register(MediaType.VIDEOGAME, saved.getSha256Hash(), saved.getMagnet());
+                    return auditOutbox.recordUpsert(saved).then(UpsertCounts.tally(saved, Boolean.TRUE.equals(saved.getInserted()) ? UpsertOutcome.INSERTED : UpsertOutcome.UPDATED));
+                })
+                // El guard IS DISTINCT FROM del upsert no devuelve fila si nada cambió
+                .switchIfEmpty(Mono.defer(() -> Mono.justOrEmpty(videoGame.getId())
+                        .flatMap(videoGameRepository::findById)
+                        .flatMap(stored -> UpsertCounts.tally(stored, UpsertOutcome.UNCHANGED))));
+    }
+
+    @Caching(evict = {@CacheEvict(cacheNames = "videoGameCache", key = "#id"), @CacheEvict(cacheNames = "allVideoGamesCache", allEntries = true)})
+    public Mono<Void> patchVideoGame(UUID id, Map<String, Object> patch) {
+        log.debug("Patching video game with id: {}, fields: {}", id, patch.keySet());
+        return mediaPatchService.patch(VideoGame.class, VideoGameDTO.class, id, patch)
+                .switchIfEmpty(Mono.error(new VideoGameNotFoundException("Video game not found with id: " + id)))
+                .doOnNext(values -> {
+                    if (values.containsKey("sha256Hash") || values.containsKey("magnet")) {
+                        knownContentIndex.register(MediaType.VIDEOGAME, (String) values.get("sha256Hash"), (String) values.get("magnet"));
+                    }
+                })
+                .then()
+                .doOnSuccess(__ -> log.info("Successfully patched video game with id: {}", id))
+                .doOnError(error -> log.error("Error patching video game with id: {}", id, error));
+    }
+
+    private void clearCaches() {
+        for (String name : List.of("videoGameCache", "allVideoGamesCache")) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+    }
+
     private Mono<VideoGameDTO> validateVideoGame(VideoGameDTO videoGameDTO) {
         return Mono.fromSupplier(() -> {
             Errors errors = new BeanPropertyBindingResult(videoGameDTO, "videoGameDTO");
@@ -179,10 +305,13 @@ public class VideoGameService {
 
     @CircuitBreaker(name = "bulkOperation", fallbackMethod = "bulkDeleteVideoGamesFallback")
     @RateLimiter(name = "bulkOperation")
+    @Bulkhead(name = "bulkOperation")
+    @Transactional
+    @CacheEvict(cacheNames = {"videoGameCache", "allVideoGamesCache"}, allEntries = true)
     public Mono<Void> bulkDeleteVideoGames(List<UUID> ids) {
         log.debug("Performing bulk delete operation for {} video games", ids.size());
         return Flux.fromIterable(ids)
-                .flatMap(this::deleteVideoGame)
+                .concatMap(this::deleteVideoGame)
                 .then();
     }
 
@@ -193,10 +322,14 @@ public class VideoGameService {
 
     @CircuitBreaker(name = "bulkOperation", fallbackMethod = "bulkUpdateVideoGamesFallback")
     @RateLimiter(name = "bulkOperation")
+    @Bulkhead(name = "bulkOperation")
+    @Transactional
     public Flux<VideoGameDTO> bulkUpdateVideoGames(List<VideoGameDTO> videoGameDTOs) {
         log.debug("Performing bulk update operation for {} video games", videoGameDTOs.size());
         return Flux.fromIterable(videoGameDTOs)
-                .flatMap(dto -> saveOrUpdateVideoGame(dto));
+                .concatMap(dto -> saveOrUpdateVideoGame(dto))
+                // @CacheEvict sobre un Flux solo deja pasar el primer elemento, así que se vacían aquí
+                .doFinally(signal -> clearCaches());
     }
 
     public Flux<VideoGameDTO> bulkUpdateVideoGamesFallback(List<VideoGameDTO> videoGameDTOs, Throwable t) {
@@ -209,9 +342,11 @@ public class VideoGameService {
                 .map(videoGameMapper::toDto);
     }
 
+    @CacheEvict(cacheNames = {"videoGameCache", "allVideoGamesCache"}, allEntries = true)
     public Mono<Void> deleteVideoGamesByIds(List<UUID> ids) {
         log.debug("Deleting video games with ids: {}", ids);
         return videoGameRepository.deleteAllByIdIn(ids)
+                .then(auditOutbox.recordSoftDelete(VideoGame.class, ids))
                 .doOnSuccess(__ -> log.info("Successfully deleted video games with ids: {}", ids))
                 .doOnError(error -> log.error("Error deleting video games with ids: {}", ids, error));
     }
@@ -1,17 +1,32 @@
 package com.chillflix.indexer.service;
 
+import com.chillflix.indexer.audit.AuditOutbox;
+import com.chillflix.indexer.dedupe.ContentComparison;
+import com.chillflix.indexer.dedupe.KnownContentIndex;
+import com.chillflix.indexer.dedupe.UpsertCounts;
+import com.chillflix.indexer.dedupe.UpsertOutcome;
 import com.chillflix.indexer.dto.VideoDTO;
+import com.chillflix.indexer.entities.Video;
+import com.chillflix.indexer.exception.SearchUnavailableException;
 import com.chillflix.indexer.exception.VideoNotFoundException;
 import com.chillflix.indexer.exception.ValidationException;
 import com.chillflix.indexer.mapper.VideoMapper;
+import com.chillflix.indexer.models.MediaType;
 import com.chillflix.indexer.repository.VideoRepository;
+import com.chillflix.indexer.util.MagnetParser;
 import com.chillflix.indexer.util.VideoValidationUtil;
+import com.chillflix.indexer.validation.ValidationSource;
 
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.ratelimiter.annotation.RateLimiter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -23,21 +38,25 @@ import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
-@Transactional
 public class VideoService {
 
     private final VideoRepository videoRepository;
     private final VideoMapper videoMapper;
     private final Validator validator;
+    private final MediaPatchService mediaPatchService;
     private final VideoValidationUtil videoValidationUtil;
+    private final KnownContentIndex knownContentIndex;
+    private final AuditOutbox auditOutbox;
+    private final CacheManager cacheManager;
 
     @CircuitBreaker(name = "searchVideos", fallbackMethod = "searchVideosFallback")
-    @RateLimiter(name = "searchVideos")
     public Flux<VideoDTO> searchVideos(String searchTerm, Pageable pageable) {
         log.debug("Searching videos with term: {}", searchTerm);
         return videoRepository.searchVideos(searchTerm, pageable.getPageSize(), pageable.getOffset())
@@ -46,7 +65,7 @@ public class VideoService {
 
     public Flux<VideoDTO> searchVideosFallback(String searchTerm, Pageable pageable, Throwable t) {
         log.error("Fallback: Error searching videos", t);
-        return Flux.empty();
+        return Flux.error(new SearchUnavailableException(t));
     }
 
     @Cacheable(cacheNames = "videoCache", key = "#id")
@@ -57,6 +76,20 @@ public class VideoService {
                 .switchIfEmpty(Mono.error(new VideoNotFoundException("Video not found with id: " + id)));
     }
 
+    // Sin caché: la recarga de claves calientes escribe cada resultado en la suya
+    public Flux<VideoDTO> getVideosByIds(List<UUID> ids) {
+        log.debug("Fetching {} videos by id", ids.size());
+        return videoRepository.findAllByIdIn(ids.toArray(UUID[]::new))
+                .map(videoMapper::toDto);
+    }
+
+    // Paginación por clave: recorrer el catálogo entero no degrada con la profundidad como OFFSET
+    public Flux<VideoDTO> getVideosAfter(UUID after, int limit) {
+        log.debug("Fetching {} videos after {}", limit, after);
+        return videoRepository.findPageAfter(after, limit)
+                .map(videoMapper::toDto);
+    }
+
     public Flux<VideoDTO> getVideosByYear(int year, Pageable pageable) {
         log.debug("Fetching videos for year: {}", year);
         return videoRepository.findByYear(year, pageable.getPageSize(), pageable.getOffset())
@@ -81,46 +114,54 @@ public class VideoService {
                 .map(videoMapper::toDto);
     }
 
+    @Transactional
+    @Caching(evict = {@CacheEvict(cacheNames = "videoCache", key = "#result.id()"), @CacheEvict(cacheNames = "allVideosCache", allEntries = true)})
     public Mono<VideoDTO> saveVideo(Mono<VideoDTO> videoDTO) {
         log.debug("Saving new video");
         return videoDTO
-                .flatMap(this::validateVideo)
+                .flatMap(dto -> validateVideo(dto, ValidationSource.API))
                 .map(videoMapper::toEntity)
                 .flatMap(video -> {
                     video.setCreatedAt(LocalDateTime.now());
                     video.setUpdatedAt(LocalDateTime.now());
-                    return videoRepository.saveOrUpdate(video);
+                    return upsertIfChanged(video);
                 })
                 .map(videoMapper::toDto)
                 .doOnSuccess(savedVideo -> log.info("Successfully saved video with id: {}", savedVideo.id()))
                 .doOnError(error -> log.error("Error saving video", error));
     }
 
+    @Transactional
+    @Caching(evict = {@CacheEvict(cacheNames = "videoCache", key = "#id"), @CacheEvict(cacheNames = "allVideosCache", allEntries = true)})
     public Mono<VideoDTO> updateVideo(UUID id, Mono<VideoDTO> videoDTO) {
         log.debug("Updating video with id: {}", id);
         return videoRepository.findById(id)
                 .flatMap(existingVideo ->
-                        videoDTO.flatMap(this::validateVideo)
+                        videoDTO.flatMap(dto -> validateVideo(dto, ValidationSource.API))
                                 .map(dto -> {
                                     videoMapper.updateEntityFromDto(dto, existingVideo);
                                     existingVideo.setUpdatedAt(LocalDateTime.now());
                                     return existingVideo;
                                 })
                 )
-                .flatMap(videoRepository::saveOrUpdate)
+                .flatMap(this::writeVideo)
                 .map(videoMapper::toDto)
                 .switchIfEmpty(Mono.error(new VideoNotFoundException("Video not found with id: " + id)))
                 .doOnSuccess(updatedVideo -> log.info("Successfully updated video with id: {}", updatedVideo.id()))
                 .doOnError(error -> log.error("Error updating video with id: {}", id, error));
     }
 
+    @Caching(evict = {@CacheEvict(cacheNames = "videoCache", key = "#id"), @CacheEvict(cacheNames = "allVideosCache", allEntries = true)})
     public Mono<Void> deleteVideo(UUID id) {
         log.debug("Deleting video with id: {}", id);
         return videoRepository.deleteById(id)
+                .then(auditOutbox.recordDelete(Video.class, id))
                 .doOnSuccess(__ -> log.info("Successfully deleted video with id: {}", id))
                 .doOnError(error -> log.error("Error deleting video with id: {}", id, error));
     }
 
+    @Transactional
+    @Caching(evict = {@CacheEvict(cacheNames = "videoCache", key = "#result.id()"), @CacheEvict(cacheNames = "allVideosCache", allEntries = true)})
     public Mono<VideoDTO> createOrUpdateVideo(Mono<VideoDTO> videoDTO) {
         return videoDTO.flatMap(dto -> {
             if (dto.id() != null) {
@@ -161,52 +202,148 @@ public class VideoService {
     }
 
     @Transactional
+    @Caching(evict = {@CacheEvict(cacheNames = "videoCache", key = "#result.id()"), @CacheEvict(cacheNames = "allVideosCache", allEntries = true)})
     public Mono<VideoDTO> saveOrUpdateVideo(VideoDTO videoDTO) {
+        return saveOrUpdateVideo(videoDTO, ValidationSource.API);
+    }
+
+    // La fuente solo etiqueta las métricas de validación: los rechazos de un bulk no se cuentan como de la API
+    private Mono<VideoDTO> saveOrUpdateVideo(VideoDTO videoDTO, ValidationSource source) {
         log.debug("Saving or updating video: {}", videoDTO);
         return Mono.just(videoDTO)
-                .flatMap(this::validateVideo)
+                .flatMap(dto -> validateVideo(dto, source))
                 .map(videoMapper::toEntity)
                 .flatMap(video -> {
                     video.setUpdatedAt(LocalDateTime.now());
                     if (video.getCreatedAt() == null) {
                         video.setCreatedAt(LocalDateTime.now());
                     }
-                    return videoRepository.saveOrUpdate(video);
+                    return upsertIfChanged(video);
                 })
                 .map(videoMapper::toDto)
                 .doOnSuccess(savedVideo -> log.info("Successfully saved/updated video with id: {}", savedVideo.id()))
                 .doOnError(error -> log.error("Error saving/updating video", error));
     }
 
-    private Mono<VideoDTO> validateVideo(VideoDTO videoDTO) {
+    // Los re-envíos de contenido ya indexado y sin cambios no se escriben, así se evitan el
+    // upsert y los triggers de búsqueda, fecha de modificación y auditoría
+    private Mono<Video> upsertIfChanged(Video video) {
+        Optional<KnownContentIndex.Outcome> unscreened = KnownContentIndex.unscreened(video.getSha256Hash(), video.getMagnet());
+        if (unscreened.isPresent()) {
+            // Sin sha256 ni info hash v1 en hex (p. ej. un magnet solo btmh o en base32) no hay clave con la que buscar duplicados
+            knownContentIndex.record(MediaType.VIDEO, unscreened.get());
+            return writeVideo(video);
+        }
+        if (!knownContentIndex.mightContain(MediaType.VIDEO, video.getSha256Hash(), video.getMagnet())) {
+            knownContentIndex.record(MediaType.VIDEO, KnownContentIndex.Outcome.FILTER_MISS);
+            return writeVideo(video);
+        }
+        return findDuplicate(video)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(duplicate -> {
+                    if (duplicate.isEmpty()) {
+                        knownContentIndex.record(MediaType.VIDEO, KnownContentIndex.Outcome.FALSE_POSITIVE);
+                        return writeVideo(video);
+                    }
+                    Video stored = duplicate.get();
+                    if (ContentComparison.sameContent(stored, video)) {
+                        knownContentIndex.record(MediaType.VIDEO, KnownContentIndex.Outcome.UNCHANGED);
+                        log.debug("Skipping unchanged video with id: {}", stored.getId());
+                        return UpsertCounts.tally(stored, UpsertOutcome.UNCHANGED);
+                    }
+                    knownContentIndex.record(MediaType.VIDEO, KnownContentIndex.Outcome.CHANGED);
+                    video.setId(stored.getId());
+                    video.setCreatedAt(stored.getCreatedAt());
+                    return writeVideo(video);
+                });
+    }
+
+    private Mono<Video> findDuplicate(Video video) {
+        Mono<Video> duplicate;
+        if (video.getSha256Hash() != null) {
+            duplicate = videoRepository.findBySha256Hash(video.getSha256Hash());
+        } else {
+            String infoHash = MagnetParser.infoHash(video.getMagnet());
+            if (infoHash == null) {
+                return Mono.empty();
+            }
+            duplicate = videoRepository.findByInfoHash(infoHash);
+        }
+        // Un id explícito distinto es otra fila, no un re-envío
+        return duplicate.filter(stored -> video.getId() == null || video.getId().equals(stored.getId()));
+    }
+
+    private Mono<Video> writeVideo(Video video) {
+        return videoRepository.saveOrUpdate(video)
+                .flatMap(saved -> {
+                    knownContentIndex.register(MediaType.VIDEO, saved.getSha256Hash(), saved.getMagnet());
+                    return auditOutbox.recordUpsert(saved).then(UpsertCounts.tally(saved, Boolean.TRUE.equals(saved.getInserted()) ? UpsertOutcome.INSERTED : UpsertOutcome.UPDATED));
+                })
+                // El guard IS DISTINCT FROM del upsert no devuelve fila si nada cambió
+                .switchIfEmpty(Mono.defer(() -> Mono.justOrEmpty(video.getId())
+                        .flatMap(videoRepository::findById)
+                        .flatMap(stored -> UpsertCounts.tally(stored, UpsertOutcome.UNCHANGED))));
+    }
+
+    @Caching(evict = {@CacheEvict(cacheNames = "videoCache", key = "#id"), @CacheEvict(cacheNames = "allVideosCache", allEntries = true)})
+    public Mono<Void> patchVideo(UUID id, Map<String, Object> patch) {
+        log.debug("Patching video with id: {}, fields: {}", id, patch.keySet());
+        return mediaPatchService.patch(Video.class, VideoDTO.class, id, patch)
+                .switchIfEmpty(Mono.error(new VideoNotFoundException("Video not found with id: " + id)))
+                .doOnNext(values -> {
+                    if (values.containsKey("sha256Hash") || values.containsKey("magnet")) {
+                        knownContentIndex.register(MediaType.VIDEO, (String) values.get("sha256Hash"), (String) values.get("magnet"));
+                    }
+                })
+                .then()
+                .doOnSuccess(__ -> log.info("Successfully patched video with id: {}", id))
+                .doOnError(error -> log.error("Error patching video with id: {}", id, error));
+    }
+
+    private void clearCaches() {
+        for (String name : List.of("videoCache", "allVideosCache")) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+    }
+
+    private Mono<VideoDTO> validateVideo(VideoDTO videoDTO, ValidationSource source) {
         return Mono.fromSupplier(() -> {
+            // Un magnet ilegible se cuenta en las métricas con su fuente; lo rechaza @ValidMagnet. El hash
+            // ya viene normalizado a hex en minúsculas, así que no se le exige nada más
+            if (videoDTO.magnet() != null) {
+                videoValidationUtil.extractHashFromMagnet(videoDTO.magnet(), source);
+            }
             Errors errors = new BeanPropertyBindingResult(videoDTO, "videoDTO");
             validator.validate(videoDTO, errors);
             if (errors.hasErrors()) {
                 throw new ValidationException(errors.getAllErrors());
             }
-            // Additional validation for SHA256 hash in magnet link
-            String hash = videoValidationUtil.extractHashFromMagnet(videoDTO.magnet());
-            if (hash != null && !videoValidationUtil.isValidSha256Hash(hash)) {
-                throw new ValidationException("Invalid SHA256 hash in magnet link");
-            }
             return videoDTO;
         });
     }
 
+    @CacheEvict(cacheNames = {"videoCache", "allVideosCache"}, allEntries = true)
     public Mono<Void> deleteVideosByIds(List<UUID> ids) {
         log.debug("Deleting videos with ids: {}", ids);
         return videoRepository.deleteAllByIdIn(ids)
+                .then(auditOutbox.recordSoftDelete(Video.class, ids))
                 .doOnSuccess(__ -> log.info("Successfully deleted videos with ids: {}", ids))
                 .doOnError(error -> log.error("Error deleting videos with ids: {}", ids, error));
     }
 
     @CircuitBreaker(name = "bulkOperation", fallbackMethod = "bulkDeleteVideosFallback")
     @RateLimiter(name = "bulkOperation")
+    @Bulkhead(name = "bulkOperation")
+    @Transactional
+    @CacheEvict(cacheNames = {"videoCache", "allVideosCache"}, allEntries = true)
     public Mono<Void> bulkDeleteVideos(List<UUID> ids) {
         log.debug("Performing bulk delete operation for {} videos", ids.size());
         return Flux.fromIterable(ids)
-                .flatMap(this::deleteVideo)
+                .concatMap(this::deleteVideo)
                 .then();
     }
 
@@ -217,10 +354,14 @@ public class VideoService {
 
     @CircuitBreaker(name = "bulkOperation", fallbackMethod = "bulkUpdateVideosFallback")
     @RateLimiter(name = "bulkOperation")
+    @Bulkhead(name = "bulkOperation")
+    @Transactional
     public Flux<VideoDTO> bulkUpdateVideos(List<VideoDTO> videoDTOs) {
         log.debug("Performing bulk update operation for {} videos", videoDTOs.size());
         return Flux.fromIterable(videoDTOs)
-                .flatMap(dto -> saveOrUpdateVideo(dto));
+                .concatMap(dto -> saveOrUpdateVideo(dto, ValidationSource.BULK))
+                // @CacheEvict sobre un Flux solo deja pasar el primer elemento, así que se vacían aquí
+                .doFinally(signal -> clearCaches());
     }
 
     public Flux<VideoDTO> bulkUpdateVideosFallback(List<VideoDTO> videoDTOs, Throwable t) {
@@ -0,0 +1,287 @@
+package com.chillflix.indexer.swarm;
+
+import com.chillflix.indexer.audit.AuditOutbox;
+import com.chillflix.indexer.dto.SwarmStatsDTO;
+import com.chillflix.indexer.exception.ValidationException;
+import com.chillflix.indexer.models.MediaType;
+import com.chillflix.indexer.routing.DatabaseRouting;
+import com.chillflix.indexer.routing.WorkloadClass;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.Errors;
+import org.springframework.validation.Validator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Write-behind buffer for tracker scrape results. Updates are kept per media type in a
+ * {@link ConcurrentHashMap} keyed by id, so a newer scrape of the same row simply replaces the
+ * older one, and are written as one set-based {@code UPDATE ... FROM (VALUES ...)} per table and
+ * batch. A flush runs every {@code swarm.flush-interval}, as soon as {@code swarm.max-buffered}
+ * rows are pending, and once more when the application shuts down. After each batch the cached
+ * copies of its rows and the cached pages of their type are evicted, since both carry the counts.
+ */
+@Slf4j
+@Component
+@Lazy(false)
+public class SwarmStatsAggregator implements SmartLifecycle {
+
+    // Después del apagado ordenado del servidor web, que ya no acepta nuevas peticiones
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    // Caché por id y caché de páginas de cada tipo, los mismos que desalojan los servicios
+    private static final Map<MediaType, List<String>> CACHES = Map.of(
+            MediaType.MOVIE, List.of("movieCache", "allMoviesCache"),
+            MediaType.SERIES, List.of("seriesCache", "allSeriesCache"),
+            MediaType.MUSIC, List.of("musicCache", "allMusicCache"),
+            MediaType.VIDEO, List.of("videoCache", "allVideosCache"),
+            MediaType.VIDEOGAME, List.of("videoGameCache", "allVideoGamesCache"));
+
+    record Stats(Integer seeds, Integer peers) {
+    }
+
+    private final DatabaseClient databaseClient;
+    private final Validator validator;
+    private final AuditOutbox auditOutbox;
+    private final CacheManager cacheManager;
+    private final int maxBuffered;
+    private final int batchSize;
+    private final Duration shutdownTimeout;
+    private final Map<MediaType, ConcurrentHashMap<UUID, Stats>> buffers = new EnumMap<>(MediaType.class);
+    private final AtomicBoolean flushing = new AtomicBoolean();
+    private final Counter flushedRows;
+    private final Counter acceptedUpdates;
+    private final Timer flushTimer;
+    private volatile boolean running;
+
+    public SwarmStatsAggregator(DatabaseClient databaseClient,
+                                Validator validator,
+                                AuditOutbox auditOutbox,
+                                CacheManager cacheManager,
+                                MeterRegistry meterRegistry,
+                                @Value("${swarm.max-buffered:10000}") int maxBuffered,
+                                @Value("${swarm.batch-size:1000}") int batchSize,
+                                @Value("${swarm.shutdown-timeout:10s}") Duration shutdownTimeout) {
+        this.databaseClient = databaseClient;
+        this.validator = validator;
+        this.auditOutbox = auditOutbox;
+        this.cacheManager = cacheManager;
+        this.maxBuffered = maxBuffered;
+        this.batchSize = batchSize;
+        this.shutdownTimeout = shutdownTimeout;
+        for (MediaType mediaType : MediaType.values()) {
+            buffers.put(mediaType, new ConcurrentHashMap<>());
+        }
+        Gauge.builder("swarm.buffer.size", this, SwarmStatsAggregator::pending)
+                .description("Swarm stat updates waiting to be flushed")
+                .register(meterRegistry);
+        this.acceptedUpdates = Counter.builder("swarm.updates.accepted").register(meterRegistry);
+        this.flushedRows = Counter.builder("swarm.flush.rows")
+                .description("Rows changed by swarm stat flushes")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("swarm.flush").register(meterRegistry);
+    }
+
+    public int submit(List<SwarmStatsDTO> updates) {
+        for (int i = 0; i < updates.size(); i++) {
+            Errors errors = new BeanPropertyBindingResult(updates.get(i), "swarmStats[" + i + "]");
+            validator.validate(updates.get(i), errors);
+            if (errors.hasErrors()) {
+                throw new ValidationException(errors.getAllErrors());
+            }
+        }
+        for (SwarmStatsDTO update : updates) {
+            buffers.get(update.mediaType()).put(update.id(), new Stats(update.seeds(), update.peers()));
+        }
+        acceptedUpdates.increment(updates.size());
+        if (pending() >= maxBuffered) {
+            flush().subscribeOn(Schedulers.boundedElastic())
+                    .subscribe(null, error -> log.error("Error flushing swarm stats", error));
+        }
+        return updates.size();
+    }
+
+    public int pending() {
+        int pending = 0;
+        for (Map<UUID, Stats> buffer : buffers.values()) {
+            pending += buffer.size();
+        }
+        return pending;
+    }
+
+    @Scheduled(fixedDelayString = "${swarm.flush-interval:PT5S}")
+    public void scheduledFlush() {
+        if (running) {
+            flush().subscribe(null, error -> log.error("Error flushing swarm stats", error));
+        }
+    }
+
+    /**
+     * Writes everything buffered so far. Concurrent calls are coalesced: if a flush is already
+     * running, this one completes immediately and the rows are picked up by the next one.
+     */
+    public Mono<Long> flush() {
+        return Mono.defer(() -> {
+            if (!flushing.compareAndSet(false, true)) {
+                return Mono.just(0L);
+            }
+            long start = System.nanoTime();
+            return Flux.fromIterable(buffers.keySet())
+                    .concatMap(this::flush)
+                    .reduce(0L, Long::sum)
+                    .doOnNext(rows -> {
+                        flushedRows.increment(rows);
+                        flushTimer.record(Duration.ofNanos(System.nanoTime() - start));
+                    })
+                    .doFinally(__ -> flushing.set(false));
+        }).contextWrite(DatabaseRouting.with(WorkloadClass.BACKGROUND));
+    }
+
+    private Flux<Long> flush(MediaType mediaType) {
+        ConcurrentHashMap<UUID, Stats> buffer = buffers.get(mediaType);
+        if (buffer.isEmpty()) {
+            return Flux.empty();
+        }
+        // Drena sin bloquear: remove(key, value) solo quita la entrada si no llegó un valor
+        // más reciente mientras tanto, que se escribirá en el siguiente flush
+        List<Map.Entry<UUID, Stats>> drained = new ArrayList<>(buffer.size());
+        for (Map.Entry<UUID, Stats> entry : buffer.entrySet()) {
+            if (buffer.remove(entry.getKey(), entry.getValue())) {
+                drained.add(Map.entry(entry.getKey(), entry.getValue()));
+            }
+        }
+        return Flux.fromIterable(drained)
+                .buffer(batchSize)
+                .concatMap(batch -> update(mediaType, batch)
+                        .doOnNext(rows -> evict(mediaType, batch, rows))
+                        .onErrorResume(error -> {
+                            log.error("Error flushing {} swarm stats for {}, re-queueing", batch.size(), mediaType.getTable(), error);
+                            batch.forEach(entry -> buffer.putIfAbsent(entry.getKey(), entry.getValue()));
+                            return Mono.just(0L);
+                        }));
+    }
+
+    private void evict(MediaType mediaType, List<Map.Entry<UUID, Stats>> batch, long rows) {
+        // Sin auditoría solo se sabe cuántas filas cambiaron, no cuáles: se desaloja el lote entero
+        if (rows == 0) {
+            return;
+        }
+        Cache entities = cacheManager.getCache(CACHES.get(mediaType).get(0));
+        if (entities != null) {
+            batch.forEach(entry -> entities.evict(entry.getKey()));
+        }
+        Cache pages = cacheManager.getCache(CACHES.get(mediaType).get(1));
+        if (pages != null) {
+            pages.clear();
+        }
+    }
+
+    private Mono<Long> update(MediaType mediaType, List<Map.Entry<UUID, Stats>> batch) {
+        StringBuilder sql = new StringBuilder("UPDATE ").append(mediaType.getTable())
+                .append(" AS t SET seeds = COALESCE(v.seeds, t.seeds), peers = COALESCE(v.peers, t.peers) FROM (VALUES ");
+        for (int i = 0; i < batch.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append("(CAST(:id").append(i).append(" AS uuid), CAST(:seeds").append(i)
+                    .append(" AS integer), CAST(:peers").append(i).append(" AS integer))");
+        }
+        sql.append(") AS v(id, seeds, peers) WHERE t.id = v.id")
+                .append(" AND (t.seeds, t.peers) IS DISTINCT FROM (COALESCE(v.seeds, t.seeds), COALESCE(v.peers, t.peers))");
+
+        boolean audited = auditOutbox.isApplicationAudited(mediaType.getTable());
+        if (audited) {
+            sql.append(" RETURNING t.id, t.seeds, t.peers");
+        }
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        for (int i = 0; i < batch.size(); i++) {
+            Map.Entry<UUID, Stats> entry = batch.get(i);
+            spec = spec.bind("id" + i, entry.getKey());
+            spec = bindNullable(spec, "seeds" + i, entry.getValue().seeds());
+            spec = bindNullable(spec, "peers" + i, entry.getValue().peers());
+        }
+        if (!audited) {
+            return spec.fetch().rowsUpdated();
+        }
+        // Con auditoría de aplicación solo se registran las filas que el guard dejó cambiar
+        return spec.map(row -> {
+                    Map<String, Object> columns = new LinkedHashMap<>();
+                    columns.put("seeds", row.get("seeds", Integer.class));
+                    columns.put("peers", row.get("peers", Integer.class));
+                    return Map.entry(row.get("id", UUID.class), columns);
+                })
+                .all()
+                .concatMap(changed -> auditOutbox.recordUpdate(mediaType.getTable(), changed.getKey(), changed.getValue())
+                        .thenReturn(1L))
+                .count();
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bindNullable(DatabaseClient.GenericExecuteSpec spec, String name, Integer value) {
+        return value == null ? spec.bindNull(name, Integer.class) : spec.bind(name, value);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (pending() == 0) {
+            return;
+        }
+        log.info("Flushing {} buffered swarm stat updates before shutdown", pending());
+        long deadline = System.nanoTime() + shutdownTimeout.toNanos();
+        while (pending() > 0 && System.nanoTime() < deadline) {
+            if (flushing.get()) {
+                // Hay un flush en curso: esperar a que termine antes del último
+                LockSupport.parkNanos(Duration.ofMillis(50).toNanos());
+                continue;
+            }
+            try {
+                flush().block(Duration.ofNanos(Math.max(1, deadline - System.nanoTime())));
+            } catch (RuntimeException e) {
+                log.error("Error flushing swarm stats", e);
+            }
+        }
+        if (pending() > 0) {
+            log.warn("Shutdown timeout reached, {} swarm stat updates were not written", pending());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+}
@@ -0,0 +1,30 @@
+package com.chillflix.indexer.util;
+
+import java.util.List;
+
+/**
+ * Parsed view of a magnet URI. {@code infoHash} is always the 40 character lowercase hex
+ * BitTorrent v1 info hash (base32 links are normalised), {@code infoHashV2} the lowercase
+ * hex multihash of a v2 ({@code urn:btmh}) link. Either may be null, but not both.
+ * {@code infoHashBase32} tells whether the link wrote its v1 hash in base32.
+ */
+public record MagnetLink(
+    String infoHash,
+    boolean infoHashBase32,
+    String infoHashV2,
+    String displayName,
+    List<String> trackers,
+    Long exactLength
+) {
+    public boolean hasTrackers() {
+        return !trackers.isEmpty();
+    }
+
+    /**
+     * Key used to identify the torrent across media rows: the v1 info hash when present,
+     * otherwise the v2 multihash.
+     */
+    public String dedupeKey() {
+        return infoHash != null ? infoHash : infoHashV2;
+    }
+}
@@ -0,0 +1,288 @@
+package com.chillflix.indexer.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Single pass magnet URI parser. Replaces the per-DTO {@code @Pattern} regex and the
+ * {@code indexOf}/{@code substring} extraction in the validation utils: it walks the query
+ * once, only allocates for the values it keeps and never compiles a regex.
+ */
+public final class MagnetParser {
+
+    private static final String SCHEME = "magnet:?";
+    private static final String BTIH = "urn:btih:";
+    private static final String BTMH = "urn:btmh:";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final int V1_HEX_LENGTH = 40;
+    private static final int V1_BASE32_LENGTH = 32;
+
+    public enum Failure {
+        EMPTY,
+        NOT_A_MAGNET,
+        MALFORMED_PARAMETER,
+        NO_INFO_HASH,
+        INVALID_INFO_HASH,
+        INVALID_LENGTH
+    }
+
+    public record Result(MagnetLink link, Failure failure) {
+        public boolean isValid() {
+            return link != null;
+        }
+    }
+
+    private MagnetParser() {
+    }
+
+    public static Result parse(String uri) {
+        if (uri == null || uri.isEmpty()) {
+            return new Result(null, Failure.EMPTY);
+        }
+        if (!uri.regionMatches(true, 0, SCHEME, 0, SCHEME.length())) {
+            return new Result(null, Failure.NOT_A_MAGNET);
+        }
+
+        String infoHash = null;
+        boolean infoHashBase32 = false;
+        String infoHashV2 = null;
+        String displayName = null;
+        List<String> trackers = null;
+        Long exactLength = null;
+
+        int length = uri.length();
+        int pos = SCHEME.length();
+        while (pos < length) {
+            int end = uri.indexOf('&', pos);
+            if (end < 0) {
+                end = length;
+            }
+            if (end == pos) {
+                pos = end + 1;
+                continue;
+            }
+            int eq = indexOf(uri, '=', pos, end);
+            if (eq <= pos) {
+                return new Result(null, Failure.MALFORMED_PARAMETER);
+            }
+            int valueStart = eq + 1;
+
+            if (isKey(uri, pos, eq, "xt")) {
+                if (uri.regionMatches(true, valueStart, BTIH, 0, BTIH.length())) {
+                    if (infoHash == null) {
+                        infoHash = parseV1Hash(uri, valueStart + BTIH.length(), end);
+                        if (infoHash == null) {
+                            return new Result(null, Failure.INVALID_INFO_HASH);
+                        }
+                        infoHashBase32 = end - valueStart - BTIH.length() == V1_BASE32_LENGTH;
+                    }
+                } else if (uri.regionMatches(true, valueStart, BTMH, 0, BTMH.length())) {
+                    if (infoHashV2 == null) {
+                        infoHashV2 = parseMultihash(uri, valueStart + BTMH.length(), end);
+                        if (infoHashV2 == null) {
+                            return new Result(null, Failure.INVALID_INFO_HASH);
+                        }
+                    }
+                }
+            } else if (isKey(uri, pos, eq, "dn")) {
+                if (displayName == null) {
+                    displayName = decode(uri, valueStart, end, true);
+                    if (displayName == null) {
+                        return new Result(null, Failure.MALFORMED_PARAMETER);
+                    }
+                }
+            } else if (isKey(uri, pos, eq, "tr")) {
+                String tracker = decode(uri, valueStart, end, false);
+                if (tracker == null) {
+                    return new Result(null, Failure.MALFORMED_PARAMETER);
+                }
+                if (trackers == null) {
+                    trackers = new ArrayList<>(4);
+                }
+                trackers.add(tracker);
+            } else if (isKey(uri, pos, eq, "xl")) {
+                exactLength = parseLength(uri, valueStart, end);
+                if (exactLength == null) {
+                    return new Result(null, Failure.INVALID_LENGTH);
+                }
+            }
+            pos = end + 1;
+        }
+
+        if (infoHash == null && infoHashV2 == null) {
+            return new Result(null, Failure.NO_INFO_HASH);
+        }
+        return new Result(new MagnetLink(infoHash, infoHashBase32, infoHashV2, displayName,
+                trackers == null ? List.of() : List.copyOf(trackers), exactLength), null);
+    }
+
+    /**
+     * Returns the normalised v1 info hash of a magnet link, or null if the link does not parse or
+     * only has a v2 ({@code urn:btmh}) hash; {@link #parse} tells the two apart.
+     */
+    public static String infoHash(String uri) {
+        Result result = parse(uri);
+        return result.isValid() ? result.link().infoHash() : null;
+    }
+
+    /**
+     * Matches {@code key} and its indexed variants ({@code xt.1}, {@code tr.2}, ...).
+     */
+    private static boolean isKey(String uri, int start, int end, String key) {
+        int keyLength = end - start;
+        if (!uri.regionMatches(start, key, 0, key.length())) {
+            return false;
+        }
+        return keyLength == key.length() || (keyLength > key.length() + 1 && uri.charAt(start + key.length()) == '.');
+    }
+
+    private static int indexOf(String s, char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (s.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String parseV1Hash(String uri, int start, int end) {
+        int length = end - start;
+        if (length == V1_HEX_LENGTH) {
+            return lowerHex(uri, start, end);
+        }
+        if (length == V1_BASE32_LENGTH) {
+            return base32ToHex(uri, start, end);
+        }
+        return null;
+    }
+
+    private static String parseMultihash(String uri, int start, int end) {
+        int length = end - start;
+        if (length < 4 || (length & 1) != 0) {
+            return null;
+        }
+        return lowerHex(uri, start, end);
+    }
+
+    private static String lowerHex(String uri, int start, int end) {
+        boolean upper = false;
+        for (int i = start; i < end; i++) {
+            char c = uri.charAt(i);
+            if (c >= 'A' && c <= 'F') {
+                upper = true;
+            } else if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) {
+                return null;
+            }
+        }
+        if (!upper) {
+            return uri.substring(start, end);
+        }
+        char[] out = new char[end - start];
+        for (int i = start; i < end; i++) {
+            char c = uri.charAt(i);
+            out[i - start] = c >= 'A' && c <= 'F' ? (char) (c + ('a' - 'A')) : c;
+        }
+        return new String(out);
+    }
+
+    private static String base32ToHex(String uri, int start, int end) {
+        char[] out = new char[V1_HEX_LENGTH];
+        int outPos = 0;
+        long buffer = 0;
+        int bits = 0;
+        for (int i = start; i < end; i++) {
+            int value = base32Value(uri.charAt(i));
+            if (value < 0) {
+                return null;
+            }
+            buffer = (buffer << 5) | value;
+            bits += 5;
+            while (bits >= 4) {
+                bits -= 4;
+                out[outPos++] = HEX[(int) (buffer >>> bits) & 0xF];
+            }
+        }
+        return new String(out);
+    }
+
+    private static int base32Value(char c) {
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A';
+        }
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a';
+        }
+        if (c >= '2' && c <= '7') {
+            return c - '2' + 26;
+        }
+        return -1;
+    }
+
+    private static Long parseLength(String uri, int start, int end) {
+        if (start == end || end - start > 18) {
+            return null;
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            char c = uri.charAt(i);
+            if (c < '0' || c > '9') {
+                return null;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Percent-decodes {@code uri[start, end)} as UTF-8. Returns the plain substring when nothing
+     * is escaped and null on a malformed escape.
+     */
+    private static String decode(String uri, int start, int end, boolean plusAsSpace) {
+        int firstEscape = -1;
+        for (int i = start; i < end; i++) {
+            char c = uri.charAt(i);
+            if (c == '%' || (plusAsSpace && c == '+') || c > 0x7F) {
+                firstEscape = i;
+                break;
+            }
+        }
+        if (firstEscape < 0) {
+            return uri.substring(start, end);
+        }
+        if (indexOf(uri, '%', firstEscape, end) < 0 && !hasNonAscii(uri, firstEscape, end)) {
+            return uri.substring(start, end).replace('+', ' ');
+        }
+        byte[] bytes = uri.substring(start, end).getBytes(StandardCharsets.UTF_8);
+        int out = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            byte b = bytes[i];
+            if (b == '%') {
+                if (i + 2 >= bytes.length) {
+                    return null;
+                }
+                int hi = Character.digit(bytes[i + 1], 16);
+                int lo = Character.digit(bytes[i + 2], 16);
+                if (hi < 0 || lo < 0) {
+                    return null;
+                }
+                bytes[out++] = (byte) ((hi << 4) | lo);
+                i += 2;
+            } else if (plusAsSpace && b == '+') {
+                bytes[out++] = ' ';
+            } else {
+                bytes[out++] = b;
+            }
+        }
+        return new String(bytes, 0, out, StandardCharsets.UTF_8);
+    }
+
+    private static boolean hasNonAscii(String s, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (s.charAt(i) > 0x7F) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,6 +1,9 @@
 package com.chillflix.indexer.util;
 
-import io.micrometer.core.instrument.MeterRegistry;
+import com.chillflix.indexer.models.MediaType;
+import com.chillflix.indexer.validation.ValidationMetrics;
+import com.chillflix.indexer.validation.ValidationReason;
+import com.chillflix.indexer.validation.ValidationSource;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
@@ -9,24 +12,23 @@ import org.springframework.stereotype.Component;
 @Component
 @RequiredArgsConstructor
 public class SeriesValidationUtil {
-    private final MeterRegistry meterRegistry;
-    private static final String LOWERCASE_SHA_COUNTER = "series.sha.lowercase";
-    private static final String INVALID_MAGNET_COUNTER = "series.magnet.invalid";
-    private static final String BTIH_PREFIX = "urn:btih:";
+    private final ValidationMetrics validationMetrics;
 
     public boolean isValidSha256Hash(String hash) {
+        return isValidSha256Hash(hash, ValidationSource.API);
+    }
+
+    public boolean isValidSha256Hash(String hash, ValidationSource source) {
         if (hash == null) {
-            log.warn("Hash validation failed: hash is null");
+            log.debug("Hash validation failed: hash is null");
+            validationMetrics.recordFailure(MediaType.SERIES, ValidationReason.HASH_NULL, source, null);
             return false;
         }
 
         // Verificar si contiene minúsculas
-        if (hash.matches(".*[a-f].*")) {
-            log.warn("Hash validation failed: lowercase characters found in hash '{}'", hash);
-            meterRegistry.counter(LOWERCASE_SHA_COUNTER, 
-                "hash", hash, 
-                "timestamp", String.valueOf(System.currentTimeMillis()))
-                .increment();
+        if (containsLowercaseHex(hash)) {
+            log.debug("Hash validation failed: lowercase characters found in hash '{}'", hash);
+            validationMetrics.recordFailure(MediaType.SERIES, ValidationReason.HASH_LOWERCASE, source, hash);
             return false;
         }
 
@@ -35,41 +37,29 @@ public class SeriesValidationUtil {
     }
 
     public String extractHashFromMagnet(String magnetLink) {
-        if (magnetLink == null || magnetLink.isEmpty()) {
-            log.warn("Magnet link validation failed: link is null or empty");
-            meterRegistry.counter(INVALID_MAGNET_COUNTER, 
-                "reason", "null_or_empty")
-                .increment();
+        return extractHashFromMagnet(magnetLink, ValidationSource.API);
+    }
+
+    public String extractHashFromMagnet(String magnetLink, ValidationSource source) {
+        MagnetParser.Result result = MagnetParser.parse(magnetLink);
+        if (!result.isValid()) {
+            log.debug("Magnet link validation failed ({}): '{}'", result.failure(), magnetLink);
+            validationMetrics.recordFailure(MediaType.SERIES, ValidationReason.of(result.failure()), source, magnetLink);
             return null;
         }
 
-        try {
-            // Buscar el segmento xt que contiene el hash
-            int btihIndex = magnetLink.indexOf(BTIH_PREFIX);
-            if (btihIndex == -1) {
-                log.warn("Magnet link validation failed: no BTIH prefix found in '{}'", magnetLink);
-                meterRegistry.counter(INVALID_MAGNET_COUNTER, 
-                    "reason", "no_btih_prefix")
-                    .increment();
-                return null;
-            }
+        String hash = result.link().infoHash();
+        log.debug("Successfully extracted hash '{}' from magnet link", hash);
+        return hash;
+    }
 
-            // Extraer el hash hasta el siguiente & o el final del string
-            String hash = magnetLink.substring(btihIndex + BTIH_PREFIX.length());
-            int endIndex = hash.indexOf('&');
-            if (endIndex != -1) {
-                hash = hash.substring(0, endIndex);
+    private static boolean containsLowercaseHex(String hash) {
+        for (int i = 0; i < hash.length(); i++) {
+            char c = hash.charAt(i);
+            if (c >= 'a' && c <= 'f') {
+                return true;
             }
-
-            log.debug("Successfully extracted hash '{}' from magnet link", hash);
-            return hash;
-        } catch (Exception e) {
-            log.error("Error processing magnet link: {}", e.getMessage(), e);
-            meterRegistry.counter(INVALID_MAGNET_COUNTER, 
-                "reason", "parsing_error",
-                "error", e.getMessage())
-                .increment();
-            return null;
         }
+        return false;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,35 @@
+package com.chillflix.indexer.validation;
+
+import com.chillflix.indexer.util.MagnetLink;
+import com.chillflix.indexer.util.MagnetParser;
+
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+
+public class MagnetValidator implements ConstraintValidator<ValidMagnet, String> {
+
+    private boolean requireDisplayName;
+    private boolean requireTracker;
+
+    @Override
+    public void initialize(ValidMagnet annotation) {
+        this.requireDisplayName = annotation.requireDisplayName();
+        this.requireTracker = annotation.requireTracker();
+    }
+
+    @Override
+    public boolean isValid(String value, ConstraintValidatorContext context) {
+        if (value == null) {
+            return true;
+        }
+        MagnetParser.Result result = MagnetParser.parse(value);
+        if (!result.isValid()) {
+            return false;
+        }
+        MagnetLink link = result.link();
+        if (requireDisplayName && (link.displayName() == null || link.displayName().isEmpty())) {
+            return false;
+        }
+        return !requireTracker || link.hasTrackers();
+    }
+}
@@ -0,0 +1,32 @@
+package com.chillflix.indexer.validation;
+
+import jakarta.validation.Constraint;
+import jakarta.validation.Payload;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Validates a magnet link with {@link com.chillflix.indexer.util.MagnetParser}. The link needs a
+ * BitTorrent info hash ({@code urn:btih} hex/base32 or {@code urn:btmh}) and, by default, a
+ * display name and at least one tracker. Null values are valid; combine with {@code @NotBlank}.
+ */
+@Documented
+@Constraint(validatedBy = MagnetValidator.class)
+@Target({ElementType.FIELD, ElementType.METHOD, ElementType.PARAMETER, ElementType.RECORD_COMPONENT})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ValidMagnet {
+
+    String message() default "Invalid magnet link format";
+
+    boolean requireDisplayName() default true;
+
+    boolean requireTracker() default true;
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+}
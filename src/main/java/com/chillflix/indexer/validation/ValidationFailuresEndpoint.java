@@ -0,0 +1,27 @@
+package com.chillflix.indexer.validation;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * {@code /actuator/validationfailures}: sampled recent values rejected by validation.
+ */
+@Component
+@Endpoint(id = "validationfailures")
+@RequiredArgsConstructor
+public class ValidationFailuresEndpoint {
+
+    private final ValidationMetrics validationMetrics;
+
+    public record Report(long totalFailures, List<ValidationMetrics.Sample> samples) {
+    }
+
+    @ReadOperation
+    public Report recentFailures() {
+        return new Report(validationMetrics.totalFailures(), validationMetrics.recentSamples());
+    }
+}
@@ -0,0 +1,104 @@
+package com.chillflix.indexer.validation;
+
+import com.chillflix.indexer.models.MediaType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Validation failure telemetry. All failures go to one meter, {@value #FAILURES_METER}, tagged
+ * only with enum values (reason, media type, source), so the registry holds at most
+ * {@code reasons x media types x sources} counters whatever the input is. The offending values
+ * themselves are kept in a sampled, fixed size ring buffer instead of in tags.
+ */
+@Component
+public class ValidationMetrics {
+
+    public static final String FAILURES_METER = "validation.failures";
+    static final int MAX_VALUE_LENGTH = 256;
+
+    private static final int REASONS = ValidationReason.values().length;
+    private static final int MEDIA_TYPES = MediaType.values().length;
+    private static final int SOURCES = ValidationSource.values().length;
+
+    private final MeterRegistry meterRegistry;
+    private final AtomicReferenceArray<Counter> counters =
+            new AtomicReferenceArray<>(REASONS * MEDIA_TYPES * SOURCES);
+    private final AtomicReferenceArray<Sample> samples;
+    private final int sampleEvery;
+    private final AtomicLong failures = new AtomicLong();
+
+    public record Sample(Instant timestamp, MediaType mediaType, ValidationReason reason,
+                         ValidationSource source, String value) {
+    }
+
+    public ValidationMetrics(MeterRegistry meterRegistry,
+                             @Value("${validation.metrics.sample-capacity:100}") int sampleCapacity,
+                             @Value("${validation.metrics.sample-every:10}") int sampleEvery) {
+        if (sampleCapacity < 1 || sampleEvery < 1) {
+            throw new IllegalArgumentException("validation.metrics.sample-capacity and sample-every must be positive");
+        }
+        this.meterRegistry = meterRegistry;
+        this.samples = new AtomicReferenceArray<>(sampleCapacity);
+        this.sampleEvery = sampleEvery;
+    }
+
+    public void recordFailure(MediaType mediaType, ValidationReason reason, ValidationSource source, String value) {
+        counter(mediaType, reason, source).increment();
+        long sequence = failures.getAndIncrement();
+        if (sequence % sampleEvery == 0) {
+            int slot = (int) ((sequence / sampleEvery) % samples.length());
+            samples.set(slot, new Sample(Instant.now(), mediaType, reason, source, truncate(value)));
+        }
+    }
+
+    public long totalFailures() {
+        return failures.get();
+    }
+
+    /**
+     * Sampled offending values, most recent first.
+     */
+    public List<Sample> recentSamples() {
+        long recorded = (failures.get() + sampleEvery - 1) / sampleEvery;
+        int capacity = samples.length();
+        int count = (int) Math.min(recorded, capacity);
+        List<Sample> result = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            Sample sample = samples.get((int) ((recorded - i) % capacity));
+            if (sample != null) {
+                result.add(sample);
+            }
+        }
+        return result;
+    }
+
+    private Counter counter(MediaType mediaType, ValidationReason reason, ValidationSource source) {
+        int index = (reason.ordinal() * MEDIA_TYPES + mediaType.ordinal()) * SOURCES + source.ordinal();
+        Counter counter = counters.get(index);
+        if (counter == null) {
+            counter = Counter.builder(FAILURES_METER)
+                    .description("Rejected values by validation reason")
+                    .tag("reason", reason.tag())
+                    .tag("media_type", mediaType.name().toLowerCase())
+                    .tag("source", source.tag())
+                    .register(meterRegistry);
+            counters.set(index, counter);
+        }
+        return counter;
+    }
+
+    private static String truncate(String value) {
+        if (value == null || value.length() <= MAX_VALUE_LENGTH) {
+            return value;
+        }
+        return value.substring(0, MAX_VALUE_LENGTH) + "...";
+    }
+}
@@ -0,0 +1,35 @@
+package com.chillflix.indexer.validation;
+
+import com.chillflix.indexer.util.MagnetParser;
+
+/**
+ * Closed set of validation failure reasons used as a metric tag. Never add values derived from
+ * user input here: every constant becomes a time series per media type and source.
+ */
+public enum ValidationReason {
+    HASH_NULL,
+    HASH_LOWERCASE,
+    MAGNET_EMPTY,
+    MAGNET_NOT_A_MAGNET,
+    MAGNET_MALFORMED_PARAMETER,
+    MAGNET_NO_INFO_HASH,
+    MAGNET_INVALID_INFO_HASH,
+    MAGNET_INVALID_LENGTH;
+
+    private final String tag = name().toLowerCase();
+
+    public String tag() {
+        return tag;
+    }
+
+    public static ValidationReason of(MagnetParser.Failure failure) {
+        return switch (failure) {
+            case EMPTY -> MAGNET_EMPTY;
+            case NOT_A_MAGNET -> MAGNET_NOT_A_MAGNET;
+            case MALFORMED_PARAMETER -> MAGNET_MALFORMED_PARAMETER;
+            case NO_INFO_HASH -> MAGNET_NO_INFO_HASH;
+            case INVALID_INFO_HASH -> MAGNET_INVALID_INFO_HASH;
+            case INVALID_LENGTH -> MAGNET_INVALID_LENGTH;
+        };
+    }
+}
@@ -0,0 +1,16 @@
+package com.chillflix.indexer.validation;
+
+/**
+ * Where the validated value entered the system: a single request of the API, or one item of a
+ * bulk request.
+ */
+public enum ValidationSource {
+    API,
+    BULK;
+
+    private final String tag = name().toLowerCase();
+
+    public String tag() {
+        return tag;
+    }
+}
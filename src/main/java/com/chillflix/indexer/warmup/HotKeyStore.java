@@ -0,0 +1,104 @@
+package com.chillflix.indexer.warmup;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The hottest keys of each entity cache, kept in a memory-mapped file across restarts. The format
+ * is a magic number and a cache count, then per cache its UTF-8 name (length-prefixed), a key count
+ * and the keys as 16-byte UUIDs, hottest first: 200 keys of a cache take 3.2 KB and are read
+ * without parsing text. The file is replaced atomically; a missing, foreign or truncated file only
+ * means fewer keys to preload.
+ */
+@Slf4j
+public class HotKeyStore {
+
+    private static final int MAGIC = 0x484B5331; // "HKS1"
+    private static final int UUID_BYTES = 16;
+
+    private final Path file;
+
+    public HotKeyStore(Path file) {
+        this.file = file;
+    }
+
+    public Map<String, List<UUID>> load() {
+        Map<String, List<UUID>> keys = new LinkedHashMap<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < Integer.BYTES * 2 || buffer.getInt() != MAGIC) {
+                log.warn("Ignoring hot keys in {}: not a hot-key snapshot", file);
+                return keys;
+            }
+            int caches = buffer.getInt();
+            for (int i = 0; i < caches; i++) {
+                byte[] name = new byte[Short.toUnsignedInt(buffer.getShort())];
+                buffer.get(name);
+                int count = buffer.getInt();
+                if (count < 0 || count > buffer.remaining() / UUID_BYTES) {
+                    throw new BufferUnderflowException();
+                }
+                List<UUID> ids = new ArrayList<>(count);
+                for (int j = 0; j < count; j++) {
+                    ids.add(new UUID(buffer.getLong(), buffer.getLong()));
+                }
+                keys.put(new String(name, StandardCharsets.UTF_8), ids);
+            }
+        } catch (NoSuchFileException e) {
+            return keys;
+        } catch (BufferUnderflowException e) {
+            // Volcado truncado: se quedan las cachés que estaban completas
+            log.warn("Hot keys in {} are truncated, keeping {} caches", file, keys.size());
+        } catch (IOException e) {
+            log.warn("Could not read hot keys from {}: {}", file, e.getMessage());
+        }
+        return keys;
+    }
+
+    public void save(Map<String, List<UUID>> keys) {
+        long size = Integer.BYTES * 2L;
+        for (Map.Entry<String, List<UUID>> cache : keys.entrySet()) {
+            size += Short.BYTES + cache.getKey().getBytes(StandardCharsets.UTF_8).length
+                    + Integer.BYTES + (long) cache.getValue().size() * UUID_BYTES;
+        }
+        try {
+            Path directory = file.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try {
+                try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                    buffer.putInt(MAGIC).putInt(keys.size());
+                    for (Map.Entry<String, List<UUID>> cache : keys.entrySet()) {
+                        byte[] name = cache.getKey().getBytes(StandardCharsets.UTF_8);
+                        buffer.putShort((short) name.length).put(name).putInt(cache.getValue().size());
+                        for (UUID id : cache.getValue()) {
+                            buffer.putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits());
+                        }
+                    }
+                    buffer.force();
+                }
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            log.warn("Could not write hot keys to {}: {}", file, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.chillflix.indexer.warmup;
+
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * An entity cache whose hottest keys survive restarts: the cache name, the API path that reads
+ * one entity ({@code <path>/<id>}), the bulk lookup that reloads a batch of them and the id of
+ * each loaded value, which becomes its cache key.
+ */
+public record HotKeyTarget<T>(String cache, String path, Function<List<UUID>, Flux<T>> loader, Function<T, UUID> id) {
+}
@@ -0,0 +1,203 @@
+package com.chillflix.indexer.warmup;
+
+import com.chillflix.indexer.routing.PoolRoutingConnectionFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Warms the instance up before it reports ready. Boot only marks readiness as accepting traffic
+ * once the application runners are done, so {@code /actuator/health/readiness} stays down while
+ * this runs, for at most {@code warmup.timeout}. In order, it:
+ * <ol>
+ * <li>creates the REST and RSocket controllers and, through them, the services, mappers and repositories that lazy
+ * initialization would otherwise create on the first requests;</li>
+ * <li>opens the initial connections of every pool ({@code db.pools.<class>.initial-size});</li>
+ * <li>reloads the hottest keys of the last snapshot ({@link HotKeyStore}) into the entity caches,
+ * {@value #RELOAD_BATCH} ids per query;</li>
+ * <li>replays {@code warmup.requests.iterations} rounds of a synthetic request mix
+ * ({@code warmup.requests.paths} plus a few of the hot entities) against the local server, so the
+ * request path is compiled by the JIT before real traffic arrives.</li>
+ * </ol>
+ * Every {@code warmup.hot-keys.snapshot-interval}, and at shutdown, it saves the
+ * {@code warmup.hot-keys.per-cache} hottest keys of each entity cache, so an instance stopped
+ * without a clean shutdown still starts from a recent snapshot.
+ * Each phase is timed as {@code application.warmup}, tagged with {@code phase}.
+ */
+@Slf4j
+public class Warmup implements ApplicationRunner {
+
+    private static final int HOT_PATHS_PER_CACHE = 5;
+    static final int RELOAD_BATCH = 500;
+
+    private final ApplicationContext context;
+    private final PoolRoutingConnectionFactory pools;
+    private final CacheManager cacheManager;
+    private final MeterRegistry meterRegistry;
+    private final List<HotKeyTarget<?>> targets;
+    private final HotKeyStore hotKeyStore;
+    private final boolean enabled;
+    private final Duration timeout;
+    private final int hotKeysPerCache;
+    private final List<String> paths;
+    private final int iterations;
+    private final int concurrency;
+
+    public Warmup(ApplicationContext context, PoolRoutingConnectionFactory pools, CacheManager cacheManager,
+                  MeterRegistry meterRegistry, List<HotKeyTarget<?>> targets, HotKeyStore hotKeyStore, boolean enabled,
+                  Duration timeout, int hotKeysPerCache, List<String> paths, int iterations, int concurrency) {
+        this.context = context;
+        this.pools = pools;
+        this.cacheManager = cacheManager;
+        this.meterRegistry = meterRegistry;
+        this.targets = List.copyOf(targets);
+        this.hotKeyStore = hotKeyStore;
+        this.enabled = enabled;
+        this.timeout = timeout;
+        this.hotKeysPerCache = hotKeysPerCache;
+        this.paths = List.copyOf(paths);
+        this.iterations = iterations;
+        this.concurrency = concurrency;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        Map<String, List<UUID>> hotKeys = hotKeyStore.load();
+        timed("beans", Mono.fromRunnable(() -> context.getBeansWithAnnotation(Controller.class)))
+                .then(timed("pools", pools.warmup().doOnNext(opened -> log.debug("Warmup opened {} connections", opened))))
+                .then(timed("caches", preloadCaches(hotKeys)))
+                .then(timed("requests", replayRequests(hotKeys)))
+                .timeout(timeout)
+                .onErrorResume(error -> {
+                    // Mejor listo a medio calentar que sin servir
+                    log.warn("Warmup cut short: {}", error.toString());
+                    return Mono.empty();
+                })
+                .block();
+        log.info("Warmup finished in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    @Scheduled(initialDelayString = "${warmup.hot-keys.snapshot-interval:PT5M}",
+            fixedDelayString = "${warmup.hot-keys.snapshot-interval:PT5M}")
+    @EventListener(ContextClosedEvent.class)
+    public void saveHotKeys() {
+        Map<String, List<UUID>> keys = new LinkedHashMap<>();
+        for (HotKeyTarget<?> target : targets) {
+            List<UUID> hottest = hottest(cacheManager.getCache(target.cache()), hotKeysPerCache);
+            if (!hottest.isEmpty()) {
+                keys.put(target.cache(), hottest);
+            }
+        }
+        // Una instancia que no llegó a servir nada no pisa la lista anterior
+        if (!keys.isEmpty()) {
+            hotKeyStore.save(keys);
+        }
+    }
+
+    static List<UUID> hottest(Cache cache, int limit) {
+        if (cache == null || !(cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine)) {
+            return List.of();
+        }
+        return caffeine.policy().eviction()
+                .map(eviction -> eviction.hottest(limit).keySet().stream()
+                        .filter(UUID.class::isInstance)
+                        .map(UUID.class::cast)
+                        .toList())
+                .orElse(List.of());
+    }
+
+    private Mono<Void> preloadCaches(Map<String, List<UUID>> hotKeys) {
+        return Flux.fromIterable(targets)
+                .flatMap(target -> reload(target, hotKeys.getOrDefault(target.cache(), List.of())), concurrency)
+                .reduce(0L, Long::sum)
+                .doOnNext(loaded -> log.info("Warmup preloaded {} hot entities", loaded))
+                .then();
+    }
+
+    private <T> Mono<Long> reload(HotKeyTarget<T> target, List<UUID> ids) {
+        Cache cache = cacheManager.getCache(target.cache());
+        if (cache == null || ids.isEmpty()) {
+            return Mono.just(0L);
+        }
+        return Flux.fromIterable(ids)
+                .buffer(RELOAD_BATCH)
+                .concatMap(batch -> target.loader().apply(batch)
+                        // Mismo valor y clave que dejaría el @Cacheable del servicio
+                        .doOnNext(value -> cache.put(target.id().apply(value), value))
+                        .count()
+                        .onErrorResume(error -> {
+                            log.warn("Warmup could not reload {} keys of {}: {}", batch.size(), target.cache(), error.toString());
+                            return Mono.just(0L);
+                        }))
+                .reduce(0L, Long::sum);
+    }
+
+    private Mono<Void> replayRequests(Map<String, List<UUID>> hotKeys) {
+        if (!(context instanceof WebServerApplicationContext webContext) || webContext.getWebServer() == null) {
+            return Mono.empty();
+        }
+        List<String> mix = new ArrayList<>(paths);
+        for (HotKeyTarget<?> target : targets) {
+            hotKeys.getOrDefault(target.cache(), List.of()).stream()
+                    .limit(HOT_PATHS_PER_CACHE)
+                    .forEach(id -> mix.add(target.path() + "/" + id));
+        }
+        if (mix.isEmpty() || iterations <= 0) {
+            return Mono.empty();
+        }
+        WebClient client = WebClient.builder()
+                .baseUrl("http://localhost:" + webContext.getWebServer().getPort()
+                        + context.getEnvironment().getProperty("spring.webflux.base-path", ""))
+                .defaultHeader(WarmupTraffic.HEADER, WarmupTraffic.token())
+                .build();
+        return Flux.range(0, iterations)
+                .concatMapIterable(round -> mix)
+                .flatMap(path -> client.get().uri(path)
+                        .exchangeToMono(response -> response.releaseBody().thenReturn(response.statusCode().is2xxSuccessful()))
+                        .onErrorReturn(false), concurrency)
+                .filter(ok -> !ok)
+                .count()
+                .doOnNext(failed -> {
+                    if (failed > 0) {
+                        log.warn("Warmup: {} of {} synthetic requests failed", failed, (long) iterations * mix.size());
+                    }
+                })
+                .then();
+    }
+
+    private Mono<Void> timed(String phase, Mono<?> work) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return work.doFinally(signal -> Timer.builder("application.warmup")
+                    .description("Time spent in each startup warmup phase")
+                    .tag("phase", phase)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        }).then();
+    }
+}
@@ -0,0 +1,30 @@
+package com.chillflix.indexer.warmup;
+
+import org.springframework.web.server.ServerWebExchange;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.UUID;
+
+/**
+ * Marks the synthetic requests of the startup {@link Warmup} with a token that only this process
+ * knows, so the limiters let them through without letting clients skip them with a header.
+ */
+public final class WarmupTraffic {
+
+    public static final String HEADER = "X-Warmup-Token";
+
+    private static final byte[] TOKEN = UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8);
+
+    private WarmupTraffic() {
+    }
+
+    public static boolean isWarmup(ServerWebExchange exchange) {
+        String token = exchange.getRequest().getHeaders().getFirst(HEADER);
+        return token != null && MessageDigest.isEqual(TOKEN, token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String token() {
+        return new String(TOKEN, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,12 @@
+-- Índices de expresión sobre el info hash btih del magnet, usados por la comprobación
+-- exacta de duplicados en la ingesta (findByInfoHash en los repositorios). Solo encuentran btih en
+-- hex: las filas con un magnet en base32 y sin sha256 se escriben sin comprobar duplicados y se
+-- cuentan aparte (ingest.dedupe outcome=base32).
+-- CONCURRENTLY no bloquea las escrituras mientras se construyen, pero no puede ir en una
+-- transacción (executeInTransaction=false en el .conf). Si uno falla queda INVALID y IF NOT EXISTS
+-- lo saltaría: hay que borrarlo con DROP INDEX CONCURRENTLY y repetir la migración.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_movies_magnet_btih ON public.movies ((lower(substring(magnet from 'btih:([0-9A-Fa-f]{40})'))));
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_series_magnet_btih ON public.series ((lower(substring(magnet from 'btih:([0-9A-Fa-f]{40})'))));
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_music_magnet_btih ON public.music ((lower(substring(magnet from 'btih:([0-9A-Fa-f]{40})'))));
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_videos_magnet_btih ON public.videos ((lower(substring(magnet from 'btih:([0-9A-Fa-f]{40})'))));
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_video_games_magnet_btih ON public.video_games ((lower(substring(magnet from 'btih:([0-9A-Fa-f]{40})'))));
@@ -0,0 +1,78 @@
+-- audit_log particionada por mes sobre "timestamp" (UTC). Las particiones futuras las crea y las
+-- caducadas las desengancha y borra AuditLogPartitions; la DEFAULT solo recoge filas fuera de rango
+-- si el mantenimiento se retrasa. La PK incluye la clave de partición.
+--
+-- La tabla existente no se copia: se engancha tal cual como la partición del mes en curso, desde
+-- MINVALUE hasta el mes siguiente, con el nombre audit_log_pYYYYMM de ese mes, así la retención la
+-- borra entera cuando caduca su último mes. Los índices se construyen con CONCURRENTLY y el rango se
+-- valida con un CHECK NOT VALID + VALIDATE, que no bloquean las escrituras; el ATTACH ya no recorre
+-- la tabla y solo el último bloque toma un bloqueo exclusivo, durante cambios de catálogo.
+-- Sin transacción (executeInTransaction=false en el .conf): cada sentencia es idempotente y, si una
+-- falla, basta con flyway repair y volver a migrar.
+
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS audit_log_id_timestamp_idx ON public.audit_log (id, "timestamp");
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS audit_log_entity_idx ON public.audit_log USING btree (entity_type, entity_id, "timestamp");
+
+-- Las filas nuevas también deben cumplir el CHECK: si el mes acaba antes del último bloque, las
+-- escrituras auditadas fallarían, así que no se empieza en su último día
+DO $$
+DECLARE
+    upper_bound timestamptz := date_trunc('month', now() AT TIME ZONE 'UTC') AT TIME ZONE 'UTC' + interval '1 month';
+BEGIN
+    IF now() > upper_bound - interval '1 day' THEN
+        RAISE EXCEPTION 'audit_log cannot be partitioned in the last day of a month; migrate again after %', upper_bound;
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint
+                   WHERE conname = 'audit_log_partition_range' AND conrelid = 'public.audit_log'::regclass) THEN
+        EXECUTE format('ALTER TABLE public.audit_log ADD CONSTRAINT audit_log_partition_range'
+                       || ' CHECK ("timestamp" IS NOT NULL AND "timestamp" < %L) NOT VALID', upper_bound);
+    END IF;
+END $$;
+
+ALTER TABLE public.audit_log VALIDATE CONSTRAINT audit_log_partition_range;
+
+-- Un solo bloque, luego una sola transacción: renombrar, crear la tabla particionada, enganchar la
+-- antigua y crear las particiones de los tres meses siguientes
+DO $$
+DECLARE
+    month_start date := (date_trunc('month', now() AT TIME ZONE 'UTC') + interval '1 month')::date;
+    last_month date := (date_trunc('month', now() AT TIME ZONE 'UTC') + interval '3 months')::date;
+    current_partition text := 'audit_log_p' || to_char(now() AT TIME ZONE 'UTC', 'YYYYMM');
+BEGIN
+    ALTER TABLE public.audit_log DROP CONSTRAINT audit_log_pkey;
+    EXECUTE format('ALTER TABLE public.audit_log ADD CONSTRAINT %I PRIMARY KEY USING INDEX audit_log_id_timestamp_idx',
+                   current_partition || '_pkey');
+    EXECUTE format('ALTER TABLE public.audit_log RENAME TO %I', current_partition);
+
+    CREATE TABLE public.audit_log (
+        id integer NOT NULL DEFAULT nextval('public.audit_log_id_seq'),
+        entity_type varchar(20) NOT NULL,
+        entity_id uuid NOT NULL,
+        "action" varchar(10) NOT NULL,
+        user_id varchar(50) NULL,
+        changes jsonb NULL,
+        "timestamp" timestamptz DEFAULT now() NOT NULL,
+        "token" varchar(255) NULL,
+        CONSTRAINT audit_log_pkey PRIMARY KEY (id, "timestamp")
+    ) PARTITION BY RANGE ("timestamp");
+    -- La secuencia era de la columna antigua: si no, se borraría con la partición al caducar
+    ALTER SEQUENCE public.audit_log_id_seq OWNED BY public.audit_log.id;
+
+    CREATE INDEX idx_audit_log_entity ON public.audit_log USING btree (entity_type, entity_id, "timestamp");
+
+    -- El CHECK validado implica el rango, así que el ATTACH no recorre la tabla
+    EXECUTE format('ALTER TABLE public.audit_log ATTACH PARTITION public.%I FOR VALUES FROM (MINVALUE) TO (%L)',
+                   current_partition, to_char(month_start, 'YYYY-MM-DD') || ' 00:00:00+00');
+    EXECUTE format('ALTER TABLE public.%I DROP CONSTRAINT audit_log_partition_range', current_partition);
+
+    CREATE TABLE public.audit_log_default PARTITION OF public.audit_log DEFAULT;
+
+    WHILE month_start <= last_month LOOP
+        EXECUTE format('CREATE TABLE IF NOT EXISTS public.%I PARTITION OF public.audit_log FOR VALUES FROM (%L) TO (%L)',
+                       'audit_log_p' || to_char(month_start, 'YYYYMM'),
+                       to_char(month_start, 'YYYY-MM-DD') || ' 00:00:00+00',
+                       to_char(month_start + interval '1 month', 'YYYY-MM-DD') || ' 00:00:00+00');
+        month_start := (month_start + interval '1 month')::date;
+    END LOOP;
+END $$;
@@ -0,0 +1,12 @@
+-- Cubos de rate limiting compartidos entre instancias (uno por API key o IP). UNLOGGED: es estado
+-- efímero, no merece WAL y tras una caída basta con empezar con los cubos llenos. Las filas sin
+-- uso las purga RateLimitStore.
+CREATE UNLOGGED TABLE public.rate_limit_buckets (
+    bucket_key varchar(80) NOT NULL,
+    tokens double precision NOT NULL,
+    last_grant bigint NOT NULL,
+    updated_at timestamptz DEFAULT now() NOT NULL,
+    CONSTRAINT rate_limit_buckets_pkey PRIMARY KEY (bucket_key)
+);
+
+CREATE INDEX idx_rate_limit_buckets_updated_at ON public.rate_limit_buckets USING btree (updated_at);
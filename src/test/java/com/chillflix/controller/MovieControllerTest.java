@@ -1,22 +1,37 @@
 package com.chillflix.controller;
+import com.chillflix.indexer.codec.JsonFallbackContentTypeResolver;
+import com.chillflix.indexer.codec.ProtobufJacksonEncoder;
 import com.chillflix.indexer.controller.MovieController;
+import com.chillflix.indexer.dedupe.UpsertCounts;
+import com.chillflix.indexer.dedupe.UpsertOutcome;
 import com.chillflix.indexer.dto.MovieDTO;
+import com.chillflix.indexer.exception.GlobalExceptionHandler;
 import com.chillflix.indexer.exception.MovieNotFoundException;
 import com.chillflix.indexer.exception.ValidationException;
+import com.chillflix.indexer.projection.FieldSet;
 import com.chillflix.indexer.repository.MovieRepository;
+import com.chillflix.indexer.responsecache.EncodedResponseCache;
 import com.chillflix.indexer.service.MovieService;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerCodecConfigurer;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.test.web.reactive.server.WebTestClient.RequestBodySpec;
+import org.springframework.util.unit.DataSize;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -24,8 +39,10 @@ import reactor.core.publisher.Mono;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
+import static org.hamcrest.Matchers.startsWith;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.when;
 
@@ -35,6 +52,10 @@ class MovieControllerTest {
     @Mock
     private MovieService movieService;
 
+    @Spy
+    private EncodedResponseCache responseCache = new EncodedResponseCache(ServerCodecConfigurer.create(),
+            new SimpleMeterRegistry(), DataSize.ofMegabytes(1), DataSize.ofKilobytes(2));
+
     @InjectMocks
     private MovieController movieController;
 
@@ -48,7 +69,7 @@ class MovieControllerTest {
     @Test
     void searchMovies_Success() {
         MovieDTO movie = new MovieDTO(UUID.randomUUID(), "Test Movie", 2021, "magnet:?xt=urn:btih:123", 1, "tt1234567", "English", "English", "HD", "MP4", "abc123", null, null, null, null, null, null, null, null, null, null, null);
-        when(movieService.searchMovies(anyString(), any(PageRequest.class))).thenReturn(Flux.just(movie));
+        when(movieService.searchMovies(anyString(), any(PageRequest.class), eq(FieldSet.ALL))).thenReturn(Flux.just(movie));
 
         webTestClient.get().uri("/v1/movies/search?term=Test&page=0&size=10&sort=title,asc")
                 .exchange()
@@ -58,6 +79,71 @@ class MovieControllerTest {
                 .contains(movie);
     }
 
+    @Test
+    void searchMovies_ReturnsRequestedFields() {
+        UUID id = UUID.randomUUID();
+        MovieDTO movie = new MovieDTO(id, "Test Movie", 2021, "magnet:?xt=urn:btih:123", 1, "tt1234567", "English", "English", "HD", "MP4", "abc123", null, null, null, null, null, null, null, null, null, null, null);
+        FieldSet fields = FieldSet.parse("year,title", MovieDTO.class);
+        when(movieService.searchMovies(anyString(), any(PageRequest.class), eq(fields))).thenReturn(Flux.just(movie));
+
+        webTestClient.get().uri("/v1/movies/search?term=Test&fields=year,title")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].id").isEqualTo(id.toString())
+                .jsonPath("$[0].title").isEqualTo("Test Movie")
+                .jsonPath("$[0].year").isEqualTo(2021)
+                .jsonPath("$[0].magnet").doesNotExist();
+    }
+
+    @Test
+    void searchMovies_ProtobufWithFieldsFallsBack() {
+        MovieDTO movie = new MovieDTO(UUID.randomUUID(), "Test Movie", 2021, "magnet:?xt=urn:btih:123", 1, "tt1234567", "English", "English", "HD", "MP4", "abc123", null, null, null, null, null, null, null, null, null, null, null);
+        FieldSet fields = FieldSet.parse("title", MovieDTO.class);
+        when(movieService.searchMovies(anyString(), any(PageRequest.class), eq(fields))).thenReturn(Flux.just(movie));
+        // Los DTO sí tienen esquema; el mapa de la selección de campos no
+        ProtobufMapper mapper = (ProtobufMapper) new ProtobufMapper().registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        ProtobufJacksonEncoder protobuf = new ProtobufJacksonEncoder(mapper,
+                type -> type.getPackageName().equals("com.chillflix.indexer.dto"));
+
+        WebTestClient.bindToController(movieController).controllerAdvice(new GlobalExceptionHandler())
+                .httpMessageCodecs(configurer -> configurer.customCodecs().register(protobuf))
+                .contentTypeResolver(builder -> builder.resolver(new JsonFallbackContentTypeResolver()))
+                .build()
+                .get().uri("/v1/movies/search?term=Test&fields=title")
+                .accept(ProtobufJacksonEncoder.APPLICATION_PROTOBUF)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON)
+                .expectBody()
+                .jsonPath("$[0].title").isEqualTo("Test Movie")
+                .jsonPath("$[0].magnet").doesNotExist();
+    }
+
+    @Test
+    void searchMovies_UnknownField() {
+        WebTestClient.bindToController(movieController).controllerAdvice(new GlobalExceptionHandler()).build()
+                .get().uri("/v1/movies/search?term=Test&fields=title,password")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.fields").value(startsWith("Unknown field 'password'"));
+    }
+
+    @Test
+    void getAllMovies_ReturnsRequestedFields() {
+        MovieDTO movie = new MovieDTO(UUID.randomUUID(), "Movie 1", 2021, "magnet:?xt=urn:btih:123", 1, "tt1234567", "English", "English", "HD", "MP4", "abc123", null, null, null, null, null, null, null, null, null, null, null);
+        when(movieService.getAllMovies(any(PageRequest.class))).thenReturn(Flux.just(movie));
+
+        webTestClient.get().uri("/v1/movies?fields=title")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].title").isEqualTo("Movie 1")
+                .jsonPath("$[0].year").doesNotExist();
+    }
+
     @Test
     void getMovieById_Success() {
         UUID id = UUID.randomUUID();
@@ -147,7 +233,7 @@ class MovieControllerTest {
     @Test
     void getMoviesByYear_Success() {
         MovieDTO movie = new MovieDTO(UUID.randomUUID(), "Test Movie", 2021, "magnet:?xt=urn:btih:123", 1, "tt1234567", "English", "English", "HD", "MP4", "abc123", null, null, null, null, null, null, null, null, null, null, null);
-        when(movieService.getMoviesByYear(eq(2021), any(PageRequest.class))).thenReturn(Flux.just(movie));
+        when(movieService.getMoviesByYear(eq(2021), any(PageRequest.class), eq(FieldSet.ALL))).thenReturn(Flux.just(movie));
 
         webTestClient.get().uri("/v1/movies/year/2021?page=0&size=10")
                 .exchange()
@@ -160,7 +246,7 @@ class MovieControllerTest {
     @Test
     void getMoviesByLanguage_Success() {
         MovieDTO movie = new MovieDTO(UUID.randomUUID(), "Test Movie", 2021, "magnet:?xt=urn:btih:123", 1, "tt1234567", "English", "English", "HD", "MP4", "abc123", null, null, null, null, null, null, null, null, null, null, null);
-        when(movieService.getMoviesByLanguage(eq("English"), any(PageRequest.class))).thenReturn(Flux.just(movie));
+        when(movieService.getMoviesByLanguage(eq("English"), any(PageRequest.class), eq(FieldSet.ALL))).thenReturn(Flux.just(movie));
 
         webTestClient.get().uri("/v1/movies/language/English?page=0&size=10")
                 .exchange()
@@ -197,10 +283,73 @@ class MovieControllerTest {
                 .contains(movie1, movie2);
     }
 
+    @Test
+    void patchMovie_Success() {
+        UUID id = UUID.randomUUID();
+        Map<String, Object> patch = Map.of("seeds", 120, "peers", 14);
+        when(movieService.patchMovie(id, patch)).thenReturn(Mono.empty());
+
+        webTestClient.patch().uri("/v1/movies/{id}", id)
+                .contentType(MediaType.valueOf("application/merge-patch+json"))
+                .bodyValue(patch)
+                .exchange()
+                .expectStatus().isNoContent();
+    }
+
+    @Test
+    void patchMovie_NotFound() {
+        UUID id = UUID.randomUUID();
+        Map<String, Object> patch = Map.of("seeds", 1);
+        when(movieService.patchMovie(id, patch)).thenReturn(Mono.error(new MovieNotFoundException("Movie not found")));
+
+        webTestClient.patch().uri("/v1/movies/{id}", id)
+                .contentType(MediaType.valueOf("application/merge-patch+json"))
+                .bodyValue(patch)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void patchMovie_ValidationError() {
+        UUID id = UUID.randomUUID();
+        Map<String, Object> patch = Map.of("id", UUID.randomUUID().toString());
+        when(movieService.patchMovie(id, patch)).thenReturn(Mono.error(new ValidationException("Field cannot be patched")));
+
+        webTestClient.patch().uri("/v1/movies/{id}", id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(patch)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.errors[0]").isEqualTo("Field cannot be patched");
+    }
+
+    @Test
+    void bulkUpdateMovies_ReportsUpsertCounts() {
+        MovieDTO movie1 = new MovieDTO(UUID.randomUUID(), "Movie 1", 2021, "magnet:?xt=urn:btih:123", 1, "tt1234567", "English", "English", "HD", "MP4", "abc123", null, null, null, null, null, null, null, null, null, null, null);
+        MovieDTO movie2 = new MovieDTO(UUID.randomUUID(), "Movie 2", 2022, "magnet:?xt=urn:btih:456", 2, "tt7654321", "Spanish", "Spanish", "4K", "MKV", "def456", null, null, null, null, null, null, null, null, null, null, null);
+        MovieDTO movie3 = new MovieDTO(UUID.randomUUID(), "Movie 3", 2023, "magnet:?xt=urn:btih:789", 3, "tt1111111", "French", "French", "HD", "MKV", "aaa111", null, null, null, null, null, null, null, null, null, null, null);
+        List<MovieDTO> movies = Arrays.asList(movie1, movie2, movie3);
+        when(movieService.bulkUpdateMovies(movies)).thenReturn(Flux.concat(
+                UpsertCounts.tally(movie1, UpsertOutcome.INSERTED),
+                UpsertCounts.tally(movie2, UpsertOutcome.UNCHANGED),
+                UpsertCounts.tally(movie3, UpsertOutcome.UNCHANGED)));
+
+        webTestClient.put().uri("/v1/movies/bulk")
+                .bodyValue(movies)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(UpsertCounts.INSERTED_HEADER, "1")
+                .expectHeader().valueEquals(UpsertCounts.UPDATED_HEADER, "0")
+                .expectHeader().valueEquals(UpsertCounts.UNCHANGED_HEADER, "2")
+                .expectBodyList(MovieDTO.class)
+                .hasSize(3);
+    }
+
     @Test
     void advancedSearch_Success() {
         MovieDTO movie = new MovieDTO(UUID.randomUUID(), "Test Movie", 2021, "magnet:?xt=urn:btih:123", 1, "tt1234567", "English", "English", "HD", "MP4", "abc123", null, null, null, null, null, null, null, null, null, null, null);
-        when(movieService.advancedSearch(anyString(), anyInt(), anyString(), anyString(), anyString(), any(PageRequest.class)))
+        when(movieService.advancedSearch(anyString(), anyInt(), anyString(), anyString(), anyString(), any(PageRequest.class), eq(FieldSet.ALL)))
                 .thenReturn(Flux.just(movie));
 
         webTestClient.get().uri("/v1/movies/advanced-search?title=Test&year=2021&language=English&quality=HD&fileType=MP4&page=0&size=10&sort=title,asc")
@@ -0,0 +1,69 @@
+package com.chillflix.indexer.audit;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Mono;
+
+import java.time.YearMonth;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AuditLogPartitionsTest {
+
+    @Test
+    void partitionsAreNamedAndBoundedByUtcMonth() {
+        String create = AuditLogPartitions.createStatement(YearMonth.of(2024, 12));
+        assertTrue(create.contains("to_regclass('public.audit_log_p202412') IS NULL"));
+        assertTrue(create.contains("DELETE FROM public.audit_log_default"
+                + " WHERE \"timestamp\" >= '2024-12-01 00:00:00+00' AND \"timestamp\" < '2025-01-01 00:00:00+00'"));
+        assertTrue(create.contains("ATTACH PARTITION public.audit_log_p202412"
+                + " FOR VALUES FROM ('2024-12-01 00:00:00+00') TO ('2025-01-01 00:00:00+00')"));
+        assertEquals(Optional.of(YearMonth.of(2024, 12)), AuditLogPartitions.partitionMonth("audit_log_p202412"));
+        assertEquals(Optional.empty(), AuditLogPartitions.partitionMonth("audit_log_default"));
+        assertEquals(Optional.empty(), AuditLogPartitions.partitionMonth("audit_log_pxx"));
+    }
+
+    @Test
+    void createsCurrentAndFutureMonths() {
+        DatabaseClient databaseClient = mock(DatabaseClient.class);
+        DatabaseClient.GenericExecuteSpec spec = mock(DatabaseClient.GenericExecuteSpec.class);
+        when(databaseClient.sql(anyString())).thenReturn(spec);
+        when(spec.then()).thenReturn(Mono.empty());
+
+        new AuditLogPartitions(databaseClient, 2, 0).createAhead(YearMonth.of(2025, 11)).block();
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(databaseClient, times(3)).sql(sql.capture());
+        assertEquals(AuditLogPartitions.createStatement(YearMonth.of(2026, 1)), sql.getAllValues().get(2));
+    }
+
+    @Test
+    void aFailedMonthDoesNotStopTheNextOnes() {
+        DatabaseClient databaseClient = mock(DatabaseClient.class);
+        DatabaseClient.GenericExecuteSpec spec = mock(DatabaseClient.GenericExecuteSpec.class);
+        when(databaseClient.sql(anyString())).thenReturn(spec);
+        when(spec.then()).thenReturn(Mono.error(new IllegalStateException("lock timeout")), Mono.empty());
+
+        new AuditLogPartitions(databaseClient, 2, 0).createAhead(YearMonth.of(2025, 11)).block();
+
+        verify(databaseClient, times(3)).sql(anyString());
+    }
+
+    @Test
+    void noRetentionNeverDrops() {
+        DatabaseClient databaseClient = mock(DatabaseClient.class);
+
+        new AuditLogPartitions(databaseClient, 3, 0).dropExpired(YearMonth.of(2025, 11)).block();
+
+        verify(databaseClient, never()).sql(anyString());
+    }
+}
@@ -0,0 +1,125 @@
+package com.chillflix.indexer.audit;
+
+import com.chillflix.indexer.entities.Movie;
+import com.chillflix.indexer.entities.Series;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.r2dbc.mapping.R2dbcMappingContext;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.FetchSpec;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AuditOutboxTest {
+
+    private DatabaseClient databaseClient;
+    private DatabaseClient.GenericExecuteSpec spec;
+    private FetchSpec<Map<String, Object>> fetchSpec;
+    private AuditOutbox outbox;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        databaseClient = mock(DatabaseClient.class);
+        spec = mock(DatabaseClient.GenericExecuteSpec.class);
+        fetchSpec = mock(FetchSpec.class);
+        when(databaseClient.sql(anyString())).thenReturn(spec);
+        when(spec.bind(anyString(), any())).thenReturn(spec);
+        when(spec.fetch()).thenReturn(fetchSpec);
+        when(fetchSpec.rowsUpdated()).thenReturn(Mono.just(1L));
+        outbox = outbox(Set.of("movies"), 100);
+    }
+
+    private AuditOutbox outbox(Set<String> tables, int maxPending) {
+        return new AuditOutbox(databaseClient, new R2dbcMappingContext(), new ObjectMapper().findAndRegisterModules(),
+                new SimpleMeterRegistry(), tables, 1_000, maxPending, 2, Duration.ofSeconds(1));
+    }
+
+    @Test
+    void onlyApplicationAuditedTablesAreQueued() {
+        outbox.recordUpsert(Movie.builder().id(UUID.randomUUID()).title("Heat").inserted(true).build()).block();
+        outbox.recordDelete(Series.class, UUID.randomUUID()).block();
+        outbox.recordSoftDelete(Movie.class, List.of(UUID.randomUUID(), UUID.randomUUID())).block();
+
+        assertTrue(outbox.isApplicationAudited("movies"));
+        assertFalse(outbox.isApplicationAudited("series"));
+        assertEquals(3, outbox.pending());
+        verify(databaseClient, never()).sql(anyString());
+    }
+
+    @Test
+    void flushWritesMultiRowInsertsOfBatchSize() {
+        UUID id = UUID.randomUUID();
+        outbox.recordUpdate(Movie.class, id, Map.of("seeds", 10)).block();
+        outbox.recordUpdate("movies", UUID.randomUUID(), Map.of("peers", 3)).block();
+        outbox.record(Movie.builder().id(UUID.randomUUID()).title("Ronin").build(), AuditAction.INSERT).block();
+
+        outbox.flush().block();
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        // 3 eventos en lotes de 2
+        verify(databaseClient, times(2)).sql(sql.capture());
+        assertEquals(AuditOutbox.insertStatement(2), sql.getAllValues().get(0));
+        assertEquals(AuditOutbox.insertStatement(1), sql.getAllValues().get(1));
+        verify(spec).bind("id0", id);
+        verify(spec).bind("changes0", "{\"new\":{\"seeds\":10}}");
+        assertEquals(0, outbox.pending());
+    }
+
+    @Test
+    void insertStatementBindsOneTuplePerEvent() {
+        assertEquals("INSERT INTO audit_log (entity_type, entity_id, action, changes, \"timestamp\") VALUES "
+                        + "(:type0, :id0, :action0, CAST(:changes0 AS jsonb), :ts0), "
+                        + "(:type1, :id1, :action1, CAST(:changes1 AS jsonb), :ts1)",
+                AuditOutbox.insertStatement(2));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failedBatchIsRequeued() {
+        FetchSpec<Map<String, Object>> failing = mock(FetchSpec.class);
+        when(failing.rowsUpdated()).thenReturn(Mono.error(new IllegalStateException("db down")));
+        when(spec.fetch()).thenReturn(failing);
+        outbox.recordDelete(Movie.class, UUID.randomUUID()).block();
+
+        outbox.flush().block();
+
+        assertEquals(1, outbox.pending());
+    }
+
+    @Test
+    void fullOutboxWritesInline() {
+        outbox = outbox(Set.of("movies"), 0);
+
+        outbox.recordDelete(Movie.class, UUID.randomUUID()).block();
+
+        assertEquals(0, outbox.pending());
+        verify(spec).bind(eq("action0"), eq("DELETE"));
+    }
+
+    @Test
+    void unknownTableIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> outbox(Set.of("audit_log"), 100));
+    }
+}
@@ -0,0 +1,69 @@
+package com.chillflix.indexer.codec;
+
+import com.chillflix.indexer.dto.MovieDTO;
+import com.chillflix.indexer.dto.VideoGameDTO;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufMapper;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProtobufJacksonEncoderTest {
+
+    private final ProtobufMapper mapper = (ProtobufMapper) new ProtobufMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final ProtobufJacksonEncoder encoder = new ProtobufJacksonEncoder(mapper,
+            type -> type.getPackageName().equals("com.chillflix.indexer.dto"));
+
+    @Test
+    void pageIsEncodedAsARepeatedMessage() throws IOException {
+        List<MovieDTO> page = List.of(movie("Alien"), movie("Aliens"));
+        DataBuffer buffer = DataBufferUtils.join(encoder.encode(Flux.fromIterable(page), DefaultDataBufferFactory.sharedInstance,
+                ResolvableType.forClass(MovieDTO.class), ProtobufJacksonEncoder.APPLICATION_PROTOBUF, null)).block();
+        byte[] bytes = new byte[buffer.readableByteCount()];
+        buffer.read(bytes);
+
+        ProtobufSchema schema = mapper.generateSchemaFor(
+                mapper.getTypeFactory().constructParametricType(RepeatedMessage.class, MovieDTO.class));
+        RepeatedMessage<MovieDTO> decoded = mapper.readerFor(new TypeReference<RepeatedMessage<MovieDTO>>() {
+        }).with(schema).readValue(bytes);
+        assertEquals(page, decoded.items());
+    }
+
+    @Test
+    void schemaIsPublishedForDtos() {
+        String proto = encoder.protoFor(MovieDTO.class).orElseThrow();
+        assertTrue(proto.contains("message MovieDTO"), proto);
+        assertTrue(proto.contains("repeated MovieDTO items"), proto);
+    }
+
+    @Test
+    void typesWithoutAProtobufEquivalentAreNotEncodable() {
+        assertFalse(encoder.canEncode(ResolvableType.forClass(VideoGameDTO.class), ProtobufJacksonEncoder.APPLICATION_PROTOBUF));
+        assertFalse(encoder.canEncode(ResolvableType.forClass(String.class), ProtobufJacksonEncoder.APPLICATION_PROTOBUF));
+        assertTrue(encoder.canEncode(ResolvableType.forClass(MovieDTO.class), ProtobufJacksonEncoder.APPLICATION_PROTOBUF));
+    }
+
+    private static MovieDTO movie(String title) {
+        LocalDateTime now = LocalDateTime.of(2024, 5, 1, 12, 0);
+        return new MovieDTO(UUID.randomUUID(), title, 1979, "magnet:?xt=urn:btih:" + "a".repeat(40), 348, "tt0078748",
+                "en", "en", "1080p", "mkv", "b".repeat(64), false, now, now, "In space no one can hear you scream.",
+                "/poster.jpg", List.of("Horror", "Science Fiction"), null, null, 2_000_000_000L, 120, 12);
+    }
+}
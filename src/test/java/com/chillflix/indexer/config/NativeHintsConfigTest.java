@@ -0,0 +1,59 @@
+package com.chillflix.indexer.config;
+
+import com.chillflix.indexer.dto.MovieDTO;
+import com.chillflix.indexer.entities.Movie;
+import com.chillflix.indexer.repository.MovieRepository;
+import com.chillflix.indexer.service.MovieService;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.SpringProxy;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+import org.springframework.core.DecoratingProxy;
+import org.springframework.data.projection.TargetAware;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NativeHintsConfigTest {
+
+    private final RuntimeHints hints = new RuntimeHints();
+
+    @BeforeEach
+    void setUp() {
+        new NativeHintsConfig.IndexerRuntimeHints().registerHints(hints, getClass().getClassLoader());
+    }
+
+    @Test
+    void entitiesAndDtosAreRegisteredForReflection() {
+        assertTrue(RuntimeHintsPredicates.reflection().onType(Movie.class)
+                .withMemberCategories(MemberCategory.DECLARED_FIELDS, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(MovieDTO.class, "title").test(hints));
+    }
+
+    @Test
+    void repositoryQueriesAndProjectionsAreRegistered() {
+        assertTrue(RuntimeHintsPredicates.reflection().onType(MovieRepository.class)
+                .withMemberCategory(MemberCategory.INTROSPECT_DECLARED_METHODS).test(hints));
+        assertTrue(RuntimeHintsPredicates.proxies().forInterfaces(MovieRepository.LanguageCount.class,
+                TargetAware.class, SpringProxy.class, DecoratingProxy.class).test(hints));
+    }
+
+    @Test
+    void fallbackMethodsCanBeInvoked() {
+        assertTrue(RuntimeHintsPredicates.reflection().onType(MovieService.class)
+                .withMemberCategory(MemberCategory.INVOKE_DECLARED_METHODS).test(hints));
+    }
+
+    @Test
+    void queryMetricsProxiesAreRegistered() {
+        for (Class<?> type : new Class<?>[]{Connection.class, Statement.class, Result.class}) {
+            assertTrue(hints.proxies().jdkProxyHints()
+                    .anyMatch(proxy -> proxy.getProxiedInterfaces().contains(TypeReference.of(type))), type.getName());
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.chillflix.indexer.deadline;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.postgresql.api.PostgresqlConnection;
+import io.r2dbc.postgresql.api.PostgresqlStatement;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class RequestDeadlineTest {
+
+    @Test
+    void headerCanOnlyShortenTheClassDeadline() {
+        Duration search = Duration.ofSeconds(4);
+
+        assertEquals(search, RequestDeadlineFilter.budget(search, null));
+        assertEquals(Duration.ofMillis(750), RequestDeadlineFilter.budget(search, "750"));
+        assertEquals(search, RequestDeadlineFilter.budget(search, "60000"));
+        assertEquals(search, RequestDeadlineFilter.budget(search, "soon"));
+        assertEquals(Duration.ofMillis(1), RequestDeadlineFilter.budget(search, "-5"));
+        assertEquals(Duration.ofMillis(200), RequestDeadlineFilter.budget(null, "200"));
+        assertNull(RequestDeadlineFilter.budget(null, null));
+    }
+
+    @Test
+    void abandonedStatementIsCancelledOnTheServerBeforeRelease() {
+        PostgresqlConnection postgres = runningStatement();
+        Connection connection = connection(postgres, Duration.ZERO);
+
+        Disposable subscription = Flux.from(connection.createStatement("SELECT pg_sleep(10)").execute()).subscribe();
+        subscription.dispose();
+        Mono.from(connection.close()).block();
+
+        verify(postgres).cancelRequest();
+        verify(postgres).close();
+    }
+
+    @Test
+    void shortStatementsAreNotCancelled() {
+        PostgresqlConnection postgres = runningStatement();
+        Connection connection = connection(postgres, Duration.ofMinutes(1));
+
+        Flux.from(connection.createStatement("SELECT 1").execute()).subscribe().dispose();
+
+        verify(postgres, never()).cancelRequest();
+    }
+
+    private static PostgresqlConnection runningStatement() {
+        PostgresqlConnection postgres = mock(PostgresqlConnection.class);
+        PostgresqlStatement statement = mock(PostgresqlStatement.class);
+        doReturn(statement).when(postgres).createStatement("SELECT pg_sleep(10)");
+        doReturn(statement).when(postgres).createStatement("SELECT 1");
+        doReturn(Flux.never()).when(statement).execute();
+        doReturn(Mono.empty()).when(postgres).cancelRequest();
+        doReturn(Mono.empty()).when(postgres).close();
+        return postgres;
+    }
+
+    private static Connection connection(PostgresqlConnection postgres, Duration minRuntime) {
+        ConnectionFactory delegate = mock(ConnectionFactory.class);
+        doReturn(Mono.just(postgres)).when(delegate).create();
+        return new CancellingConnectionFactory(delegate, minRuntime, new SimpleMeterRegistry()).create().block();
+    }
+}
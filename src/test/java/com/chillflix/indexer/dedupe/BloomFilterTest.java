@@ -0,0 +1,49 @@
+package com.chillflix.indexer.dedupe;
+
+import com.chillflix.indexer.entities.Movie;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTest {
+
+    @Test
+    void noFalseNegativesAndFalsePositiveRateNearTarget() {
+        BloomFilter filter = new BloomFilter(100_000, 0.01);
+        for (int i = 0; i < 100_000; i++) {
+            filter.put("sha:" + i);
+        }
+        for (int i = 0; i < 100_000; i++) {
+            assertTrue(filter.mightContain("sha:" + i));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("btih:" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void sameContentIgnoresBookkeepingColumns() {
+        Movie stored = Movie.builder().id(UUID.randomUUID()).title("Heat").year(1995).magnet("magnet:?xt=urn:btih:x")
+                .isDeleted(false).createdAt(LocalDateTime.now().minusDays(1)).updatedAt(LocalDateTime.now().minusDays(1))
+                .searchVector("'heat':1").build();
+        Movie resent = Movie.builder().title("Heat").year(1995).magnet("magnet:?xt=urn:btih:x")
+                .createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).build();
+
+        assertTrue(ContentComparison.sameContent(stored, resent));
+
+        resent.setSeeds(10);
+        assertFalse(ContentComparison.sameContent(stored, resent));
+
+        resent.setSeeds(null);
+        stored.setIsDeleted(true);
+        assertFalse(ContentComparison.sameContent(stored, resent));
+    }
+}
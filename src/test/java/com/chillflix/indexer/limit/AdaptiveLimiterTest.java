@@ -0,0 +1,82 @@
+package com.chillflix.indexer.limit;
+
+import com.chillflix.indexer.routing.WorkloadClass;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveLimiterTest {
+
+    private static final long FAST = Duration.ofMillis(10).toNanos();
+    private static final long SLOW = Duration.ofSeconds(2).toNanos();
+
+    @Test
+    void rejectsBeyondTheLimit() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(2, 1, 10, Duration.ofMillis(100), 0.9);
+
+        assertEquals(1, limiter.tryAcquire());
+        assertEquals(2, limiter.tryAcquire());
+        assertEquals(-1, limiter.tryAcquire());
+        limiter.release();
+        assertEquals(2, limiter.tryAcquire());
+    }
+
+    @Test
+    void slowOrFailedRequestsShrinkTheLimitDownToTheMinimum() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(10, 2, 10, Duration.ofMillis(100), 0.5);
+
+        limiter.release(limiter.tryAcquire(), SLOW, false);
+        assertEquals(5, limiter.getLimit());
+        limiter.release(limiter.tryAcquire(), FAST, true);
+        assertEquals(2, limiter.getLimit());
+        limiter.release(limiter.tryAcquire(), SLOW, false);
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    void fastRequestsGrowTheLimitOnlyWhenItIsInUse() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(4, 1, 5, Duration.ofMillis(100), 0.9);
+
+        // Con una sola petición en curso el límite no se usa: no crece
+        for (int i = 0; i < 20; i++) {
+            limiter.release(limiter.tryAcquire(), FAST, false);
+        }
+        assertEquals(4, limiter.getLimit());
+
+        limiter.tryAcquire();
+        limiter.tryAcquire();
+        for (int i = 0; i < 20; i++) {
+            limiter.release(2, FAST, false);
+            limiter.tryAcquire();
+        }
+        assertEquals(5, limiter.getLimit());
+    }
+
+    @Test
+    void lowerPriorityGroupsAreShedWhenAHigherOneIsBusy() {
+        AdaptiveLimiter interactive = new AdaptiveLimiter(10, 1, 10, Duration.ofMillis(100), 0.9);
+        AdaptiveLimiter search = new AdaptiveLimiter(10, 1, 10, Duration.ofMillis(100), 0.9);
+        AdaptiveLimiter bulk = new AdaptiveLimiter(10, 1, 10, Duration.ofMillis(100), 0.9);
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(Map.of(WorkloadClass.INTERACTIVE, interactive,
+                WorkloadClass.SEARCH, search, WorkloadClass.BULK, bulk), 0.8, new SimpleMeterRegistry());
+
+        for (int i = 0; i < 8; i++) {
+            search.tryAcquire();
+        }
+        assertFalse(filter.shouldShed(WorkloadClass.INTERACTIVE));
+        assertFalse(filter.shouldShed(WorkloadClass.SEARCH));
+        assertTrue(filter.shouldShed(WorkloadClass.BULK));
+
+        for (int i = 0; i < 8; i++) {
+            interactive.tryAcquire();
+        }
+        assertFalse(filter.shouldShed(WorkloadClass.INTERACTIVE));
+        assertTrue(filter.shouldShed(WorkloadClass.SEARCH));
+    }
+}
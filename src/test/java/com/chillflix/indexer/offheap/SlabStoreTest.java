@@ -0,0 +1,78 @@
+package com.chillflix.indexer.offheap;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SlabStoreTest {
+
+    private final AtomicLong now = new AtomicLong();
+    // Dos slabs de 8 bytes
+    private final SlabStore<String> store = new SlabStore<>(16, 8, Duration.ofMinutes(5), now::get);
+
+    @Test
+    void valuesAreReadBack() {
+        store.put("a", new byte[]{1, 2, 3});
+        store.put("a", new byte[]{4, 5});
+        assertArrayEquals(new byte[]{4, 5}, store.get("a"));
+        assertEquals(1, store.size());
+        assertEquals(2, store.liveBytes());
+    }
+
+    @Test
+    void oldestSlabIsEvictedWhenTheRingIsFull() {
+        store.put("a", new byte[6]);
+        store.put("b", new byte[6]);
+        store.put("c", new byte[6]);
+        assertNull(store.get("a"));
+        assertNotNull(store.get("b"));
+        assertNotNull(store.get("c"));
+        assertEquals(1, store.evictions());
+    }
+
+    @Test
+    void readValuesGetASecondChance() {
+        store.put("a", new byte[3]);
+        store.put("b", new byte[3]);
+        store.get("a");
+        store.put("c", new byte[6]);
+        store.put("d", new byte[4]);
+        // d recicla el primer slab: a se reescribe al principio y b se desaloja
+        assertNotNull(store.get("a"));
+        assertNull(store.get("b"));
+        assertNotNull(store.get("c"));
+        assertNotNull(store.get("d"));
+        assertEquals(1, store.evictions());
+    }
+
+    @Test
+    void expiredValuesAreNotReturned() {
+        store.put("a", new byte[1]);
+        now.addAndGet(Duration.ofMinutes(6).toNanos());
+        assertNull(store.get("a"));
+    }
+
+    @Test
+    void valuesLargerThanASlabAreNotStored() {
+        store.put("a", new byte[1]);
+        assertFalse(store.put("a", new byte[9]));
+        assertNull(store.get("a"));
+        assertEquals(0, store.liveBytes());
+    }
+
+    @Test
+    void removeIfDropsMatchingKeys() {
+        store.put("movie:1", new byte[1]);
+        store.put("series:1", new byte[1]);
+        store.removeIf(key -> key.startsWith("movie:"));
+        assertNull(store.get("movie:1"));
+        assertNotNull(store.get("series:1"));
+    }
+}
@@ -0,0 +1,95 @@
+package com.chillflix.indexer.offheap;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TieredCacheTest {
+
+    record Item(String title, List<String> genres) {
+    }
+
+    private final CaffeineCacheManager caffeine = new CaffeineCacheManager();
+    private final TieredCacheManager cacheManager;
+
+    TieredCacheTest() {
+        caffeine.setAsyncCacheMode(true);
+        TypeFactory types = TypeFactory.defaultInstance();
+        cacheManager = new TieredCacheManager(caffeine,
+                new SlabStore<>(DataSize.ofKilobytes(64).toBytes(), 4096, Duration.ofMinutes(5)),
+                new ObjectMapper(new SmileFactory()),
+                Map.of("itemCache", types.constructType(Item.class),
+                        "allItemsCache", types.constructCollectionType(List.class, Item.class)),
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    void localMissIsServedFromOffHeap() throws Exception {
+        Cache cache = cacheManager.getCache("itemCache");
+        Item item = new Item("Alien", List.of("Horror", "Sci-Fi"));
+        cache.put("1", item);
+        caffeine.getCache("itemCache").clear();
+        assertEquals(item, cache.retrieve("1").get());
+        // Ya de vuelta en la caché local
+        assertEquals(item, caffeine.getCache("itemCache").get("1").get());
+    }
+
+    @Test
+    void listPagesRoundTrip() {
+        Cache cache = cacheManager.getCache("allItemsCache");
+        List<Item> page = List.of(new Item("Alien", List.of()), new Item("Aliens", List.of("Action")));
+        cache.put(0, page);
+        caffeine.getCache("allItemsCache").clear();
+        assertEquals(page, cache.get(0, List.class));
+    }
+
+    @Test
+    void evictRemovesBothTiers() {
+        Cache cache = cacheManager.getCache("itemCache");
+        cache.put("1", new Item("Alien", List.of()));
+        cache.evict("1");
+        assertNull(cache.get("1"));
+    }
+
+    @Test
+    void promotedValueOnlyLivesWhatItHadLeftOffHeap() {
+        CaffeineCacheManager local = new CaffeineCacheManager();
+        local.setCaffeine(TieredCacheManager.localCaffeine("maximumSize=10,expireAfterWrite=300s"));
+        local.setAsyncCacheMode(true);
+        long[] now = {0};
+        SlabStore<CacheKey> store = new SlabStore<>(DataSize.ofKilobytes(64).toBytes(), 4096, Duration.ofSeconds(300), () -> now[0]);
+        Cache cache = new TieredCacheManager(local, store, new ObjectMapper(new SmileFactory()),
+                Map.of("itemCache", TypeFactory.defaultInstance().constructType(Item.class)), new SimpleMeterRegistry())
+                .getCache("itemCache");
+        cache.put("1", new Item("Alien", List.of()));
+        now[0] = Duration.ofSeconds(200).toNanos();
+        local.getCache("itemCache").clear();
+
+        cache.get("1");
+
+        @SuppressWarnings("unchecked")
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> promoted =
+                (com.github.benmanes.caffeine.cache.Cache<Object, Object>) local.getCache("itemCache").getNativeCache();
+        Duration left = promoted.policy().expireVariably().orElseThrow().getExpiresAfter("1").orElseThrow();
+        assertTrue(left.compareTo(Duration.ofSeconds(100)) <= 0, "left " + left);
+    }
+
+    @Test
+    void cachesWithoutAValueTypeStayLocal() {
+        assertSame(caffeine.getCache("otherCache"), cacheManager.getCache("otherCache"));
+    }
+}
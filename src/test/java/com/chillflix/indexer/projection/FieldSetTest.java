@@ -0,0 +1,51 @@
+package com.chillflix.indexer.projection;
+
+import com.chillflix.indexer.dto.MovieDTO;
+import com.chillflix.indexer.exception.InvalidFieldsException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FieldSetTest {
+
+    private final MovieDTO movie = new MovieDTO(UUID.randomUUID(), "Test Movie", 2021, "magnet:?xt=urn:btih:123", 1, "tt1234567", "English", "English", "HD", "MP4", "abc123", null, null, null, null, null, null, null, null, null, null, null);
+
+    @Test
+    void blankSelectsEverything() {
+        assertSame(FieldSet.ALL, FieldSet.parse(null, MovieDTO.class));
+        assertSame(FieldSet.ALL, FieldSet.parse(" ", MovieDTO.class));
+        assertSame(movie, FieldSet.ALL.project(movie));
+    }
+
+    @Test
+    void keepsDeclarationOrderAndAddsTheId() {
+        FieldSet fields = FieldSet.parse("year, title,,year", MovieDTO.class);
+
+        assertEquals(List.of("id", "title", "year"), fields.names());
+        assertEquals(fields, FieldSet.parse("title,year", MovieDTO.class));
+    }
+
+    @Test
+    void projectsTheSelectedFieldsIncludingNulls() {
+        Object projected = FieldSet.parse("title,overview", MovieDTO.class).project(movie);
+
+        assertEquals(List.of("id", "title", "overview"), List.copyOf(((Map<?, ?>) projected).keySet()));
+        assertEquals("Test Movie", ((Map<?, ?>) projected).get("title"));
+        assertTrue(((Map<?, ?>) projected).containsKey("overview"));
+    }
+
+    @Test
+    void rejectsUnknownFields() {
+        InvalidFieldsException error = assertThrows(InvalidFieldsException.class,
+                () -> FieldSet.parse("title,password", MovieDTO.class));
+
+        assertTrue(error.getMessage().startsWith("Unknown field 'password'"));
+    }
+}
@@ -0,0 +1,41 @@
+package com.chillflix.indexer.projection;
+
+import com.chillflix.indexer.dto.MovieDTO;
+import com.chillflix.indexer.entities.Movie;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.r2dbc.convert.MappingR2dbcConverter;
+import org.springframework.data.r2dbc.mapping.R2dbcMappingContext;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+class ProjectedQueriesTest {
+
+    private static final String QUERY = "SELECT * FROM movies WHERE year = :year ORDER BY updated_at DESC LIMIT :limit OFFSET :offset";
+
+    private final ProjectedQueries queries = new ProjectedQueries(mock(DatabaseClient.class),
+            new MappingR2dbcConverter(new R2dbcMappingContext()));
+
+    @Test
+    void selectsOnlyTheRequestedColumns() {
+        FieldSet fields = FieldSet.parse("title,posterPath,fileType", MovieDTO.class);
+
+        assertEquals("SELECT id, title, file_type, poster_path FROM movies WHERE year = :year ORDER BY updated_at DESC LIMIT :limit OFFSET :offset",
+                queries.sql(QUERY, Movie.class, fields));
+    }
+
+    @Test
+    void allFieldsKeepTheQuery() {
+        assertEquals(QUERY, queries.sql(QUERY, Movie.class, FieldSet.ALL));
+    }
+
+    @Test
+    void onlySelectAllQueriesCanBeProjected() {
+        FieldSet fields = FieldSet.parse("title", MovieDTO.class);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> queries.sql("SELECT COUNT(*) FROM movies", Movie.class, fields));
+    }
+}
@@ -0,0 +1,57 @@
+package com.chillflix.indexer.querymetrics;
+
+import com.chillflix.indexer.repository.MovieRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class QueryNamesTest {
+
+    private final QueryNames queryNames = new QueryNames();
+
+    @BeforeEach
+    void setUp() {
+        queryNames.register(List.of(MovieRepository.class));
+    }
+
+    @Test
+    void repositoryQueriesAreNamedAfterTheirMethod() {
+        assertEquals("MovieRepository.findByTmdbId", queryNames.nameOf(
+                "SELECT * FROM movies WHERE (is_deleted = false OR is_deleted IS NULL) AND tmdb_id = $1"));
+        // Lista IN expandida por Spring Data
+        assertEquals("MovieRepository.deleteAllByIdIn", queryNames.nameOf(
+                "UPDATE movies SET is_deleted = true WHERE id IN ($1, $2, $3)"));
+    }
+
+    @Test
+    void registeringForgetsNamesResolvedBefore() {
+        QueryNames unregistered = new QueryNames();
+        String sql = "SELECT * FROM movies WHERE (is_deleted = false OR is_deleted IS NULL) AND tmdb_id = $1";
+        assertEquals("select movies", unregistered.nameOf(sql));
+        unregistered.register(List.of(MovieRepository.class));
+        assertEquals("MovieRepository.findByTmdbId", unregistered.nameOf(sql));
+    }
+
+    @Test
+    void rewrittenQueriesKeepTheNameOfTheirComment() {
+        assertEquals("MovieRepository.findByTmdbId", queryNames.nameOf(QueryNames.named("MovieRepository.findByTmdbId",
+                "SELECT id, title FROM movies WHERE (is_deleted = false OR is_deleted IS NULL) AND tmdb_id = $1")));
+    }
+
+    @Test
+    void otherStatementsAreNamedByOperationAndTable() {
+        assertEquals("select movies", queryNames.nameOf("SELECT movies.id, movies.title FROM movies WHERE movies.id = $1"));
+        assertEquals("insert audit_log", queryNames.nameOf("INSERT INTO audit_log (table_name) VALUES ($1)"));
+        assertEquals("update movies", queryNames.nameOf("UPDATE \"movies\" SET seeds = $1"));
+        assertEquals(QueryNames.UNKNOWN, queryNames.nameOf("  "));
+    }
+
+    @Test
+    void fingerprintIgnoresParameterStyleAndWhitespace() {
+        assertEquals(QueryNames.fingerprint("SELECT * FROM t WHERE a = :a AND b::text = :#{#e.b}"),
+                QueryNames.fingerprint("select *  from t\n where a = $1 and b::text = $2"));
+    }
+}
@@ -0,0 +1,95 @@
+package com.chillflix.indexer.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ClientRateLimiterTest {
+
+    private static final RateLimitPolicy POLICY = new RateLimitPolicy(10, 1.0 / 60, 3);
+
+    private RateLimitStore store;
+    private ClientRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        store = mock(RateLimitStore.class);
+        limiter = new ClientRateLimiter(store, Duration.ofMinutes(10), 1000, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void localReservationServesRequestsWithoutRoundTrips() {
+        when(store.reserve(eq("ip:1.2.3.4"), any())).thenReturn(Mono.just(3L));
+
+        for (int i = 0; i < 4; i++) {
+            StepVerifier.create(limiter.tryAcquire("ip:1.2.3.4", POLICY)).expectNext(true).verifyComplete();
+        }
+
+        verify(store, times(2)).reserve(eq("ip:1.2.3.4"), any());
+    }
+
+    @Test
+    void emptySharedBucketRefusesLocallyUntilItRefills() {
+        when(store.reserve(eq("ip:1.2.3.4"), any())).thenReturn(Mono.just(0L));
+
+        StepVerifier.create(limiter.tryAcquire("ip:1.2.3.4", POLICY)).expectNext(false).verifyComplete();
+        StepVerifier.create(limiter.tryAcquire("ip:1.2.3.4", POLICY)).expectNext(false).verifyComplete();
+
+        verify(store, times(1)).reserve(eq("ip:1.2.3.4"), any());
+    }
+
+    @Test
+    void concurrentRequestsShareOneReservation() {
+        Sinks.One<Long> reservation = Sinks.one();
+        when(store.reserve(eq("key:abc"), any())).thenReturn(reservation.asMono());
+
+        Mono<Boolean> first = limiter.tryAcquire("key:abc", POLICY).cache();
+        Mono<Boolean> second = limiter.tryAcquire("key:abc", POLICY).cache();
+        first.subscribe();
+        second.subscribe();
+        reservation.tryEmitValue(2L);
+
+        assertEquals(Boolean.TRUE, first.block());
+        assertEquals(Boolean.TRUE, second.block());
+        verify(store, times(1)).reserve(eq("key:abc"), any());
+    }
+
+    @Test
+    void storeFailureLetsRequestsThrough() {
+        when(store.reserve(any(), any())).thenReturn(Mono.error(new IllegalStateException("down")));
+
+        StepVerifier.create(limiter.tryAcquire("ip:1.2.3.4", POLICY)).expectNext(true).verifyComplete();
+    }
+
+    @Test
+    void apiKeysAreNotStoredInClear() {
+        String fingerprint = RateLimitFilter.fingerprint("secret-key");
+
+        assertEquals(32, fingerprint.length());
+        assertNotEquals(fingerprint, RateLimitFilter.fingerprint("secret-key2"));
+    }
+
+    @Test
+    void forwardedClientIpIsTheEntryAppendedByTheProxy() {
+        RateLimitFilter filter = new RateLimitFilter(true, limiter, POLICY, POLICY, Set.of(), "X-Forwarded-For");
+
+        assertEquals("5.6.7.8", filter.clientIp(MockServerHttpRequest.get("/v1/movies")
+                .header("X-Forwarded-For", "1.2.3.4, 5.6.7.8").build()));
+    }
+}
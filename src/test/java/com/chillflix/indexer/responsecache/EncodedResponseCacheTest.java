@@ -0,0 +1,123 @@
+package com.chillflix.indexer.responsecache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EncodedResponseCacheTest {
+
+    private static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final EncodedResponseCache cache = new EncodedResponseCache(ServerCodecConfigurer.create(), meterRegistry,
+            DataSize.ofMegabytes(1), DataSize.ofBytes(64));
+
+    record Item(String title) {
+    }
+
+    @Test
+    void sameInstanceReusesTheEncodedBytes() {
+        Item item = new Item("Alien");
+        cache.entity("movieCache", 1, item, exchange());
+        cache.entity("movieCache", 1, item, exchange());
+        assertEquals(1.0, count("hit"));
+        assertEquals(1.0, count("miss"));
+    }
+
+    @Test
+    void reloadedValueIsEncodedAgain() {
+        cache.entity("movieCache", 1, new Item("Alien"), exchange());
+        ResponseEntity<DataBuffer> response = cache.entity("movieCache", 1, new Item("Aliens"), exchange());
+        assertEquals("{\"title\":\"Aliens\"}", response.getBody().toString(StandardCharsets.UTF_8));
+        assertEquals(2.0, count("miss"));
+    }
+
+    @Test
+    void pageIsEncodedAsAnArray() {
+        List<Item> page = List.of(new Item("Alien"), new Item("Aliens"));
+        ResponseEntity<DataBuffer> response = cache.page("allMoviesCache", 0, page, Item.class, exchange());
+        assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+        assertEquals("[{\"title\":\"Alien\"},{\"title\":\"Aliens\"}]", response.getBody().toString(StandardCharsets.UTF_8));
+        assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Test
+    void eachAcceptedFormatIsCachedSeparately() throws IOException {
+        Item item = new Item("Alien");
+        cache.entity("movieCache", 1, item, exchange());
+        ResponseEntity<DataBuffer> response = cache.entity("movieCache", 1, item, MockServerWebExchange.from(
+                MockServerHttpRequest.get("/").accept(SMILE)));
+        assertEquals(SMILE, response.getHeaders().getContentType());
+        assertEquals(item, new ObjectMapper(new SmileFactory()).readValue(bytes(response), Item.class));
+        assertEquals(2.0, count("miss"));
+    }
+
+    @Test
+    void unacceptableFormatsFallBackToJson() {
+        ResponseEntity<DataBuffer> response = cache.entity("movieCache", 1, new Item("Alien"), MockServerWebExchange.from(
+                MockServerHttpRequest.get("/").accept(MediaType.IMAGE_PNG)));
+        assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+    }
+
+    @Test
+    void largeBodiesAreGzippedForClientsThatAcceptIt() throws IOException {
+        Item item = new Item("x".repeat(200));
+        ResponseEntity<DataBuffer> response = cache.entity("movieCache", 1, item, MockServerWebExchange.from(
+                MockServerHttpRequest.get("/").header(HttpHeaders.ACCEPT_ENCODING, "br;q=1.0, gzip;q=0.8")));
+        assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes(response)))) {
+            assertArrayEquals(new ObjectMapper().writeValueAsBytes(item), in.readAllBytes());
+        }
+    }
+
+    @Test
+    void entryWeighsItsBytesAndItsSources() {
+        Object[] sources = {new Item("Alien"), new Item("Aliens")};
+        EncodedResponseCache.Entry entry = new EncodedResponseCache.Entry(MediaType.APPLICATION_JSON, sources, new byte[100]);
+        assertEquals(2 * 100 + 2 * Long.BYTES, entry.weight());
+    }
+
+    @Test
+    void gzipWithZeroQualityIsRefused() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, deflate");
+        assertFalse(EncodedResponseCache.acceptsGzip(headers));
+        headers.set(HttpHeaders.ACCEPT_ENCODING, "GZIP");
+        assertTrue(EncodedResponseCache.acceptsGzip(headers));
+    }
+
+    private static MockServerWebExchange exchange() {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("/"));
+    }
+
+    private static byte[] bytes(ResponseEntity<DataBuffer> response) {
+        byte[] bytes = new byte[response.getBody().readableByteCount()];
+        response.getBody().read(bytes);
+        return bytes;
+    }
+
+    private double count(String result) {
+        return meterRegistry.get(EncodedResponseCache.RESPONSE_CACHE_METER).tag("result", result).counter().count();
+    }
+}
@@ -0,0 +1,128 @@
+package com.chillflix.indexer.routing;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+class DatabaseRoutingTest {
+
+    private ReplicaLagMonitor lagMonitor;
+    private ReplicaRoutingFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        // DatabaseClient elige los bind markers por el nombre de la base
+        ConnectionFactory replica = mock(ConnectionFactory.class);
+        ConnectionFactoryMetadata metadata = () -> "PostgreSQL";
+        doReturn(metadata).when(replica).getMetadata();
+        lagMonitor = new ReplicaLagMonitor(replica, meterRegistry, Duration.ofSeconds(5), Duration.ofSeconds(1));
+        filter = new ReplicaRoutingFilter(lagMonitor, meterRegistry, Duration.ofSeconds(2));
+    }
+
+    @Test
+    void readsStayOnPrimaryUntilFirstGoodLagSample() {
+        assertFalse(lagMonitor.isUsable());
+        assertEquals(DatabaseRole.PRIMARY, filter.routeRead(null, 0));
+
+        lagMonitor.update(Duration.ofMillis(300));
+        assertEquals(DatabaseRole.REPLICA, filter.routeRead(null, 0));
+
+        lagMonitor.update(Duration.ofSeconds(6));
+        assertEquals(DatabaseRole.PRIMARY, filter.routeRead(null, 0));
+    }
+
+    @Test
+    void recentWriteTokenReadsFromPrimary() {
+        lagMonitor.update(Duration.ofMillis(500));
+        long now = 1_000_000;
+
+        // Dentro de retraso (0,5 s) + margen (2 s)
+        assertEquals(DatabaseRole.PRIMARY, filter.routeRead(Long.toString(now - 2_000), now));
+        assertEquals(DatabaseRole.REPLICA, filter.routeRead(Long.toString(now - 3_000), now));
+        assertEquals(DatabaseRole.PRIMARY, filter.routeRead("garbage", now));
+    }
+
+    @Test
+    void connectionFactoryRoutesByRoleAndWorkload() {
+        Map<WorkloadClass, ConnectionPool> primary = new EnumMap<>(WorkloadClass.class);
+        for (WorkloadClass workload : WorkloadClass.values()) {
+            primary.put(workload, mock(ConnectionPool.class));
+        }
+        ConnectionPool replicaSearch = mock(ConnectionPool.class);
+        PoolRoutingConnectionFactory routing = new PoolRoutingConnectionFactory(primary,
+                Map.of(WorkloadClass.SEARCH, replicaSearch), new SimpleMeterRegistry());
+
+        StepVerifier.create(routing.determineCurrentLookupKey())
+                .expectNext(new PoolKey(DatabaseRole.PRIMARY, WorkloadClass.INTERACTIVE))
+                .verifyComplete();
+        StepVerifier.create(routing.determineCurrentLookupKey()
+                        .contextWrite(DatabaseRouting.with(DatabaseRole.REPLICA))
+                        .contextWrite(DatabaseRouting.with(WorkloadClass.SEARCH)))
+                .expectNext(new PoolKey(DatabaseRole.REPLICA, WorkloadClass.SEARCH))
+                .verifyComplete();
+        assertEquals(Map.of(WorkloadClass.SEARCH, replicaSearch), routing.getReplicaPools());
+        assertEquals(primary.get(WorkloadClass.BULK), routing.getPrimary(WorkloadClass.BULK));
+        assertEquals(DatabaseRole.PRIMARY, DatabaseRouting.currentRole().block());
+    }
+
+    @Test
+    void requestsAreClassifiedByPath() {
+        assertEquals(WorkloadClass.SEARCH, WorkloadClassFilter.classify(MockServerHttpRequest.get("/v1/movies/search").build()));
+        assertEquals(WorkloadClass.SEARCH, WorkloadClassFilter.classify(MockServerHttpRequest.get("/v1/episodes/advanced-search").build()));
+        assertEquals(WorkloadClass.BULK, WorkloadClassFilter.classify(MockServerHttpRequest.put("/v1/movies/bulk").build()));
+        assertEquals(WorkloadClass.INTERACTIVE, WorkloadClassFilter.classify(MockServerHttpRequest.get("/v1/movies/count").build()));
+        assertEquals(WorkloadClass.INTERACTIVE, WorkloadClassFilter.classify(MockServerHttpRequest.post("/v1/movies").build()));
+    }
+
+    @Test
+    void writeTransactionsBeginOnPrimaryAndReadOnlyOnesFollowTheCaller() {
+        List<DatabaseRole> acquiredFrom = new CopyOnWriteArrayList<>();
+        Connection connection = mock(Connection.class);
+        doReturn(Mono.empty()).when(connection).beginTransaction(any(io.r2dbc.spi.TransactionDefinition.class));
+        doReturn(Mono.empty()).when(connection).commitTransaction();
+        doReturn(Mono.empty()).when(connection).rollbackTransaction();
+        doReturn(Mono.empty()).when(connection).close();
+        ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
+        doReturn(Mono.deferContextual(context -> {
+            acquiredFrom.add(DatabaseRouting.currentRole(context));
+            return Mono.just(connection);
+        })).when(connectionFactory).create();
+        RoutingTransactionManager transactionManager = new RoutingTransactionManager(connectionFactory);
+
+        DefaultTransactionDefinition readWrite = new DefaultTransactionDefinition();
+        DefaultTransactionDefinition readOnly = new DefaultTransactionDefinition();
+        readOnly.setReadOnly(true);
+        for (DefaultTransactionDefinition definition : List.of(readWrite, readOnly)) {
+            TransactionalOperator.create(transactionManager, definition)
+                    .transactional(Mono.just(1))
+                    .contextWrite(DatabaseRouting.with(DatabaseRole.REPLICA))
+                    // Solo interesa de qué base se tomó la conexión
+                    .onErrorResume(error -> Mono.empty())
+                    .block();
+        }
+
+        assertEquals(List.of(DatabaseRole.PRIMARY, DatabaseRole.REPLICA), acquiredFrom);
+    }
+}
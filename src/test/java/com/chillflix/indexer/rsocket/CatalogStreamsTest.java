@@ -0,0 +1,78 @@
+package com.chillflix.indexer.rsocket;
+
+import com.chillflix.indexer.routing.DatabaseRole;
+import com.chillflix.indexer.routing.DatabaseRouting;
+import com.chillflix.indexer.routing.ReplicaLagMonitor;
+import com.chillflix.indexer.routing.WorkloadClass;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CatalogStreamsTest {
+
+    private final List<Integer> queried = new CopyOnWriteArrayList<>();
+
+    private Flux<Integer> rowsAfter(int after, int limit) {
+        queried.add(after);
+        return Flux.fromStream(IntStream.rangeClosed(after + 1, Math.min(after + limit, 25)).boxed());
+    }
+
+    @Test
+    void walksBatchesUntilAShortOne() {
+        StepVerifier.create(CatalogStreams.batches(0, 10, after -> rowsAfter(after, 10),
+                        (after, rows) -> rows.get(rows.size() - 1)))
+                .expectNextSequence(IntStream.rangeClosed(1, 25).boxed().toList())
+                .verifyComplete();
+        assertEquals(List.of(0, 10, 20), queried);
+    }
+
+    @Test
+    void nextBatchWaitsForDemand() {
+        StepVerifier.create(CatalogStreams.batches(0, 10, after -> rowsAfter(after, 10),
+                        (after, rows) -> rows.get(rows.size() - 1)), 5)
+                .expectNextCount(5)
+                .thenAwait()
+                .then(() -> assertEquals(2, queried.size()))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void failedBatchEndsTheStreamWithItsError() {
+        StepVerifier.create(CatalogStreams.batches(0, 10,
+                        after -> after == 0 ? rowsAfter(after, 10) : Flux.<Integer>error(new IllegalStateException("search down")),
+                        (after, rows) -> rows.get(rows.size() - 1)))
+                .expectNextCount(10)
+                .verifyErrorMessage("search down");
+    }
+
+    @Test
+    void batchSizeIsBounded() {
+        assertEquals(CatalogStreams.DEFAULT_BATCH, CatalogStreams.batchSize(null));
+        assertThrows(IllegalArgumentException.class, () -> CatalogStreams.batchSize(CatalogStreams.MAX_BATCH + 1));
+        assertThrows(IllegalArgumentException.class, () -> CatalogStreams.batchSize(0));
+    }
+
+    @Test
+    void readsGoToTheReplicaOnlyWhileItIsUsable() {
+        ReplicaLagMonitor lagMonitor = mock(ReplicaLagMonitor.class);
+        when(lagMonitor.isEnabled()).thenReturn(true);
+        Context context = CatalogStreams.reads(lagMonitor, WorkloadClass.SEARCH).apply(Context.empty());
+        assertEquals(DatabaseRole.PRIMARY, DatabaseRouting.currentRole(context));
+        assertEquals(WorkloadClass.SEARCH, DatabaseRouting.currentWorkload(context));
+
+        when(lagMonitor.isUsable()).thenReturn(true);
+        context = CatalogStreams.reads(lagMonitor, WorkloadClass.SEARCH).apply(Context.empty());
+        assertEquals(DatabaseRole.REPLICA, DatabaseRouting.currentRole(context));
+    }
+}
@@ -0,0 +1,34 @@
+package com.chillflix.indexer.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TopKTest {
+
+    @Test
+    void keepsTheBestElementsInOrder() {
+        TopK<Integer> top = new TopK<>(3, Comparator.reverseOrder());
+        List.of(5, 1, 9, 3, 7, 9, 2).forEach(top::offer);
+
+        assertEquals(List.of(9, 9, 7), top.sorted());
+    }
+
+    @Test
+    void holdsFewerElementsThanItsCapacity() {
+        TopK<Integer> top = new TopK<>(10, Comparator.naturalOrder());
+        IntStream.of(4, 2, 8).forEach(top::offer);
+
+        assertEquals(List.of(2, 4, 8), top.sorted());
+    }
+
+    @Test
+    void rejectsAnEmptyCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new TopK<Integer>(0, Comparator.naturalOrder()));
+    }
+}
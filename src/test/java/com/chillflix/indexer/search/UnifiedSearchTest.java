@@ -0,0 +1,111 @@
+package com.chillflix.indexer.search;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UnifiedSearchTest {
+
+    private record Item(UUID id, String title, Integer year) {
+    }
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private static SearchSource<Item> source(String type, String... titles) {
+        return new SearchSource<>(type, (term, limit) -> Flux.fromArray(titles)
+                .take(limit)
+                .map(title -> new Item(UUID.randomUUID(), title, 2020)), Item::id, Item::title, Item::year);
+    }
+
+    private static SearchSource<Item> source(String type, Flux<Item> items) {
+        return new SearchSource<>(type, (term, limit) -> items, Item::id, Item::title, Item::year);
+    }
+
+    private UnifiedSearch search(int minSources, SearchSource<?>... sources) {
+        return new UnifiedSearch(List.of(sources), meterRegistry, Duration.ofMillis(200), minSources, 100);
+    }
+
+    @Test
+    void mergesTypesByNormalizedRank() {
+        UnifiedSearch search = search(1,
+                source("movies", "The Matrix Reloaded", "Matrix"),
+                source("music", "Matrix Theme", "Other"));
+
+        StepVerifier.create(search.search("matrix", Set.of(), 10))
+                .assertNext(result -> {
+                    assertEquals(List.of("Matrix", "Matrix Theme", "The Matrix Reloaded", "Other"),
+                            result.hits().stream().map(SearchHit::title).toList());
+                    assertEquals(Map.of("movies", 2, "music", 2), result.hitsPerType());
+                    assertTrue(result.partial().isEmpty());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void keepsOnlyTheTopHits() {
+        UnifiedSearch search = search(1,
+                source("movies", "Alien", "Aliens", "Alien 3"),
+                source("series", "Alien Nation"));
+
+        StepVerifier.create(search.search("alien", Set.of(), 2))
+                .assertNext(result -> {
+                    assertEquals(List.of("Alien", "Alien Nation"), result.hits().stream().map(SearchHit::title).toList());
+                    assertEquals(Map.of("movies", 2, "series", 1), result.hitsPerType());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void leavesOutSlowAndFailingTypes() {
+        UnifiedSearch search = search(1,
+                source("movies", "Dune"),
+                source("series", Flux.never()),
+                source("music", Flux.error(new IllegalStateException("down"))));
+
+        StepVerifier.create(search.search("dune", Set.of(), 10))
+                .assertNext(result -> {
+                    assertEquals(List.of("Dune"), result.hits().stream().map(SearchHit::title).toList());
+                    assertEquals(Map.of("movies", 1), result.hitsPerType());
+                    assertEquals(List.of("series", "music"), result.partial());
+                })
+                .verifyComplete();
+        assertEquals(1.0, meterRegistry.counter("search.unified.missing", "type", "series").count());
+    }
+
+    @Test
+    void failsWhenTooFewTypesAnswer() {
+        UnifiedSearch search = search(2, source("movies", "Dune"), source("series", Flux.never()));
+
+        StepVerifier.create(search.search("dune", Set.of(), 10))
+                .expectErrorMatches(error -> error instanceof ResponseStatusException status
+                        && status.getStatusCode() == HttpStatus.GATEWAY_TIMEOUT)
+                .verify();
+    }
+
+    @Test
+    void searchesOnlyTheRequestedTypes() {
+        UnifiedSearch search = search(1, source("movies", "Up"), source("series", "Up"));
+
+        StepVerifier.create(search.search("up", Set.of("series"), 10))
+                .assertNext(result -> assertEquals(Map.of("series", 1), result.hitsPerType()))
+                .verifyComplete();
+    }
+
+    @Test
+    void normalizesAccentsCaseAndSpaces() {
+        assertEquals("amelie poulain", UnifiedSearch.normalize("  Amélie   POULAIN "));
+        assertTrue(UnifiedSearch.score("amelie", "amelie", 5) > UnifiedSearch.score("amelie poulain", "amelie", 1));
+    }
+}
@@ -0,0 +1,56 @@
+package com.chillflix.indexer.service;
+
+import com.chillflix.indexer.audit.AuditOutbox;
+import com.chillflix.indexer.dto.MovieDTO;
+import com.chillflix.indexer.entities.Movie;
+import com.chillflix.indexer.exception.ValidationException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.r2dbc.spi.ConnectionFactory;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.dialect.PostgresDialect;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.test.StepVerifier;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class MediaPatchServiceTest {
+
+    private final MediaPatchService patchService = new MediaPatchService(
+            new R2dbcEntityTemplate(DatabaseClient.builder()
+                    .connectionFactory(mock(ConnectionFactory.class))
+                    .bindMarkers(PostgresDialect.INSTANCE.getBindMarkersFactory())
+                    .build(), PostgresDialect.INSTANCE),
+            new ObjectMapper().findAndRegisterModules(),
+            Validation.buildDefaultValidatorFactory().getValidator(),
+            mock(AuditOutbox.class));
+
+    @Test
+    void rejectsUnknownReadOnlyAndInvalidFieldsBeforeWriting() {
+        Map<String, Object> patch = new HashMap<>();
+        patch.put("id", UUID.randomUUID().toString());
+        patch.put("nope", 1);
+        patch.put("seeds", "many");
+        patch.put("title", "");
+
+        StepVerifier.create(patchService.patch(Movie.class, MovieDTO.class, UUID.randomUUID(), patch))
+                .expectErrorSatisfies(error -> {
+                    assertTrue(error instanceof ValidationException);
+                    assertTrue(((ValidationException) error).getErrors().size() >= 4, error.getMessage());
+                })
+                .verify();
+    }
+
+    @Test
+    void rejectsEmptyPatch() {
+        StepVerifier.create(patchService.patch(Movie.class, MovieDTO.class, UUID.randomUUID(), Map.of()))
+                .expectError(ValidationException.class)
+                .verify();
+    }
+}
@@ -0,0 +1,60 @@
+package com.chillflix.indexer.service;
+
+import com.chillflix.indexer.audit.AuditOutbox;
+import com.chillflix.indexer.dedupe.KnownContentIndex;
+import com.chillflix.indexer.dto.VideoDTO;
+import com.chillflix.indexer.entities.Video;
+import com.chillflix.indexer.mapper.VideoMapperImpl;
+import com.chillflix.indexer.repository.VideoRepository;
+import com.chillflix.indexer.util.VideoValidationUtil;
+import com.chillflix.indexer.validation.ValidationMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.validation.beanvalidation.SpringValidatorAdapter;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class VideoServiceTest {
+
+    private final VideoRepository videoRepository = mock(VideoRepository.class);
+    private final AuditOutbox auditOutbox = mock(AuditOutbox.class);
+    private final ValidationMetrics validationMetrics = new ValidationMetrics(new SimpleMeterRegistry(), 100, 10);
+
+    private final VideoService videoService = new VideoService(
+            videoRepository,
+            new VideoMapperImpl(),
+            new SpringValidatorAdapter(Validation.buildDefaultValidatorFactory().getValidator()),
+            mock(MediaPatchService.class),
+            new VideoValidationUtil(validationMetrics),
+            mock(KnownContentIndex.class),
+            auditOutbox,
+            mock(CacheManager.class));
+
+    @Test
+    void acceptsUppercaseHexAndBase32InfoHashes() {
+        when(videoRepository.saveOrUpdate(any(Video.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(auditOutbox.recordUpsert(any())).thenReturn(Mono.empty());
+
+        for (String infoHash : List.of("C12FE1C06BBA254A9DC9F519B335AA7C1367A88A", "YEX6DQDLXISUVHOJ6UM3GNNKPQJWPKEK")) {
+            String magnet = "magnet:?xt=urn:btih:" + infoHash + "&dn=clip&tr=udp://tracker.example:1337";
+            StepVerifier.create(videoService.saveVideo(Mono.just(video(magnet))))
+                    .assertNext(saved -> assertEquals(magnet, saved.magnet()))
+                    .verifyComplete();
+        }
+        assertEquals(0, validationMetrics.totalFailures());
+    }
+
+    private static VideoDTO video(String magnet) {
+        return new VideoDTO(null, "Clip", null, 2020, null, null, magnet, null, null, null, null,
+                null, null, null, null, null, null, null, null, null, null);
+    }
+}
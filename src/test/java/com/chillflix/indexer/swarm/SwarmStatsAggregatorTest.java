@@ -0,0 +1,121 @@
+package com.chillflix.indexer.swarm;
+
+import com.chillflix.indexer.audit.AuditOutbox;
+import com.chillflix.indexer.dto.SwarmStatsDTO;
+import com.chillflix.indexer.exception.ValidationException;
+import com.chillflix.indexer.models.MediaType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.FetchSpec;
+import org.springframework.validation.beanvalidation.SpringValidatorAdapter;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SwarmStatsAggregatorTest {
+
+    private DatabaseClient databaseClient;
+    private DatabaseClient.GenericExecuteSpec spec;
+    private CacheManager cacheManager;
+    private SwarmStatsAggregator aggregator;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        databaseClient = mock(DatabaseClient.class);
+        spec = mock(DatabaseClient.GenericExecuteSpec.class);
+        FetchSpec<Map<String, Object>> fetchSpec = mock(FetchSpec.class);
+        when(databaseClient.sql(anyString())).thenReturn(spec);
+        when(spec.bind(anyString(), any())).thenReturn(spec);
+        when(spec.bindNull(anyString(), any())).thenReturn(spec);
+        when(spec.fetch()).thenReturn(fetchSpec);
+        when(fetchSpec.rowsUpdated()).thenReturn(Mono.just(1L));
+        cacheManager = new ConcurrentMapCacheManager();
+        aggregator = new SwarmStatsAggregator(databaseClient,
+                new SpringValidatorAdapter(Validation.buildDefaultValidatorFactory().getValidator()),
+                mock(AuditOutbox.class), cacheManager, new SimpleMeterRegistry(), 10_000, 2, Duration.ofSeconds(1));
+    }
+
+    @Test
+    void lastWriteWinsAndOneStatementPerTableAndBatch() {
+        UUID movie = UUID.randomUUID();
+        aggregator.submit(List.of(
+                new SwarmStatsDTO(MediaType.MOVIE, movie, 1, 1),
+                new SwarmStatsDTO(MediaType.MOVIE, movie, 50, 7),
+                new SwarmStatsDTO(MediaType.MOVIE, UUID.randomUUID(), 3, null),
+                new SwarmStatsDTO(MediaType.MOVIE, UUID.randomUUID(), 4, 4),
+                new SwarmStatsDTO(MediaType.SERIES, UUID.randomUUID(), 5, 5)));
+        assertEquals(4, aggregator.pending());
+
+        aggregator.flush().block();
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        // 3 películas en lotes de 2 + 1 serie
+        verify(databaseClient, times(3)).sql(sql.capture());
+        assertEquals(2, sql.getAllValues().stream().filter(s -> s.startsWith("UPDATE movies AS t")).count());
+        assertTrue(sql.getAllValues().stream().anyMatch(s -> s.startsWith("UPDATE series AS t")));
+        assertTrue(sql.getAllValues().get(0).contains("FROM (VALUES (CAST(:id0 AS uuid)"));
+        verify(spec).bind(anyString(), eq(50));
+        verify(spec).bindNull(anyString(), eq(Integer.class));
+        assertEquals(0, aggregator.pending());
+    }
+
+    @Test
+    void flushEvictsTheCachedRowsAndPagesOfItsType() {
+        UUID movie = UUID.randomUUID();
+        UUID series = UUID.randomUUID();
+        cacheManager.getCache("movieCache").put(movie, "stale");
+        cacheManager.getCache("allMoviesCache").put("page", List.of("stale"));
+        cacheManager.getCache("seriesCache").put(series, "untouched");
+        aggregator.submit(List.of(new SwarmStatsDTO(MediaType.MOVIE, movie, 9, 9)));
+
+        aggregator.flush().block();
+
+        assertNull(cacheManager.getCache("movieCache").get(movie));
+        assertNull(cacheManager.getCache("allMoviesCache").get("page"));
+        assertNotNull(cacheManager.getCache("seriesCache").get(series));
+    }
+
+    @Test
+    void invalidUpdatesAreRejectedWithoutBuffering() {
+        assertThrows(ValidationException.class, () -> aggregator.submit(List.of(
+                new SwarmStatsDTO(MediaType.MUSIC, UUID.randomUUID(), 1, 1),
+                new SwarmStatsDTO(MediaType.MUSIC, null, -1, 1))));
+        assertEquals(0, aggregator.pending());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failedBatchIsRequeued() {
+        FetchSpec<Map<String, Object>> failing = mock(FetchSpec.class);
+        when(failing.rowsUpdated()).thenReturn(Mono.error(new IllegalStateException("db down")));
+        when(spec.fetch()).thenReturn(failing);
+        aggregator.submit(List.of(new SwarmStatsDTO(MediaType.VIDEO, UUID.randomUUID(), 1, 1)));
+
+        aggregator.flush().block();
+
+        assertEquals(1, aggregator.pending());
+    }
+}
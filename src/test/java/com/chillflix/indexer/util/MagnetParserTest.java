@@ -0,0 +1,92 @@
+package com.chillflix.indexer.util;
+
+import com.chillflix.indexer.dedupe.KnownContentIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MagnetParserTest {
+
+    private static final String HEX_HASH = "c12fe1c06bba254a9dc9f519b335aa7c1367a88a";
+
+    @Test
+    void parse_HexInfoHashWithNameTrackersAndLength() {
+        MagnetParser.Result result = MagnetParser.parse("magnet:?xt=urn:btih:" + HEX_HASH.toUpperCase()
+                + "&dn=Big+Buck%20Bunny&tr=udp%3A%2F%2Ftracker.example.org%3A1337&tr=https://t.example/a+b&xl=1048576");
+
+        assertTrue(result.isValid());
+        MagnetLink link = result.link();
+        assertEquals(HEX_HASH, link.infoHash());
+        assertNull(link.infoHashV2());
+        assertEquals("Big Buck Bunny", link.displayName());
+        assertEquals(List.of("udp://tracker.example.org:1337", "https://t.example/a+b"), link.trackers());
+        assertEquals(1048576L, link.exactLength());
+    }
+
+    @Test
+    void parse_Base32InfoHashIsNormalisedToHex() {
+        MagnetParser.Result result = MagnetParser.parse("magnet:?xt=urn:btih:YEX6DQDLXISUVHOJ6UM3GNNKPQJWPKEK&dn=x");
+
+        assertTrue(result.isValid());
+        assertEquals(HEX_HASH, result.link().infoHash());
+    }
+
+    @Test
+    void parse_V2MultihashWithoutV1Hash() {
+        String multihash = "1220" + "ab".repeat(32);
+        MagnetParser.Result result = MagnetParser.parse("magnet:?xt=urn:btmh:" + multihash + "&tr=udp://t:1");
+
+        assertTrue(result.isValid());
+        assertNull(result.link().infoHash());
+        assertEquals(multihash, result.link().infoHashV2());
+        assertEquals(multihash, result.link().dedupeKey());
+    }
+
+    @Test
+    void v2OnlyLinkIsNotKeyedForDedupe() {
+        String v2Only = "magnet:?xt=urn:btmh:1220" + "ab".repeat(32);
+
+        assertNull(MagnetParser.infoHash(v2Only));
+        assertEquals(Optional.of(KnownContentIndex.Outcome.UNKEYED), KnownContentIndex.unscreened(null, v2Only));
+        assertEquals(Optional.empty(), KnownContentIndex.unscreened("A".repeat(64), v2Only));
+        assertEquals(Optional.empty(), KnownContentIndex.unscreened(null, "magnet:?xt=urn:btih:" + HEX_HASH));
+    }
+
+    @Test
+    void base32LinkIsNotScreenedByInfoHash() {
+        String base32 = "magnet:?xt=urn:btih:YEX6DQDLXISUVHOJ6UM3GNNKPQJWPKEK&dn=x";
+
+        assertTrue(MagnetParser.parse(base32).link().infoHashBase32());
+        assertFalse(MagnetParser.parse("magnet:?xt=urn:btih:" + HEX_HASH).link().infoHashBase32());
+        assertEquals(Optional.of(KnownContentIndex.Outcome.BASE32), KnownContentIndex.unscreened(null, base32));
+        assertEquals(Optional.empty(), KnownContentIndex.unscreened("A".repeat(64), base32));
+    }
+
+    @Test
+    void parse_ParametersInAnyOrder() {
+        MagnetParser.Result result = MagnetParser.parse("magnet:?dn=name&tr=udp://t:1&xt.1=urn:btih:" + HEX_HASH);
+
+        assertTrue(result.isValid());
+        assertEquals(HEX_HASH, result.link().infoHash());
+    }
+
+    @Test
+    void parse_Failures() {
+        assertEquals(MagnetParser.Failure.EMPTY, MagnetParser.parse(null).failure());
+        assertEquals(MagnetParser.Failure.EMPTY, MagnetParser.parse("").failure());
+        assertEquals(MagnetParser.Failure.NOT_A_MAGNET, MagnetParser.parse("http://example.org").failure());
+        assertEquals(MagnetParser.Failure.NO_INFO_HASH, MagnetParser.parse("magnet:?dn=name").failure());
+        assertEquals(MagnetParser.Failure.INVALID_INFO_HASH, MagnetParser.parse("magnet:?xt=urn:btih:123").failure());
+        assertEquals(MagnetParser.Failure.INVALID_INFO_HASH,
+                MagnetParser.parse("magnet:?xt=urn:btih:" + "g".repeat(40)).failure());
+        assertEquals(MagnetParser.Failure.MALFORMED_PARAMETER,
+                MagnetParser.parse("magnet:?xt=urn:btih:" + HEX_HASH + "&dn").failure());
+        assertEquals(MagnetParser.Failure.MALFORMED_PARAMETER,
+                MagnetParser.parse("magnet:?xt=urn:btih:" + HEX_HASH + "&dn=%zz").failure());
+        assertEquals(MagnetParser.Failure.INVALID_LENGTH,
+                MagnetParser.parse("magnet:?xt=urn:btih:" + HEX_HASH + "&xl=12a").failure());
+    }
+}
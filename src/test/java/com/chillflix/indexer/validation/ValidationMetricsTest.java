@@ -0,0 +1,54 @@
+package com.chillflix.indexer.validation;
+
+import com.chillflix.indexer.models.MediaType;
+import com.chillflix.indexer.util.MovieValidationUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ValidationMetricsTest {
+
+    @Test
+    void registrySizeStaysConstantUnderMillionInvalidInputs() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ValidationMetrics metrics = new ValidationMetrics(registry, 100, 10);
+        MovieValidationUtil util = new MovieValidationUtil(metrics);
+
+        // Calentamiento: registra los contadores de cada motivo usado
+        util.isValidSha256Hash("abc0");
+        util.extractHashFromMagnet("not-a-magnet-0");
+        int meters = registry.getMeters().size();
+
+        for (int i = 1; i < 1_000_000; i++) {
+            util.isValidSha256Hash("abc" + i);
+            util.extractHashFromMagnet("not-a-magnet-" + i);
+        }
+
+        assertEquals(meters, registry.getMeters().size());
+        assertEquals(2, meters);
+        assertEquals(1_000_000, registry.get(ValidationMetrics.FAILURES_METER)
+                .tag("reason", "hash_lowercase").tag("media_type", "movie").tag("source", "api")
+                .counter().count());
+        assertEquals(2_000_000, metrics.totalFailures());
+        assertEquals(100, metrics.recentSamples().size());
+    }
+
+    @Test
+    void recentSamplesAreNewestFirstAndTruncated() {
+        ValidationMetrics metrics = new ValidationMetrics(new SimpleMeterRegistry(), 3, 1);
+        for (int i = 0; i < 5; i++) {
+            metrics.recordFailure(MediaType.MUSIC, ValidationReason.HASH_NULL, ValidationSource.BULK, "v" + i);
+        }
+        metrics.recordFailure(MediaType.MUSIC, ValidationReason.MAGNET_EMPTY, ValidationSource.BULK, "x".repeat(1000));
+
+        List<ValidationMetrics.Sample> samples = metrics.recentSamples();
+        assertEquals(3, samples.size());
+        assertTrue(samples.get(0).value().length() <= ValidationMetrics.MAX_VALUE_LENGTH + 3);
+        assertEquals("v4", samples.get(1).value());
+        assertEquals("v3", samples.get(2).value());
+    }
+}
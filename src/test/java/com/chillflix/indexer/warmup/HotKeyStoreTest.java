@@ -0,0 +1,58 @@
+package com.chillflix.indexer.warmup;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HotKeyStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void savedKeysAreLoadedInOrder() {
+        HotKeyStore store = new HotKeyStore(dir.resolve("hot-keys"));
+        Map<String, List<UUID>> keys = new LinkedHashMap<>();
+        keys.put("movieCache", List.of(UUID.randomUUID(), UUID.randomUUID()));
+        keys.put("seriesCache", List.of(UUID.randomUUID()));
+        store.save(keys);
+        assertEquals(keys, store.load());
+    }
+
+    @Test
+    void missingFileHasNoKeys() {
+        assertTrue(new HotKeyStore(dir.resolve("absent")).load().isEmpty());
+    }
+
+    @Test
+    void foreignFileHasNoKeys() throws IOException {
+        Path file = dir.resolve("hot-keys");
+        Files.writeString(file, "movieCache " + UUID.randomUUID() + "\n");
+        assertTrue(new HotKeyStore(file).load().isEmpty());
+    }
+
+    @Test
+    void truncatedFileKeepsTheCompleteCaches() throws IOException {
+        Path file = dir.resolve("hot-keys");
+        HotKeyStore store = new HotKeyStore(file);
+        List<UUID> movies = List.of(UUID.randomUUID());
+        Map<String, List<UUID>> keys = new LinkedHashMap<>();
+        keys.put("movieCache", movies);
+        keys.put("seriesCache", List.of(UUID.randomUUID(), UUID.randomUUID()));
+        store.save(keys);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 8));
+        assertEquals(Map.of("movieCache", movies), store.load());
+    }
+}
@@ -0,0 +1,42 @@
+package com.chillflix.indexer.warmup;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WarmupTest {
+
+    @Test
+    void hottestKeysComeFromTheCacheEvictionPolicy() {
+        CaffeineCache cache = new CaffeineCache("movieCache", Caffeine.newBuilder().maximumSize(4).executor(Runnable::run).buildAsync(), false);
+        UUID hot = UUID.randomUUID();
+        UUID cold = UUID.randomUUID();
+        cache.put(hot, "hot");
+        cache.put(cold, "cold");
+        cache.put("not-a-uuid", "page");
+        for (int i = 0; i < 10; i++) {
+            cache.get(hot);
+        }
+        List<UUID> hottest = Warmup.hottest(cache, 1);
+        assertEquals(List.of(hot), hottest);
+        assertEquals(2, Warmup.hottest(cache, 10).size());
+    }
+
+    @Test
+    void onlyTheProcessTokenMarksWarmupTraffic() {
+        assertTrue(WarmupTraffic.isWarmup(MockServerWebExchange.from(MockServerHttpRequest.get("/")
+                .header(WarmupTraffic.HEADER, WarmupTraffic.token()))));
+        assertFalse(WarmupTraffic.isWarmup(MockServerWebExchange.from(MockServerHttpRequest.get("/")
+                .header(WarmupTraffic.HEADER, UUID.randomUUID().toString()))));
+        assertFalse(WarmupTraffic.isWarmup(MockServerWebExchange.from(MockServerHttpRequest.get("/"))));
+    }
+}